@@ -0,0 +1,65 @@
+package net.coderodde.funky.pathfinding.benchmarks;
+
+import java.awt.Point;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import net.coderodde.funky.pathfinding.BIDDFSPathFinder;
+import net.coderodde.funky.pathfinding.GridModel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link BIDDFSPathFinder} over moderate distances, which its
+ * iterative deepening needs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BIDDFSBenchmark {
+    
+    private static final int SIZE = 128;
+    
+    @Param({ "OPEN", "RANDOM" })
+    public MapFamily family;
+    
+    @Param({ "4", "16", "48" })
+    public int distance;
+    
+    @Param({ "13" })
+    public long seed;
+    
+    private GridModel grid;
+    private Point source;
+    private Point target;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        grid = family.generate(SIZE, SIZE, seed);
+        source = new Point(SIZE / 2, SIZE / 2);
+        target = new Point(SIZE / 2 + distance, SIZE / 2);
+        
+        for (int x = source.x; x <= target.x; ++x) {
+            grid.removeWall(x, source.y);
+        }
+    }
+    
+    @Benchmark
+    public List<Point> search() {
+        BIDDFSPathFinder pathfinder = new BIDDFSPathFinder();
+        pathfinder.setGridModel(grid);
+        return pathfinder.search(source, target);
+    }
+}
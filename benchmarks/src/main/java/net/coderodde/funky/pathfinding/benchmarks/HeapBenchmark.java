@@ -0,0 +1,138 @@
+package net.coderodde.funky.pathfinding.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import net.coderodde.funky.pathfinding.IndexedBinaryHeap;
+import net.coderodde.funky.pathfinding.IntDaryHeap;
+import net.coderodde.funky.pathfinding.IntIndexedBinaryHeap;
+import net.coderodde.funky.pathfinding.IntLazyBinaryHeap;
+import net.coderodde.funky.pathfinding.IntPairingHeap;
+import net.coderodde.funky.pathfinding.IntPriorityQueue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Microbenchmarks the priority queues by replaying the same trace of
+ * insertions, priority decreases and extractions.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HeapBenchmark {
+    
+    @Param({ "IndexedBinaryHeap",
+             "IntIndexedBinaryHeap",
+             "IntDaryHeap",
+             "IntPairingHeap",
+             "IntLazyBinaryHeap" })
+    public String heap;
+    
+    @Param({ "1024", "65536" })
+    public int size;
+    
+    private double[] priorities;
+    private int[] decreasedElements;
+    private double[] decreaseFactors;
+    private IntPriorityQueue intPriorityQueue;
+    private IndexedBinaryHeap<Integer, Double> indexedBinaryHeap;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(13);
+        priorities = new double[size];
+        decreasedElements = new int[size];
+        decreaseFactors = new double[size];
+        
+        for (int i = 0; i < size; ++i) {
+            priorities[i] = random.nextDouble() * size;
+            decreasedElements[i] = random.nextInt(size);
+            decreaseFactors[i] = random.nextDouble();
+        }
+        
+        switch (heap) {
+            case "IndexedBinaryHeap":
+                indexedBinaryHeap = new IndexedBinaryHeap<>();
+                break;
+            
+            case "IntIndexedBinaryHeap":
+                intPriorityQueue = new IntIndexedBinaryHeap(size);
+                break;
+            
+            case "IntDaryHeap":
+                intPriorityQueue = new IntDaryHeap(size);
+                break;
+            
+            case "IntPairingHeap":
+                intPriorityQueue = new IntPairingHeap(size);
+                break;
+            
+            case "IntLazyBinaryHeap":
+                intPriorityQueue = new IntLazyBinaryHeap(size);
+                break;
+            
+            default:
+                throw new IllegalArgumentException("Unknown heap: " + heap);
+        }
+    }
+    
+    @Benchmark
+    public void replay(Blackhole blackhole) {
+        if (indexedBinaryHeap != null) {
+            replayBoxed(blackhole);
+        } else {
+            replayPrimitive(blackhole);
+        }
+    }
+    
+    private void replayPrimitive(Blackhole blackhole) {
+        IntPriorityQueue queue = intPriorityQueue;
+        double[] currentPriorities = priorities.clone();
+        
+        for (int i = 0; i < size; ++i) {
+            queue.add(i, currentPriorities[i]);
+        }
+        
+        for (int i = 0; i < size; ++i) {
+            int element = decreasedElements[i];
+            currentPriorities[element] *= decreaseFactors[i];
+            queue.decreasePriority(element, currentPriorities[element]);
+        }
+        
+        while (queue.size() > 0) {
+            blackhole.consume(queue.extractMinimum());
+        }
+    }
+    
+    private void replayBoxed(Blackhole blackhole) {
+        IndexedBinaryHeap<Integer, Double> queue = indexedBinaryHeap;
+        double[] currentPriorities = priorities.clone();
+        
+        for (int i = 0; i < size; ++i) {
+            queue.add(i, currentPriorities[i]);
+        }
+        
+        for (int i = 0; i < size; ++i) {
+            int element = decreasedElements[i];
+            currentPriorities[element] *= decreaseFactors[i];
+            queue.decreasePriority(element, currentPriorities[element]);
+        }
+        
+        while (queue.size() > 0) {
+            blackhole.consume(queue.extractMinimum());
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package net.coderodde.funky.pathfinding.benchmarks;
+
+import java.util.Random;
+import net.coderodde.funky.pathfinding.GridModel;
+
+/**
+ * This enumeration lists the seeded map families the pathfinders are
+ * benchmarked on. The corners of every map are traversable.
+ */
+public enum MapFamily {
+    
+    /**
+     * No walls at all.
+     */
+    OPEN {
+        @Override
+        void carve(GridModel grid, Random random) {}
+    },
+    
+    /**
+     * Each cell is a wall with probability 0.25.
+     */
+    RANDOM {
+        @Override
+        void carve(GridModel grid, Random random) {
+            for (int y = 0; y < grid.getHeight(); ++y) {
+                for (int x = 0; x < grid.getWidth(); ++x) {
+                    if (random.nextDouble() < 0.25) {
+                        grid.setWall(x, y);
+                    }
+                }
+            }
+        }
+    },
+    
+    /**
+     * A perfect maze with corridors of width one, generated by a randomized
+     * depth-first search over the cells with even coordinates.
+     */
+    MAZE {
+        @Override
+        void carve(GridModel grid, Random random) {
+            int width = grid.getWidth();
+            int height = grid.getHeight();
+            
+            for (int y = 0; y < height; ++y) {
+                for (int x = 0; x < width; ++x) {
+                    grid.setWall(x, y);
+                }
+            }
+            
+            int cellsX = (width + 1) / 2;
+            int cellsY = (height + 1) / 2;
+            boolean[] visited = new boolean[cellsX * cellsY];
+            int[] stack = new int[cellsX * cellsY];
+            int[] candidates = new int[4];
+            int stackSize = 0;
+            
+            stack[stackSize++] = 0;
+            visited[0] = true;
+            grid.removeWall(0, 0);
+            
+            while (stackSize > 0) {
+                int cell = stack[stackSize - 1];
+                int cx = cell % cellsX;
+                int cy = cell / cellsX;
+                int candidateCount = 0;
+                
+                for (int[] step : STEPS) {
+                    int nx = cx + step[0];
+                    int ny = cy + step[1];
+                    
+                    if (nx >= 0 && nx < cellsX && ny >= 0 && ny < cellsY
+                            && !visited[ny * cellsX + nx]) {
+                        candidates[candidateCount++] = ny * cellsX + nx;
+                    }
+                }
+                
+                if (candidateCount == 0) {
+                    stackSize--;
+                    continue;
+                }
+                
+                int next = candidates[random.nextInt(candidateCount)];
+                int nx = next % cellsX;
+                int ny = next / cellsX;
+                visited[next] = true;
+                grid.removeWall(cx + nx, cy + ny);
+                grid.removeWall(2 * nx, 2 * ny);
+                stack[stackSize++] = next;
+            }
+        }
+    },
+    
+    /**
+     * A grid of square rooms, each connected to its right and bottom
+     * neighbors through a door at a random position.
+     */
+    ROOMS {
+        @Override
+        void carve(GridModel grid, Random random) {
+            int width = grid.getWidth();
+            int height = grid.getHeight();
+            
+            for (int x = ROOM_SIZE; x < width; x += ROOM_SIZE) {
+                for (int y = 0; y < height; ++y) {
+                    grid.setWall(x, y);
+                }
+                
+                for (int y = 0; y < height; y += ROOM_SIZE) {
+                    int door = y + 1 + random.nextInt(ROOM_SIZE - 1);
+                    
+                    if (door < height) {
+                        grid.removeWall(x, door);
+                    }
+                }
+            }
+            
+            for (int y = ROOM_SIZE; y < height; y += ROOM_SIZE) {
+                for (int x = 0; x < width; ++x) {
+                    grid.setWall(x, y);
+                }
+                
+                for (int x = 0; x < width; x += ROOM_SIZE) {
+                    int door = x + 1 + random.nextInt(ROOM_SIZE - 1);
+                    
+                    if (door < width) {
+                        grid.removeWall(door, y);
+                    }
+                }
+            }
+        }
+    };
+    
+    private static final int[][] STEPS = { { 1, 0 }, { -1, 0 },
+                                           { 0, 1 }, { 0, -1 } };
+    
+    private static final int ROOM_SIZE = 16;
+    
+    /**
+     * Generates a map of this family.
+     *
+     * @param width  the width of the map.
+     * @param height the height of the map.
+     * @param seed   the seed of the random number generator.
+     * @return the map.
+     */
+    public GridModel generate(int width, int height, long seed) {
+        GridModel grid = new GridModel(width, height);
+        carve(grid, new Random(seed));
+        grid.removeWall(0, 0);
+        grid.removeWall(width - 1, height - 1);
+        return grid;
+    }
+    
+    abstract void carve(GridModel grid, Random random);
+}
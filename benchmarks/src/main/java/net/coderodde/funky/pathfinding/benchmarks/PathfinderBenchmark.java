@@ -0,0 +1,81 @@
+package net.coderodde.funky.pathfinding.benchmarks;
+
+import java.awt.Point;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import net.coderodde.funky.pathfinding.AbstractPathFinder;
+import net.coderodde.funky.pathfinding.GridModel;
+import net.coderodde.funky.pathfinding.PathfinderRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures a corner-to-corner query of each pathfinder on each map family.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PathfinderBenchmark {
+    
+    @Param({ PathfinderRegistry.ASTAR_NAME,
+             PathfinderRegistry.ALT_NAME,
+             PathfinderRegistry.DIJKSTRA_NAME,
+             PathfinderRegistry.PHBA_NAME,
+             PathfinderRegistry.NBASTAR_NAME,
+             PathfinderRegistry.BIDIJKSTRA_NAME,
+             PathfinderRegistry.PHBA_PARALLEL_NAME,
+             PathfinderRegistry.NBASTAR_PARALLEL_NAME,
+             PathfinderRegistry.BIDIJKSTRA_PARALLEL_NAME,
+             PathfinderRegistry.JPS_NAME,
+             PathfinderRegistry.JPS_PLUS_NAME,
+             PathfinderRegistry.HPASTAR_NAME })
+    public String algorithm;
+    
+    @Param({ "OPEN", "RANDOM", "MAZE", "ROOMS" })
+    public MapFamily family;
+    
+    @Param({ "128", "512" })
+    public int size;
+    
+    @Param({ "13" })
+    public long seed;
+    
+    private PathfinderRegistry registry;
+    private AbstractPathFinder pathfinder;
+    private Point source;
+    private Point target;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        GridModel grid = family.generate(size, size, seed);
+        registry = new PathfinderRegistry(grid);
+        pathfinder = registry.create(algorithm);
+        source = new Point(0, 0);
+        target = new Point(size - 1, size - 1);
+        pathfinder.search(source, target);
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        registry.dispose();
+    }
+    
+    @Benchmark
+    public List<Point> search() {
+        return pathfinder.search(source, target);
+    }
+}
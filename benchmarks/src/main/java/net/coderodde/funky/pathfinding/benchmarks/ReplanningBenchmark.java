@@ -0,0 +1,82 @@
+package net.coderodde.funky.pathfinding.benchmarks;
+
+import java.awt.Point;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import net.coderodde.funky.pathfinding.AbstractPathFinder;
+import net.coderodde.funky.pathfinding.GridModel;
+import net.coderodde.funky.pathfinding.PathfinderRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures replanning after toggling one wall: A* from scratch against
+ * D* Lite repairing its previous search.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReplanningBenchmark {
+    
+    /**
+     * The number of cells the edits cycle through.
+     */
+    private static final int EDITED_CELLS = 8;
+    
+    @Param({ PathfinderRegistry.ASTAR_NAME,
+             PathfinderRegistry.DSTAR_LITE_NAME })
+    public String algorithm;
+    
+    @Param({ "OPEN", "RANDOM", "ROOMS" })
+    public MapFamily family;
+    
+    @Param({ "512" })
+    public int size;
+    
+    @Param({ "13" })
+    public long seed;
+    
+    private GridModel grid;
+    private PathfinderRegistry registry;
+    private AbstractPathFinder pathfinder;
+    private Point source;
+    private Point target;
+    private int edits;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        grid = family.generate(size, size, seed);
+        registry = new PathfinderRegistry(grid);
+        pathfinder = registry.create(algorithm);
+        source = new Point(0, 0);
+        target = new Point(size - 1, size - 1);
+        pathfinder.search(source, target);
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        registry.dispose();
+    }
+    
+    @Benchmark
+    public List<Point> replan() {
+        int x = size / 2 + edits++ % EDITED_CELLS;
+        int y = size / 2;
+        grid.setWall(x, y, !grid.isWall(x, y));
+        return pathfinder.search(source, target);
+    }
+}
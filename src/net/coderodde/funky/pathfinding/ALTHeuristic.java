@@ -0,0 +1,444 @@
+package net.coderodde.funky.pathfinding;
+
+import java.awt.Point;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Random;
+import static net.coderodde.funky.pathfinding.GridModel.MAXIMUM_NUMBER_OF_NEIGHBORS;
+
+/**
+ * This class implements the ALT (A*, landmarks and triangle inequality)
+ * heuristic over distance tables precomputed from a few landmark cells. The
+ * tables are rebuilt whenever the grid changes.
+ */
+public final class ALTHeuristic implements AStarTemplatePathfinder.Heuristic {
+    
+    /**
+     * Lists the strategies for choosing the landmarks.
+     */
+    public enum LandmarkSelection {
+        
+        /**
+         * Each landmark is the cell farthest from the landmarks chosen so far.
+         */
+        FARTHEST,
+        
+        /**
+         * Each landmark is chosen in the region of a shortest path tree whose
+         * distances the landmarks chosen so far estimate the worst, as in
+         * the "avoid" method of Goldberg and Werneck.
+         */
+        AVOID
+    }
+    
+    /**
+     * The default number of landmarks.
+     */
+    public static final int DEFAULT_NUMBER_OF_LANDMARKS = 8;
+    
+    /**
+     * The seed used for picking the roots of the shortest path trees of the
+     * avoid method. Fixed, so that the landmarks of a grid are reproducible.
+     */
+    private static final long SEED = 13L;
+    
+    /**
+     * Denotes that a cell has no parent in a shortest path tree.
+     */
+    private static final int NO_PARENT = -1;
+    
+    /**
+     * The grid whose distances this heuristic estimates.
+     */
+    private final GridModel grid;
+    
+    /**
+     * The requested number of landmarks.
+     */
+    private final int requestedLandmarkCount;
+    
+    /**
+     * The landmark selection strategy.
+     */
+    private final LandmarkSelection selection;
+    
+    /**
+     * The landmark cells. May be shorter than requested if the grid has
+     * fewer traversable cells.
+     */
+    private int[] landmarks = new int[0];
+    
+    /**
+     * The distance from the {@code i}th landmark to the cell {@code c} is
+     * stored at the index {@code c * landmarks.length + i}.
+     */
+    private volatile float[] distances;
+    
+    /**
+     * The largest possible error of a single stored distance.
+     */
+    private double slack;
+    
+    /**
+     * The modification count of the grid at the time the tables were built.
+     */
+    private int modificationCount;
+    
+    public ALTHeuristic(GridModel grid) {
+        this(grid, DEFAULT_NUMBER_OF_LANDMARKS, LandmarkSelection.FARTHEST);
+    }
+    
+    public ALTHeuristic(GridModel grid, int landmarkCount) {
+        this(grid, landmarkCount, LandmarkSelection.FARTHEST);
+    }
+    
+    public ALTHeuristic(GridModel grid,
+                        int landmarkCount,
+                        LandmarkSelection selection) {
+        this.grid = Objects.requireNonNull(grid, "The grid model is null.");
+        this.selection = Objects.requireNonNull(selection,
+                                                "The selection is null.");
+        
+        if (landmarkCount < 1) {
+            throw new IllegalArgumentException(
+                    "The number of landmarks must be positive: " +
+                    landmarkCount + ".");
+        }
+        
+        this.requestedLandmarkCount = landmarkCount;
+    }
+    
+    public GridModel getGridModel() {
+        return grid;
+    }
+    
+    /**
+     * Returns the indices of the landmark cells of the latest build.
+     *
+     * @return the landmark cells.
+     */
+    public synchronized int[] getLandmarks() {
+        return landmarks.clone();
+    }
+    
+    /**
+     * Rebuilds the landmark tables if the grid was modified since the last
+     * build.
+     */
+    public synchronized void update() {
+        if (distances != null
+                && modificationCount == grid.getModificationCount()) {
+            return;
+        }
+        
+        int cellCount = grid.getWidth() * grid.getHeight();
+        int gridModificationCount = grid.getModificationCount();
+        Dijkstra dijkstra = new Dijkstra(cellCount);
+        int[] chosen = new int[requestedLandmarkCount];
+        float[][] tables = new float[requestedLandmarkCount][];
+        int chosenCount = 0;
+        
+        // The distances from the nearest landmark chosen so far.
+        double[] nearest = new double[cellCount];
+        Arrays.fill(nearest, Double.POSITIVE_INFINITY);
+        Random random = new Random(SEED);
+        
+        int start = getStartCell();
+        
+        if (start != NO_PARENT) {
+            dijkstra.run(start);
+            int first = getFarthestCell(dijkstra.distances);
+            
+            while (chosenCount < requestedLandmarkCount) {
+                int landmark = chosenCount == 0 ? first :
+                        selectLandmark(dijkstra,
+                                       nearest,
+                                       chosen,
+                                       tables,
+                                       chosenCount,
+                                       random);
+                
+                if (landmark == NO_PARENT) {
+                    break;
+                }
+                
+                dijkstra.run(landmark);
+                float[] table = new float[cellCount];
+                
+                for (int cell = 0; cell < cellCount; ++cell) {
+                    double distance = dijkstra.distances[cell];
+                    table[cell] = roundDown(distance);
+                    nearest[cell] = Math.min(nearest[cell], distance);
+                }
+                
+                chosen[chosenCount] = landmark;
+                tables[chosenCount] = table;
+                chosenCount++;
+            }
+        }
+        
+        float[] newDistances = new float[cellCount * chosenCount];
+        double maximumDistance = 0.0;
+        
+        for (int i = 0; i < chosenCount; ++i) {
+            float[] table = tables[i];
+            
+            for (int cell = 0; cell < cellCount; ++cell) {
+                float distance = table[cell];
+                newDistances[cell * chosenCount + i] = distance;
+                
+                if (distance != Float.POSITIVE_INFINITY) {
+                    maximumDistance = Math.max(maximumDistance, distance);
+                }
+            }
+        }
+        
+        this.landmarks = Arrays.copyOf(chosen, chosenCount);
+        this.slack = Math.ulp((float) maximumDistance);
+        this.modificationCount = gridModificationCount;
+        this.distances = newDistances;
+    }
+    
+    @Override
+    public double estimate(Point p1, Point p2) {
+        if (distances == null
+                || modificationCount != grid.getModificationCount()) {
+            update();
+        }
+        
+        float[] distances = this.distances;
+        int landmarkCount = distances.length / (grid.getWidth() *
+                                                grid.getHeight());
+        int base1 = grid.getIndex(p1) * landmarkCount;
+        int base2 = grid.getIndex(p2) * landmarkCount;
+        double best = 0.0;
+        
+        for (int i = 0; i < landmarkCount; ++i) {
+            float distance1 = distances[base1 + i];
+            float distance2 = distances[base2 + i];
+            
+            if (distance1 == Float.POSITIVE_INFINITY
+                    || distance2 == Float.POSITIVE_INFINITY) {
+                continue;
+            }
+            
+            best = Math.max(best, Math.abs((double) distance1 - distance2));
+        }
+        
+        return Math.max(p1.distance(p2), best - slack);
+    }
+    
+    /**
+     * Returns a traversable cell near the center of the grid, or
+     * {@code NO_PARENT} if the grid has no traversable cells.
+     */
+    private int getStartCell() {
+        int width = grid.getWidth();
+        int cellCount = width * grid.getHeight();
+        int center = grid.getIndex(width / 2, grid.getHeight() / 2);
+        
+        for (int i = 0; i < cellCount; ++i) {
+            int cell = (center + i) % cellCount;
+            
+            if (!grid.isWall(cell % width, cell / width)) {
+                return cell;
+            }
+        }
+        
+        return NO_PARENT;
+    }
+    
+    private static int getFarthestCell(double[] distances) {
+        int farthest = NO_PARENT;
+        double farthestDistance = -1.0;
+        
+        for (int cell = 0; cell < distances.length; ++cell) {
+            double distance = distances[cell];
+            
+            if (distance != Double.POSITIVE_INFINITY
+                    && distance > farthestDistance) {
+                farthest = cell;
+                farthestDistance = distance;
+            }
+        }
+        
+        return farthest;
+    }
+    
+    private int selectLandmark(Dijkstra dijkstra,
+                               double[] nearest,
+                               int[] chosen,
+                               float[][] tables,
+                               int chosenCount,
+                               Random random) {
+        // Only the cells reachable from the first landmark are candidates, so
+        // that the landmarks are not wasted on small enclosed pockets.
+        float[] firstTable = tables[0];
+        int farthest = NO_PARENT;
+        double farthestDistance = 0.0;
+        
+        for (int cell = 0; cell < nearest.length; ++cell) {
+            if (firstTable[cell] != Float.POSITIVE_INFINITY
+                    && nearest[cell] > farthestDistance) {
+                farthest = cell;
+                farthestDistance = nearest[cell];
+            }
+        }
+        
+        if (selection == LandmarkSelection.FARTHEST || farthest == NO_PARENT) {
+            return farthest;
+        }
+        
+        int root = getRandomReachableCell(firstTable, random);
+        dijkstra.run(root);
+        
+        int cellCount = nearest.length;
+        double[] sizes = new double[cellCount];
+        int[] bestChildren = new int[cellCount];
+        boolean[] containsLandmark = new boolean[cellCount];
+        Arrays.fill(bestChildren, NO_PARENT);
+        
+        for (int i = 0; i < chosenCount; ++i) {
+            containsLandmark[chosen[i]] = true;
+        }
+        
+        // Accumulate the subtree sizes bottom up: the weight of a cell is the
+        // gap between its distance from the root and the lower bound of the
+        // landmarks, and a subtree containing a landmark counts as empty.
+        for (int i = dijkstra.settledCount - 1; i >= 0; --i) {
+            int cell = dijkstra.order[i];
+            
+            if (containsLandmark[cell]) {
+                sizes[cell] = 0.0;
+            } else {
+                sizes[cell] += dijkstra.distances[cell] -
+                               getLowerBound(tables, chosenCount, root, cell);
+            }
+            
+            int parent = dijkstra.parents[cell];
+            
+            if (parent == NO_PARENT) {
+                continue;
+            }
+            
+            if (containsLandmark[cell]) {
+                containsLandmark[parent] = true;
+            }
+            
+            sizes[parent] += sizes[cell];
+            
+            if (bestChildren[parent] == NO_PARENT
+                    || sizes[bestChildren[parent]] < sizes[cell]) {
+                bestChildren[parent] = cell;
+            }
+        }
+        
+        // Descend from the root along the largest subtrees down to a leaf.
+        int cell = root;
+        
+        while (bestChildren[cell] != NO_PARENT
+                && sizes[bestChildren[cell]] > 0.0) {
+            cell = bestChildren[cell];
+        }
+        
+        return containsLandmark[cell] ? farthest : cell;
+    }
+    
+    private static int getRandomReachableCell(float[] table, Random random) {
+        int reachableCount = 0;
+        
+        for (float distance : table) {
+            if (distance != Float.POSITIVE_INFINITY) {
+                reachableCount++;
+            }
+        }
+        
+        int skip = random.nextInt(reachableCount);
+        
+        for (int cell = 0; cell < table.length; ++cell) {
+            if (table[cell] != Float.POSITIVE_INFINITY && skip-- == 0) {
+                return cell;
+            }
+        }
+        
+        throw new IllegalStateException("Should not get here.");
+    }
+    
+    private static double getLowerBound(float[][] tables,
+                                        int tableCount,
+                                        int cell1,
+                                        int cell2) {
+        double best = 0.0;
+        
+        for (int i = 0; i < tableCount; ++i) {
+            float distance1 = tables[i][cell1];
+            float distance2 = tables[i][cell2];
+            
+            if (distance1 != Float.POSITIVE_INFINITY
+                    && distance2 != Float.POSITIVE_INFINITY) {
+                best = Math.max(best,
+                                Math.abs((double) distance1 - distance2));
+            }
+        }
+        
+        return best;
+    }
+    
+    private static float roundDown(double value) {
+        float rounded = (float) value;
+        return rounded > value ? Math.nextDown(rounded) : rounded;
+    }
+    
+    /**
+     * Runs one-to-all Dijkstra's algorithm over the grid, reusing its arrays
+     * between the runs.
+     */
+    private final class Dijkstra {
+        
+        final double[] distances;
+        final int[] parents;
+        final int[] order;
+        final IntPriorityQueue open;
+        final int[] neighbors = new int[MAXIMUM_NUMBER_OF_NEIGHBORS];
+        final double[] weights = new double[MAXIMUM_NUMBER_OF_NEIGHBORS];
+        int settledCount;
+        
+        Dijkstra(int cellCount) {
+            this.distances = new double[cellCount];
+            this.parents = new int[cellCount];
+            this.order = new int[cellCount];
+            this.open = new IntIndexedBinaryHeap(cellCount);
+        }
+        
+        void run(int source) {
+            Arrays.fill(distances, Double.POSITIVE_INFINITY);
+            Arrays.fill(parents, NO_PARENT);
+            open.clear();
+            settledCount = 0;
+            
+            distances[source] = 0.0;
+            open.add(source, 0.0);
+            
+            while (open.size() > 0) {
+                int current = open.extractMinimum();
+                order[settledCount++] = current;
+                int neighborCount = grid.expand(current, neighbors, weights);
+                
+                for (int i = 0; i < neighborCount; ++i) {
+                    int child = neighbors[i];
+                    double tentativeDistance = distances[current] + weights[i];
+                    
+                    if (distances[child] == Double.POSITIVE_INFINITY) {
+                        open.add(child, tentativeDistance);
+                        distances[child] = tentativeDistance;
+                        parents[child] = current;
+                    } else if (distances[child] > tentativeDistance) {
+                        open.decreasePriority(child, tentativeDistance);
+                        distances[child] = tentativeDistance;
+                        parents[child] = current;
+                    }
+                }
+            }
+        }
+    }
+}
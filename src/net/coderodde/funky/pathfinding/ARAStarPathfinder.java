@@ -0,0 +1,483 @@
+package net.coderodde.funky.pathfinding;
+
+import java.awt.Point;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import static net.coderodde.funky.pathfinding.Configuration.NODES_EXPANSIONS_PER_REPAINT;
+
+/**
+ * This class implements the Anytime Repairing A* of Likhachev, Gordon and
+ * Thrun: a weighted A* whose weight is lowered until the path is optimal or
+ * the time budget runs out.
+ */
+public final class ARAStarPathfinder extends AbstractPathFinder {
+    
+    public static final double DEFAULT_INITIAL_EPSILON = 3.0;
+    public static final double DEFAULT_EPSILON_DECREMENT = 0.5;
+    
+    /**
+     * The number of the expansions between two checks of the deadline.
+     */
+    private static final int DEADLINE_CHECK_PERIOD = 64;
+    
+    /**
+     * A path found by an anytime search.
+     */
+    public static final class Result {
+        
+        private final List<Point> path;
+        private final double length;
+        private final double suboptimalityBound;
+        
+        Result(List<Point> path, double length, double suboptimalityBound) {
+            this.path = path;
+            this.length = length;
+            this.suboptimalityBound = suboptimalityBound;
+        }
+        
+        /**
+         * Returns the best path found.
+         *
+         * @return the path, or {@code null} if none was found in time or
+         *         there is none.
+         */
+        public List<Point> getPath() {
+            return path;
+        }
+        
+        public double getLength() {
+            return length;
+        }
+        
+        /**
+         * Returns a factor the length of the path exceeds the length of a
+         * shortest path by at most. It is 1 for an optimal path and infinite
+         * if there is no path.
+         *
+         * @return the suboptimality bound.
+         */
+        public double getSuboptimalityBound() {
+            return suboptimalityBound;
+        }
+        
+        public boolean isOptimal() {
+            return suboptimalityBound <= 1.0;
+        }
+    }
+    
+    /**
+     * The data of the searches run in one context.
+     */
+    private static final class Workspace {
+        
+        /**
+         * A cell is closed or inconsistent if stamped with the number of the
+         * current improvement.
+         */
+        int[] closedStamps;
+        int[] inconsistentStamps;
+        int stamp;
+        
+        /**
+         * The cells added to the open list since it was last rebuilt, and
+         * the cells in the inconsistent list.
+         */
+        int[] openCells = new int[16];
+        int openCellCount;
+        int[] inconsistentCells = new int[16];
+        int inconsistentCellCount;
+        
+        Workspace(int cellCount) {
+            this.closedStamps = new int[cellCount];
+            this.inconsistentStamps = new int[cellCount];
+        }
+    }
+    
+    private final AStarTemplatePathfinder.Heuristic heuristic;
+    private final double initialEpsilon;
+    private final double epsilonDecrement;
+    private long timeBudgetNanos = Long.MAX_VALUE;
+    
+    /**
+     * Constructs a pathfinder using the octile distance as the heuristic.
+     */
+    public ARAStarPathfinder() {
+        this(IDAStarPathfinder::getOctileDistance,
+             DEFAULT_INITIAL_EPSILON,
+             DEFAULT_EPSILON_DECREMENT);
+    }
+    
+    /**
+     * Constructs a pathfinder.
+     *
+     * @param heuristic        the heuristic, which must never overestimate.
+     * @param initialEpsilon   the weight of the heuristic in the first
+     *                         search, at least 1.
+     * @param epsilonDecrement the amount the weight is lowered by after
+     *                         each search.
+     */
+    public ARAStarPathfinder(AStarTemplatePathfinder.Heuristic heuristic,
+                             double initialEpsilon,
+                             double epsilonDecrement) {
+        this(heuristic,
+             initialEpsilon,
+             epsilonDecrement,
+             IntIndexedBinaryHeap::new);
+    }
+    
+    public ARAStarPathfinder(AStarTemplatePathfinder.Heuristic heuristic,
+                             double initialEpsilon,
+                             double epsilonDecrement,
+                             IntPriorityQueue.Factory openListFactory) {
+        super(openListFactory);
+        this.heuristic = Objects.requireNonNull(heuristic,
+                                                "The heuristic is null.");
+        
+        if (!(initialEpsilon >= 1.0) || Double.isInfinite(initialEpsilon)) {
+            throw new IllegalArgumentException(
+                    "The initial epsilon must be at least 1: " +
+                    initialEpsilon + ".");
+        }
+        
+        if (!(epsilonDecrement > 0.0)) {
+            throw new IllegalArgumentException(
+                    "The epsilon decrement must be positive: " +
+                    epsilonDecrement + ".");
+        }
+        
+        this.initialEpsilon = initialEpsilon;
+        this.epsilonDecrement = epsilonDecrement;
+    }
+    
+    /**
+     * Sets the time the searches without an explicit deadline may take.
+     *
+     * @param timeBudget the time budget, or {@link Long#MAX_VALUE} for none.
+     * @param unit       the unit of the time budget.
+     */
+    public void setTimeBudget(long timeBudget, TimeUnit unit) {
+        if (timeBudget < 0) {
+            throw new IllegalArgumentException(
+                    "The time budget is negative: " + timeBudget + ".");
+        }
+        
+        this.timeBudgetNanos = timeBudget == Long.MAX_VALUE ?
+                               Long.MAX_VALUE :
+                               unit.toNanos(timeBudget);
+    }
+    
+    /**
+     * Searches for a path within the time budget set by
+     * {@link #setTimeBudget(long, TimeUnit)}.
+     *
+     * @return the best path found, or {@code null} if none was found in
+     *         time or the search was asked to exit.
+     * @throws TargetNotReachableException if there is no path.
+     */
+    @Override
+    public List<Point> search(Point sourcePoint,
+                              Point targetPoint,
+                              SearchContext context) {
+        long deadline = timeBudgetNanos == Long.MAX_VALUE ?
+                        Long.MAX_VALUE :
+                        System.nanoTime() + timeBudgetNanos;
+        Result result = search(sourcePoint, targetPoint, context, deadline);
+        return result != null ? result.getPath() : null;
+    }
+    
+    /**
+     * Searches for a path until it is optimal or the deadline passes.
+     *
+     * @param sourcePoint   the source point.
+     * @param targetPoint   the target point.
+     * @param context       the context of the search.
+     * @param deadlineNanos the deadline as a value of
+     *                      {@link System#nanoTime()}, or
+     *                      {@link Long#MAX_VALUE} for none.
+     * @return the best path found with its suboptimality bound, or
+     *         {@code null} if the search was asked to exit.
+     * @throws TargetNotReachableException if there is no path.
+     */
+    public Result search(Point sourcePoint,
+                         Point targetPoint,
+                         SearchContext context,
+                         long deadlineNanos) {
+        Objects.requireNonNull(sourcePoint, "The source point is null.");
+        Objects.requireNonNull(targetPoint, "The target point is null.");
+        checkEndpoints(sourcePoint, targetPoint);
+        context.pathLength = Double.NaN;
+        return new Search(context, targetPoint, deadlineNanos)
+                .search(sourcePoint);
+    }
+    
+    private Workspace getWorkspace(SearchContext context) {
+        Workspace workspace = (Workspace) context.getAttachment(this);
+        int cellCount = grid.getWidth() * grid.getHeight();
+        
+        if (workspace == null
+                || workspace.closedStamps.length != cellCount) {
+            workspace = new Workspace(cellCount);
+            context.setAttachment(this, workspace);
+        }
+        
+        return workspace;
+    }
+    
+    /**
+     * A single search.
+     */
+    private final class Search {
+        
+        private final SearchContext context;
+        private final Point targetPoint;
+        private final int targetIndex;
+        private final long deadlineNanos;
+        private final Workspace workspace;
+        private final GridSearchState state;
+        private final IntPriorityQueue open;
+        private double epsilon = initialEpsilon;
+        private boolean stopped;
+        
+        private List<Point> bestPath;
+        private double bestLength = Double.POSITIVE_INFINITY;
+        private double bestBound = Double.POSITIVE_INFINITY;
+        
+        Search(SearchContext context, Point targetPoint, long deadlineNanos) {
+            this.context = context;
+            this.targetPoint = targetPoint;
+            this.targetIndex = grid.getIndex(targetPoint);
+            this.deadlineNanos = deadlineNanos;
+            this.workspace = getWorkspace(context);
+            this.state = getSearchState(context, SearchContext.FORWARD);
+            this.open = getOpenList(context, SearchContext.FORWARD);
+        }
+        
+        Result search(Point sourcePoint) {
+            int sourceIndex = grid.getIndex(sourcePoint);
+            state.setDistance(sourceIndex, 0.0);
+            workspace.openCellCount = 0;
+            workspace.inconsistentCellCount = 0;
+            workspace.stamp++;
+            addToOpen(sourceIndex);
+            
+            while (true) {
+                improvePath();
+                
+                if (context.isExitRequested()) {
+                    return null;
+                }
+                
+                if (stopped) {
+                    break;
+                }
+                
+                double bound = Math.min(epsilon, getSuboptimalityBound());
+                
+                if (state.getDistance(targetIndex) < bestLength) {
+                    publish(bound);
+                } else {
+                    bestBound = Math.min(bestBound, bound);
+                }
+                
+                if (bestBound <= 1.0 || bestPath == null) {
+                    // Optimal, or no path at all.
+                    break;
+                }
+                
+                epsilon = Math.max(1.0, epsilon - epsilonDecrement);
+                rebuildOpenList();
+            }
+            
+            context.frontierNodeCount = open.size();
+            observer.repaint();
+            
+            if (bestPath == null && !stopped) {
+                throw new TargetNotReachableException(
+                        "The target point is not reachable.");
+            }
+            
+            return new Result(bestPath, bestLength, bestBound);
+        }
+        
+        /**
+         * Expands the cells until the target has the lowest priority, the
+         * open list runs empty or the search is stopped.
+         */
+        private void improvePath() {
+            int[] neighbors = context.neighbors;
+            double[] weights = context.weights;
+            
+            while (open.size() > 0
+                    && state.getDistance(targetIndex) >
+                       getPriority(open.top())) {
+                if (context.isExitRequested()) {
+                    return;
+                }
+                
+                if (context.pause) {
+                    context.awaitResume();
+                    continue;
+                }
+                
+                if (context.closedNodeCount % DEADLINE_CHECK_PERIOD == 0
+                        && System.nanoTime() - deadlineNanos >= 0
+                        && deadlineNanos != Long.MAX_VALUE) {
+                    stopped = true;
+                    return;
+                }
+                
+                int currentIndex = open.extractMinimum();
+                workspace.closedStamps[currentIndex] = workspace.stamp;
+                observer.markAsClosed(currentIndex);
+                
+                if (++context.closedNodeCount % NODES_EXPANSIONS_PER_REPAINT
+                        == 0) {
+                    context.frontierNodeCount = open.size();
+                    observer.repaint();
+                }
+                
+                double currentDistance = state.getDistance(currentIndex);
+                int neighborCount =
+                        grid.expand(currentIndex, neighbors, weights);
+                
+                for (int i = 0; i < neighborCount; ++i) {
+                    int childIndex = neighbors[i];
+                    double tentativeDistance = currentDistance + weights[i];
+                    
+                    if (state.getDistance(childIndex) <= tentativeDistance) {
+                        continue;
+                    }
+                    
+                    state.setDistance(childIndex, tentativeDistance);
+                    state.setParent(childIndex, currentIndex);
+                    
+                    if (workspace.closedStamps[childIndex] !=
+                            workspace.stamp) {
+                        addToOpen(childIndex);
+                    } else if (workspace.inconsistentStamps[childIndex] !=
+                            workspace.stamp) {
+                        workspace.inconsistentStamps[childIndex] =
+                                workspace.stamp;
+                        workspace.inconsistentCells =
+                                add(workspace.inconsistentCells,
+                                    workspace.inconsistentCellCount++,
+                                    childIndex);
+                    }
+                }
+            }
+        }
+        
+        /**
+         * Moves the open and the inconsistent cells into a new open list
+         * prioritized by the current epsilon and starts a new improvement
+         * with nothing closed.
+         */
+        private void rebuildOpenList() {
+            int[] cells = workspace.openCells;
+            int cellCount = 0;
+            
+            while (open.size() > 0) {
+                cells = add(cells, cellCount++, open.extractMinimum());
+            }
+            
+            for (int i = 0; i < workspace.inconsistentCellCount; ++i) {
+                cells = add(cells,
+                            cellCount++,
+                            workspace.inconsistentCells[i]);
+            }
+            
+            workspace.openCells = cells;
+            workspace.openCellCount = cellCount;
+            workspace.inconsistentCellCount = 0;
+            workspace.stamp++;
+            
+            for (int i = 0; i < cellCount; ++i) {
+                open.add(cells[i], getPriority(cells[i]));
+            }
+        }
+        
+        /**
+         * Returns the bound on the suboptimality of the current path.
+         */
+        private double getSuboptimalityBound() {
+            double distance = state.getDistance(targetIndex);
+            double lowerBound = Double.POSITIVE_INFINITY;
+            
+            for (int i = 0; i < workspace.openCellCount; ++i) {
+                int cell = workspace.openCells[i];
+                
+                if (workspace.closedStamps[cell] != workspace.stamp) {
+                    lowerBound = Math.min(lowerBound, getFValue(cell));
+                }
+            }
+            
+            for (int i = 0; i < workspace.inconsistentCellCount; ++i) {
+                lowerBound = Math.min(
+                        lowerBound,
+                        getFValue(workspace.inconsistentCells[i]));
+            }
+            
+            return distance <= lowerBound ? 1.0 : distance / lowerBound;
+        }
+        
+        private void publish(double bound) {
+            if (bestPath != null) {
+                for (Point p : bestPath) {
+                    observer.markAsClosed(grid.getIndex(p));
+                }
+            }
+            
+            bestPath = tracebackPath(targetIndex, state);
+            bestLength = state.getDistance(targetIndex);
+            bestBound = bound;
+            
+            for (Point p : bestPath) {
+                observer.markAsPath(grid.getIndex(p));
+            }
+            
+            context.pathLength = getLength(bestPath);
+            observer.repaint();
+        }
+        
+        private void addToOpen(int cell) {
+            double priority = getPriority(cell);
+            
+            if (!open.decreasePriority(cell, priority)) {
+                open.add(cell, priority);
+                workspace.openCells = add(workspace.openCells,
+                                          workspace.openCellCount++,
+                                          cell);
+                observer.markAsFrontier(cell);
+            }
+        }
+        
+        private double getPriority(int cell) {
+            return state.getDistance(cell) + epsilon * estimate(cell);
+        }
+        
+        private double getFValue(int cell) {
+            return state.getDistance(cell) + estimate(cell);
+        }
+        
+        private double estimate(int cell) {
+            return heuristic.estimate(state.getPoint(cell, context.point),
+                                      targetPoint);
+        }
+    }
+    
+    /**
+     * Stores an element into an array, growing the array if needed.
+     *
+     * @return the array holding the element.
+     */
+    private static int[] add(int[] array, int index, int element) {
+        if (index == array.length) {
+            array = Arrays.copyOf(array, 2 * array.length);
+        }
+        
+        array[index] = element;
+        return array;
+    }
+}
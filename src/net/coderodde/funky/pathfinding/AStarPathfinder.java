@@ -7,4 +7,9 @@ public final class AStarPathfinder extends AStarTemplatePathfinder {
     public AStarPathfinder() {
         super((Point p1, Point p2) -> { return p1.distance(p2); });
     }
+    
+    public AStarPathfinder(IntPriorityQueue.Factory openListFactory) {
+        super((Point p1, Point p2) -> { return p1.distance(p2); }, 
+              openListFactory);
+    }
 }
@@ -1,13 +1,9 @@
 package net.coderodde.funky.pathfinding;
 
 import java.awt.Point;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
-import java.util.Set;
 import static net.coderodde.funky.pathfinding.Configuration.NODES_EXPANSIONS_PER_REPAINT;
 import static net.coderodde.funky.pathfinding.Configuration.REPAINTS_PER_PATH_DRAWING;
 
@@ -23,107 +19,127 @@ public class AStarTemplatePathfinder extends AbstractPathFinder {
         this.heuristic = heuristic;
     }
     
+    public AStarTemplatePathfinder(Heuristic heuristic,
+                                   IntPriorityQueue.Factory openListFactory) {
+        super(openListFactory);
+        this.heuristic = heuristic;
+    }
+    
     @Override
-    public List<Point> search(Point sourcePoint, Point targetPoint) {
+    public List<Point> search(Point sourcePoint,
+                              Point targetPoint,
+                              SearchContext context) {
         Objects.requireNonNull(sourcePoint, "The source point is null.");
         Objects.requireNonNull(targetPoint, "The target point is null.");
+        checkEndpoints(sourcePoint, targetPoint);
         
-        this.pathLength = Double.NaN;
+        context.pathLength = Double.NaN;
         
-        IndexedBinaryHeap<Point, Double> open = new IndexedBinaryHeap<>();
-        Set<Point> closed = new HashSet<>();
-        Map<Point, Point> parents = new HashMap<>();
-        Map<Point, Double> distances = new HashMap<>();
-        List<Point> previousPartialPath = new ArrayList<>();
+        IntPriorityQueue open = getOpenList(context, SearchContext.FORWARD);
+        GridSearchState state = getSearchState(context, SearchContext.FORWARD);
+        List<Point> previousPartialPath = Collections.emptyList();
         
-        open.add(sourcePoint, 0.0);
-        parents.put(sourcePoint, null);
-        distances.put(sourcePoint, 0.0);
+        int[] neighbors = context.neighbors;
+        double[] weights = context.weights;
+        Point childPoint = context.point;
+        
+        int sourceIndex = state.getIndex(sourcePoint);
+        int targetIndex = state.getIndex(targetPoint);
+        open.add(sourceIndex, 0.0);
+        state.setDistance(sourceIndex, 0.0);
         int repaints = 0;
         
         while (open.size() > 0) {
-            if (exit) {
+            if (context.isExitRequested()) {
                 return null;
             }
             
-            if (pause) {
-                sleep();
+            if (context.pause) {
+                context.awaitResume();
                 continue;
             }
             
-            Point currentPoint = open.extractMinimum();
-            panel.markAsClosed(currentPoint);
-            this.closedNodeCount++;
+            int currentIndex = open.extractMinimum();
+            observer.markAsClosed(currentIndex);
+            context.closedNodeCount++;
             
-            if (currentPoint.equals(targetPoint)) {
+            if (currentIndex == targetIndex) {
                 for (Point p : previousPartialPath) {
-                    panel.markAsClosed(p);
+                    observer.markAsClosed(grid.getIndex(p));
                 }
                 
-                List<Point> shortestPath = tracebackPath(currentPoint, parents);
+                List<Point> shortestPath = tracebackPath(currentIndex, state);
                 
                 for (Point p : shortestPath) {
-                    panel.markAsPath(p);
+                    observer.markAsPath(grid.getIndex(p));
                 }
                 
-                this.frontierNodeCount = open.size();
-                this.pathLength = getLength(shortestPath);
-                panel.repaint();
+                context.frontierNodeCount = open.size();
+                context.pathLength = getLength(shortestPath);
+                observer.repaint();
                 return shortestPath;
             }
             
-            closed.add(currentPoint);
+            state.close(currentIndex);
             
-            if (closed.size() % NODES_EXPANSIONS_PER_REPAINT == 0) {
+            if (state.getClosedCount() % NODES_EXPANSIONS_PER_REPAINT == 0) {
                 repaints++;
                 
-                if (repaints % REPAINTS_PER_PATH_DRAWING == 0) {
+                if (repaints % REPAINTS_PER_PATH_DRAWING == 0
+                        && observer != SearchObserver.NO_OP) {
                     for (Point p : previousPartialPath) {
-                        panel.markAsClosed(p);
+                        observer.markAsClosed(grid.getIndex(p));
                     }
 
-                    List<Point> partialPath = tracebackPath(open.top(), parents);
+                    List<Point> partialPath = tracebackPath(open.top(), state);
 
                     for (Point p : partialPath) {
-                        panel.markAsPath(p);
+                        observer.markAsPath(grid.getIndex(p));
                     }
 
                     previousPartialPath = partialPath;
-                    this.pathLength = getLength(partialPath);
+                    context.pathLength = getLength(partialPath);
                 }
                     
-                this.frontierNodeCount = open.size();
-                panel.repaint();
+                context.frontierNodeCount = open.size();
+                observer.repaint();
             }
             
-            for (Point childPoint : panel.expand(currentPoint)) {
-                if (closed.contains(childPoint)) {
+            int neighborCount = grid.expand(currentIndex, neighbors, weights);
+            
+            for (int i = 0; i < neighborCount; ++i) {
+                int childIndex = neighbors[i];
+                
+                if (state.isClosed(childIndex)) {
                     continue;
                 }
                 
-                double tentativeDistance = distances.get(currentPoint) +
-                                           currentPoint.distance(childPoint);
+                double tentativeDistance = state.getDistance(currentIndex) +
+                                           weights[i];
                 
-                if (!distances.containsKey(childPoint)) {
-                    panel.markAsFrontier(childPoint);
-                    open.add(childPoint, 
+                if (!state.isReached(childIndex)) {
+                    observer.markAsFrontier(childIndex);
+                    state.getPoint(childIndex, childPoint);
+                    open.add(childIndex, 
                              tentativeDistance + 
                                 heuristic.estimate(childPoint, targetPoint));
                     
-                    parents.put(childPoint, currentPoint);
-                    distances.put(childPoint, tentativeDistance);
-                } else if (distances.get(childPoint) > tentativeDistance) {
+                    state.setParent(childIndex, currentIndex);
+                    state.setDistance(childIndex, tentativeDistance);
+                } else if (state.getDistance(childIndex) > tentativeDistance) {
+                    state.getPoint(childIndex, childPoint);
                     open.decreasePriority(
-                            childPoint,
+                            childIndex,
                             tentativeDistance +
                                 heuristic.estimate(childPoint, targetPoint));
                     
-                    parents.put(childPoint, currentPoint);
-                    distances.put(childPoint, tentativeDistance);
+                    state.setParent(childIndex, currentIndex);
+                    state.setDistance(childIndex, tentativeDistance);
                 }
             }
         }
         
-        return null;
+        throw new TargetNotReachableException(
+                "The target point is not reachable.");
     }
 }
@@ -4,72 +4,197 @@ import java.awt.Point;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.Map;
-import static net.coderodde.funky.pathfinding.Configuration.THREAD_SLEEP_MILLISECONDS;
+import java.util.Objects;
 
+/**
+ * This class is the base of all the pathfinders. The state of a search lives
+ * in a {@link SearchContext}, so a pathfinder may serve concurrent searches,
+ * each with a context of its own.
+ */
 public abstract class AbstractPathFinder {
 
-    protected int frontierNodeCount = 0;
-    protected int closedNodeCount = 0;
-    protected double pathLength = Double.NaN;
-    protected FunkyPathfindingPanel panel;
-    protected volatile boolean exit = false;
-    protected volatile boolean pause = false;
+    protected GridModel grid;
+    protected SearchObserver observer = SearchObserver.NO_OP;
+    private final IntPriorityQueue.Factory openListFactory;
+    private final SearchContext defaultContext = new SearchContext();
     
+    protected AbstractPathFinder() {
+        this(IntIndexedBinaryHeap::new);
+    }
+    
+    protected AbstractPathFinder(IntPriorityQueue.Factory openListFactory) {
+        this.openListFactory = 
+                Objects.requireNonNull(openListFactory, 
+                                       "The open list factory is null.");
+    }
+    
+    /**
+     * Makes this pathfinder search the grid of the panel and report its 
+     * progress to the panel.
+     * 
+     * @param panel the panel.
+     */
     public void setPanel(FunkyPathfindingPanel panel) {
-        this.panel = panel;
+        setGridModel(panel.getGridModel());
+        setSearchObserver(panel.getSearchObserver());
+    }
+    
+    public void setGridModel(GridModel grid) {
+        this.grid = Objects.requireNonNull(grid, "The grid model is null.");
+    }
+    
+    public void setSearchObserver(SearchObserver observer) {
+        this.observer = observer != null ? observer : SearchObserver.NO_OP;
     }
     
-    public abstract List<Point> search(Point source, Point target);
+    /**
+     * Releases what the pathfinder holds beyond its searches, such as the
+     * listeners on its grid. Does nothing by default.
+     */
+    public void dispose() {}
+    
+    /**
+     * Searches for a shortest path using the default context.
+     *
+     * @param source the source point.
+     * @param target the target point.
+     * @return the path, or {@code null} if the search was asked to exit.
+     * @throws TargetNotReachableException if there is no path.
+     */
+    public List<Point> search(Point source, Point target) {
+        defaultContext.resetStatistics();
+        return search(source, target, defaultContext);
+    }
+    
+    /**
+     * Searches for a shortest path, keeping all the state of the search in
+     * {@code context}, to which the search also reports its statistics.
+     *
+     * @param source  the source point.
+     * @param target  the target point.
+     * @param context the context of the search.
+     * @return the path, or {@code null} if the search was asked to exit.
+     * @throws TargetNotReachableException if there is no path.
+     */
+    public abstract List<Point> search(Point source,
+                                       Point target,
+                                       SearchContext context);
     
     public void togglePause() {
-        pause = !pause;
+        defaultContext.togglePause();
     }
     
     public void requestExit() {
-        exit = true;
+        defaultContext.requestExit();
     }
     
     public int getNumberOfFrontierNodes() {
-        return frontierNodeCount;
+        return defaultContext.getNumberOfFrontierNodes();
     }
     
     public int getNumberOfClosedNodes() {
-        return closedNodeCount;
+        return defaultContext.getNumberOfClosedNodes();
+    }
+    
+    public double getPathLength() {
+        return defaultContext.getPathLength();
+    }
+    
+    /**
+     * Throws {@link TargetNotReachableException} if the source or the target
+     * is a wall.
+     *
+     * @param source the source point.
+     * @param target the target point.
+     */
+    protected void checkEndpoints(Point source, Point target) {
+        if (grid.isWall(source.x, source.y)) {
+            throw new TargetNotReachableException(
+                    "The source point is a wall.");
+        }
+        
+        if (grid.isWall(target.x, target.y)) {
+            throw new TargetNotReachableException(
+                    "The target point is a wall.");
+        }
+    }
+    
+    protected GridSearchState createSearchState() {
+        return new GridSearchState(grid.getWidth(), grid.getHeight());
+    }
+    
+    protected IntPriorityQueue createOpenList() {
+        return openListFactory.create(grid.getWidth() * grid.getHeight());
     }
     
-    protected List<Point> tracebackPath(Point targetPoint,
-                                        Map<Point, Point> parents) {
+    /**
+     * Creates an open list for the IDs {@code 0, 1, ..., capacity - 1}, for
+     * searches over graphs other than the grid itself.
+     *
+     * @param capacity the number of distinct IDs.
+     * @return the open list.
+     */
+    protected IntPriorityQueue createOpenList(int capacity) {
+        return openListFactory.create(capacity);
+    }
+    
+    /**
+     * Returns the cleared search state the context keeps in a slot.
+     *
+     * @param context the context of the search.
+     * @param slot    {@link SearchContext#FORWARD} or
+     *                {@link SearchContext#BACKWARD}.
+     * @return the search state.
+     */
+    protected GridSearchState getSearchState(SearchContext context,
+                                             int slot) {
+        return context.getSearchState(slot,
+                                      grid.getWidth(),
+                                      grid.getHeight());
+    }
+    
+    /**
+     * Returns the empty open list the context keeps in a slot.
+     *
+     * @param context the context of the search.
+     * @param slot    {@link SearchContext#FORWARD} or
+     *                {@link SearchContext#BACKWARD}.
+     * @return the open list.
+     */
+    protected IntPriorityQueue getOpenList(SearchContext context, int slot) {
+        return context.getOpenList(slot,
+                                   openListFactory,
+                                   grid.getWidth() * grid.getHeight());
+    }
+    
+    protected List<Point> tracebackPath(int targetIndex,
+                                        GridSearchState state) {
         List<Point> path = new ArrayList<>();
-        Point currentPoint = targetPoint;
+        int currentIndex = targetIndex;
         
-        while (currentPoint != null) {
-            path.add(currentPoint);
-            currentPoint = parents.get(currentPoint);
+        while (currentIndex != GridSearchState.NO_PARENT) {
+            path.add(state.getPoint(currentIndex));
+            currentIndex = state.getParent(currentIndex);
         }
         
         Collections.<Point>reverse(path);
         return path;
     }
     
-    protected List<Point> tracebackPath(Point meetingPoint,
-                                        Map<Point, Point> parentsForward,
-                                        Map<Point, Point> parentsBackward) {
-        List<Point> prefix = tracebackPath(meetingPoint, parentsForward);
-        Point currentPoint = parentsBackward.get(meetingPoint);
+    protected List<Point> tracebackPath(int meetingIndex,
+                                        GridSearchState forwardState,
+                                        GridSearchState backwardState) {
+        List<Point> prefix = tracebackPath(meetingIndex, forwardState);
+        int currentIndex = backwardState.getParent(meetingIndex);
         
-        while (currentPoint != null) {
-            prefix.add(currentPoint);
-            currentPoint = parentsBackward.get(currentPoint);
+        while (currentIndex != GridSearchState.NO_PARENT) {
+            prefix.add(backwardState.getPoint(currentIndex));
+            currentIndex = backwardState.getParent(currentIndex);
         }
         
         return prefix;
     }
     
-    protected void sleep() {
-        Utils.sleep(THREAD_SLEEP_MILLISECONDS);
-    }
-    
     protected double getLength(List<Point> path) {
         double length = 0.0;
         
@@ -0,0 +1,236 @@
+package net.coderodde.funky.pathfinding;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class accumulates the metrics of the searches run by one algorithm.
+ * It is thread-safe.
+ */
+public final class AlgorithmMetrics implements AlgorithmMetricsMXBean {
+    
+    private static final int NUMBER_OF_LATENCY_BUCKETS = Long.SIZE;
+    
+    private final String algorithmName;
+    private final LongAdder searchCount = new LongAdder();
+    private final LongAdder pathCount = new LongAdder();
+    private final LongAdder expansionCount = new LongAdder();
+    
+    /**
+     * The number of the searches whose open lists were counted. The engines
+     * with queues of their own are never counted.
+     */
+    private final LongAdder openListSearchCount = new LongAdder();
+    private final LongAdder openListInsertionCount = new LongAdder();
+    private final LongAdder openListDecreaseKeyCount = new LongAdder();
+    private final LongAdder openListExtractionCount = new LongAdder();
+    private final LongAccumulator peakOpenListSize =
+            new LongAccumulator(Math::max, 0L);
+    private final DoubleAdder totalPathCost = new DoubleAdder();
+    private volatile double lastPathCost = Double.NaN;
+    private final LongAdder totalLatencyNanos = new LongAdder();
+    private final LongAccumulator maximumLatencyNanos =
+            new LongAccumulator(Math::max, 0L);
+    private final AtomicLongArray latencyHistogram =
+            new AtomicLongArray(NUMBER_OF_LATENCY_BUCKETS);
+    
+    AlgorithmMetrics(String algorithmName) {
+        this.algorithmName = algorithmName;
+    }
+    
+    /**
+     * Records a finished search.
+     *
+     * @param latencyNanos   the duration of the search.
+     * @param expansionCount the number of the nodes the search expanded.
+     * @param context        the context holding the open list statistics of
+     *                       the search.
+     * @param pathCost       the cost of the path found, or
+     *                       {@link Double#NaN} if none was found.
+     */
+    void record(long latencyNanos,
+                int expansionCount,
+                SearchContext context,
+                double pathCost) {
+        searchCount.increment();
+        this.expansionCount.add(expansionCount);
+        
+        if (context.openListCounted) {
+            openListSearchCount.increment();
+            openListInsertionCount.add(context.openListInsertionCount);
+            openListDecreaseKeyCount.add(context.openListDecreaseKeyCount);
+            openListExtractionCount.add(context.openListExtractionCount);
+            peakOpenListSize.accumulate(context.peakOpenListSize);
+        }
+        
+        if (!Double.isNaN(pathCost)) {
+            pathCount.increment();
+            totalPathCost.add(pathCost);
+            lastPathCost = pathCost;
+        }
+        
+        latencyNanos = Math.max(0L, latencyNanos);
+        totalLatencyNanos.add(latencyNanos);
+        maximumLatencyNanos.accumulate(latencyNanos);
+        latencyHistogram.incrementAndGet(getLatencyBucket(latencyNanos));
+    }
+    
+    @Override
+    public String getAlgorithmName() {
+        return algorithmName;
+    }
+    
+    @Override
+    public long getSearchCount() {
+        return searchCount.sum();
+    }
+    
+    @Override
+    public long getPathCount() {
+        return pathCount.sum();
+    }
+    
+    @Override
+    public long getExpansionCount() {
+        return expansionCount.sum();
+    }
+    
+    @Override
+    public double getExpansionsPerSecond() {
+        long nanos = totalLatencyNanos.sum();
+        return nanos == 0L ? 0.0 : 1e9 * expansionCount.sum() / nanos;
+    }
+    
+    @Override
+    public long getOpenListInsertionCount() {
+        return isOpenListCounted() ? openListInsertionCount.sum() : -1L;
+    }
+    
+    @Override
+    public long getOpenListDecreaseKeyCount() {
+        return isOpenListCounted() ? openListDecreaseKeyCount.sum() : -1L;
+    }
+    
+    @Override
+    public long getOpenListExtractionCount() {
+        return isOpenListCounted() ? openListExtractionCount.sum() : -1L;
+    }
+    
+    @Override
+    public int getPeakOpenListSize() {
+        return isOpenListCounted() ? (int) peakOpenListSize.get() : -1;
+    }
+    
+    @Override
+    public double getLastPathCost() {
+        return lastPathCost;
+    }
+    
+    @Override
+    public double getMeanPathCost() {
+        long paths = pathCount.sum();
+        return paths == 0L ? Double.NaN : totalPathCost.sum() / paths;
+    }
+    
+    @Override
+    public long getMeanLatencyNanos() {
+        long searches = searchCount.sum();
+        return searches == 0L ? 0L : totalLatencyNanos.sum() / searches;
+    }
+    
+    @Override
+    public long getMedianLatencyNanos() {
+        return getLatencyPercentileNanos(0.5);
+    }
+    
+    @Override
+    public long get99thPercentileLatencyNanos() {
+        return getLatencyPercentileNanos(0.99);
+    }
+    
+    @Override
+    public long getMaximumLatencyNanos() {
+        return maximumLatencyNanos.get();
+    }
+    
+    @Override
+    public long[] getLatencyHistogram() {
+        long[] histogram = new long[NUMBER_OF_LATENCY_BUCKETS];
+        
+        for (int i = 0; i < histogram.length; ++i) {
+            histogram[i] = latencyHistogram.get(i);
+        }
+        
+        return histogram;
+    }
+    
+    /**
+     * Returns an upper bound of the latency under which the given fraction
+     * of the searches finished: the upper end of the histogram bucket
+     * holding the percentile, but no more than the maximum latency.
+     *
+     * @param fraction the fraction, between zero and one.
+     * @return the latency in nanoseconds, or zero if no search was recorded.
+     */
+    public long getLatencyPercentileNanos(double fraction) {
+        if (fraction < 0.0 || fraction > 1.0) {
+            throw new IllegalArgumentException(
+                    "The fraction must be between 0 and 1: " + fraction + ".");
+        }
+        
+        long[] histogram = getLatencyHistogram();
+        long total = 0L;
+        
+        for (long count : histogram) {
+            total += count;
+        }
+        
+        if (total == 0L) {
+            return 0L;
+        }
+        
+        long rank = Math.max(1L, (long) Math.ceil(fraction * total));
+        long seen = 0L;
+        int bucket = 0;
+        
+        while (bucket < histogram.length - 1
+                && (seen += histogram[bucket]) < rank) {
+            ++bucket;
+        }
+        
+        long upperBound = bucket == histogram.length - 1 ?
+                          Long.MAX_VALUE :
+                          (2L << bucket) - 1;
+        return Math.min(upperBound, maximumLatencyNanos.get());
+    }
+    
+    @Override
+    public void reset() {
+        searchCount.reset();
+        pathCount.reset();
+        expansionCount.reset();
+        openListSearchCount.reset();
+        openListInsertionCount.reset();
+        openListDecreaseKeyCount.reset();
+        openListExtractionCount.reset();
+        peakOpenListSize.reset();
+        totalPathCost.reset();
+        lastPathCost = Double.NaN;
+        totalLatencyNanos.reset();
+        maximumLatencyNanos.reset();
+        
+        for (int i = 0; i < NUMBER_OF_LATENCY_BUCKETS; ++i) {
+            latencyHistogram.set(i, 0L);
+        }
+    }
+    
+    private boolean isOpenListCounted() {
+        return openListSearchCount.sum() > 0L;
+    }
+    
+    private static int getLatencyBucket(long nanos) {
+        return nanos == 0L ? 0 : 63 - Long.numberOfLeadingZeros(nanos);
+    }
+}
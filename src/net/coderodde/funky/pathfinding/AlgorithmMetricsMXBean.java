@@ -0,0 +1,76 @@
+package net.coderodde.funky.pathfinding;
+
+/**
+ * This interface defines the management view of the metrics of one
+ * algorithm. The latencies are in nanoseconds. The open list attributes are
+ * -1 for the algorithms that keep queues of their own, which go uncounted.
+ */
+public interface AlgorithmMetricsMXBean {
+    
+    public String getAlgorithmName();
+    
+    public long getSearchCount();
+    
+    /**
+     * Returns the number of the searches that found a path.
+     *
+     * @return the number of the paths found.
+     */
+    public long getPathCount();
+    
+    public long getExpansionCount();
+    
+    /**
+     * Returns the number of the nodes expanded per second of searching, over
+     * all the searches recorded.
+     *
+     * @return the expansion rate.
+     */
+    public double getExpansionsPerSecond();
+    
+    public long getOpenListInsertionCount();
+    
+    public long getOpenListDecreaseKeyCount();
+    
+    public long getOpenListExtractionCount();
+    
+    /**
+     * Returns the largest open list size any search reached, or -1 if the
+     * open lists of the algorithm are not counted.
+     *
+     * @return the peak open list size.
+     */
+    public int getPeakOpenListSize();
+    
+    /**
+     * Returns the cost of the path the last successful search found, or
+     * {@link Double#NaN} if no search has found one.
+     *
+     * @return the last path cost.
+     */
+    public double getLastPathCost();
+    
+    public double getMeanPathCost();
+    
+    public long getMeanLatencyNanos();
+    
+    public long getMedianLatencyNanos();
+    
+    public long get99thPercentileLatencyNanos();
+    
+    public long getMaximumLatencyNanos();
+    
+    /**
+     * Returns the latency histogram. Entry {@code i} counts the searches
+     * that took at least {@code 2^i} and less than {@code 2^(i + 1)}
+     * nanoseconds; entry zero also counts those that took none.
+     *
+     * @return the counts of the buckets.
+     */
+    public long[] getLatencyHistogram();
+    
+    /**
+     * Forgets all the searches recorded so far.
+     */
+    public void reset();
+}
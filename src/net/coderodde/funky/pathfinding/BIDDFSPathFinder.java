@@ -1,169 +1,286 @@
 package net.coderodde.funky.pathfinding;
 
 import java.awt.Point;
-import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Deque;
-import java.util.HashSet;
+import java.util.BitSet;
 import java.util.List;
-import java.util.Set;
+import java.util.Objects;
+import static net.coderodde.funky.pathfinding.GridModel.MAXIMUM_NUMBER_OF_NEIGHBORS;
 
+/**
+ * This class implements the bidirectional iterative deepening depth-first
+ * search, which finds a path with the fewest moves regardless of their
+ * lengths.
+ */
 public final class BIDDFSPathFinder extends AbstractPathFinder {
-//
-//    private final Point source;
-//    private final Deque<Point> backwardSearchStack;
-//    private final Set<Point> frontier;
-//    private boolean exit;
-//    
-//    public BIDDFSPathFinder() {
-//        this.panel = panel;
-//        this.source              = null;
-//        this.backwardSearchStack = null;
-//        this.frontier            = null;
-//    }
-//
-//    private BIDDFSPathFinder(Point source) {
-//        this.source              = source;
-//        this.backwardSearchStack = new ArrayDeque<>();
-//        this.frontier            = new HashSet<>();
-//    }
     
-    private Point source;
-    private Deque<Point> backwardSearchStack;
-    private Set<Point> frontier;
-    private boolean exit;
+    /**
+     * Returned by a depth-first search asked to exit.
+     */
+    private static final int EXITED = -2;
     
-    public List<Point> search(Point source, Point target) {
-        this.source = source;
-        this.backwardSearchStack = new ArrayDeque<>();
-        this.frontier = new HashSet<>();
+    /**
+     * Returned by a depth-first search that did not hit the frontier.
+     */
+    private static final int NOT_FOUND = -1;
+    
+    /**
+     * The frontier and the depth-first search stack of the searches run in
+     * one context.
+     */
+    private static final class Workspace {
         
-        if (source.equals(target)) {
-            return new ArrayList<>(Arrays.asList(source));
-        }
-                        
-        for (int depth = 0;; ++depth) {
-            if (exit) {
-                return null;
+        final BitSet frontier = new BitSet();
+        
+        /**
+         * The explicit stack of a depth-first search: the cell on each level,
+         * its neighbors, their number and the index of the next one to
+         * visit.
+         */
+        int[] stackCells = new int[0];
+        int[][] stackNeighbors = new int[0][];
+        int[] stackNeighborCounts = new int[0];
+        int[] stackNextNeighbors = new int[0];
+        
+        void ensureStackCapacity(int levels) {
+            if (stackCells.length >= levels) {
+                return;
             }
             
-            if (pause) {
-                sleep();
-                continue;
+            // Grow geometrically, as the depth rises one level at a time.
+            int oldLength = stackCells.length;
+            int newLength = Math.max(levels, 2 * oldLength);
+            stackCells = Arrays.copyOf(stackCells, newLength);
+            stackNeighbors = Arrays.copyOf(stackNeighbors, newLength);
+            stackNeighborCounts = Arrays.copyOf(stackNeighborCounts, newLength);
+            stackNextNeighbors = Arrays.copyOf(stackNextNeighbors, newLength);
+            
+            for (int i = oldLength; i < newLength; ++i) {
+                stackNeighbors[i] = new int[MAXIMUM_NUMBER_OF_NEIGHBORS];
             }
-            // Do a depth limited search in forward direction. Put all nodes at 
-            // depth == 0 to the frontier.
-            depthLimitedSearchForward(source, depth);
-
-            // Perform a reversed search starting from the target node and 
-            // recurring to the depth 'depth'.
-            Point meetingNode = depthLimitedSearchBackward(target, depth);
-
-            if (meetingNode != null) {
-                List<Point> path = buildPath(meetingNode);
+        }
+    }
+    
+    @Override
+    public List<Point> search(Point source,
+                              Point target,
+                              SearchContext context) {
+        Objects.requireNonNull(source, "The source point is null.");
+        Objects.requireNonNull(target, "The target point is null.");
+        checkEndpoints(source, target);
+        return new Search(context).search(source, target);
+    }
+    
+    private Workspace getWorkspace(SearchContext context) {
+        Workspace workspace = (Workspace) context.getAttachment(this);
+        
+        if (workspace == null) {
+            workspace = new Workspace();
+            context.setAttachment(this, workspace);
+        }
+        
+        return workspace;
+    }
+    
+    /**
+     * A single search. The frontier and the stack come from the workspace of
+     * the context.
+     */
+    private final class Search {
+        
+        private final SearchContext context;
+        private final GridSearchState forwardState;
+        private final GridSearchState backwardState;
+        private final Workspace workspace;
+        private final BitSet frontier;
+        private final double[] weights;
+        
+        /**
+         * The stack arrays of the workspace, reloaded as they grow.
+         */
+        private int[] stackCells;
+        private int[][] stackNeighbors;
+        private int[] stackNeighborCounts;
+        private int[] stackNextNeighbors;
+        
+        Search(SearchContext context) {
+            this.context = context;
+            this.forwardState =
+                    getSearchState(context, SearchContext.FORWARD);
+            this.backwardState =
+                    getSearchState(context, SearchContext.BACKWARD);
+            this.workspace = getWorkspace(context);
+            this.frontier = workspace.frontier;
+            this.weights = context.weights;
+        }
+        
+        List<Point> search(Point source, Point target) {
+            if (source.equals(target)) {
+                context.pathLength = 0.0;
+                return new ArrayList<>(Arrays.asList(source));
+            }
+            
+            int sourceIndex = grid.getIndex(source);
+            int targetIndex = grid.getIndex(target);
+            
+            for (int depth = 0;; ++depth) {
+                ensureStackCapacity(depth + 1);
+                forwardState.clear();
+                frontier.clear();
                 
-                for (Point p : path) {
-                    panel.markAsPath(p);
+                if (depthLimitedSearch(sourceIndex,
+                                       depth,
+                                       forwardState,
+                                       true) == EXITED) {
+                    return null;
                 }
                 
-                panel.repaint();
-                return null;
-            }
-
-            backwardSearchStack.clear();
-
-            // Perform a reversed search once again with depth = 'depth + 1'.
-            // We need this in case the shortest path has odd number of arcs.
-            meetingNode = depthLimitedSearchBackward(target, depth + 1);
-
-            if (meetingNode != null) {
-                List<Point> path = buildPath(meetingNode);
+                pruneFrontier(depth);
+                
+                if (frontier.isEmpty()) {
+                    // Every cell reachable from the source is closer than
+                    // 'depth', and the earlier iterations would have found
+                    // a path to any of them.
+                    throw new TargetNotReachableException(
+                            "The target point is not reachable.");
+                }
+                
+                context.frontierNodeCount = frontier.cardinality();
                 
-                for (Point p : path) {
-                    panel.markAsPath(p);
+                // Search backward to the depths 'depth' and 'depth + 1' to
+                // catch the paths with an even and an odd number of moves.
+                for (int backwardDepth = depth;
+                         backwardDepth <= depth + 1;
+                         ++backwardDepth) {
+                    backwardState.clear();
+                    int meetingIndex = depthLimitedSearch(targetIndex,
+                                                          backwardDepth,
+                                                          backwardState,
+                                                          false);
+                    if (meetingIndex == EXITED) {
+                        return null;
+                    }
+                    
+                    if (meetingIndex != NOT_FOUND) {
+                        return buildPath(meetingIndex);
+                    }
                 }
                 
-                this.pathLength = getLength(path);
-                panel.repaint();
-                return null;
+                observer.repaint();
             }
-
-            panel.repaint();
-            backwardSearchStack.clear();
-            // Wipe out the frontier.
-            frontier.clear();
-        }
-    }
-
-    private void depthLimitedSearchForward(Point node, int depth) {
-        panel.markAsClosed(node);
-        
-        if (depth == 0) {
-            frontier.add(node);
-            panel.markAsFrontier(node);
-            return;
         }
         
-        if (exit) {
-            pause = false;
-            return;
+        /**
+         * Runs a depth-first search of depth {@code limit} from the root.
+         *
+         * @return the cell in the frontier hit by a backward search,
+         *         {@link #NOT_FOUND} or {@link #EXITED}.
+         */
+        private int depthLimitedSearch(int rootIndex,
+                                       int limit,
+                                       GridSearchState state,
+                                       boolean forward) {
+            state.setDistance(rootIndex, 0.0);
+            
+            if (limit == 0) {
+                return visitLeaf(rootIndex, forward);
+            }
+            
+            int top = 0;
+            push(top, rootIndex);
+            
+            while (top >= 0) {
+                if (context.isExitRequested()) {
+                    return EXITED;
+                }
+                
+                if (context.pause) {
+                    context.awaitResume();
+                    continue;
+                }
+                
+                if (stackNextNeighbors[top] == stackNeighborCounts[top]) {
+                    observer.unmarkAsClosed(stackCells[top--]);
+                    continue;
+                }
+                
+                int childIndex =
+                        stackNeighbors[top][stackNextNeighbors[top]++];
+                int childDepth = top + 1;
+                
+                if (state.getDistance(childIndex) <= childDepth) {
+                    // Entered already over a prefix at most as long.
+                    continue;
+                }
+                
+                state.setDistance(childIndex, childDepth);
+                state.setParent(childIndex, stackCells[top]);
+                
+                if (childDepth < limit) {
+                    push(++top, childIndex);
+                } else if (visitLeaf(childIndex, forward) != NOT_FOUND) {
+                    return childIndex;
+                }
+            }
+            
+            return NOT_FOUND;
         }
         
-        while (pause) {
-            sleep();
-        }
-
-        for (Point child : panel.expand(node)) {
-            depthLimitedSearchForward(child, depth - 1);
+        /**
+         * Removes the cells entered at depth {@code depth} first and over a
+         * shorter prefix later, leaving the cells exactly {@code depth} moves
+         * away from the source.
+         */
+        private void pruneFrontier(int depth) {
+            for (int i = frontier.nextSetBit(0);
+                     i >= 0;
+                     i = frontier.nextSetBit(i + 1)) {
+                if (forwardState.getDistance(i) < depth) {
+                    frontier.clear(i);
+                }
+            }
         }
         
-        panel.unmarkAsClosed(node);
-    }
-
-    private Point depthLimitedSearchBackward(Point node, int depth) {
-        panel.markAsClosed(node);
-        backwardSearchStack.addFirst(node);
-
-        if (depth == 0) {
-            if (frontier.contains(node)) {
-                return node;
+        private int visitLeaf(int index, boolean forward) {
+            if (forward) {
+                frontier.set(index);
+                observer.markAsFrontier(index);
+                return NOT_FOUND;
             }
-
-            backwardSearchStack.removeFirst();
-            return null;
+            
+            return frontier.get(index) ? index : NOT_FOUND;
         }
         
-        if (exit) {
-            return null;
+        private void push(int level, int index) {
+            stackCells[level] = index;
+            stackNeighborCounts[level] =
+                    grid.expand(index, stackNeighbors[level], weights);
+            stackNextNeighbors[level] = 0;
+            context.closedNodeCount++;
+            observer.markAsClosed(index);
         }
+        
+        private List<Point> buildPath(int meetingIndex) {
+            List<Point> path = tracebackPath(meetingIndex,
+                                             forwardState,
+                                             backwardState);
+            
+            for (Point p : path) {
+                observer.markAsPath(grid.getIndex(p));
+            }
             
-        while (pause) {
-            sleep();
+            context.pathLength = getLength(path);
+            observer.repaint();
+            return path;
         }
-
-        for (Point parent : panel.expand(node)) {
-            Point meetingNode = depthLimitedSearchBackward(parent, depth - 1);
-
-            if (meetingNode != null) {
-                return meetingNode;
-            } 
+        
+        private void ensureStackCapacity(int levels) {
+            workspace.ensureStackCapacity(levels);
+            stackCells = workspace.stackCells;
+            stackNeighbors = workspace.stackNeighbors;
+            stackNeighborCounts = workspace.stackNeighborCounts;
+            stackNextNeighbors = workspace.stackNextNeighbors;
         }
-
-        backwardSearchStack.removeFirst();
-        panel.unmarkAsClosed(node);
-        return null;
-    }
-
-    private List<Point> buildPath(Point meetingNode) {
-        List<Point> path = new ArrayList<>();
-        List<Point> prefixPath = 
-                new BIDDFSPathFinder()
-                        .search(source, 
-                                meetingNode);
-        path.addAll(prefixPath);
-        path.remove(path.size() - 1);
-        path.addAll(backwardSearchStack);
-        return path;
     }
 }
@@ -0,0 +1,301 @@
+package net.coderodde.funky.pathfinding;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * This class answers batches of path queries over a shared grid on a fixed
+ * pool of worker threads, each with a {@link SearchContext} of its own. The
+ * results are returned in the order of the queries.
+ */
+public final class BatchPathfinder implements AutoCloseable {
+    
+    /**
+     * A single query: a source, a target and the algorithm to use.
+     */
+    public static final class Query {
+        
+        private final Point sourcePoint;
+        private final Point targetPoint;
+        private final Supplier<? extends AbstractPathFinder> algorithm;
+        
+        /**
+         * Constructs a query. The queries of a batch passing the same
+         * supplier object share a pathfinder.
+         *
+         * @param sourcePoint the source point.
+         * @param targetPoint the target point.
+         * @param algorithm   the supplier of the pathfinders to use. Must
+         *                    return a new pathfinder on each call.
+         */
+        public Query(Point sourcePoint,
+                     Point targetPoint,
+                     Supplier<? extends AbstractPathFinder> algorithm) {
+            this.sourcePoint = new Point(Objects.requireNonNull(
+                    sourcePoint,
+                    "The source point is null."));
+            this.targetPoint = new Point(Objects.requireNonNull(
+                    targetPoint,
+                    "The target point is null."));
+            this.algorithm = Objects.requireNonNull(algorithm,
+                                                    "The algorithm is null.");
+        }
+        
+        public Point getSourcePoint() {
+            return new Point(sourcePoint);
+        }
+        
+        public Point getTargetPoint() {
+            return new Point(targetPoint);
+        }
+        
+        public Supplier<? extends AbstractPathFinder> getAlgorithm() {
+            return algorithm;
+        }
+    }
+    
+    /**
+     * The answer to a query along with the statistics of its search.
+     */
+    public static final class Result {
+        
+        private final Query query;
+        private final List<Point> path;
+        private final double pathLength;
+        private final int closedNodes;
+        private final int frontierNodes;
+        private final long nanoseconds;
+        
+        Result(Query query,
+               List<Point> path,
+               double pathLength,
+               int closedNodes,
+               int frontierNodes,
+               long nanoseconds) {
+            this.query = query;
+            this.path = path;
+            this.pathLength = pathLength;
+            this.closedNodes = closedNodes;
+            this.frontierNodes = frontierNodes;
+            this.nanoseconds = nanoseconds;
+        }
+        
+        public Query getQuery() {
+            return query;
+        }
+        
+        /**
+         * Returns the path found, or {@code null} if the target is not
+         * reachable from the source.
+         *
+         * @return the path or {@code null}.
+         */
+        public List<Point> getPath() {
+            return path;
+        }
+        
+        /**
+         * Returns the length of the path, or {@link Double#NaN} if there is
+         * no path.
+         *
+         * @return the path length.
+         */
+        public double getPathLength() {
+            return pathLength;
+        }
+        
+        public int getNumberOfClosedNodes() {
+            return closedNodes;
+        }
+        
+        public int getNumberOfFrontierNodes() {
+            return frontierNodes;
+        }
+        
+        /**
+         * Returns the wall-clock time of the search alone.
+         *
+         * @return the duration of the search in nanoseconds.
+         */
+        public long getDurationNanos() {
+            return nanoseconds;
+        }
+    }
+    
+    private final GridModel grid;
+    private final int numberOfThreads;
+    private final ExecutorService executor;
+    
+    /**
+     * The search context of the calling worker.
+     */
+    private final ThreadLocal<SearchContext> contexts =
+            ThreadLocal.withInitial(SearchContext::new);
+    
+    /**
+     * Constructs a batch pathfinder with one worker per available processor.
+     *
+     * @param grid the grid to search.
+     */
+    public BatchPathfinder(GridModel grid) {
+        this(grid, Runtime.getRuntime().availableProcessors());
+    }
+    
+    public BatchPathfinder(GridModel grid, int numberOfThreads) {
+        if (numberOfThreads < 1) {
+            throw new IllegalArgumentException(
+                    "The number of threads must be positive: " +
+                    numberOfThreads + ".");
+        }
+        
+        this.grid = Objects.requireNonNull(grid, "The grid model is null.");
+        this.numberOfThreads = numberOfThreads;
+        
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(numberOfThreads, (r) -> {
+            Thread thread = new Thread(
+                    r,
+                    "Batch pathfinder " + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    public GridModel getGridModel() {
+        return grid;
+    }
+    
+    public int getNumberOfThreads() {
+        return numberOfThreads;
+    }
+    
+    /**
+     * Runs a batch of queries and waits for all of them. The workers take
+     * the queries one at a time, so a few long searches do not hold up the
+     * rest of the batch.
+     *
+     * @param queries the queries.
+     * @return the results, in the order of the queries.
+     * @throws IllegalStateException if a search fails or the calling thread
+     *                               is interrupted.
+     */
+    public List<Result> search(List<Query> queries) {
+        Query[] queryArray = queries.toArray(new Query[queries.size()]);
+        
+        for (Query query : queryArray) {
+            Objects.requireNonNull(query, "A query is null.");
+        }
+        
+        Result[] results = new Result[queryArray.length];
+        // The pathfinders of this batch, keyed by their suppliers.
+        ConcurrentMap<Supplier<?>, AbstractPathFinder> pathfinders =
+                new ConcurrentHashMap<>();
+        AtomicInteger nextQuery = new AtomicInteger();
+        int workerCount = Math.min(numberOfThreads, queryArray.length);
+        List<Future<?>> futures = new ArrayList<>(workerCount);
+        
+        for (int i = 0; i < workerCount; ++i) {
+            futures.add(executor.submit(() -> {
+                int index;
+                
+                while ((index = nextQuery.getAndIncrement())
+                        < queryArray.length) {
+                    results[index] = search(queryArray[index], pathfinders);
+                }
+            }));
+        }
+        
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException ex) {
+            // Make the workers skip the queries they have not started.
+            nextQuery.set(queryArray.length);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(
+                    "Interrupted while waiting for the batch.", ex);
+        } catch (ExecutionException ex) {
+            nextQuery.set(queryArray.length);
+            throw new IllegalStateException("A search failed.",
+                                            ex.getCause());
+        } finally {
+            pathfinders.values().forEach(AbstractPathFinder::dispose);
+        }
+        
+        return Collections.unmodifiableList(Arrays.asList(results));
+    }
+    
+    /**
+     * Stops the workers. The batch pathfinder may not be used afterwards.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+    
+    private Result search(
+            Query query,
+            ConcurrentMap<Supplier<?>, AbstractPathFinder> pathfinders) {
+        AbstractPathFinder pathfinder = getPathfinder(query.algorithm,
+                                                      pathfinders);
+        SearchContext context = contexts.get();
+        context.reset();
+        
+        long startTime = System.nanoTime();
+        List<Point> path;
+        
+        try {
+            path = pathfinder.search(query.sourcePoint,
+                                     query.targetPoint,
+                                     context);
+        } catch (TargetNotReachableException ex) {
+            path = null;
+        }
+        
+        long duration = System.nanoTime() - startTime;
+        
+        return new Result(query,
+                          path,
+                          path != null ? pathfinder.getLength(path) :
+                                         Double.NaN,
+                          context.getNumberOfClosedNodes(),
+                          context.getNumberOfFrontierNodes(),
+                          duration);
+    }
+    
+    private AbstractPathFinder getPathfinder(
+            Supplier<? extends AbstractPathFinder> algorithm,
+            ConcurrentMap<Supplier<?>, AbstractPathFinder> pathfinders) {
+        AbstractPathFinder pathfinder = pathfinders.get(algorithm);
+        
+        if (pathfinder == null) {
+            // Configure the pathfinder before publishing it to the other
+            // workers.
+            pathfinder = algorithm.get();
+            pathfinder.setGridModel(grid);
+            AbstractPathFinder previous =
+                    pathfinders.putIfAbsent(algorithm, pathfinder);
+            
+            if (previous != null) {
+                pathfinder.dispose();
+                pathfinder = previous;
+            }
+        }
+        
+        return pathfinder;
+    }
+
+}
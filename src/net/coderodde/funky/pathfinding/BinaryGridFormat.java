@@ -0,0 +1,186 @@
+package net.coderodde.funky.pathfinding;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * This class writes grids in a compact binary format and maps such files
+ * into memory as grids. A file holds a little-endian header of
+ * {@value #HEADER_SIZE} bytes followed by the wall words as {@link GridModel}
+ * lays them out.
+ */
+public final class BinaryGridFormat {
+    
+    /**
+     * The customary extension of the grid files.
+     */
+    public static final String FILE_EXTENSION = ".grid";
+    
+    /**
+     * The number of the bytes before the wall words.
+     */
+    public static final int HEADER_SIZE = 32;
+    
+    private static final int MAGIC = 0x4d475046;
+    private static final int VERSION = 1;
+    private static final int WRITE_BUFFER_WORDS = 8192;
+    
+    private BinaryGridFormat() {}
+    
+    /**
+     * Writes a grid to a file, replacing its contents.
+     *
+     * @param grid the grid to write.
+     * @param file the file.
+     * @throws IOException if the file cannot be written.
+     */
+    public static void write(GridModel grid, Path file) throws IOException {
+        Objects.requireNonNull(grid, "The grid model is null.");
+        Objects.requireNonNull(file, "The file is null.");
+        
+        ByteBuffer buffer = ByteBuffer.allocate(WRITE_BUFFER_WORDS * 8)
+                                      .order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC)
+              .putInt(VERSION)
+              .putInt(grid.getWidth())
+              .putInt(grid.getHeight())
+              .putInt(grid.getWordsPerRow());
+        buffer.position(HEADER_SIZE);
+        
+        try (FileChannel channel =
+                FileChannel.open(file,
+                                 StandardOpenOption.CREATE,
+                                 StandardOpenOption.WRITE,
+                                 StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (int y = 0; y < grid.getHeight(); ++y) {
+                for (int i = 0; i < grid.getWordsPerRow(); ++i) {
+                    if (buffer.remaining() < 8) {
+                        flush(buffer, channel);
+                    }
+                    
+                    buffer.putLong(grid.getRowWord(y, i));
+                }
+            }
+            
+            flush(buffer, channel);
+        }
+    }
+    
+    /**
+     * Maps a file written by {@link #write(GridModel, Path)} into memory as a
+     * grid. The changes of a writable grid are written to the file.
+     *
+     * @param file     the file.
+     * @param writable whether the grid may be changed.
+     * @return the grid.
+     * @throws IOException if the file cannot be mapped or is malformed.
+     */
+    public static GridModel map(Path file,
+                                boolean writable) throws IOException {
+        Objects.requireNonNull(file, "The file is null.");
+        
+        try (FileChannel channel = writable ?
+                FileChannel.open(file,
+                                 StandardOpenOption.READ,
+                                 StandardOpenOption.WRITE) :
+                FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            
+            if (size < HEADER_SIZE) {
+                throw new IOException("Not a grid file: " + file + ".");
+            }
+            
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+                                          .order(ByteOrder.LITTLE_ENDIAN);
+            
+            while (header.hasRemaining()) {
+                if (channel.read(header, header.position()) < 0) {
+                    throw new IOException("Not a grid file: " + file + ".");
+                }
+            }
+            
+            header.flip();
+            
+            if (header.getInt() != MAGIC) {
+                throw new IOException("Not a grid file: " + file + ".");
+            }
+            
+            int version = header.getInt();
+            
+            if (version != VERSION) {
+                throw new IOException("Unsupported grid file version " +
+                                      version + ": " + file + ".");
+            }
+            
+            int width = header.getInt();
+            int height = header.getInt();
+            int wordsPerRow = header.getInt();
+            
+            if (width < 1
+                    || height < 1
+                    || (long) width * height > Integer.MAX_VALUE
+                    || wordsPerRow != GridModel.getWordsPerRow(width)
+                    || size != HEADER_SIZE + 8L * wordsPerRow * height) {
+                throw new IOException("Malformed grid file: " + file + ".");
+            }
+            
+            MappedByteBuffer mapping =
+                    channel.map(writable ?
+                                    FileChannel.MapMode.READ_WRITE :
+                                    FileChannel.MapMode.READ_ONLY,
+                                HEADER_SIZE,
+                                size - HEADER_SIZE);
+            LongBuffer walls = mapping.order(ByteOrder.LITTLE_ENDIAN)
+                                      .asLongBuffer();
+            return new GridModel(width, height, walls);
+        }
+    }
+    
+    /**
+     * Converts a MovingAI {@code .map} file or an image to the binary
+     * format.
+     *
+     * @param args the input file and the output file.
+     */
+    public static void main(String[] args) {
+        if (args.length != 2) {
+            System.err.println("Usage: BinaryGridFormat INPUT OUTPUT\n" +
+                               "INPUT is a MovingAI .map file or an image " +
+                               "whose dark pixels are walls.");
+            System.exit(2);
+        }
+        
+        try {
+            Path input = Paths.get(args[0]);
+            GridModel grid =
+                    input.toString().toLowerCase(Locale.ROOT)
+                                    .endsWith(".map") ?
+                    MovingAIFormat.readMap(input) :
+                    MovingAIFormat.readImage(input);
+            write(grid, Paths.get(args[1]));
+        } catch (IOException | IllegalArgumentException ex) {
+            System.err.println(ex.getMessage());
+            System.exit(1);
+        }
+    }
+    
+    private static void flush(ByteBuffer buffer,
+                              FileChannel channel) throws IOException {
+        buffer.flip();
+        
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        
+        buffer.clear();
+    }
+}
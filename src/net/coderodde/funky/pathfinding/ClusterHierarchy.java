@@ -0,0 +1,667 @@
+package net.coderodde.funky.pathfinding;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import static net.coderodde.funky.pathfinding.GridModel.MAXIMUM_NUMBER_OF_NEIGHBORS;
+
+/**
+ * This class holds the abstract graph of HPA*: the transition cells on the
+ * borders of square clusters and the cached distances between them. Only the
+ * changed clusters are rebuilt. Call {@link #dispose()} when the hierarchy is
+ * no longer needed.
+ */
+public final class ClusterHierarchy implements GridModel.ChangeListener {
+    
+    /**
+     * The default width and height of a cluster.
+     */
+    public static final int DEFAULT_CLUSTER_SIZE = 16;
+    
+    /**
+     * A border gets two transitions instead of one for each entrance spanning
+     * at least this many cells.
+     */
+    private static final int LONG_ENTRANCE_LENGTH = 6;
+    
+    /**
+     * The grid this hierarchy abstracts.
+     */
+    private final GridModel grid;
+    
+    /**
+     * The width and the height of a cluster.
+     */
+    private final int clusterSize;
+    
+    /**
+     * The number of clusters in a row.
+     */
+    private final int clustersX;
+    
+    /**
+     * The number of clusters in a column.
+     */
+    private final int clustersY;
+    
+    /**
+     * The current snapshot of the clusters, or {@code null} before the first
+     * build.
+     */
+    private volatile Cluster[] clusters;
+    
+    /**
+     * Whether each cluster must be rebuilt.
+     */
+    private final boolean[] dirty;
+    
+    /**
+     * The number of dirty clusters.
+     */
+    private int dirtyCount;
+    
+    public ClusterHierarchy(GridModel grid) {
+        this(grid, DEFAULT_CLUSTER_SIZE);
+    }
+    
+    public ClusterHierarchy(GridModel grid, int clusterSize) {
+        this.grid = Objects.requireNonNull(grid, "The grid model is null.");
+        
+        if (clusterSize < 2) {
+            throw new IllegalArgumentException(
+                    "The cluster size must be at least 2: " + clusterSize +
+                    ".");
+        }
+        
+        this.clusterSize = clusterSize;
+        this.clustersX = (grid.getWidth() + clusterSize - 1) / clusterSize;
+        this.clustersY = (grid.getHeight() + clusterSize - 1) / clusterSize;
+        this.dirty = new boolean[clustersX * clustersY];
+        Arrays.fill(dirty, true);
+        this.dirtyCount = dirty.length;
+        grid.addChangeListener(this);
+    }
+    
+    public GridModel getGridModel() {
+        return grid;
+    }
+    
+    public int getClusterSize() {
+        return clusterSize;
+    }
+    
+    /**
+     * Stops listening to the changes of the grid.
+     */
+    public void dispose() {
+        grid.removeChangeListener(this);
+    }
+    
+    @Override
+    public synchronized void cellChanged(int x, int y) {
+        int clusterIndex = getClusterIndex(x, y);
+        
+        if (!dirty[clusterIndex]) {
+            dirty[clusterIndex] = true;
+            dirtyCount++;
+        }
+    }
+    
+    @Override
+    public synchronized void gridCleared() {
+        Arrays.fill(dirty, true);
+        dirtyCount = dirty.length;
+    }
+    
+    /**
+     * Rebuilds the dirty clusters and their neighbors.
+     */
+    public synchronized void update() {
+        if (dirtyCount == 0) {
+            return;
+        }
+        
+        Cluster[] previous = clusters;
+        Cluster[] next = previous == null ? new Cluster[dirty.length] :
+                                            previous.clone();
+        int[][] components = new int[dirty.length][];
+        boolean[] affected = new boolean[dirty.length];
+        ClusterSearch search = new ClusterSearch(grid, clusterSize);
+        
+        for (int clusterIndex = 0;
+                clusterIndex < dirty.length;
+                ++clusterIndex) {
+            if (previous != null && !dirty[clusterIndex]) {
+                components[clusterIndex] = previous[clusterIndex].components;
+                continue;
+            }
+            
+            components[clusterIndex] = computeComponents(clusterIndex, search);
+            int cx = clusterIndex % clustersX;
+            int cy = clusterIndex / clustersX;
+            
+            // The transitions of the neighbors depend on the components of
+            // this cluster.
+            for (int dy = -1; dy <= 1; ++dy) {
+                for (int dx = -1; dx <= 1; ++dx) {
+                    int nx = cx + dx;
+                    int ny = cy + dy;
+                    
+                    if (nx >= 0 && nx < clustersX && ny >= 0
+                            && ny < clustersY) {
+                        affected[ny * clustersX + nx] = true;
+                    }
+                }
+            }
+        }
+        
+        for (int clusterIndex = 0;
+                clusterIndex < dirty.length;
+                ++clusterIndex) {
+            if (affected[clusterIndex]) {
+                next[clusterIndex] = buildCluster(clusterIndex,
+                                                  components,
+                                                  search);
+            }
+        }
+        
+        Arrays.fill(dirty, false);
+        dirtyCount = 0;
+        this.clusters = next;
+    }
+    
+    /**
+     * Returns an up to date snapshot of the clusters.
+     *
+     * @return the clusters indexed by their cluster index.
+     */
+    Cluster[] getClusters() {
+        update();
+        return clusters;
+    }
+    
+    int getClusterIndex(int x, int y) {
+        return (y / clusterSize) * clustersX + x / clusterSize;
+    }
+    
+    int getClusterIndex(int cellIndex) {
+        int width = grid.getWidth();
+        return getClusterIndex(cellIndex % width, cellIndex / width);
+    }
+    
+    private int[] computeComponents(int clusterIndex, ClusterSearch search) {
+        int x0 = (clusterIndex % clustersX) * clusterSize;
+        int y0 = (clusterIndex / clustersX) * clusterSize;
+        int width = Math.min(clusterSize, grid.getWidth() - x0);
+        int height = Math.min(clusterSize, grid.getHeight() - y0);
+        int[] components = new int[width * height];
+        Arrays.fill(components, -1);
+        int componentCount = 0;
+        
+        for (int y = 0; y < height; ++y) {
+            for (int x = 0; x < width; ++x) {
+                int localIndex = y * width + x;
+                
+                if (components[localIndex] != -1
+                        || grid.isWall(x0 + x, y0 + y)) {
+                    continue;
+                }
+                
+                search.run(x0, y0, width, height,
+                           grid.getIndex(x0 + x, y0 + y), -1);
+                
+                for (int i = 0; i < components.length; ++i) {
+                    if (search.isReached(i)) {
+                        components[i] = componentCount;
+                    }
+                }
+                
+                componentCount++;
+            }
+        }
+        
+        return components;
+    }
+    
+    private Cluster buildCluster(int clusterIndex,
+                                 int[][] components,
+                                 ClusterSearch search) {
+        int cx = clusterIndex % clustersX;
+        int cy = clusterIndex / clustersX;
+        int[] edges = new int[16];
+        int edgeCount = 0;
+        
+        for (int dy = -1; dy <= 1; ++dy) {
+            for (int dx = -1; dx <= 1; ++dx) {
+                int nx = cx + dx;
+                int ny = cy + dy;
+                
+                if ((dx == 0 && dy == 0)
+                        || nx < 0 || nx >= clustersX
+                        || ny < 0 || ny >= clustersY) {
+                    continue;
+                }
+                
+                int neighborIndex = ny * clustersX + nx;
+                int[] borderEdges =
+                        getBorderEdges(clusterIndex,
+                                       neighborIndex,
+                                       components);
+                
+                if (edgeCount + borderEdges.length > edges.length) {
+                    edges = Arrays.copyOf(
+                            edges,
+                            Math.max(2 * edges.length,
+                                     edgeCount + borderEdges.length));
+                }
+                
+                System.arraycopy(borderEdges, 0,
+                                 edges, edgeCount,
+                                 borderEdges.length);
+                edgeCount += borderEdges.length;
+            }
+        }
+        
+        // Each edge is a pair (transition, partner); collect the distinct
+        // transitions in ascending order.
+        int[] sortedCells = new int[edgeCount / 2];
+        
+        for (int i = 0; i < sortedCells.length; ++i) {
+            sortedCells[i] = edges[2 * i];
+        }
+        
+        Arrays.sort(sortedCells);
+        int transitionCount = 0;
+        
+        for (int i = 0; i < sortedCells.length; ++i) {
+            if (i == 0 || sortedCells[i] != sortedCells[i - 1]) {
+                sortedCells[transitionCount++] = sortedCells[i];
+            }
+        }
+        
+        int[] transitions = Arrays.copyOf(sortedCells, transitionCount);
+        int[] partnerCounts = new int[transitionCount];
+        int[][] partners = new int[transitionCount][];
+        
+        for (int i = 0; i < edgeCount; i += 2) {
+            partnerCounts[Arrays.binarySearch(transitions, edges[i])]++;
+        }
+        
+        for (int slot = 0; slot < transitionCount; ++slot) {
+            partners[slot] = new int[partnerCounts[slot]];
+            partnerCounts[slot] = 0;
+        }
+        
+        for (int i = 0; i < edgeCount; i += 2) {
+            int slot = Arrays.binarySearch(transitions, edges[i]);
+            partners[slot][partnerCounts[slot]++] = edges[i + 1];
+        }
+        
+        int x0 = cx * clusterSize;
+        int y0 = cy * clusterSize;
+        int width = Math.min(clusterSize, grid.getWidth() - x0);
+        int height = Math.min(clusterSize, grid.getHeight() - y0);
+        double[] distances = new double[transitionCount * transitionCount];
+        
+        for (int slot = 0; slot < transitionCount; ++slot) {
+            search.run(x0, y0, width, height, transitions[slot], -1);
+            
+            for (int other = 0; other < transitionCount; ++other) {
+                distances[slot * transitionCount + other] =
+                        search.getDistance(transitions[other]);
+            }
+        }
+        
+        return new Cluster(x0,
+                           y0,
+                           width,
+                           height,
+                           components[clusterIndex],
+                           transitions,
+                           partners,
+                           distances);
+    }
+    
+    /**
+     * Returns the transition pairs placed on the border of two adjacent
+     * clusters, as a flat array of pairs.
+     */
+    private int[] getBorderEdges(int clusterIndex1,
+                                 int clusterIndex2,
+                                 int[][] components) {
+        if (clusterIndex1 > clusterIndex2) {
+            int[] edges = getBorderEdges(clusterIndex2,
+                                         clusterIndex1,
+                                         components);
+            
+            for (int i = 0; i < edges.length; i += 2) {
+                int tmp = edges[i];
+                edges[i] = edges[i + 1];
+                edges[i + 1] = tmp;
+            }
+            
+            return edges;
+        }
+        
+        int ax0 = (clusterIndex1 % clustersX) * clusterSize;
+        int ay0 = (clusterIndex1 / clustersX) * clusterSize;
+        int aWidth = Math.min(clusterSize, grid.getWidth() - ax0);
+        int aHeight = Math.min(clusterSize, grid.getHeight() - ay0);
+        int bx0 = (clusterIndex2 % clustersX) * clusterSize;
+        int by0 = (clusterIndex2 / clustersX) * clusterSize;
+        int bWidth = Math.min(clusterSize, grid.getWidth() - bx0);
+        int bHeight = Math.min(clusterSize, grid.getHeight() - by0);
+        int[] aComponents = components[clusterIndex1];
+        int[] bComponents = components[clusterIndex2];
+        
+        // Only the cells of the first cluster next to the second one may
+        // have a neighbor in it.
+        int xMin = Math.max(ax0, bx0 - 1);
+        int xMax = Math.min(ax0 + aWidth - 1, bx0 + bWidth);
+        int yMin = Math.max(ay0, by0 - 1);
+        int yMax = Math.min(ay0 + aHeight - 1, by0 + bHeight);
+        
+        // Each crossing is stored as (cell 1, cell 2, component 1,
+        // component 2).
+        int[] crossings = new int[64];
+        int crossingCount = 0;
+        
+        for (int y = yMin; y <= yMax; ++y) {
+            for (int x = xMin; x <= xMax; ++x) {
+                int aComponent = aComponents[(y - ay0) * aWidth + x - ax0];
+                
+                if (aComponent == -1) {
+                    continue;
+                }
+                
+                for (int dy = -1; dy <= 1; ++dy) {
+                    for (int dx = -1; dx <= 1; ++dx) {
+                        int nx = x + dx;
+                        int ny = y + dy;
+                        
+                        if (nx < bx0 || nx >= bx0 + bWidth
+                                || ny < by0 || ny >= by0 + bHeight) {
+                            continue;
+                        }
+                        
+                        int bComponent =
+                                bComponents[(ny - by0) * bWidth + nx - bx0];
+                        
+                        if (bComponent == -1) {
+                            continue;
+                        }
+                        
+                        if (crossingCount + 4 > crossings.length) {
+                            crossings = Arrays.copyOf(crossings,
+                                                      2 * crossings.length);
+                        }
+                        
+                        crossings[crossingCount++] = grid.getIndex(x, y);
+                        crossings[crossingCount++] = grid.getIndex(nx, ny);
+                        crossings[crossingCount++] = aComponent;
+                        crossings[crossingCount++] = bComponent;
+                    }
+                }
+            }
+        }
+        
+        int[] edges = new int[16];
+        int edgeCount = 0;
+        boolean[] grouped = new boolean[crossingCount / 4];
+        int[] group = new int[crossingCount / 4];
+        
+        for (int i = 0; i < grouped.length; ++i) {
+            if (grouped[i]) {
+                continue;
+            }
+            
+            // Gather the crossings connecting the same two components.
+            int groupSize = 0;
+            int distinctCells = 0;
+            
+            for (int j = i; j < grouped.length; ++j) {
+                if (!grouped[j]
+                        && crossings[4 * j + 2] == crossings[4 * i + 2]
+                        && crossings[4 * j + 3] == crossings[4 * i + 3]) {
+                    grouped[j] = true;
+                    
+                    if (groupSize == 0
+                            || crossings[4 * j] !=
+                               crossings[4 * group[groupSize - 1]]) {
+                        distinctCells++;
+                    }
+                    
+                    group[groupSize++] = j;
+                }
+            }
+            
+            if (edgeCount + 4 > edges.length) {
+                edges = Arrays.copyOf(edges, 2 * edges.length);
+            }
+            
+            if (distinctCells >= LONG_ENTRANCE_LENGTH) {
+                int first = group[0];
+                int last = group[groupSize - 1];
+                edges[edgeCount++] = crossings[4 * first];
+                edges[edgeCount++] = crossings[4 * first + 1];
+                edges[edgeCount++] = crossings[4 * last];
+                edges[edgeCount++] = crossings[4 * last + 1];
+            } else {
+                int middle = group[groupSize / 2];
+                edges[edgeCount++] = crossings[4 * middle];
+                edges[edgeCount++] = crossings[4 * middle + 1];
+            }
+        }
+        
+        return Arrays.copyOf(edges, edgeCount);
+    }
+    
+    /**
+     * A cluster of the hierarchy. Never modified after construction.
+     */
+    static final class Cluster {
+        
+        final int x0;
+        final int y0;
+        final int width;
+        final int height;
+        
+        /**
+         * The connected component of each cell of the cluster, indexed by
+         * {@code (y - y0) * width + x - x0}, or -1 for the walls.
+         */
+        final int[] components;
+        
+        /**
+         * The cell indices of the transitions, in ascending order.
+         */
+        final int[] transitions;
+        
+        /**
+         * The cells in other clusters each transition is adjacent to.
+         */
+        final int[][] partners;
+        
+        /**
+         * The shortest path distance within the cluster between the
+         * transitions {@code i} and {@code j} is stored at the index
+         * {@code i * transitions.length + j}.
+         */
+        final double[] distances;
+        
+        Cluster(int x0,
+                int y0,
+                int width,
+                int height,
+                int[] components,
+                int[] transitions,
+                int[][] partners,
+                double[] distances) {
+            this.x0 = x0;
+            this.y0 = y0;
+            this.width = width;
+            this.height = height;
+            this.components = components;
+            this.transitions = transitions;
+            this.partners = partners;
+            this.distances = distances;
+        }
+        
+        /**
+         * Returns the slot of the transition at the given cell, or a
+         * negative value if the cell is not a transition of this cluster.
+         */
+        int getSlot(int cellIndex) {
+            return Arrays.binarySearch(transitions, cellIndex);
+        }
+        
+        double getDistance(int slot1, int slot2) {
+            return distances[slot1 * transitions.length + slot2];
+        }
+    }
+    
+    /**
+     * Runs Dijkstra's algorithm confined to a rectangle of the grid, reusing
+     * its arrays between the runs.
+     */
+    static final class ClusterSearch {
+        
+        private final GridModel grid;
+        private final double[] distances;
+        private final int[] parents;
+        private final IntPriorityQueue open;
+        private final int[] neighbors = new int[MAXIMUM_NUMBER_OF_NEIGHBORS];
+        private final double[] weights =
+                new double[MAXIMUM_NUMBER_OF_NEIGHBORS];
+        private int x0;
+        private int y0;
+        private int width;
+        private int height;
+        
+        ClusterSearch(GridModel grid, int clusterSize) {
+            this.grid = grid;
+            this.distances = new double[clusterSize * clusterSize];
+            this.parents = new int[clusterSize * clusterSize];
+            this.open = new IntIndexedBinaryHeap(clusterSize * clusterSize);
+        }
+        
+        void run(Cluster cluster, int sourceIndex, int targetIndex) {
+            run(cluster.x0,
+                cluster.y0,
+                cluster.width,
+                cluster.height,
+                sourceIndex,
+                targetIndex);
+        }
+        
+        /**
+         * Searches from the source cell within the given rectangle, until
+         * the target cell is settled or, if the target is -1, until the
+         * entire reachable part of the rectangle is settled.
+         */
+        void run(int x0,
+                 int y0,
+                 int width,
+                 int height,
+                 int sourceIndex,
+                 int targetIndex) {
+            this.x0 = x0;
+            this.y0 = y0;
+            this.width = width;
+            this.height = height;
+            
+            int cellCount = width * height;
+            Arrays.fill(distances, 0, cellCount, Double.POSITIVE_INFINITY);
+            Arrays.fill(parents, 0, cellCount, -1);
+            open.clear();
+            
+            int source = toLocal(sourceIndex);
+            int target = targetIndex == -1 ? -1 : toLocal(targetIndex);
+            distances[source] = 0.0;
+            open.add(source, 0.0);
+            
+            while (open.size() > 0) {
+                int current = open.extractMinimum();
+                
+                if (current == target) {
+                    return;
+                }
+                
+                int neighborCount = grid.expand(toGlobal(current),
+                                                neighbors,
+                                                weights);
+                
+                for (int i = 0; i < neighborCount; ++i) {
+                    int child = toLocal(neighbors[i]);
+                    
+                    if (child == -1) {
+                        continue;
+                    }
+                    
+                    double tentativeDistance = distances[current] +
+                                               weights[i];
+                    
+                    if (distances[child] == Double.POSITIVE_INFINITY) {
+                        open.add(child, tentativeDistance);
+                        distances[child] = tentativeDistance;
+                        parents[child] = current;
+                    } else if (distances[child] > tentativeDistance) {
+                        open.decreasePriority(child, tentativeDistance);
+                        distances[child] = tentativeDistance;
+                        parents[child] = current;
+                    }
+                }
+            }
+        }
+        
+        boolean isReached(int localIndex) {
+            return distances[localIndex] != Double.POSITIVE_INFINITY;
+        }
+        
+        /**
+         * Returns the distance of a cell from the source of the latest run,
+         * or infinity if it was not reached.
+         */
+        double getDistance(int cellIndex) {
+            int local = toLocal(cellIndex);
+            return local == -1 ? Double.POSITIVE_INFINITY : distances[local];
+        }
+        
+        /**
+         * Returns the path from the source of the latest run to the given
+         * reached cell, both inclusive.
+         */
+        List<Point> getPath(int cellIndex) {
+            List<Point> path = new ArrayList<>();
+            int current = toLocal(cellIndex);
+            
+            while (current != -1) {
+                path.add(new Point(x0 + current % width,
+                                   y0 + current / width));
+                current = parents[current];
+            }
+            
+            Collections.<Point>reverse(path);
+            return path;
+        }
+        
+        private int toLocal(int cellIndex) {
+            int x = cellIndex % grid.getWidth() - x0;
+            int y = cellIndex / grid.getWidth() - y0;
+            
+            if (x < 0 || x >= width || y < 0 || y >= height) {
+                return -1;
+            }
+            
+            return y * width + x;
+        }
+        
+        private int toGlobal(int localIndex) {
+            return grid.getIndex(x0 + localIndex % width,
+                                 y0 + localIndex / width);
+        }
+    }
+}
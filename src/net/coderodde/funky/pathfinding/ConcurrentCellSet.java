@@ -0,0 +1,54 @@
+package net.coderodde.funky.pathfinding;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * This class implements a set of cell indices that several threads may read
+ * and add to at once. Like {@link GridSearchState}, it is cleared in constant
+ * time by starting a new generation.
+ */
+public final class ConcurrentCellSet {
+    
+    private final AtomicIntegerArray stamps;
+    private int generation = 1;
+    
+    public ConcurrentCellSet(int size) {
+        this.stamps = new AtomicIntegerArray(size);
+    }
+    
+    public boolean contains(int index) {
+        return stamps.get(index) == generation;
+    }
+    
+    /**
+     * Adds a cell.
+     *
+     * @param index the index of the cell.
+     * @return {@code true} if the cell was not in the set.
+     */
+    public boolean add(int index) {
+        while (true) {
+            int stamp = stamps.get(index);
+            
+            if (stamp == generation) {
+                return false;
+            }
+            
+            if (stamps.compareAndSet(index, stamp, generation)) {
+                return true;
+            }
+        }
+    }
+    
+    public void clear() {
+        if (generation == Integer.MAX_VALUE) {
+            for (int i = 0; i < stamps.length(); ++i) {
+                stamps.set(i, 0);
+            }
+            
+            generation = 0;
+        }
+        
+        generation++;
+    }
+}
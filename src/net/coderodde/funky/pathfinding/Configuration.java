@@ -19,5 +19,6 @@ public final class Configuration {
     static final Color DEFAULT_PATH_COLOR     = Color.BLUE;
     static final int NODES_EXPANSIONS_PER_REPAINT = 50;
     static final int REPAINTS_PER_PATH_DRAWING = 150;
-    static final int THREAD_SLEEP_MILLISECONDS = 100;
+    static final int RENDER_EVENTS_PER_FRAME = 1 << 16;
+    static final int RENDER_FRAME_MILLISECONDS = 16;
 }
@@ -0,0 +1,61 @@
+package net.coderodde.funky.pathfinding;
+
+/**
+ * This class wraps an open list and counts its operations in a
+ * {@link SearchContext}. Like the context, it is not thread-safe.
+ */
+final class CountingIntPriorityQueue implements IntPriorityQueue {
+    
+    final IntPriorityQueue delegate;
+    private final SearchContext context;
+    
+    CountingIntPriorityQueue(IntPriorityQueue delegate,
+                             SearchContext context) {
+        this.delegate = delegate;
+        this.context = context;
+    }
+    
+    @Override
+    public void add(int element, double priority) {
+        int previousSize = delegate.size();
+        delegate.add(element, priority);
+        int size = delegate.size();
+        
+        if (size > previousSize) {
+            context.openListInsertionCount++;
+            context.peakOpenListSize = Math.max(context.peakOpenListSize,
+                                                size);
+        }
+    }
+    
+    @Override
+    public boolean decreasePriority(int element, double newPriority) {
+        if (delegate.decreasePriority(element, newPriority)) {
+            context.openListDecreaseKeyCount++;
+            return true;
+        }
+        
+        return false;
+    }
+    
+    @Override
+    public int top() {
+        return delegate.top();
+    }
+    
+    @Override
+    public int extractMinimum() {
+        context.openListExtractionCount++;
+        return delegate.extractMinimum();
+    }
+    
+    @Override
+    public int size() {
+        return delegate.size();
+    }
+    
+    @Override
+    public void clear() {
+        delegate.clear();
+    }
+}
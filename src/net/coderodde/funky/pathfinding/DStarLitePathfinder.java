@@ -0,0 +1,771 @@
+package net.coderodde.funky.pathfinding;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import static net.coderodde.funky.pathfinding.Configuration.NODES_EXPANSIONS_PER_REPAINT;
+import static net.coderodde.funky.pathfinding.GridModel.MAXIMUM_NUMBER_OF_NEIGHBORS;
+
+/**
+ * This class implements D* Lite (Koenig and Likhachev, 2002). The search tree
+ * is kept in the {@link SearchContext} between searches towards the same
+ * target and repaired only where the grid changed. Call {@link #dispose()}
+ * when the pathfinder is no longer needed.
+ */
+public final class DStarLitePathfinder extends AbstractPathFinder
+                                       implements GridModel.ChangeListener {
+    
+    /**
+     * The maximum number of changed cells remembered between searches. A
+     * search that has missed more changes than this starts from scratch,
+     * which is then about as fast as repairing the tree.
+     */
+    private static final int MAXIMUM_NUMBER_OF_CHANGES = 4096;
+    
+    /**
+     * The distance of one straight move.
+     */
+    private static final long STRAIGHT = 1L << 32;
+    
+    /**
+     * The distance of one diagonal move.
+     */
+    private static final long DIAGONAL = 1L;
+    
+    /**
+     * The distance of an unreachable cell.
+     */
+    private static final long INFINITY = Long.MAX_VALUE;
+    
+    /**
+     * The search tree of D* Lite, reused by the searches run in the same
+     * context.
+     */
+    private static final class Workspace {
+        
+        GridModel grid;
+        int width;
+        
+        /**
+         * The distances to the target as of the last expansion of each cell.
+         */
+        long[] g = new long[0];
+        
+        /**
+         * The one-step lookahead distances to the target.
+         */
+        long[] rhs = new long[0];
+        
+        /**
+         * The values of a cell are valid only if the cell is stamped with the
+         * current generation; otherwise both are infinite.
+         */
+        int[] stamps = new int[0];
+        int generation;
+        
+        KeyQueue open = new KeyQueue(0);
+        int sourceIndex;
+        int targetIndex = -1;
+        
+        /**
+         * The key modifier accumulating the heuristic distances the source
+         * has moved by, so that the keys in the queue stay valid.
+         */
+        long km;
+        
+        /**
+         * The number of the first change this workspace has not seen.
+         */
+        long changeNumber = Long.MIN_VALUE;
+        
+        /**
+         * The changed cells collected for the current search.
+         */
+        int[] changedCells = new int[64];
+        
+        /**
+         * The buffers for expanding a cell while a neighbor of another cell
+         * is being expanded.
+         */
+        final int[] neighbors = new int[MAXIMUM_NUMBER_OF_NEIGHBORS];
+        final double[] weights = new double[MAXIMUM_NUMBER_OF_NEIGHBORS];
+        
+        /**
+         * Forgets the search tree and prepares a search from scratch.
+         */
+        void clear(GridModel grid, int sourceIndex, int targetIndex) {
+            int cellCount = grid.getWidth() * grid.getHeight();
+            
+            if (g.length != cellCount) {
+                g = new long[cellCount];
+                rhs = new long[cellCount];
+                stamps = new int[cellCount];
+                open = new KeyQueue(cellCount);
+                generation = 0;
+            } else {
+                open.clear();
+                
+                if (generation == Integer.MAX_VALUE) {
+                    Arrays.fill(stamps, 0);
+                    generation = 0;
+                }
+            }
+            
+            this.generation++;
+            this.grid = grid;
+            this.width = grid.getWidth();
+            this.sourceIndex = sourceIndex;
+            this.targetIndex = targetIndex;
+            this.km = 0L;
+        }
+        
+        long getG(int cell) {
+            return stamps[cell] == generation ? g[cell] : INFINITY;
+        }
+        
+        long getRhs(int cell) {
+            return stamps[cell] == generation ? rhs[cell] : INFINITY;
+        }
+        
+        void setG(int cell, long value) {
+            touch(cell);
+            g[cell] = value;
+        }
+        
+        void setRhs(int cell, long value) {
+            touch(cell);
+            rhs[cell] = value;
+        }
+        
+        private void touch(int cell) {
+            if (stamps[cell] != generation) {
+                stamps[cell] = generation;
+                g[cell] = INFINITY;
+                rhs[cell] = INFINITY;
+            }
+        }
+        
+        /**
+         * Computes the {@code rhs} value of a cell from the {@code g} values
+         * of its neighbors.
+         */
+        long computeRhs(int cell) {
+            if (grid.isWall(cell % width, cell / width)) {
+                return INFINITY;
+            }
+            
+            if (cell == targetIndex) {
+                return 0L;
+            }
+            
+            int neighborCount = grid.expand(cell, neighbors, weights);
+            long best = INFINITY;
+            
+            for (int i = 0; i < neighborCount; ++i) {
+                best = min(best,
+                           add(getMoveLength(weights[i]),
+                               getG(neighbors[i])));
+            }
+            
+            return best;
+        }
+        
+        /**
+         * Returns the octile distance between two cells, which never exceeds
+         * the length of a shortest path between them.
+         */
+        long getHeuristic(int cell1, int cell2) {
+            int dx = Math.abs(cell1 % width - cell2 % width);
+            int dy = Math.abs(cell1 / width - cell2 / width);
+            return Math.abs(dx - dy) * STRAIGHT + Math.min(dx, dy) * DIAGONAL;
+        }
+        
+        long getKey1(int cell) {
+            return add(getKey2(cell), getHeuristic(sourceIndex, cell) + km);
+        }
+        
+        long getKey2(int cell) {
+            return min(getG(cell), getRhs(cell));
+        }
+    }
+    
+    /**
+     * An indexed binary heap of cells ordered lexicographically by their
+     * two-part keys. Unlike {@link IntPriorityQueue}, it supports raising a
+     * key and removing an arbitrary cell, both of which D* Lite needs.
+     */
+    private static final class KeyQueue {
+        
+        private static final int ABSENT = -1;
+        
+        private int[] elements;
+        private long[] keys1;
+        private long[] keys2;
+        private final int[] positions;
+        private int size;
+        
+        KeyQueue(int capacity) {
+            int initialCapacity = Math.max(1, Math.min(capacity, 1024));
+            this.elements = new int[initialCapacity];
+            this.keys1 = new long[initialCapacity];
+            this.keys2 = new long[initialCapacity];
+            this.positions = new int[capacity];
+            Arrays.fill(positions, ABSENT);
+        }
+        
+        boolean contains(int element) {
+            return positions[element] != ABSENT;
+        }
+        
+        /**
+         * Adds an element or changes the key of a present one.
+         */
+        void set(int element, long key1, long key2) {
+            int index = positions[element];
+            
+            if (index == ABSENT) {
+                if (size == elements.length) {
+                    int newCapacity = Math.min(2 * size, positions.length);
+                    elements = Arrays.copyOf(elements, newCapacity);
+                    keys1 = Arrays.copyOf(keys1, newCapacity);
+                    keys2 = Arrays.copyOf(keys2, newCapacity);
+                }
+                
+                index = size++;
+            }
+            
+            elements[index] = element;
+            keys1[index] = key1;
+            keys2[index] = key2;
+            positions[element] = index;
+            
+            if (!siftUp(index)) {
+                siftDown(index);
+            }
+        }
+        
+        void remove(int element) {
+            int index = positions[element];
+            
+            if (index == ABSENT) {
+                return;
+            }
+            
+            positions[element] = ABSENT;
+            --size;
+            
+            if (index == size) {
+                return;
+            }
+            
+            elements[index] = elements[size];
+            keys1[index] = keys1[size];
+            keys2[index] = keys2[size];
+            positions[elements[index]] = index;
+            
+            if (!siftUp(index)) {
+                siftDown(index);
+            }
+        }
+        
+        int top() {
+            if (size == 0) {
+                throw new NoSuchElementException("The queue is empty.");
+            }
+            
+            return elements[0];
+        }
+        
+        long topKey1() {
+            return size > 0 ? keys1[0] : INFINITY;
+        }
+        
+        long topKey2() {
+            return size > 0 ? keys2[0] : INFINITY;
+        }
+        
+        int size() {
+            return size;
+        }
+        
+        void clear() {
+            for (int i = 0; i < size; ++i) {
+                positions[elements[i]] = ABSENT;
+            }
+            
+            size = 0;
+        }
+        
+        private boolean less(int index1, int index2) {
+            return isLess(keys1[index1], keys2[index1],
+                          keys1[index2], keys2[index2]);
+        }
+        
+        private boolean siftUp(int index) {
+            boolean moved = false;
+            
+            while (index > 0) {
+                int parentIndex = (index - 1) >>> 1;
+                
+                if (!less(index, parentIndex)) {
+                    break;
+                }
+                
+                swap(index, parentIndex);
+                index = parentIndex;
+                moved = true;
+            }
+            
+            return moved;
+        }
+        
+        private void siftDown(int index) {
+            while (true) {
+                int minIndex = index;
+                int leftChildIndex = (index << 1) + 1;
+                int rightChildIndex = leftChildIndex + 1;
+                
+                if (leftChildIndex < size && less(leftChildIndex, minIndex)) {
+                    minIndex = leftChildIndex;
+                }
+                
+                if (rightChildIndex < size
+                        && less(rightChildIndex, minIndex)) {
+                    minIndex = rightChildIndex;
+                }
+                
+                if (minIndex == index) {
+                    return;
+                }
+                
+                swap(index, minIndex);
+                index = minIndex;
+            }
+        }
+        
+        private void swap(int index1, int index2) {
+            int element = elements[index1];
+            long key1 = keys1[index1];
+            long key2 = keys2[index1];
+            elements[index1] = elements[index2];
+            keys1[index1] = keys1[index2];
+            keys2[index1] = keys2[index2];
+            elements[index2] = element;
+            keys1[index2] = key1;
+            keys2[index2] = key2;
+            positions[elements[index1]] = index1;
+            positions[element] = index2;
+        }
+    }
+    
+    /**
+     * The cells changed since the change numbered {@code firstChangeNumber}.
+     */
+    private int[] changedCells = new int[64];
+    private int changedCellCount;
+    private long firstChangeNumber;
+    
+    /**
+     * The grid whose changes this pathfinder listens to, or {@code null} once
+     * disposed.
+     */
+    private GridModel listenedGrid;
+    
+    /**
+     * {@inheritDoc} The pathfinder stops listening to the changes of its
+     * previous grid and starts listening to the changes of the new one.
+     */
+    @Override
+    public void setGridModel(GridModel grid) {
+        super.setGridModel(grid);
+        
+        if (grid != listenedGrid) {
+            if (listenedGrid != null) {
+                listenedGrid.removeChangeListener(this);
+            }
+            
+            grid.addChangeListener(this);
+            listenedGrid = grid;
+            forgetChanges();
+        }
+    }
+    
+    /**
+     * Stops listening to the changes of the grid. Until the grid is set
+     * again, each search starts from scratch.
+     */
+    @Override
+    public void dispose() {
+        if (listenedGrid != null) {
+            listenedGrid.removeChangeListener(this);
+            listenedGrid = null;
+        }
+    }
+    
+    @Override
+    public synchronized void cellChanged(int x, int y) {
+        if (changedCellCount == MAXIMUM_NUMBER_OF_CHANGES) {
+            forgetChanges();
+        }
+        
+        if (changedCellCount == changedCells.length) {
+            changedCells = Arrays.copyOf(changedCells, 2 * changedCellCount);
+        }
+        
+        changedCells[changedCellCount++] = y * grid.getWidth() + x;
+    }
+    
+    @Override
+    public synchronized void gridCleared() {
+        forgetChanges();
+    }
+    
+    @Override
+    public List<Point> search(Point sourcePoint,
+                              Point targetPoint,
+                              SearchContext context) {
+        Objects.requireNonNull(sourcePoint, "The source point is null.");
+        Objects.requireNonNull(targetPoint, "The target point is null.");
+        
+        context.pathLength = Double.NaN;
+        
+        Workspace workspace = getWorkspace(context);
+        int sourceIndex = grid.getIndex(sourcePoint);
+        int targetIndex = grid.getIndex(targetPoint);
+        
+        if (listenedGrid != grid) {
+            // The changes of the grid go unseen.
+            forgetChanges();
+        }
+        
+        int changeCount = collectChanges(workspace);
+        
+        if (changeCount < 0
+                || workspace.grid != grid
+                || workspace.targetIndex != targetIndex) {
+            workspace.clear(grid, sourceIndex, targetIndex);
+            updateRhs(workspace, targetIndex);
+        } else {
+            if (sourceIndex != workspace.sourceIndex) {
+                workspace.km += workspace.getHeuristic(workspace.sourceIndex,
+                                                       sourceIndex);
+                workspace.sourceIndex = sourceIndex;
+            }
+            
+            int[] neighbors = context.neighbors;
+            double[] weights = context.weights;
+            
+            // Only the outgoing edges of a changed cell and of its neighbors
+            // have changed, so only their rhs values may be stale.
+            for (int i = 0; i < changeCount; ++i) {
+                int cell = workspace.changedCells[i];
+                updateRhs(workspace, cell);
+                int neighborCount = grid.expand(cell, neighbors, weights);
+                
+                for (int j = 0; j < neighborCount; ++j) {
+                    updateRhs(workspace, neighbors[j]);
+                }
+            }
+        }
+        
+        checkEndpoints(sourcePoint, targetPoint);
+        
+        if (!computeShortestPath(workspace, context)) {
+            return null;
+        }
+        
+        context.frontierNodeCount = workspace.open.size();
+        List<Point> path = workspace.getRhs(sourceIndex) != INFINITY ?
+                           extractPath(workspace, context) :
+                           null;
+        
+        if (path == null) {
+            observer.repaint();
+            throw new TargetNotReachableException(
+                    "The target point is not reachable.");
+        }
+        
+        for (Point p : path) {
+            observer.markAsPath(grid.getIndex(p));
+        }
+        
+        context.pathLength = getLength(path);
+        observer.repaint();
+        return path;
+    }
+    
+    /**
+     * Expands the locally inconsistent cells until the source is consistent
+     * and no cell in the queue may lie on a shorter path to it.
+     *
+     * @return {@code false} if the search was asked to exit.
+     */
+    private boolean computeShortestPath(Workspace workspace,
+                                        SearchContext context) {
+        KeyQueue open = workspace.open;
+        int sourceIndex = workspace.sourceIndex;
+        int targetIndex = workspace.targetIndex;
+        int[] neighbors = context.neighbors;
+        double[] weights = context.weights;
+        int expansions = 0;
+        
+        while (open.size() > 0) {
+            long topKey1 = open.topKey1();
+            long topKey2 = open.topKey2();
+            
+            if (!isLess(topKey1,
+                        topKey2,
+                        workspace.getKey1(sourceIndex),
+                        workspace.getKey2(sourceIndex))
+                    && compare(workspace.getRhs(sourceIndex),
+                               workspace.getG(sourceIndex)) <= 0) {
+                break;
+            }
+            
+            if (context.isExitRequested()) {
+                return false;
+            }
+            
+            if (context.pause) {
+                context.awaitResume();
+                continue;
+            }
+            
+            int current = open.top();
+            long newKey1 = workspace.getKey1(current);
+            long newKey2 = workspace.getKey2(current);
+            
+            if (isLess(topKey1, topKey2, newKey1, newKey2)) {
+                // The key is out of date since the source has moved.
+                open.set(current, newKey1, newKey2);
+                continue;
+            }
+            
+            context.closedNodeCount++;
+            
+            if (++expansions % NODES_EXPANSIONS_PER_REPAINT == 0) {
+                context.frontierNodeCount = open.size();
+                observer.repaint();
+            }
+            
+            long g = workspace.getG(current);
+            long rhs = workspace.getRhs(current);
+            int neighborCount = grid.expand(current, neighbors, weights);
+            open.remove(current);
+            observer.markAsClosed(current);
+            
+            if (compare(g, rhs) > 0) {
+                // Overconsistent: settle the cell and relax its neighbors.
+                workspace.setG(current, rhs);
+                
+                for (int i = 0; i < neighborCount; ++i) {
+                    int neighbor = neighbors[i];
+                    long distance = getMoveLength(weights[i]) + rhs;
+                    
+                    if (neighbor != targetIndex
+                            && compare(distance,
+                                       workspace.getRhs(neighbor)) < 0) {
+                        workspace.setRhs(neighbor, distance);
+                        updateVertex(workspace, neighbor);
+                    }
+                }
+            } else {
+                // Underconsistent: invalidate the cell and the neighbors
+                // that relied on it.
+                workspace.setG(current, INFINITY);
+                updateRhs(workspace, current);
+                
+                for (int i = 0; i < neighborCount; ++i) {
+                    int neighbor = neighbors[i];
+                    
+                    if (workspace.getRhs(neighbor) ==
+                            getMoveLength(weights[i]) + g) {
+                        updateRhs(workspace, neighbor);
+                    }
+                }
+            }
+        }
+        
+        return true;
+    }
+    
+    /**
+     * Recomputes the {@code rhs} value of a cell and updates its membership
+     * in the queue.
+     */
+    private void updateRhs(Workspace workspace, int cell) {
+        long rhs = workspace.computeRhs(cell);
+        
+        if (rhs != workspace.getRhs(cell)) {
+            workspace.setRhs(cell, rhs);
+        }
+        
+        updateVertex(workspace, cell);
+    }
+    
+    /**
+     * Puts a locally inconsistent cell into the queue with its current key
+     * and removes a consistent one from it.
+     */
+    private void updateVertex(Workspace workspace, int cell) {
+        KeyQueue open = workspace.open;
+        
+        if (workspace.getG(cell) != workspace.getRhs(cell)) {
+            if (!open.contains(cell)) {
+                observer.markAsFrontier(cell);
+            }
+            
+            open.set(cell, workspace.getKey1(cell), workspace.getKey2(cell));
+        } else {
+            open.remove(cell);
+        }
+    }
+    
+    /**
+     * Walks from the source towards the target, always to the neighbor
+     * minimizing the move length plus its distance to the target.
+     *
+     * @return the path, or {@code null} if the walk does not reach the
+     *         target.
+     */
+    private List<Point> extractPath(Workspace workspace,
+                                    SearchContext context) {
+        int[] neighbors = context.neighbors;
+        double[] weights = context.weights;
+        int current = workspace.sourceIndex;
+        int width = grid.getWidth();
+        int maximumLength = grid.getWidth() * grid.getHeight();
+        List<Point> path = new ArrayList<>();
+        path.add(new Point(current % width, current / width));
+        
+        while (current != workspace.targetIndex) {
+            if (path.size() == maximumLength) {
+                return null;
+            }
+            
+            int neighborCount = grid.expand(current, neighbors, weights);
+            int next = -1;
+            long best = INFINITY;
+            
+            for (int i = 0; i < neighborCount; ++i) {
+                long distance = add(getMoveLength(weights[i]),
+                                    workspace.getG(neighbors[i]));
+                
+                if (compare(distance, best) < 0) {
+                    best = distance;
+                    next = neighbors[i];
+                }
+            }
+            
+            if (next == -1) {
+                return null;
+            }
+            
+            current = next;
+            path.add(new Point(current % width, current / width));
+        }
+        
+        return path;
+    }
+    
+    /**
+     * Copies the changes the workspace has not seen to it.
+     *
+     * @return the number of the changes copied, or -1 if some of them are
+     *         forgotten and the search must start from scratch.
+     */
+    private synchronized int collectChanges(Workspace workspace) {
+        long endChangeNumber = firstChangeNumber + changedCellCount;
+        
+        if (workspace.changeNumber < firstChangeNumber) {
+            workspace.changeNumber = endChangeNumber;
+            return -1;
+        }
+        
+        int from = (int)(workspace.changeNumber - firstChangeNumber);
+        int count = changedCellCount - from;
+        
+        if (workspace.changedCells.length < count) {
+            workspace.changedCells = new int[changedCells.length];
+        }
+        
+        System.arraycopy(changedCells, from, workspace.changedCells, 0, count);
+        workspace.changeNumber = endChangeNumber;
+        return count;
+    }
+    
+    /**
+     * Forgets the changes collected so far. The workspaces that have not
+     * seen all of them start their next search from scratch.
+     */
+    private synchronized void forgetChanges() {
+        firstChangeNumber += changedCellCount + 1;
+        changedCellCount = 0;
+    }
+    
+    private Workspace getWorkspace(SearchContext context) {
+        Workspace workspace = (Workspace) context.getAttachment(this);
+        
+        if (workspace == null) {
+            workspace = new Workspace();
+            context.setAttachment(this, workspace);
+        }
+        
+        return workspace;
+    }
+    
+    private static long getMoveLength(double weight) {
+        return weight == 1.0 ? STRAIGHT : DIAGONAL;
+    }
+    
+    private static long add(long distance1, long distance2) {
+        return distance1 == INFINITY || distance2 == INFINITY ?
+                INFINITY : distance1 + distance2;
+    }
+    
+    private static long min(long distance1, long distance2) {
+        return compare(distance1, distance2) <= 0 ? distance1 : distance2;
+    }
+    
+    /**
+     * Compares two distances of the form {@code a + b * sqrt(2)} exactly.
+     */
+    private static int compare(long distance1, long distance2) {
+        if (distance1 == distance2) {
+            return 0;
+        }
+        
+        if (distance1 == INFINITY) {
+            return 1;
+        }
+        
+        if (distance2 == INFINITY) {
+            return -1;
+        }
+        
+        long da = (distance1 >>> 32) - (distance2 >>> 32);
+        long db = (distance2 & 0xFFFFFFFFL) - (distance1 & 0xFFFFFFFFL);
+        
+        if (da >= 0 && db <= 0) {
+            return 1;
+        }
+        
+        if (da <= 0 && db >= 0) {
+            return -1;
+        }
+        
+        return da > 0 ? Long.compare(da * da, 2 * db * db) :
+                        Long.compare(2 * db * db, da * da);
+    }
+    
+    private static boolean isLess(long key1a,
+                                  long key2a,
+                                  long key1b,
+                                  long key2b) {
+        int comparison = compare(key1a, key1b);
+        return comparison < 0 || comparison == 0 && compare(key2a, key2b) < 0;
+    }
+}
@@ -0,0 +1,490 @@
+package net.coderodde.funky.pathfinding;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLongArray;
+import static net.coderodde.funky.pathfinding.GridModel.DIAGONAL_WEIGHT;
+import static net.coderodde.funky.pathfinding.GridModel.MAXIMUM_NUMBER_OF_NEIGHBORS;
+
+/**
+ * This class computes the shortest path lengths from one cell to all the
+ * cells of a grid with the delta-stepping algorithm of Meyer and Sanders,
+ * relaxing the edges in parallel on a {@link ForkJoinPool}.
+ */
+public final class DeltaStepping {
+    
+    /**
+     * The default bucket width. Makes the straight moves light and the
+     * diagonal ones heavy.
+     */
+    public static final double DEFAULT_DELTA = 1.0;
+    
+    /**
+     * The number of the cells a task relaxes sequentially.
+     */
+    private static final int GRAIN = 1024;
+    
+    /**
+     * The largest relative difference of two distances still considered
+     * equal when choosing the parents.
+     */
+    private static final double EPSILON = 1e-9;
+    
+    /**
+     * The distances from the source to all the cells and the direction of
+     * the first move from each cell towards the source.
+     */
+    public static final class Result {
+        
+        private final int width;
+        private final int sourceIndex;
+        private final double[] distances;
+        private final byte[] directions;
+        
+        Result(int width,
+               int sourceIndex,
+               double[] distances,
+               byte[] directions) {
+            this.width = width;
+            this.sourceIndex = sourceIndex;
+            this.distances = distances;
+            this.directions = directions;
+        }
+        
+        public int getSourceIndex() {
+            return sourceIndex;
+        }
+        
+        /**
+         * Returns the distances indexed by cell, without copying them. A
+         * cell not reachable from the source has an infinite distance.
+         *
+         * @return the distance array.
+         */
+        public double[] getDistances() {
+            return distances;
+        }
+        
+        /**
+         * Returns the direction of the first move from each cell towards the
+         * source, encoded as in {@link FlowField}.
+         *
+         * @return the direction array.
+         */
+        public byte[] getDirections() {
+            return directions;
+        }
+        
+        public double getDistance(int cellIndex) {
+            return distances[cellIndex];
+        }
+        
+        /**
+         * Returns the parent of a cell in the shortest path tree.
+         *
+         * @param cellIndex the index of the cell.
+         * @return the index of the parent, or -1 if there is none.
+         */
+        public int getParent(int cellIndex) {
+            byte direction = directions[cellIndex];
+            return direction == FlowField.NO_DIRECTION ?
+                   -1 :
+                   cellIndex + FlowField.getDirectionY(direction) * width +
+                               FlowField.getDirectionX(direction);
+        }
+        
+        /**
+         * Returns a shortest path from the source to a target.
+         *
+         * @param target the target point.
+         * @return the path, or {@code null} if the target is not reachable.
+         */
+        public List<Point> getPath(Point target) {
+            int cellIndex = target.y * width + target.x;
+            
+            if (distances[cellIndex] == Double.POSITIVE_INFINITY) {
+                return null;
+            }
+            
+            List<Point> path = new ArrayList<>();
+            
+            while (cellIndex >= 0) {
+                path.add(new Point(cellIndex % width, cellIndex / width));
+                cellIndex = getParent(cellIndex);
+            }
+            
+            Collections.reverse(path);
+            return path;
+        }
+    }
+    
+    /**
+     * A growable list of cell indices.
+     */
+    private static final class IntList {
+        
+        int[] elements = new int[16];
+        int size;
+        
+        void add(int element) {
+            if (size == elements.length) {
+                elements = Arrays.copyOf(elements, 2 * size);
+            }
+            
+            elements[size++] = element;
+        }
+    }
+    
+    private final GridModel grid;
+    private final double delta;
+    private final ForkJoinPool pool;
+    
+    public DeltaStepping(GridModel grid) {
+        this(grid, DEFAULT_DELTA, ForkJoinPool.commonPool());
+    }
+    
+    public DeltaStepping(GridModel grid, double delta, ForkJoinPool pool) {
+        this.grid = Objects.requireNonNull(grid, "The grid model is null.");
+        this.pool = Objects.requireNonNull(pool, "The pool is null.");
+        
+        if (!(delta > 0.0) || Double.isInfinite(delta)) {
+            throw new IllegalArgumentException(
+                    "The delta must be positive and finite: " + delta + ".");
+        }
+        
+        this.delta = delta;
+    }
+    
+    public GridModel getGridModel() {
+        return grid;
+    }
+    
+    public double getDelta() {
+        return delta;
+    }
+    
+    /**
+     * Computes the shortest path lengths from the source to all the cells.
+     *
+     * @param source the source point.
+     * @return the distances and the parents.
+     */
+    public Result compute(Point source) {
+        Objects.requireNonNull(source, "The source point is null.");
+        
+        if (!grid.isValid(source.x, source.y)) {
+            throw new IndexOutOfBoundsException(
+                    "The source " + source + " is outside the grid.");
+        }
+        
+        return new Computation(grid.getIndex(source)).run();
+    }
+    
+    /**
+     * The state of one computation.
+     */
+    private final class Computation {
+        
+        private final int width = grid.getWidth();
+        private final int cellCount = width * grid.getHeight();
+        private final int sourceIndex;
+        
+        /**
+         * The tentative distances as the bits of {@code double}s.
+         */
+        private final AtomicLongArray distances =
+                new AtomicLongArray(cellCount);
+        
+        /**
+         * The buckets, used cyclically: bucket {@code i} lives at
+         * {@code i % buckets.length}. An entry is stale unless the current
+         * distance of its cell falls into the bucket.
+         */
+        private final IntList[] buckets;
+        
+        /**
+         * Marks the cells taken into the current phase and into the current
+         * bucket, with the number of the phase and of the bucket plus one.
+         */
+        private final int[] phaseMarks = new int[cellCount];
+        private final int[] bucketMarks = new int[cellCount];
+        
+        Computation(int sourceIndex) {
+            this.sourceIndex = sourceIndex;
+            // A relaxation lands at most ceil(DIAGONAL_WEIGHT / delta)
+            // buckets ahead.
+            this.buckets =
+                    new IntList[(int) Math.ceil(DIAGONAL_WEIGHT / delta) + 1];
+            
+            for (int i = 0; i < buckets.length; ++i) {
+                buckets[i] = new IntList();
+            }
+            
+            long infinity = Double.doubleToRawLongBits(
+                    Double.POSITIVE_INFINITY);
+            
+            for (int i = 0; i < cellCount; ++i) {
+                distances.set(i, infinity);
+            }
+        }
+        
+        Result run() {
+            if (!isWall(sourceIndex)) {
+                setDistance(sourceIndex, 0.0);
+                buckets[0].add(sourceIndex);
+            }
+            
+            int phase = 0;
+            int bucketCount = 0;
+            
+            for (int bucket = 0; !isEmpty(); ++bucket) {
+                IntList list = buckets[bucket % buckets.length];
+                
+                if (list.size == 0) {
+                    continue;
+                }
+                
+                ++bucketCount;
+                IntList settled = new IntList();
+                
+                while (list.size > 0) {
+                    ++phase;
+                    IntList frontier = new IntList();
+                    
+                    for (int i = 0; i < list.size; ++i) {
+                        int cell = list.elements[i];
+                        
+                        if (getBucket(cell) == bucket
+                                && phaseMarks[cell] != phase) {
+                            phaseMarks[cell] = phase;
+                            frontier.add(cell);
+                            
+                            if (bucketMarks[cell] != bucketCount) {
+                                bucketMarks[cell] = bucketCount;
+                                settled.add(cell);
+                            }
+                        }
+                    }
+                    
+                    list.size = 0;
+                    relax(frontier, true);
+                }
+                
+                relax(settled, false);
+            }
+            
+            return finish();
+        }
+        
+        /**
+         * Relaxes the light or the heavy edges of the cells in parallel and
+         * puts the cells whose distances dropped into their buckets.
+         */
+        private void relax(IntList cells, boolean light) {
+            if (cells.size == 0) {
+                return;
+            }
+            
+            IntList[] outputs = new IntList[(cells.size + GRAIN - 1) / GRAIN];
+            pool.invoke(new RelaxTask(cells.elements,
+                                      0,
+                                      cells.size,
+                                      light,
+                                      outputs));
+            
+            for (IntList output : outputs) {
+                for (int i = 0; i < output.size; ++i) {
+                    int cell = output.elements[i];
+                    buckets[getBucket(cell) % buckets.length].add(cell);
+                }
+            }
+        }
+        
+        private final class RelaxTask extends RecursiveAction {
+            
+            private static final long serialVersionUID = 1L;
+            
+            private final int[] cells;
+            private final int from;
+            private final int to;
+            private final boolean light;
+            private final IntList[] outputs;
+            
+            RelaxTask(int[] cells,
+                      int from,
+                      int to,
+                      boolean light,
+                      IntList[] outputs) {
+                this.cells = cells;
+                this.from = from;
+                this.to = to;
+                this.light = light;
+                this.outputs = outputs;
+            }
+            
+            @Override
+            protected void compute() {
+                if (to - from > GRAIN) {
+                    // Split at a multiple of the grain, so that each leaf
+                    // owns one output list.
+                    int middle = from + ((to - from) / GRAIN / 2) * GRAIN;
+                    middle = Math.max(middle, from + GRAIN);
+                    invokeAll(new RelaxTask(cells, from, middle, light,
+                                            outputs),
+                              new RelaxTask(cells, middle, to, light,
+                                            outputs));
+                    return;
+                }
+                
+                IntList output = new IntList();
+                int[] neighbors = new int[MAXIMUM_NUMBER_OF_NEIGHBORS];
+                double[] weights = new double[MAXIMUM_NUMBER_OF_NEIGHBORS];
+                
+                for (int i = from; i < to; ++i) {
+                    int cell = cells[i];
+                    double distance = getDistance(cell);
+                    int count = grid.expand(cell, neighbors, weights);
+                    
+                    for (int j = 0; j < count; ++j) {
+                        if ((weights[j] <= delta) == light
+                                && lower(neighbors[j],
+                                         distance + weights[j])) {
+                            output.add(neighbors[j]);
+                        }
+                    }
+                }
+                
+                outputs[from / GRAIN] = output;
+            }
+        }
+        
+        /**
+         * Lowers the distance of a cell if the given one is shorter.
+         *
+         * @return {@code true} if the distance was lowered.
+         */
+        private boolean lower(int cell, double distance) {
+            long bits = Double.doubleToRawLongBits(distance);
+            
+            while (true) {
+                long current = distances.get(cell);
+                
+                if (distance >= Double.longBitsToDouble(current)) {
+                    return false;
+                }
+                
+                if (distances.compareAndSet(cell, current, bits)) {
+                    return true;
+                }
+            }
+        }
+        
+        /**
+         * Copies the distances out and chooses for each reached cell a
+         * neighbor on a shortest path as its parent, in parallel.
+         */
+        private Result finish() {
+            double[] result = new double[cellCount];
+            byte[] directions = new byte[cellCount];
+            
+            pool.invoke(new RecursiveAction() {
+                
+                @Override
+                protected void compute() {
+                    List<RecursiveAction> tasks = new ArrayList<>();
+                    
+                    for (int from = 0; from < cellCount; from += 16 * GRAIN) {
+                        int start = from;
+                        int end = Math.min(cellCount, from + 16 * GRAIN);
+                        tasks.add(new RecursiveAction() {
+                            @Override
+                            protected void compute() {
+                                choosePaths(start, end, result, directions);
+                            }
+                        });
+                    }
+                    
+                    invokeAll(tasks);
+                }
+            });
+            
+            return new Result(width, sourceIndex, result, directions);
+        }
+        
+        private void choosePaths(int from,
+                                 int to,
+                                 double[] result,
+                                 byte[] directions) {
+            int[] neighbors = new int[MAXIMUM_NUMBER_OF_NEIGHBORS];
+            double[] weights = new double[MAXIMUM_NUMBER_OF_NEIGHBORS];
+            
+            for (int cell = from; cell < to; ++cell) {
+                double distance = getDistance(cell);
+                result[cell] = distance;
+                directions[cell] = FlowField.NO_DIRECTION;
+                
+                if (cell == sourceIndex
+                        || distance == Double.POSITIVE_INFINITY) {
+                    continue;
+                }
+                
+                double tolerance = EPSILON * Math.max(1.0, distance);
+                int count = grid.expand(cell, neighbors, weights);
+                
+                for (int i = 0; i < count; ++i) {
+                    if (Math.abs(getDistance(neighbors[i]) + weights[i] -
+                                 distance) <= tolerance) {
+                        directions[cell] = getDirection(cell, neighbors[i]);
+                        break;
+                    }
+                }
+            }
+        }
+        
+        private byte getDirection(int fromIndex, int toIndex) {
+            int dx = toIndex % width - fromIndex % width;
+            int dy = toIndex / width - fromIndex / width;
+            
+            for (byte direction = 0; direction < 8; ++direction) {
+                if (FlowField.getDirectionX(direction) == dx
+                        && FlowField.getDirectionY(direction) == dy) {
+                    return direction;
+                }
+            }
+            
+            throw new IllegalStateException("The cells are not adjacent.");
+        }
+        
+        private boolean isEmpty() {
+            for (IntList bucket : buckets) {
+                if (bucket.size > 0) {
+                    return false;
+                }
+            }
+            
+            return true;
+        }
+        
+        private int getBucket(int cell) {
+            return (int) (getDistance(cell) / delta);
+        }
+        
+        private double getDistance(int cell) {
+            return Double.longBitsToDouble(distances.get(cell));
+        }
+        
+        private void setDistance(int cell, double distance) {
+            distances.set(cell, Double.doubleToRawLongBits(distance));
+        }
+        
+        private boolean isWall(int cell) {
+            return grid.isWall(cell % width, cell / width);
+        }
+    }
+}
@@ -7,4 +7,9 @@ public final class DijkstraPathfinder extends AStarTemplatePathfinder {
     public DijkstraPathfinder() {
         super((Point p1, Point p2) -> { return 0.0; });
     }
+    
+    public DijkstraPathfinder(IntPriorityQueue.Factory openListFactory) {
+        super((Point p1, Point p2) -> { return 0.0; }, 
+              openListFactory);
+    }
 }
@@ -0,0 +1,385 @@
+package net.coderodde.funky.pathfinding;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import static net.coderodde.funky.pathfinding.GridModel.MAXIMUM_NUMBER_OF_NEIGHBORS;
+
+/**
+ * This class holds a flow field towards one target cell: the distance to the
+ * target and the first move from every cell. Call {@link #update()} after
+ * changing the target or the grid, and {@link #dispose()} when the field is
+ * no longer needed.
+ */
+public final class FlowField implements GridModel.ChangeListener {
+    
+    /**
+     * The direction of the cells that have no next step: the walls, the
+     * cells from which the target is not reachable, and the target itself.
+     */
+    public static final byte NO_DIRECTION = -1;
+    
+    /**
+     * The x- and y-offsets of the eight directions.
+     */
+    private static final int[] DX = { 1, 1, 0, -1, -1, -1,  0,  1 };
+    private static final int[] DY = { 0, 1, 1,  1,  0, -1, -1, -1 };
+    
+    /**
+     * Maps the offset {@code (dx, dy)} to its direction at the index
+     * {@code 3 * (dy + 1) + dx + 1}.
+     */
+    private static final byte[] DIRECTION_BY_OFFSET = new byte[9];
+    
+    static {
+        Arrays.fill(DIRECTION_BY_OFFSET, NO_DIRECTION);
+        
+        for (byte direction = 0; direction < DX.length; ++direction) {
+            DIRECTION_BY_OFFSET[3 * (DY[direction] + 1) + DX[direction] + 1] =
+                    direction;
+        }
+    }
+    
+    /**
+     * The number of the changed cells remembered between updates. Beyond
+     * this, the next update computes the whole field again.
+     */
+    private static final int MAXIMUM_NUMBER_OF_CHANGES = 4096;
+    
+    private final GridModel grid;
+    private final int width;
+    private final int height;
+    private final double[] distances;
+    private final byte[] directions;
+    private final IntPriorityQueue open;
+    private final int[] neighbors = new int[MAXIMUM_NUMBER_OF_NEIGHBORS];
+    private final double[] weights = new double[MAXIMUM_NUMBER_OF_NEIGHBORS];
+    
+    /**
+     * The stack of the cells whose subtrees are being invalidated.
+     */
+    private int[] stack = new int[64];
+    
+    private int targetIndex = -1;
+    
+    /**
+     * Whether the next update must compute the whole field.
+     */
+    private boolean rebuild = true;
+    
+    /**
+     * The cells changed since the last update.
+     */
+    private final int[] changedCells = new int[MAXIMUM_NUMBER_OF_CHANGES];
+    private int changedCellCount;
+    
+    public FlowField(GridModel grid) {
+        this.grid = Objects.requireNonNull(grid, "The grid model is null.");
+        this.width = grid.getWidth();
+        this.height = grid.getHeight();
+        this.distances = new double[width * height];
+        this.directions = new byte[width * height];
+        this.open = new IntIndexedBinaryHeap(width * height);
+        Arrays.fill(distances, Double.POSITIVE_INFINITY);
+        Arrays.fill(directions, NO_DIRECTION);
+        grid.addChangeListener(this);
+    }
+    
+    public GridModel getGridModel() {
+        return grid;
+    }
+    
+    /**
+     * Sets the target all the moves lead to. Takes effect on the next
+     * update.
+     *
+     * @param target the target point.
+     */
+    public synchronized void setTarget(Point target) {
+        Objects.requireNonNull(target, "The target point is null.");
+        
+        if (!grid.isValid(target.x, target.y)) {
+            throw new IndexOutOfBoundsException(
+                    "The target " + target + " is outside the grid.");
+        }
+        
+        int index = grid.getIndex(target);
+        
+        if (index != targetIndex) {
+            targetIndex = index;
+            rebuild = true;
+        }
+    }
+    
+    /**
+     * Returns the target, or {@code null} if none was set.
+     *
+     * @return the target point.
+     */
+    public synchronized Point getTarget() {
+        return targetIndex < 0 ? null : getPoint(targetIndex);
+    }
+    
+    /**
+     * Stops listening to the changes of the grid.
+     */
+    public void dispose() {
+        grid.removeChangeListener(this);
+    }
+    
+    @Override
+    public synchronized void cellChanged(int x, int y) {
+        if (changedCellCount == changedCells.length) {
+            rebuild = true;
+        } else if (!rebuild) {
+            changedCells[changedCellCount++] = grid.getIndex(x, y);
+        }
+    }
+    
+    @Override
+    public synchronized void gridCleared() {
+        rebuild = true;
+    }
+    
+    /**
+     * Brings the field up to date with the target and the grid.
+     */
+    public synchronized void update() {
+        if (targetIndex < 0) {
+            throw new IllegalStateException("The target is not set.");
+        }
+        
+        if (rebuild) {
+            computeField();
+        } else if (changedCellCount > 0) {
+            repairField();
+        }
+        
+        rebuild = false;
+        changedCellCount = 0;
+    }
+    
+    /**
+     * Returns the length of the shortest path from a cell to the target.
+     *
+     * @param cellIndex the index of the cell.
+     * @return the distance, or {@link Double#POSITIVE_INFINITY} if the target
+     *         is not reachable.
+     */
+    public double getDistance(int cellIndex) {
+        return distances[cellIndex];
+    }
+    
+    /**
+     * Returns the direction of the first move from a cell towards the target:
+     * an index into the offsets returned by {@link #getDirectionX(int)} and
+     * {@link #getDirectionY(int)}, or {@link #NO_DIRECTION}.
+     *
+     * @param cellIndex the index of the cell.
+     * @return the direction.
+     */
+    public byte getDirection(int cellIndex) {
+        return directions[cellIndex];
+    }
+    
+    public static int getDirectionX(int direction) {
+        return DX[direction];
+    }
+    
+    public static int getDirectionY(int direction) {
+        return DY[direction];
+    }
+    
+    /**
+     * Returns the cell an agent in the given cell should move to next.
+     *
+     * @param cellIndex the index of the cell.
+     * @return the index of the next cell, or -1 if there is none.
+     */
+    public int getNextStep(int cellIndex) {
+        byte direction = directions[cellIndex];
+        return direction == NO_DIRECTION ?
+               -1 :
+               cellIndex + DY[direction] * width + DX[direction];
+    }
+    
+    /**
+     * Returns the point an agent at the given point should move to next.
+     *
+     * @param point the current point.
+     * @return the next point, or {@code null} if there is none.
+     */
+    public Point getNextStep(Point point) {
+        int next = getNextStep(grid.getIndex(point));
+        return next < 0 ? null : getPoint(next);
+    }
+    
+    /**
+     * Follows the field from a point to the target.
+     *
+     * @param source the source point.
+     * @return the path, or {@code null} if the target is not reachable.
+     */
+    public List<Point> getPath(Point source) {
+        int cellIndex = grid.getIndex(source);
+        
+        if (distances[cellIndex] == Double.POSITIVE_INFINITY) {
+            return null;
+        }
+        
+        List<Point> path = new ArrayList<>();
+        
+        while (cellIndex >= 0) {
+            path.add(getPoint(cellIndex));
+            cellIndex = getNextStep(cellIndex);
+        }
+        
+        return path;
+    }
+    
+    private void computeField() {
+        Arrays.fill(distances, Double.POSITIVE_INFINITY);
+        Arrays.fill(directions, NO_DIRECTION);
+        open.clear();
+        
+        if (grid.isWall(targetIndex % width, targetIndex / width)) {
+            return;
+        }
+        
+        distances[targetIndex] = 0.0;
+        open.add(targetIndex, 0.0);
+        propagate();
+    }
+    
+    /**
+     * Repairs the distances around the cells changed since the last update.
+     */
+    private void repairField() {
+        open.clear();
+        
+        if (grid.isWall(targetIndex % width, targetIndex / width)) {
+            Arrays.fill(distances, Double.POSITIVE_INFINITY);
+            Arrays.fill(directions, NO_DIRECTION);
+            return;
+        }
+        
+        if (distances[targetIndex] != 0.0) {
+            // The target was a wall until now.
+            computeField();
+            return;
+        }
+        
+        int stackSize = 0;
+        
+        for (int i = 0; i < changedCellCount; ++i) {
+            int cellIndex = changedCells[i];
+            
+            if (isWall(cellIndex)
+                    && distances[cellIndex] != Double.POSITIVE_INFINITY) {
+                distances[cellIndex] = Double.POSITIVE_INFINITY;
+                directions[cellIndex] = NO_DIRECTION;
+                stack = push(stack, stackSize++, cellIndex);
+            }
+        }
+        
+        // Invalidate the subtrees of the new walls. The invalidated cells
+        // stay on the stack below the cursor for seeding.
+        for (int cursor = 0; cursor < stackSize; ++cursor) {
+            int cellIndex = stack[cursor];
+            int count = grid.expand(cellIndex, neighbors, weights);
+            
+            for (int i = 0; i < count; ++i) {
+                int neighbor = neighbors[i];
+                
+                if (getNextStep(neighbor) == cellIndex) {
+                    distances[neighbor] = Double.POSITIVE_INFINITY;
+                    directions[neighbor] = NO_DIRECTION;
+                    stack = push(stack, stackSize++, neighbor);
+                }
+            }
+        }
+        
+        for (int i = 0; i < stackSize; ++i) {
+            seed(stack[i]);
+        }
+        
+        for (int i = 0; i < changedCellCount; ++i) {
+            int cellIndex = changedCells[i];
+            
+            if (!isWall(cellIndex)) {
+                seed(cellIndex);
+            }
+        }
+        
+        propagate();
+    }
+    
+    /**
+     * Offers a cell the best move to one of its neighbors with a known
+     * distance.
+     */
+    private void seed(int cellIndex) {
+        if (isWall(cellIndex)) {
+            return;
+        }
+        
+        int count = grid.expand(cellIndex, neighbors, weights);
+        
+        for (int i = 0; i < count; ++i) {
+            relax(neighbors[i], cellIndex, weights[i]);
+        }
+    }
+    
+    private void propagate() {
+        while (open.size() > 0) {
+            int cellIndex = open.extractMinimum();
+            int count = grid.expand(cellIndex, neighbors, weights);
+            
+            for (int i = 0; i < count; ++i) {
+                relax(cellIndex, neighbors[i], weights[i]);
+            }
+        }
+    }
+    
+    /**
+     * Lets {@code cellIndex} move to {@code nextIndex} if that shortens its
+     * distance.
+     */
+    private void relax(int nextIndex, int cellIndex, double weight) {
+        double distance = distances[nextIndex] + weight;
+        
+        if (distance < distances[cellIndex]) {
+            distances[cellIndex] = distance;
+            directions[cellIndex] = getDirection(cellIndex, nextIndex);
+            
+            if (!open.decreasePriority(cellIndex, distance)) {
+                open.add(cellIndex, distance);
+            }
+        }
+    }
+    
+    private byte getDirection(int fromIndex, int toIndex) {
+        int dx = toIndex % width - fromIndex % width;
+        int dy = toIndex / width - fromIndex / width;
+        return DIRECTION_BY_OFFSET[3 * (dy + 1) + dx + 1];
+    }
+    
+    private boolean isWall(int cellIndex) {
+        return grid.isWall(cellIndex % width, cellIndex / width);
+    }
+    
+    private Point getPoint(int cellIndex) {
+        return new Point(cellIndex % width, cellIndex / width);
+    }
+    
+    private static int[] push(int[] stack, int size, int cellIndex) {
+        if (size == stack.length) {
+            stack = Arrays.copyOf(stack, 2 * size);
+        }
+        
+        stack[size] = cellIndex;
+        return stack;
+    }
+}
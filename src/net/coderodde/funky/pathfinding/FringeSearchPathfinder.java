@@ -0,0 +1,293 @@
+package net.coderodde.funky.pathfinding;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import static net.coderodde.funky.pathfinding.Configuration.NODES_EXPANSIONS_PER_REPAINT;
+
+/**
+ * This class implements the Fringe Search of Björnsson, Enzenberger, Holte
+ * and Schaeffer. Each iteration resumes from the fringe the previous one
+ * left, kept in a hash table of the visited cells.
+ */
+public final class FringeSearchPathfinder extends AbstractPathFinder {
+    
+    private final AStarTemplatePathfinder.Heuristic heuristic;
+    
+    /**
+     * Constructs a pathfinder using the octile distance as the heuristic.
+     */
+    public FringeSearchPathfinder() {
+        this(IDAStarPathfinder::getOctileDistance);
+    }
+    
+    /**
+     * Constructs a pathfinder.
+     *
+     * @param heuristic the heuristic, which must never overestimate.
+     */
+    public FringeSearchPathfinder(AStarTemplatePathfinder.Heuristic heuristic) {
+        this.heuristic = Objects.requireNonNull(heuristic,
+                                                "The heuristic is null.");
+    }
+    
+    @Override
+    public List<Point> search(Point sourcePoint,
+                              Point targetPoint,
+                              SearchContext context) {
+        Objects.requireNonNull(sourcePoint, "The source point is null.");
+        Objects.requireNonNull(targetPoint, "The target point is null.");
+        checkEndpoints(sourcePoint, targetPoint);
+        context.pathLength = Double.NaN;
+        return new Search(context, targetPoint).search(sourcePoint);
+    }
+    
+    /**
+     * A single search.
+     */
+    private final class Search {
+        
+        private static final int NONE = -1;
+        
+        private final SearchContext context;
+        private final Point targetPoint;
+        private final int targetIndex;
+        private final int width = grid.getWidth();
+        
+        /**
+         * The cache entries, in the order the cells were first visited: the
+         * cell, its distance from the source, its estimate, the entry of its
+         * parent, and the entries before and after it in the fringe.
+         */
+        private int[] cells = new int[16];
+        private double[] distances = new double[16];
+        private double[] estimates = new double[16];
+        private int[] parents = new int[16];
+        private int[] previous = new int[16];
+        private int[] next = new int[16];
+        private boolean[] inFringe = new boolean[16];
+        private int entryCount;
+        
+        /**
+         * Maps the cells to their entries by open addressing. Holds the entry
+         * plus one, or zero in an empty slot.
+         */
+        private int[] slots = new int[32];
+        
+        private int head = NONE;
+        private int fringeSize;
+        
+        Search(SearchContext context, Point targetPoint) {
+            this.context = context;
+            this.targetPoint = targetPoint;
+            this.targetIndex = grid.getIndex(targetPoint);
+        }
+        
+        List<Point> search(Point sourcePoint) {
+            int sourceEntry = addEntry(grid.getIndex(sourcePoint));
+            distances[sourceEntry] = 0.0;
+            link(sourceEntry, NONE);
+            double limit = estimates[sourceEntry];
+            
+            while (head != NONE) {
+                double nextLimit = Double.POSITIVE_INFINITY;
+                int entry = head;
+                
+                while (entry != NONE) {
+                    if (context.isExitRequested()) {
+                        return null;
+                    }
+                    
+                    if (context.pause) {
+                        context.awaitResume();
+                        continue;
+                    }
+                    
+                    double f = distances[entry] + estimates[entry];
+                    
+                    if (f > limit) {
+                        nextLimit = Math.min(nextLimit, f);
+                        entry = next[entry];
+                        continue;
+                    }
+                    
+                    if (cells[entry] == targetIndex) {
+                        return buildPath(entry);
+                    }
+                    
+                    expand(entry);
+                    int nextEntry = next[entry];
+                    unlink(entry);
+                    entry = nextEntry;
+                }
+                
+                limit = nextLimit;
+                observer.repaint();
+            }
+            
+            throw new TargetNotReachableException(
+                    "The target point is not reachable.");
+        }
+        
+        /**
+         * Visits the children of an entry reached over a shorter prefix than
+         * before, putting them into the fringe right after the entry.
+         */
+        private void expand(int entry) {
+            int[] neighbors = context.neighbors;
+            double[] weights = context.weights;
+            int neighborCount = grid.expand(cells[entry], neighbors, weights);
+            observer.markAsClosed(cells[entry]);
+            
+            for (int i = neighborCount - 1; i >= 0; --i) {
+                double distance = distances[entry] + weights[i];
+                int child = getEntry(neighbors[i]);
+                
+                if (child == NONE) {
+                    child = addEntry(neighbors[i]);
+                } else if (distance >= distances[child]) {
+                    continue;
+                } else if (inFringe[child]) {
+                    unlink(child);
+                }
+                
+                distances[child] = distance;
+                parents[child] = entry;
+                link(child, entry);
+                observer.markAsFrontier(neighbors[i]);
+            }
+            
+            if (++context.closedNodeCount % NODES_EXPANSIONS_PER_REPAINT
+                    == 0) {
+                context.frontierNodeCount = fringeSize;
+                observer.repaint();
+            }
+        }
+        
+        /**
+         * Puts an entry into the fringe right after another one, or at the
+         * head if the other one is {@link #NONE}.
+         */
+        private void link(int entry, int after) {
+            int before = after == NONE ? head : next[after];
+            previous[entry] = after;
+            next[entry] = before;
+            
+            if (after == NONE) {
+                head = entry;
+            } else {
+                next[after] = entry;
+            }
+            
+            if (before != NONE) {
+                previous[before] = entry;
+            }
+            
+            inFringe[entry] = true;
+            fringeSize++;
+        }
+        
+        private void unlink(int entry) {
+            if (previous[entry] == NONE) {
+                head = next[entry];
+            } else {
+                next[previous[entry]] = next[entry];
+            }
+            
+            if (next[entry] != NONE) {
+                previous[next[entry]] = previous[entry];
+            }
+            
+            inFringe[entry] = false;
+            fringeSize--;
+        }
+        
+        private int getEntry(int cell) {
+            int mask = slots.length - 1;
+            
+            for (int slot = hash(cell) & mask;;
+                     slot = (slot + 1) & mask) {
+                int entry = slots[slot] - 1;
+                
+                if (entry == NONE || cells[entry] == cell) {
+                    return entry;
+                }
+            }
+        }
+        
+        /**
+         * Adds an entry for a cell not in the cache yet.
+         */
+        private int addEntry(int cell) {
+            if (entryCount == cells.length) {
+                int capacity = 2 * cells.length;
+                cells = Arrays.copyOf(cells, capacity);
+                distances = Arrays.copyOf(distances, capacity);
+                estimates = Arrays.copyOf(estimates, capacity);
+                parents = Arrays.copyOf(parents, capacity);
+                previous = Arrays.copyOf(previous, capacity);
+                next = Arrays.copyOf(next, capacity);
+                inFringe = Arrays.copyOf(inFringe, capacity);
+                rehash(2 * capacity);
+            }
+            
+            int entry = entryCount++;
+            cells[entry] = cell;
+            distances[entry] = Double.POSITIVE_INFINITY;
+            parents[entry] = NONE;
+            context.point.x = cell % width;
+            context.point.y = cell / width;
+            estimates[entry] = heuristic.estimate(context.point, targetPoint);
+            insertSlot(entry);
+            return entry;
+        }
+        
+        private void rehash(int slotCount) {
+            slots = new int[slotCount];
+            
+            for (int entry = 0; entry < entryCount; ++entry) {
+                insertSlot(entry);
+            }
+        }
+        
+        private void insertSlot(int entry) {
+            int mask = slots.length - 1;
+            int slot = hash(cells[entry]) & mask;
+            
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            
+            slots[slot] = entry + 1;
+        }
+        
+        private int hash(int cell) {
+            int hash = cell * 0x9e3779b9;
+            return hash ^ (hash >>> 16);
+        }
+        
+        private List<Point> buildPath(int targetEntry) {
+            List<Point> path = new ArrayList<>();
+            
+            for (int entry = targetEntry; entry != NONE;
+                     entry = parents[entry]) {
+                path.add(new Point(cells[entry] % width,
+                                   cells[entry] / width));
+            }
+            
+            Collections.reverse(path);
+            
+            for (Point p : path) {
+                observer.markAsPath(grid.getIndex(p));
+            }
+            
+            context.frontierNodeCount = fringeSize;
+            context.pathLength = getLength(path);
+            observer.repaint();
+            return path;
+        }
+    }
+}
@@ -4,6 +4,8 @@ import java.awt.Dimension;
 import java.awt.GridLayout;
 import java.awt.Label;
 import java.awt.Toolkit;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Objects;
 import javax.swing.JButton;
 import javax.swing.JComboBox;
@@ -14,12 +16,6 @@ import javax.swing.SwingConstants;
 
 public final class FunkyPathfindingOptionsFrame extends JDialog {
 
-    private static final String ASTAR_NAME      = "A*";
-    private static final String NBASTAR_NAME    = "NBA*";
-    private static final String PHBA_NAME       = "PHBA";
-    private static final String DIJKSTRA_NAME   = "Dijkstra";
-    private static final String BIDIJKSTRA_NAME = "Bidirectional Dijkstra";
-    private static final String BIDDFS_NAME     = "BIDDFS";
     private static final int SKIP_PIXELS = 30;
     
     private final JButton buttonDrawWorld;
@@ -28,18 +24,24 @@ public final class FunkyPathfindingOptionsFrame extends JDialog {
     private final JButton buttonRun;
     private final JButton buttonReset;
     private final JButton buttonExit;
-    private final String[] comboBoxOptions = {
-                            ASTAR_NAME,
-                            NBASTAR_NAME,
-                            PHBA_NAME,
-                            DIJKSTRA_NAME,
-                            BIDIJKSTRA_NAME ,
-                            BIDDFS_NAME,
-    };
     
     private final JComboBox comboBoxAlgorithm;
     private final FunkyPathfindingPanel funkyPathfindingPanel;
     private final FunkyPathfindingFrame funkyPathfindingFrame;
+    private final PathfinderRegistry pathfinderRegistry;
+    
+    /**
+     * The pathfinders created so far, keyed by name. A pathfinder keeps its
+     * search state in the search context of the panel, so each is created
+     * once and reused.
+     */
+    private final Map<String, AbstractPathFinder> pathfinders =
+            new HashMap<>();
+    
+    /**
+     * The pathfinder of the latest search, or {@code null} before the first.
+     */
+    private AbstractPathFinder currentPathfinder;
     
     public FunkyPathfindingOptionsFrame(
             FunkyPathfindingFrame frame,
@@ -49,8 +51,12 @@ public final class FunkyPathfindingOptionsFrame extends JDialog {
         this.funkyPathfindingPanel =
                 Objects.requireNonNull(funkyPathfindingPanel, 
                                        "The input panel is null.");
+        this.pathfinderRegistry =
+                new PathfinderRegistry(funkyPathfindingPanel.getGridModel(),
+                                       SearchMetrics.getPlatformMetrics());
         
-        this.comboBoxAlgorithm = new JComboBox(comboBoxOptions);
+        this.comboBoxAlgorithm =
+                new JComboBox(PathfinderRegistry.getNames().toArray());
         this.buttonDrawWalls   = new JButton("Draw walls");
         this.buttonDrawWorld   = new JButton("Erase walls");
         this.buttonClear       = new JButton("Clear all walls");
@@ -120,16 +126,18 @@ public final class FunkyPathfindingOptionsFrame extends JDialog {
         });
         
         this.buttonReset.addActionListener((e) -> {
-            this.buttonRun.setEnabled(true);
             this.buttonReset.setEnabled(false);
-            this.buttonDrawWorld.setEnabled(true);
-            this.buttonDrawWalls.setEnabled(true);
-            this.buttonClear.setEnabled(true);
             
-            funkyPathfindingPanel.requestExit();
-            funkyPathfindingPanel.reset();
-            funkyPathfindingPanel.repaint();
-            funkyPathfindingPanel.setInteractive(true);
+            funkyPathfindingPanel.requestExit(() -> {
+                this.buttonRun.setEnabled(true);
+                this.buttonDrawWorld.setEnabled(true);
+                this.buttonDrawWalls.setEnabled(true);
+                this.buttonClear.setEnabled(true);
+                
+                funkyPathfindingPanel.reset();
+                funkyPathfindingPanel.repaint();
+                funkyPathfindingPanel.setInteractive(true);
+            });
         });
         
         this.buttonExit.addActionListener((e) -> {
@@ -138,29 +146,18 @@ public final class FunkyPathfindingOptionsFrame extends JDialog {
     }
     
     private AbstractPathFinder getPathfinderFromSelection() {
-        switch ((String) comboBoxAlgorithm.getSelectedItem()) {
-            case ASTAR_NAME:
-                return new AStarPathfinder();
-                
-            case DIJKSTRA_NAME:
-                return new DijkstraPathfinder();
-                
-            case PHBA_NAME:
-                return new PHBAPathfinder();
-                
-            case NBASTAR_NAME:
-                return new NewBidirectionalAStarPathfinder();
-                
-            case BIDIJKSTRA_NAME:
-                return new BidirectionalDijkstraPathfinder();
-                
-            case BIDDFS_NAME:
-                return new BIDDFSPathFinder();
-                
-            default:
-                throw new UnsupportedOperationException(
-                        "Unknown pathfinder name.");
+        AbstractPathFinder pathfinder = pathfinders.computeIfAbsent(
+                (String) comboBoxAlgorithm.getSelectedItem(),
+                pathfinderRegistry::create);
+        
+        if (currentPathfinder != null && currentPathfinder != pathfinder) {
+            // Stop D* Lite recording the edits while it is not in use. The
+            // panel sets its grid again if it is chosen anew.
+            currentPathfinder.dispose();
         }
+        
+        currentPathfinder = pathfinder;
+        return pathfinder;
     }
     
     private void setLocation() {
@@ -4,11 +4,15 @@ import java.awt.Color;
 import java.awt.Font;
 import java.awt.Graphics;;
 import java.awt.Point;
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
-import java.util.ArrayList;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
 import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
 import static net.coderodde.funky.pathfinding.Configuration.DEFAULT_CLOSED_COLOR;
 import static net.coderodde.funky.pathfinding.Configuration.DEFAULT_FRONTIER_COLOR;
 import static net.coderodde.funky.pathfinding.Configuration.DEFAULT_PATH_COLOR;
@@ -18,19 +22,29 @@ import static net.coderodde.funky.pathfinding.Configuration.DEFAULT_WALL_COLOR;
 import static net.coderodde.funky.pathfinding.Utils.*;
 import static net.coderodde.funky.pathfinding.Configuration.DEFAULT_WORLD_COLOR;
 import static net.coderodde.funky.pathfinding.Configuration.POINT_RECTANGLE_WIDTH_HEIGHT;
+import static net.coderodde.funky.pathfinding.Configuration.RENDER_EVENTS_PER_FRAME;
+import static net.coderodde.funky.pathfinding.Configuration.RENDER_FRAME_MILLISECONDS;
 
-public final class FunkyPathfindingPanel extends JPanel {
+public final class FunkyPathfindingPanel extends JPanel 
+implements NodeExpander<Point> {
 
     private static final boolean IS_WALL = true;
     private static final boolean IS_TRAVERSABLE = !IS_WALL;
     private static final int STAT_WIDTH = 200;
+    private static final int STAT_HEIGHT = 90;
     
     private final int width;
     private final int height;
     private final BufferedImage bufferedImage;
+    
+    /**
+     * The pixels of {@link #bufferedImage}, written directly. The pixel of
+     * the cell {@code (x, y)} is at index {@code y * width + x}.
+     */
+    private final int[] pixels;
     private final Point sourcePoint;
     private final Point targetPoint;
-    private final boolean[][] gridGraphData;
+    private final GridModel gridModel;
     private final FunkyPathfindingPanelMouseAdapter mouseAdapter;
     private final Font statisticsFont = new Font("Monospaced", Font.BOLD, 14);
     
@@ -42,27 +56,98 @@ public final class FunkyPathfindingPanel extends JPanel {
     private Color frontierColor = DEFAULT_FRONTIER_COLOR;
     private Color pathColor     = DEFAULT_PATH_COLOR;
     private DrawingMode drawingMode = DrawingMode.SET_WALL;
-    private PathfinderRunningThread currentThread;
+    
+    /**
+     * Runs the searches started from this panel, reusing its thread between
+     * them.
+     */
+    private final SearchScheduler searchScheduler = new SearchScheduler();
+    private SearchScheduler.SearchFuture currentSearch;
+    
+    /**
+     * The context of the searches run from this panel. The searches run one
+     * at a time, and the pathfinders that keep state between searches, such
+     * as D* Lite, find it here on the next run.
+     */
+    private final SearchContext searchContext = new SearchContext();
     private volatile long searchStartTime;
     
+    /**
+     * The time the current search stopped, valid once {@code searchStopped}
+     * is set. Both are accessed only on the event dispatch thread.
+     */
+    private long searchEndTime;
+    private boolean searchStopped;
+    
+    /**
+     * The events the running search publishes. The search thread never
+     * touches the image; {@link #renderTimer} applies the events on the event
+     * dispatch thread once per frame.
+     */
+    private final RenderEventRing renderEvents;
+    private final int[] renderEventBuffer = new int[RENDER_EVENTS_PER_FRAME];
+    private final Timer renderTimer =
+            new Timer(RENDER_FRAME_MILLISECONDS, (e) -> renderFrame());
+    
+    /**
+     * The bounds of the pixels changed since the last repaint request. Used
+     * on the event dispatch thread only. The region is empty when
+     * {@code dirtyMaxX < dirtyMinX}.
+     */
+    private int dirtyMinX = Integer.MAX_VALUE;
+    private int dirtyMinY = Integer.MAX_VALUE;
+    private int dirtyMaxX = -1;
+    private int dirtyMaxY = -1;
+    
+    /**
+     * The observer the pathfinders report to. The frames are driven by
+     * {@link #renderTimer}, so the repaint requests of the searches are
+     * ignored.
+     */
+    private final SearchObserver searchObserver = new SearchObserver() {
+        
+        @Override
+        public void markAsClosed(int cellIndex) {
+            FunkyPathfindingPanel.this.markAsClosed(cellIndex);
+        }
+        
+        @Override
+        public void unmarkAsClosed(int cellIndex) {
+            FunkyPathfindingPanel.this.unmarkAsClosed(cellIndex);
+        }
+        
+        @Override
+        public void markAsFrontier(int cellIndex) {
+            FunkyPathfindingPanel.this.markAsFrontier(cellIndex);
+        }
+        
+        @Override
+        public void markAsPath(int cellIndex) {
+            FunkyPathfindingPanel.this.markAsPath(cellIndex);
+        }
+        
+        @Override
+        public void repaint() {}
+    };
+    
     public FunkyPathfindingPanel(int width, 
                                  int height) {
         this.width = checkWidth(width);
         this.height = checkHeight(height);
         this.sourcePoint = new Point();
         this.targetPoint = new Point();
-        this.gridGraphData = new boolean[height][width];
+        this.gridModel = new GridModel(width, height);
+        this.renderEvents = new RenderEventRing(width * height);
         this.bufferedImage = new BufferedImage(width, 
                                                height, 
                                                BufferedImage.TYPE_INT_RGB);
+        this.pixels = ((DataBufferInt) bufferedImage.getRaster()
+                                                    .getDataBuffer())
+                                                    .getData();
         this.setSize(width, height);
         
-        for (int y = 0; y < gridGraphData.length; ++y) {
-            for (int x = 0; x < gridGraphData[0].length; ++x) {
-                setPixel(x, y, worldColor);
-            }
-        }
-        
+        Arrays.fill(pixels, toPixel(worldColor));
+        markAllDirty();
         setSource(width / 10, height / 10);
         setTarget(9 * width / 10, 9 * height / 10);
         
@@ -82,30 +167,31 @@ public final class FunkyPathfindingPanel extends JPanel {
     }
     
     public void search(AbstractPathFinder pathfinder) {
-        this.currentThread = new PathfinderRunningThread(pathfinder, 
-                                                         sourcePoint, 
-                                                         targetPoint);
+        searchContext.reset();
         pathfinder.setPanel(this);
-        
-        try {
-            this.currentThread.start();
-            searchStartTime = System.currentTimeMillis();
-        } catch (TargetNotReachableException ex) {}   
+        searchStartTime = System.nanoTime();
+        searchStopped = false;
+        SearchScheduler.SearchFuture search =
+                searchScheduler.submit(pathfinder,
+                                       sourcePoint,
+                                       targetPoint,
+                                       searchContext);
+        this.currentSearch = search;
+        search.whenStopped(() -> {
+            long endTime = System.nanoTime();
+            SwingUtilities.invokeLater(() -> {
+                if (currentSearch == search) {
+                    searchEndTime = endTime;
+                    searchStopped = true;
+                    markStatisticsDirty();
+                }
+            });
+        });
     }
     
+    @Override
     public List<Point> expand(Point point) {
-        int x = point.x;
-        int y = point.y;
-        List<Point> list = new ArrayList<>(8);
-        list.add(new Point(x - 1, y - 1));
-        list.add(new Point(x - 1, y));
-        list.add(new Point(x - 1, y + 1));
-        list.add(new Point(x, y - 1));
-        list.add(new Point(x, y + 1));
-        list.add(new Point(x + 1, y - 1));
-        list.add(new Point(x + 1, y));
-        list.add(new Point(x + 1, y + 1));
-        return pruneNeighborList(list);
+        return gridModel.expand(point);
     }
     
     public void setDrawingMode(DrawingMode drawingMode) {
@@ -156,12 +242,12 @@ public final class FunkyPathfindingPanel extends JPanel {
     
     public void setWall(int x, int y) {
         setPixel(x, y, wallColor);
-        gridGraphData[y][x] = IS_WALL;
+        gridModel.setWall(x, y);
     }
     
     public void removeWall(int x, int y) {
         setPixel(x, y, worldColor);
-        gridGraphData[y][x] = IS_TRAVERSABLE;
+        gridModel.removeWall(x, y);
     }
     
     public void setSource(int x, int y) {
@@ -185,14 +271,10 @@ public final class FunkyPathfindingPanel extends JPanel {
     }
     
     public void clearAllWalls() {
-        for (int y = 0; y < gridGraphData.length; ++y) {
-            for (int x = 0; x < gridGraphData[0].length; ++x) {
-                setPixel(x, y, worldColor);
-                gridGraphData[y][x] = IS_TRAVERSABLE;
-            }
-        }
-        
-        repaint();
+        Arrays.fill(pixels, toPixel(worldColor));
+        markAllDirty();
+        gridModel.clearAllWalls();
+        repaintDirtyRegion();
     }
     
     public void draw(int x, int y) {
@@ -229,7 +311,9 @@ public final class FunkyPathfindingPanel extends JPanel {
                 }
                 
                 setPixel(startX + xx, startY + yy, color);
-                gridGraphData[startY + yy][startX + xx] = traversability;
+                gridModel.setWall(startX + xx, 
+                                  startY + yy, 
+                                  traversability == IS_WALL);
             }
         }
         
@@ -244,51 +328,77 @@ public final class FunkyPathfindingPanel extends JPanel {
     }
     
     public void reset() {
+        renderEvents.clear();
+        Arrays.fill(pixels, toPixel(worldColor));
+        
+        int wallPixel = toPixel(wallColor);
+        int wordsPerRow = gridModel.getWordsPerRow();
+        
         for (int y = 0; y < height; ++y) {
-            for (int x = 0; x < width; ++x) {
-                setPixel(x, y, gridGraphData[y][x] == IS_TRAVERSABLE ?
-                        worldColor :
-                        wallColor);
+            for (int wordIndex = 0; wordIndex < wordsPerRow; ++wordIndex) {
+                long word = gridModel.getRowWord(y, wordIndex);
+                
+                while (word != 0L) {
+                    int x = (wordIndex << 6) + Long.numberOfTrailingZeros(word);
+                    pixels[y * width + x] = wallPixel;
+                    word &= word - 1;
+                }
             }
         }
+        
+        markAllDirty();
     }
     
     public void togglePause() {
-        if (currentThread != null) {
-            currentThread.togglePause();
+        if (currentSearch != null) {
+            currentSearch.togglePause();
         }
     }
     
-    public void requestExit() {
-        if (currentThread != null) {
-            currentThread.halt();
-            
-            try {
-                currentThread.join();
-            } catch (InterruptedException ex) {
-                
-            }
-            
+    /**
+     * Cancels the current search without waiting for it, and runs an action
+     * on the event dispatch thread once the search has stopped.
+     *
+     * @param onStopped the action.
+     */
+    public void requestExit(Runnable onStopped) {
+        Objects.requireNonNull(onStopped, "The action is null.");
+        SearchScheduler.SearchFuture search = currentSearch;
+        
+        if (search == null) {
+            onStopped.run();
+            return;
+        }
+        
+        search.cancel(true);
+        search.whenStopped(() -> SwingUtilities.invokeLater(() -> {
+            drainRenderEvents();
             Graphics g = bufferedImage.getGraphics();
             drawStatistics(g);
             repaint();
-            currentThread = null;
-        }
+            
+            if (currentSearch == search) {
+                currentSearch = null;
+            }
+            
+            onStopped.run();
+        }));
     }
     
     private void drawStatistics(Graphics g) {
-        if (currentThread == null) {
+        if (currentSearch == null) {
             return;
         }
         
-        AbstractPathFinder pathfinder = currentThread.getPathfinder();
-        int closedNodes   = pathfinder.getNumberOfClosedNodes();
-        int frontierNodes = pathfinder.getNumberOfFrontierNodes();
+        SearchContext context = currentSearch.getSearchContext();
+        int closedNodes   = context.getNumberOfClosedNodes();
+        int frontierNodes = context.getNumberOfFrontierNodes();
         int totalNodes    = closedNodes + frontierNodes;
-        long currentMillis = System.currentTimeMillis();
+        long endTime = searchStopped ? searchEndTime : System.nanoTime();
+        long elapsedMillis = (endTime - searchStartTime) / 1_000_000L;
         
         g.setColor(worldColor);
-        g.fillRect(getWidth() - STAT_WIDTH, 0, STAT_WIDTH, 90);
+        g.fillRect(getWidth() - STAT_WIDTH, 0, STAT_WIDTH, STAT_HEIGHT);
         g.setColor(Color.BLACK);
         g.setFont(statisticsFont);
         
@@ -302,39 +412,93 @@ public final class FunkyPathfindingPanel extends JPanel {
                      getWidth() - STAT_WIDTH,
                      45);
         g.drawString("Time elapsed:   " +
-                        (currentMillis - searchStartTime) + " ms.",
+                        elapsedMillis + " ms.",
                      getWidth() - STAT_WIDTH,
                      75);
         
-        if (pathfinder.pathLength != Double.NaN) {
-            g.drawString("Path length:    " + (int) pathfinder.pathLength,
+        if (context.getPathLength() != Double.NaN) {
+            g.drawString("Path length:    " + (int) context.getPathLength(),
                          getWidth() - STAT_WIDTH,
                          60);
         }
     }
     
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        renderTimer.start();
+    }
+    
+    @Override
+    public void removeNotify() {
+        renderTimer.stop();
+        super.removeNotify();
+    }
+    
     @Override
     public void paintComponent(Graphics g) {
         setSource(sourcePoint.x, sourcePoint.y);
         setTarget(targetPoint.x, targetPoint.y);
         drawStatistics(bufferedImage.getGraphics());
-        g.drawImage(bufferedImage, 0, 0, null);
+        Rectangle clip = g.getClipBounds();
+        
+        if (clip == null) {
+            g.drawImage(bufferedImage, 0, 0, null);
+            return;
+        }
+        
+        int x2 = clip.x + clip.width;
+        int y2 = clip.y + clip.height;
+        g.drawImage(bufferedImage,
+                    clip.x, clip.y, x2, y2,
+                    clip.x, clip.y, x2, y2,
+                    null);
     }
     
     public void unmarkAsClosed(Point point) {
-        setPixel(point.x, point.y, worldColor);
+        unmarkAsClosed(gridModel.getIndex(point));
+    }
+    
+    /**
+     * Returns the observer publishing the progress of a search to this
+     * panel.
+     *
+     * @return the search observer.
+     */
+    public SearchObserver getSearchObserver() {
+        return searchObserver;
     }
     
     public void markAsClosed(Point point) {
-        setPixel(point.x, point.y, closedColor);
+        markAsClosed(gridModel.getIndex(point));
     }
     
     public void markAsFrontier(Point point) {
-        setPixel(point.x, point.y, frontierColor);
+        markAsFrontier(gridModel.getIndex(point));
     }
     
     public void markAsPath(Point point) {
-        setPixel(point.x, point.y, pathColor);
+        markAsPath(gridModel.getIndex(point));
+    }
+    
+    public void unmarkAsClosed(int cellIndex) {
+        renderEvents.publish(cellIndex, RenderEventRing.UNMARK_CLOSED);
+    }
+    
+    public void markAsClosed(int cellIndex) {
+        renderEvents.publish(cellIndex, RenderEventRing.CLOSED);
+    }
+    
+    public void markAsFrontier(int cellIndex) {
+        renderEvents.publish(cellIndex, RenderEventRing.FRONTIER);
+    }
+    
+    public void markAsPath(int cellIndex) {
+        renderEvents.publish(cellIndex, RenderEventRing.PATH);
+    }
+    
+    public GridModel getGridModel() {
+        return gridModel;
     }
     
     Point getSourcePoint() {
@@ -345,8 +509,105 @@ public final class FunkyPathfindingPanel extends JPanel {
         return targetPoint;
     }
     
+    /**
+     * Applies the pending render events and repaints the region they changed,
+     * along with the statistics of a running search. Runs on the event
+     * dispatch thread once per frame.
+     */
+    private void renderFrame() {
+        drainRenderEvents();
+        
+        if (currentSearch != null && !searchStopped) {
+            markStatisticsDirty();
+        }
+        
+        repaintDirtyRegion();
+    }
+    
+    /**
+     * Applies the pending render events to the image, at most
+     * {@code RENDER_EVENTS_PER_FRAME} of them per call.
+     */
+    private void drainRenderEvents() {
+        int count = renderEvents.drain(renderEventBuffer);
+        
+        if (count == 0) {
+            return;
+        }
+        
+        int[] palette = new int[4];
+        palette[RenderEventRing.CLOSED]        = toPixel(closedColor);
+        palette[RenderEventRing.UNMARK_CLOSED] = toPixel(worldColor);
+        palette[RenderEventRing.FRONTIER]      = toPixel(frontierColor);
+        palette[RenderEventRing.PATH]          = toPixel(pathColor);
+        
+        for (int i = 0; i < count; ++i) {
+            int event = renderEventBuffer[i];
+            int cellIndex = RenderEventRing.getCellIndex(event);
+            setPixel(cellIndex % width,
+                     cellIndex / width,
+                     palette[RenderEventRing.getKind(event)]);
+        }
+    }
+    
+    /**
+     * Requests the repaint of the pixels changed since the last request.
+     */
+    void repaintDirtyRegion() {
+        if (dirtyMaxX < dirtyMinX) {
+            return;
+        }
+        
+        repaint(dirtyMinX,
+                dirtyMinY,
+                dirtyMaxX - dirtyMinX + 1,
+                dirtyMaxY - dirtyMinY + 1);
+        
+        dirtyMinX = Integer.MAX_VALUE;
+        dirtyMinY = Integer.MAX_VALUE;
+        dirtyMaxX = -1;
+        dirtyMaxY = -1;
+    }
+    
+    private void markDirty(int x, int y) {
+        dirtyMinX = Math.min(dirtyMinX, x);
+        dirtyMinY = Math.min(dirtyMinY, y);
+        dirtyMaxX = Math.max(dirtyMaxX, x);
+        dirtyMaxY = Math.max(dirtyMaxY, y);
+    }
+    
+    private void markAllDirty() {
+        markDirty(0, 0);
+        markDirty(width - 1, height - 1);
+    }
+    
+    private void markStatisticsDirty() {
+        markDirty(Math.max(0, width - STAT_WIDTH), 0);
+        markDirty(width - 1, Math.min(height, STAT_HEIGHT) - 1);
+    }
+    
     private void setPixel(int x, int y, Color color) {
-        bufferedImage.setRGB(x, y, color.getRGB());
+        setPixel(x, y, toPixel(color));
+    }
+    
+    /**
+     * Writes a pixel and marks it dirty, unless it already has the value.
+     */
+    private void setPixel(int x, int y, int pixel) {
+        int index = y * width + x;
+        
+        if (pixels[index] != pixel) {
+            pixels[index] = pixel;
+            markDirty(x, y);
+        }
+    }
+    
+    /**
+     * Returns the value of a pixel of the color in the
+     * {@link BufferedImage#TYPE_INT_RGB} image.
+     */
+    private static int toPixel(Color color) {
+        return color.getRGB() & 0xffffff;
     }
     
     private void paintPoint(int x, int y, Color color) {
@@ -378,28 +639,6 @@ public final class FunkyPathfindingPanel extends JPanel {
         }
     }
     
-    private List<Point> pruneNeighborList(List<Point> list) {
-        List<Point> prunedList = new ArrayList<>(8);
-        
-        for (Point point : list) {
-            if (point.x < 0 || point.x >= width) {
-                continue;
-            }
-            
-            if (point.y < 0 || point.y >= height) {
-                continue;
-            }
-            
-            if (gridGraphData[point.y][point.x] == IS_WALL) {
-                continue;
-            }
-            
-            prunedList.add(point);
-        }
-        
-        return prunedList;
-    }
-    
     void draw(int x, int y, int previousX, int previousY) {
         double dx = previousX - x;
         double dy = previousY - y;
@@ -443,7 +682,7 @@ public final class FunkyPathfindingPanel extends JPanel {
                     continue;
                 }
                 
-                if (gridGraphData[startY + yy][startX + xx] == IS_WALL) {
+                if (gridModel.isWall(startX + xx, startY + yy)) {
                     setPixel(startX + xx, startY + yy, wallColor);
                 } else {
                     setPixel(startX + xx, startY + yy, worldColor);
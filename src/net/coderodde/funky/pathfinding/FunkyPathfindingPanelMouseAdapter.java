@@ -74,10 +74,10 @@ implements MouseListener, MouseMotionListener {
                 funkyPathfindingPanel.setTarget(currentPoint.x, currentPoint.y);
             }
             
-            funkyPathfindingPanel.repaint();
+            funkyPathfindingPanel.repaintDirtyRegion();
         } else {
             funkyPathfindingPanel.draw(point.x, point.y, previousX, previousY);
-            funkyPathfindingPanel.repaint();
+            funkyPathfindingPanel.repaintDirtyRegion();
             previousX = point.x;
             previousY = point.y;
         }
@@ -0,0 +1,313 @@
+package net.coderodde.funky.pathfinding;
+
+import java.awt.Point;
+import java.nio.LongBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * This class implements a headless grid graph. The walls are packed into
+ * {@code long} bitsets, one bit per cell, each row starting at a word
+ * boundary. Each cell is connected to its eight neighbors unless the neighbor
+ * is a wall.
+ */
+public final class GridModel implements NodeExpander<Point> {
+    
+    /**
+     * The interface for objects that need to know which cells changed, such
+     * as derived data that is cheaper to patch than to rebuild.
+     */
+    public interface ChangeListener {
+        
+        /**
+         * Called after the cell {@code (x, y)} changed its traversability.
+         *
+         * @param x the x-coordinate of the cell.
+         * @param y the y-coordinate of the cell.
+         */
+        void cellChanged(int x, int y);
+        
+        /**
+         * Called after all the walls were removed.
+         */
+        void gridCleared();
+    }
+    
+    /**
+     * The maximum number of neighbors a cell may have. The neighbor buffers
+     * passed to {@link #expand(int, int[], double[])} must be at least this
+     * long.
+     */
+    public static final int MAXIMUM_NUMBER_OF_NEIGHBORS = 8;
+    
+    /**
+     * The length of a diagonal move.
+     */
+    public static final double DIAGONAL_WEIGHT = Math.sqrt(2.0);
+    
+    /**
+     * The width of the grid.
+     */
+    private final int width;
+    
+    /**
+     * The height of the grid.
+     */
+    private final int height;
+    
+    /**
+     * The number of {@code long} words per row.
+     */
+    private final int wordsPerRow;
+    
+    /**
+     * The wall bits. Bit {@code x & 63} of the word
+     * {@code y * wordsPerRow + (x >>> 6)} is set if and only if the cell
+     * {@code (x, y)} is a wall.
+     */
+    private final LongBuffer walls;
+    
+    /**
+     * Incremented each time a cell changes its traversability.
+     */
+    private int modificationCount;
+    
+    /**
+     * The listeners notified of the changes.
+     */
+    private final List<ChangeListener> listeners =
+            new CopyOnWriteArrayList<>();
+    
+    public GridModel(int width, int height) {
+        this.width = Utils.checkWidth(width);
+        this.height = Utils.checkHeight(height);
+        this.wordsPerRow = getWordsPerRow(width);
+        this.walls = LongBuffer.wrap(new long[wordsPerRow * height]);
+    }
+    
+    /**
+     * Constructs a grid over the given wall words, laid out as described at
+     * {@link #walls}.
+     */
+    GridModel(int width, int height, LongBuffer walls) {
+        this.width = Utils.checkWidth(width);
+        this.height = Utils.checkHeight(height);
+        this.wordsPerRow = getWordsPerRow(width);
+        
+        if (walls.capacity() != wordsPerRow * height) {
+            throw new IllegalArgumentException(
+                    "The wall buffer holds " + walls.capacity() +
+                    " words instead of " + wordsPerRow * height + ".");
+        }
+        
+        this.walls = walls;
+    }
+    
+    /**
+     * Returns the number of the {@code long} words per row of a grid of the
+     * given width.
+     *
+     * @param width the width of the grid.
+     * @return the number of the words per row.
+     */
+    static int getWordsPerRow(int width) {
+        return (width + Long.SIZE - 1) >>> 6;
+    }
+    
+    public int getWidth() {
+        return width;
+    }
+    
+    public int getHeight() {
+        return height;
+    }
+    
+    public int getWordsPerRow() {
+        return wordsPerRow;
+    }
+    
+    public int getIndex(int x, int y) {
+        return y * width + x;
+    }
+    
+    public int getIndex(Point point) {
+        return point.y * width + point.x;
+    }
+    
+    /**
+     * Returns the modification count of this grid. Any change in the
+     * traversability of a cell increments the count, so that derived data may
+     * detect that it is out of date.
+     *
+     * @return the modification count.
+     */
+    public int getModificationCount() {
+        return modificationCount;
+    }
+    
+    public void addChangeListener(ChangeListener listener) {
+        listeners.add(
+                Objects.requireNonNull(listener, "The listener is null."));
+    }
+    
+    public void removeChangeListener(ChangeListener listener) {
+        listeners.remove(listener);
+    }
+    
+    int getNumberOfChangeListeners() {
+        return listeners.size();
+    }
+    
+    /**
+     * Returns {@code true} if the cell {@code (x, y)} lies within this grid.
+     *
+     * @param x the x-coordinate of the cell.
+     * @param y the y-coordinate of the cell.
+     * @return {@code true} if the cell is valid.
+     */
+    public boolean isValid(int x, int y) {
+        return x >= 0 && x < width && y >= 0 && y < height;
+    }
+    
+    public boolean isWall(int x, int y) {
+        return (walls.get(y * wordsPerRow + (x >>> 6)) & (1L << x)) != 0;
+    }
+    
+    /**
+     * Returns {@code true} if the cell {@code (x, y)} lies within this grid
+     * and is not a wall.
+     *
+     * @param x the x-coordinate of the cell.
+     * @param y the y-coordinate of the cell.
+     * @return {@code true} if the cell is traversable.
+     */
+    public boolean isTraversable(int x, int y) {
+        return isValid(x, y) && !isWall(x, y);
+    }
+    
+    /**
+     * Returns the word of wall bits holding the cells
+     * {@code (64 * wordIndex, y), ..., (64 * wordIndex + 63, y)}. The bits
+     * beyond the right border of the grid are zero.
+     *
+     * @param y         the row.
+     * @param wordIndex the index of the word within the row.
+     * @return the wall bits.
+     */
+    public long getRowWord(int y, int wordIndex) {
+        return walls.get(y * wordsPerRow + wordIndex);
+    }
+    
+    public void setWall(int x, int y) {
+        setWall(x, y, true);
+    }
+    
+    public void removeWall(int x, int y) {
+        setWall(x, y, false);
+    }
+    
+    /**
+     * Sets the traversability of the cell {@code (x, y)}.
+     *
+     * @param x    the x-coordinate of the cell.
+     * @param y    the y-coordinate of the cell.
+     * @param wall whether the cell becomes a wall.
+     */
+    public void setWall(int x, int y, boolean wall) {
+        if (!isValid(x, y)) {
+            throw new IndexOutOfBoundsException(
+                    "Cell (" + x + ", " + y + ") is outside the " + width +
+                    " x " + height + " grid.");
+        }
+        
+        int wordIndex = y * wordsPerRow + (x >>> 6);
+        long mask = 1L << x;
+        long word = walls.get(wordIndex);
+        long newWord = wall ? word | mask : word & ~mask;
+        
+        if (newWord != word) {
+            walls.put(wordIndex, newWord);
+            modificationCount++;
+            
+            for (ChangeListener listener : listeners) {
+                listener.cellChanged(x, y);
+            }
+        }
+    }
+    
+    /**
+     * Removes all the walls.
+     */
+    public void clearAllWalls() {
+        for (int i = 0; i < walls.capacity(); ++i) {
+            walls.put(i, 0L);
+        }
+        
+        modificationCount++;
+        
+        for (ChangeListener listener : listeners) {
+            listener.gridCleared();
+        }
+    }
+    
+    /**
+     * Writes the indices of the traversable neighbors of a cell to
+     * {@code neighbors} and the lengths of the corresponding moves to
+     * {@code weights}.
+     *
+     * @param cellIndex the index of the cell to expand.
+     * @param neighbors the buffer for the neighbor indices.
+     * @param weights   the buffer for the move lengths.
+     * @return the number of neighbors written.
+     */
+    public int expand(int cellIndex, int[] neighbors, double[] weights) {
+        int x = cellIndex % width;
+        int y = cellIndex / width;
+        int count = 0;
+        
+        for (int dx = -1; dx <= 1; ++dx) {
+            int nx = x + dx;
+            
+            if (nx < 0 || nx >= width) {
+                continue;
+            }
+            
+            int wordOffset = nx >>> 6;
+            long mask = 1L << nx;
+            
+            for (int dy = -1; dy <= 1; ++dy) {
+                int ny = y + dy;
+                
+                if ((dx == 0 && dy == 0) || ny < 0 || ny >= height) {
+                    continue;
+                }
+                
+                if ((walls.get(ny * wordsPerRow + wordOffset) & mask) != 0) {
+                    continue;
+                }
+                
+                neighbors[count] = ny * width + nx;
+                weights[count] = dx != 0 && dy != 0 ? DIAGONAL_WEIGHT : 1.0;
+                count++;
+            }
+        }
+        
+        return count;
+    }
+    
+    @Override
+    public List<Point> expand(Point point) {
+        int[] neighbors = new int[MAXIMUM_NUMBER_OF_NEIGHBORS];
+        double[] weights = new double[MAXIMUM_NUMBER_OF_NEIGHBORS];
+        int count = expand(getIndex(point), neighbors, weights);
+        List<Point> list = new ArrayList<>(count);
+        
+        for (int i = 0; i < count; ++i) {
+            list.add(new Point(neighbors[i] % width, neighbors[i] / width));
+        }
+        
+        return list;
+    }
+}
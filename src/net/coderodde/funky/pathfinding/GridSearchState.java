@@ -0,0 +1,200 @@
+package net.coderodde.funky.pathfinding;
+
+import java.awt.Point;
+import java.util.Arrays;
+
+/**
+ * This class holds the state of a single search direction over a grid graph:
+ * the tentative distances, the parent pointers and the closed set. It is
+ * cleared in constant time by starting a new generation.
+ */
+public final class GridSearchState {
+    
+    /**
+     * Denotes the absence of a parent cell.
+     */
+    public static final int NO_PARENT = -1;
+    
+    /**
+     * The width of the grid.
+     */
+    private final int width;
+    
+    /**
+     * The height of the grid.
+     */
+    private final int height;
+    
+    /**
+     * Maps each cell index to its tentative distance. Cells not yet reached
+     * have the distance {@code Double.POSITIVE_INFINITY}.
+     */
+    private final double[] distances;
+    
+    /**
+     * Maps each cell index to the index of its parent cell.
+     */
+    private final int[] parents;
+    
+    /**
+     * Maps each cell index to the generation of the search that last touched
+     * the cell. A cell stamped {@code generation} is reached in the current
+     * search, a cell stamped {@code generation + 1} is closed as well.
+     */
+    private final int[] stamps;
+    
+    /**
+     * The generation of the current search. Always even.
+     */
+    private int generation;
+    
+    /**
+     * Caches the number of closed cells.
+     */
+    private int closedCount;
+    
+    public GridSearchState(int width, int height) {
+        this.width = Utils.checkWidth(width);
+        this.height = Utils.checkHeight(height);
+        this.distances = new double[width * height];
+        this.parents = new int[width * height];
+        this.stamps = new int[width * height];
+        
+        // A new state is never stale, so that a thread reading it without
+        // synchronization sees either the initial values or the current ones.
+        Arrays.fill(distances, Double.POSITIVE_INFINITY);
+        Arrays.fill(parents, NO_PARENT);
+        clear();
+    }
+    
+    public int getWidth() {
+        return width;
+    }
+    
+    public int getHeight() {
+        return height;
+    }
+    
+    public int getIndex(int x, int y) {
+        return y * width + x;
+    }
+    
+    public int getIndex(Point point) {
+        return point.y * width + point.x;
+    }
+    
+    public int getX(int index) {
+        return index % width;
+    }
+    
+    public int getY(int index) {
+        return index / width;
+    }
+    
+    public Point getPoint(int index) {
+        return new Point(index % width, index / width);
+    }
+    
+    /**
+     * Stores the coordinates of the cell into a given point, so that the
+     * caller may reuse the point object.
+     * 
+     * @param index the index of the cell.
+     * @param point the point to update.
+     * @return {@code point}.
+     */
+    public Point getPoint(int index, Point point) {
+        point.x = index % width;
+        point.y = index / width;
+        return point;
+    }
+    
+    /**
+     * Returns the Euclidean distance between a cell and a point without 
+     * allocating a point for the cell.
+     * 
+     * @param index the index of the cell.
+     * @param point the point.
+     * @return the distance between the cell and the point.
+     */
+    public double getEuclideanDistance(int index, Point point) {
+        return Point.distance(index % width, index / width, point.x, point.y);
+    }
+    
+    /**
+     * Returns {@code true} if the cell was assigned a distance during the
+     * current search.
+     *
+     * @param index the index of the cell.
+     * @return {@code true} if the cell is reached.
+     */
+    public boolean isReached(int index) {
+        return stamps[index] >= generation
+                && distances[index] != Double.POSITIVE_INFINITY;
+    }
+    
+    public double getDistance(int index) {
+        return stamps[index] >= generation ?
+               distances[index] :
+               Double.POSITIVE_INFINITY;
+    }
+    
+    public void setDistance(int index, double distance) {
+        touch(index);
+        distances[index] = distance;
+    }
+    
+    public int getParent(int index) {
+        return stamps[index] >= generation ? parents[index] : NO_PARENT;
+    }
+    
+    public void setParent(int index, int parentIndex) {
+        touch(index);
+        parents[index] = parentIndex;
+    }
+    
+    public boolean isClosed(int index) {
+        return stamps[index] == generation + 1;
+    }
+    
+    public void close(int index) {
+        touch(index);
+        
+        if (stamps[index] == generation) {
+            stamps[index] = generation + 1;
+            closedCount++;
+        }
+    }
+    
+    public int getClosedCount() {
+        return closedCount;
+    }
+    
+    /**
+     * Brings this state back to the state right after construction. Runs in
+     * constant time, except once in about a billion calls, when the
+     * generation counter wraps around and the stamps are reset.
+     */
+    public void clear() {
+        closedCount = 0;
+        
+        if (generation >= Integer.MAX_VALUE - 2) {
+            Arrays.fill(stamps, 0);
+            generation = 0;
+        }
+        
+        generation += 2;
+    }
+    
+    /**
+     * Stamps a cell with the current generation, resetting its data if it
+     * was last touched by an earlier search.
+     */
+    private void touch(int index) {
+        if (stamps[index] < generation) {
+            stamps[index] = generation;
+            distances[index] = Double.POSITIVE_INFINITY;
+            parents[index] = NO_PARENT;
+        }
+    }
+}
@@ -0,0 +1,450 @@
+package net.coderodde.funky.pathfinding;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import static net.coderodde.funky.pathfinding.Configuration.NODES_EXPANSIONS_PER_REPAINT;
+import static net.coderodde.funky.pathfinding.GridModel.DIAGONAL_WEIGHT;
+
+/**
+ * This class implements HPA* (hierarchical path-finding A*) over a
+ * {@link ClusterHierarchy}. The paths are near-optimal.
+ */
+public final class HierarchicalPathfinder extends AbstractPathFinder {
+    
+    /**
+     * The node ID of the source in the abstract search.
+     */
+    private static final int SOURCE = 0;
+    
+    /**
+     * The node ID of the target in the abstract search.
+     */
+    private static final int TARGET = 1;
+    
+    /**
+     * The data of the abstract search, reused by the searches run in the same
+     * context.
+     */
+    private static final class Workspace {
+        
+        final ClusterHierarchy.ClusterSearch clusterSearch;
+        
+        /**
+         * Maps the node IDs of the abstract search to cell indices.
+         */
+        int[] nodeCells = new int[1024];
+        
+        /**
+         * The best known distances from the source to the nodes.
+         */
+        double[] nodeDistances = new double[1024];
+        
+        /**
+         * The parent of each node, or -1.
+         */
+        int[] nodeParents = new int[1024];
+        
+        int nodeCount;
+        
+        /**
+         * An open addressing hash table mapping the cells of the reached
+         * transitions to their node IDs. A slot is in use only if it is
+         * stamped with the current generation.
+         */
+        int[] tableCells = new int[0];
+        int[] tableNodes = new int[0];
+        int[] tableStamps = new int[0];
+        int generation;
+        
+        double[] sourceDistances = new double[0];
+        double[] targetDistances = new double[0];
+        IntPriorityQueue open;
+        int openCapacity;
+        int targetIndex;
+        
+        Workspace(GridModel grid, int clusterSize) {
+            this.clusterSearch =
+                    new ClusterHierarchy.ClusterSearch(grid, clusterSize);
+        }
+        
+        /**
+         * Forgets the nodes of the previous search and makes room for up to
+         * {@code capacity} nodes in the hash table.
+         */
+        void clear(int capacity) {
+            if (tableCells.length < 2 * capacity) {
+                int length = Integer.highestOneBit(4 * capacity - 1);
+                tableCells = new int[length];
+                tableNodes = new int[length];
+                tableStamps = new int[length];
+                generation = 0;
+            } else if (generation == Integer.MAX_VALUE) {
+                Arrays.fill(tableStamps, 0);
+                generation = 0;
+            }
+            
+            generation++;
+            nodeCount = 0;
+        }
+        
+        /**
+         * Returns the node ID of a cell, or -1 if the cell has none.
+         */
+        int getNode(int cell) {
+            int mask = tableCells.length - 1;
+            
+            for (int slot = hash(cell) & mask;
+                    tableStamps[slot] == generation;
+                    slot = (slot + 1) & mask) {
+                if (tableCells[slot] == cell) {
+                    return tableNodes[slot];
+                }
+            }
+            
+            return -1;
+        }
+        
+        /**
+         * Assigns a node ID to a cell that has none.
+         */
+        int addNode(int cell) {
+            if (nodeCount == nodeCells.length) {
+                int capacity = 2 * nodeCells.length;
+                nodeCells = Arrays.copyOf(nodeCells, capacity);
+                nodeDistances = Arrays.copyOf(nodeDistances, capacity);
+                nodeParents = Arrays.copyOf(nodeParents, capacity);
+            }
+            
+            int node = nodeCount++;
+            int mask = tableCells.length - 1;
+            int slot = hash(cell) & mask;
+            
+            while (tableStamps[slot] == generation) {
+                slot = (slot + 1) & mask;
+            }
+            
+            nodeCells[node] = cell;
+            tableCells[slot] = cell;
+            tableNodes[slot] = node;
+            tableStamps[slot] = generation;
+            return node;
+        }
+        
+        private static int hash(int cell) {
+            int h = cell * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+    
+    private final ClusterHierarchy hierarchy;
+    
+    public HierarchicalPathfinder(ClusterHierarchy hierarchy) {
+        this.hierarchy = Objects.requireNonNull(hierarchy,
+                                                "The hierarchy is null.");
+    }
+    
+    public HierarchicalPathfinder(ClusterHierarchy hierarchy,
+                                  IntPriorityQueue.Factory openListFactory) {
+        super(openListFactory);
+        this.hierarchy = Objects.requireNonNull(hierarchy,
+                                                "The hierarchy is null.");
+    }
+    
+    @Override
+    public List<Point> search(Point sourcePoint,
+                              Point targetPoint,
+                              SearchContext context) {
+        Objects.requireNonNull(sourcePoint, "The source point is null.");
+        Objects.requireNonNull(targetPoint, "The target point is null.");
+        checkEndpoints(sourcePoint, targetPoint);
+        
+        context.pathLength = Double.NaN;
+        
+        if (hierarchy.getGridModel() != grid) {
+            throw new IllegalStateException(
+                    "The cluster hierarchy belongs to another grid.");
+        }
+        
+        ClusterHierarchy.Cluster[] clusters = hierarchy.getClusters();
+        Workspace workspace = getWorkspace(context);
+        ClusterHierarchy.ClusterSearch clusterSearch =
+                workspace.clusterSearch;
+        
+        int sourceIndex = grid.getIndex(sourcePoint);
+        int targetIndex = grid.getIndex(targetPoint);
+        ClusterHierarchy.Cluster sourceCluster =
+                clusters[hierarchy.getClusterIndex(sourceIndex)];
+        ClusterHierarchy.Cluster targetCluster =
+                clusters[hierarchy.getClusterIndex(targetIndex)];
+        
+        // Connect the source and the target to the transitions of their
+        // clusters.
+        clusterSearch.run(sourceCluster, sourceIndex, -1);
+        double[] sourceDistances = workspace.sourceDistances =
+                getTransitionDistances(sourceCluster,
+                                       clusterSearch,
+                                       workspace.sourceDistances);
+        double directDistance = clusterSearch.getDistance(targetIndex);
+        
+        clusterSearch.run(targetCluster, targetIndex, -1);
+        double[] targetDistances = workspace.targetDistances =
+                getTransitionDistances(targetCluster,
+                                       clusterSearch,
+                                       workspace.targetDistances);
+        
+        int capacity = 2;
+        
+        for (ClusterHierarchy.Cluster cluster : clusters) {
+            capacity += cluster.transitions.length;
+        }
+        
+        workspace.clear(capacity);
+        workspace.nodeCount = 2;
+        workspace.targetIndex = targetIndex;
+        workspace.nodeCells[SOURCE] = sourceIndex;
+        workspace.nodeCells[TARGET] = targetIndex;
+        workspace.nodeDistances[SOURCE] = 0.0;
+        workspace.nodeDistances[TARGET] = Double.POSITIVE_INFINITY;
+        workspace.nodeParents[SOURCE] = -1;
+        workspace.nodeParents[TARGET] = -1;
+        
+        if (workspace.openCapacity < capacity) {
+            workspace.open = createOpenList(capacity);
+            workspace.openCapacity = capacity;
+        } else {
+            workspace.open.clear();
+        }
+        
+        IntPriorityQueue open = workspace.open;
+        open.add(SOURCE, getHeuristic(sourceIndex, targetIndex));
+        
+        while (open.size() > 0) {
+            if (context.isExitRequested()) {
+                return null;
+            }
+            
+            if (context.pause) {
+                context.awaitResume();
+                continue;
+            }
+            
+            int current = open.extractMinimum();
+            context.closedNodeCount++;
+            
+            if (current == TARGET) {
+                List<Point> path = refinePath(workspace, clusters);
+                
+                for (Point p : path) {
+                    observer.markAsPath(grid.getIndex(p));
+                }
+                
+                context.frontierNodeCount = open.size();
+                context.pathLength = getLength(path);
+                observer.repaint();
+                return path;
+            }
+            
+            int currentCell = workspace.nodeCells[current];
+            double currentDistance = workspace.nodeDistances[current];
+            observer.markAsClosed(currentCell);
+            
+            if (context.closedNodeCount % NODES_EXPANSIONS_PER_REPAINT == 0) {
+                context.frontierNodeCount = open.size();
+                observer.repaint();
+            }
+            
+            if (current == SOURCE) {
+                for (int slot = 0;
+                        slot < sourceCluster.transitions.length;
+                        ++slot) {
+                    relax(workspace,
+                          current,
+                          sourceCluster.transitions[slot],
+                          sourceDistances[slot]);
+                }
+                
+                if (directDistance != Double.POSITIVE_INFINITY) {
+                    relaxTarget(workspace, current, directDistance);
+                }
+                
+                continue;
+            }
+            
+            ClusterHierarchy.Cluster cluster =
+                    clusters[hierarchy.getClusterIndex(currentCell)];
+            int slot = cluster.getSlot(currentCell);
+            
+            for (int other = 0; other < cluster.transitions.length; ++other) {
+                if (other != slot) {
+                    relax(workspace,
+                          current,
+                          cluster.transitions[other],
+                          currentDistance + cluster.getDistance(slot, other));
+                }
+            }
+            
+            for (int partner : cluster.partners[slot]) {
+                relax(workspace,
+                      current,
+                      partner,
+                      currentDistance + getStepLength(currentCell, partner));
+            }
+            
+            if (cluster == targetCluster) {
+                relaxTarget(workspace,
+                            current,
+                            currentDistance + targetDistances[slot]);
+            }
+        }
+        
+        context.frontierNodeCount = 0;
+        observer.repaint();
+        throw new TargetNotReachableException(
+                "The target point is not reachable.");
+    }
+    
+    private Workspace getWorkspace(SearchContext context) {
+        Workspace workspace = (Workspace) context.getAttachment(this);
+        
+        if (workspace == null) {
+            workspace = new Workspace(grid, hierarchy.getClusterSize());
+            context.setAttachment(this, workspace);
+        }
+        
+        return workspace;
+    }
+    
+    private void relax(Workspace workspace,
+                       int parent,
+                       int cell,
+                       double tentativeDistance) {
+        if (tentativeDistance == Double.POSITIVE_INFINITY) {
+            return;
+        }
+        
+        int node = workspace.getNode(cell);
+        
+        if (node == -1) {
+            node = workspace.addNode(cell);
+            workspace.nodeDistances[node] = tentativeDistance;
+            workspace.nodeParents[node] = parent;
+            observer.markAsFrontier(cell);
+            workspace.open.add(node,
+                               tentativeDistance +
+                               getHeuristic(cell, workspace.targetIndex));
+        } else if (workspace.nodeDistances[node] > tentativeDistance) {
+            workspace.nodeDistances[node] = tentativeDistance;
+            workspace.nodeParents[node] = parent;
+            workspace.open.decreasePriority(
+                    node,
+                    tentativeDistance +
+                    getHeuristic(cell, workspace.targetIndex));
+        }
+    }
+    
+    private void relaxTarget(Workspace workspace,
+                             int parent,
+                             double tentativeDistance) {
+        if (tentativeDistance == Double.POSITIVE_INFINITY) {
+            return;
+        }
+        
+        if (workspace.nodeParents[TARGET] == -1) {
+            workspace.nodeDistances[TARGET] = tentativeDistance;
+            workspace.nodeParents[TARGET] = parent;
+            workspace.open.add(TARGET, tentativeDistance);
+        } else if (workspace.nodeDistances[TARGET] > tentativeDistance) {
+            workspace.nodeDistances[TARGET] = tentativeDistance;
+            workspace.nodeParents[TARGET] = parent;
+            workspace.open.decreasePriority(TARGET, tentativeDistance);
+        }
+    }
+    
+    /**
+     * Turns the abstract path into a path of adjacent cells. Consecutive
+     * nodes in different clusters are adjacent already; those in the same
+     * cluster are connected by a search confined to the cluster.
+     */
+    private List<Point> refinePath(Workspace workspace,
+                                   ClusterHierarchy.Cluster[] clusters) {
+        // The search is over, so the parent chain may be reversed in place.
+        int[] nodeParents = workspace.nodeParents;
+        int previous = -1;
+        
+        for (int node = TARGET; node != -1;) {
+            int parent = nodeParents[node];
+            nodeParents[node] = previous;
+            previous = node;
+            node = parent;
+        }
+        
+        List<Point> path = new ArrayList<>();
+        int width = grid.getWidth();
+        int previousCell = workspace.nodeCells[SOURCE];
+        path.add(new Point(previousCell % width, previousCell / width));
+        
+        for (int node = nodeParents[SOURCE];
+                node != -1;
+                node = nodeParents[node]) {
+            int cell = workspace.nodeCells[node];
+            
+            if (cell == previousCell) {
+                continue;
+            }
+            
+            int clusterIndex = hierarchy.getClusterIndex(cell);
+            
+            if (clusterIndex != hierarchy.getClusterIndex(previousCell)) {
+                path.add(new Point(cell % width, cell / width));
+            } else {
+                workspace.clusterSearch.run(clusters[clusterIndex],
+                                            previousCell,
+                                            cell);
+                List<Point> segment = workspace.clusterSearch.getPath(cell);
+                path.addAll(segment.subList(1, segment.size()));
+            }
+            
+            previousCell = cell;
+        }
+        
+        return path;
+    }
+    
+    /**
+     * Stores the distances from the source of the latest cluster search to
+     * the transitions of the cluster, growing the buffer if needed.
+     */
+    private static double[] getTransitionDistances(
+            ClusterHierarchy.Cluster cluster,
+            ClusterHierarchy.ClusterSearch search,
+            double[] distances) {
+        if (distances.length < cluster.transitions.length) {
+            distances = new double[cluster.transitions.length];
+        }
+        
+        for (int slot = 0; slot < cluster.transitions.length; ++slot) {
+            distances[slot] = search.getDistance(cluster.transitions[slot]);
+        }
+        
+        return distances;
+    }
+    
+    private double getStepLength(int cell1, int cell2) {
+        int width = grid.getWidth();
+        return cell1 % width != cell2 % width && cell1 / width != cell2 / width
+                ? DIAGONAL_WEIGHT : 1.0;
+    }
+    
+    /**
+     * Returns the octile distance between two cells.
+     */
+    private double getHeuristic(int cell, int targetIndex) {
+        int width = grid.getWidth();
+        int dx = Math.abs(cell % width - targetIndex % width);
+        int dy = Math.abs(cell / width - targetIndex / width);
+        return Math.abs(dx - dy) + DIAGONAL_WEIGHT * Math.min(dx, dy);
+    }
+}
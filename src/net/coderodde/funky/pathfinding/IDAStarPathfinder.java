@@ -0,0 +1,446 @@
+package net.coderodde.funky.pathfinding;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import static net.coderodde.funky.pathfinding.Configuration.NODES_EXPANSIONS_PER_REPAINT;
+import static net.coderodde.funky.pathfinding.GridModel.DIAGONAL_WEIGHT;
+import static net.coderodde.funky.pathfinding.GridModel.MAXIMUM_NUMBER_OF_NEIGHBORS;
+
+/**
+ * This class implements the iterative deepening A* of Korf. It keeps no data
+ * per cell beyond a transposition table of a fixed capacity, which is kept in
+ * the search context.
+ */
+public final class IDAStarPathfinder extends AbstractPathFinder {
+    
+    /**
+     * The default number of the entries in the transposition table.
+     */
+    public static final int DEFAULT_TRANSPOSITION_TABLE_CAPACITY = 1 << 16;
+    
+    /**
+     * The transposition table of the searches run in one context: the cell
+     * in each entry, the shortest distance it was entered at and the
+     * iteration that wrote the entry, plus the queue of the floods.
+     */
+    private static final class Workspace {
+        
+        final int[] tableCells;
+        final double[] tableDistances;
+        final int[] tableIterations;
+        final int[] floodQueue;
+        int iteration;
+        
+        Workspace(int capacity) {
+            this.tableCells = new int[capacity];
+            this.tableDistances = new double[capacity];
+            this.tableIterations = new int[capacity];
+            this.floodQueue = new int[capacity / 2];
+        }
+        
+        /**
+         * Starts a new iteration, invalidating all the entries.
+         *
+         * @return the stamp of the new iteration.
+         */
+        int nextIteration() {
+            if (iteration == Integer.MAX_VALUE) {
+                Arrays.fill(tableIterations, 0);
+                iteration = 0;
+            }
+            
+            return ++iteration;
+        }
+    }
+    
+    private final AStarTemplatePathfinder.Heuristic heuristic;
+    private final int transpositionTableCapacity;
+    
+    /**
+     * Constructs a pathfinder using the octile distance as the heuristic.
+     */
+    public IDAStarPathfinder() {
+        this(IDAStarPathfinder::getOctileDistance);
+    }
+    
+    public IDAStarPathfinder(AStarTemplatePathfinder.Heuristic heuristic) {
+        this(heuristic, DEFAULT_TRANSPOSITION_TABLE_CAPACITY);
+    }
+    
+    /**
+     * Constructs a pathfinder.
+     *
+     * @param heuristic                  the heuristic, which must never
+     *                                   overestimate.
+     * @param transpositionTableCapacity the number of the entries in the
+     *                                   transposition table, rounded up to a
+     *                                   power of two.
+     */
+    public IDAStarPathfinder(AStarTemplatePathfinder.Heuristic heuristic,
+                             int transpositionTableCapacity) {
+        this.heuristic = Objects.requireNonNull(heuristic,
+                                                "The heuristic is null.");
+        
+        if (transpositionTableCapacity < 1) {
+            throw new IllegalArgumentException(
+                    "The transposition table capacity must be positive: " +
+                    transpositionTableCapacity + ".");
+        }
+        
+        this.transpositionTableCapacity =
+                transpositionTableCapacity == 1 ?
+                1 :
+                Integer.highestOneBit(transpositionTableCapacity - 1) << 1;
+    }
+    
+    @Override
+    public List<Point> search(Point sourcePoint,
+                              Point targetPoint,
+                              SearchContext context) {
+        Objects.requireNonNull(sourcePoint, "The source point is null.");
+        Objects.requireNonNull(targetPoint, "The target point is null.");
+        checkEndpoints(sourcePoint, targetPoint);
+        context.pathLength = Double.NaN;
+        return new Search(context, targetPoint).search(sourcePoint);
+    }
+    
+    private Workspace getWorkspace(SearchContext context) {
+        Workspace workspace = (Workspace) context.getAttachment(this);
+        
+        if (workspace == null) {
+            workspace = new Workspace(transpositionTableCapacity);
+            context.setAttachment(this, workspace);
+        }
+        
+        return workspace;
+    }
+    
+    static double getOctileDistance(Point p1, Point p2) {
+        int dx = Math.abs(p1.x - p2.x);
+        int dy = Math.abs(p1.y - p2.y);
+        return Math.abs(dx - dy) + DIAGONAL_WEIGHT * Math.min(dx, dy);
+    }
+    
+    /**
+     * A single search.
+     */
+    private final class Search {
+        
+        private final SearchContext context;
+        private final Point targetPoint;
+        private final int targetIndex;
+        
+        /**
+         * The explicit stack: the cell on each level, its distance from the
+         * source, its neighbors with the weights of the arcs to them, their
+         * number and the index of the next one to visit.
+         */
+        private int[] stackCells = new int[0];
+        private double[] stackDistances = new double[0];
+        private int[][] stackNeighbors = new int[0][];
+        private double[][] stackWeights = new double[0][];
+        private int[] stackNeighborCounts = new int[0];
+        private int[] stackNextNeighbors = new int[0];
+        
+        private final Workspace workspace;
+        private final int[] tableCells;
+        private final double[] tableDistances;
+        private final int[] tableIterations;
+        private final int tableMask;
+        private int iteration;
+        
+        /**
+         * The queue of the flood from the source, growing from the front, and
+         * of the flood from the target, growing from the back.
+         */
+        private final int[] floodQueue;
+        
+        Search(SearchContext context, Point targetPoint) {
+            this.context = context;
+            this.targetPoint = targetPoint;
+            this.targetIndex = grid.getIndex(targetPoint);
+            this.workspace = getWorkspace(context);
+            this.tableCells = workspace.tableCells;
+            this.tableDistances = workspace.tableDistances;
+            this.tableIterations = workspace.tableIterations;
+            this.tableMask = tableCells.length - 1;
+            this.floodQueue = workspace.floodQueue;
+        }
+        
+        List<Point> search(Point sourcePoint) {
+            int sourceIndex = grid.getIndex(sourcePoint);
+            
+            if (sourceIndex == targetIndex) {
+                context.pathLength = 0.0;
+                return new ArrayList<>(Arrays.asList(sourcePoint));
+            }
+            
+            if (!mayReach(sourceIndex)) {
+                throw new TargetNotReachableException(
+                        "The target point is not reachable.");
+            }
+            
+            double bound = heuristic.estimate(sourcePoint, targetPoint);
+            double maximumPathLength = getMaximumPathLength();
+            
+            while (bound <= maximumPathLength) {
+                iteration = workspace.nextIteration();
+                double nextBound = Double.POSITIVE_INFINITY;
+                int top = 0;
+                enter(sourceIndex, 0.0);
+                push(top, sourceIndex, 0.0);
+                
+                while (top >= 0) {
+                    if (context.isExitRequested()) {
+                        return null;
+                    }
+                    
+                    if (context.pause) {
+                        context.awaitResume();
+                        continue;
+                    }
+                    
+                    if (stackNextNeighbors[top] == stackNeighborCounts[top]) {
+                        observer.unmarkAsClosed(stackCells[top--]);
+                        continue;
+                    }
+                    
+                    int i = stackNextNeighbors[top]++;
+                    int childIndex = stackNeighbors[top][i];
+                    
+                    if (top > 0 && childIndex == stackCells[top - 1]) {
+                        continue;
+                    }
+                    
+                    double childDistance = stackDistances[top] +
+                                           stackWeights[top][i];
+                    double f = childDistance + estimate(childIndex);
+                    
+                    if (f > bound) {
+                        nextBound = Math.min(nextBound, f);
+                        continue;
+                    }
+                    
+                    if (!enter(childIndex, childDistance)) {
+                        continue;
+                    }
+                    
+                    if (childIndex == targetIndex) {
+                        return buildPath(top, childIndex);
+                    }
+                    
+                    push(++top, childIndex, childDistance);
+                }
+                
+                bound = nextBound;
+                observer.repaint();
+            }
+            
+            throw new TargetNotReachableException(
+                    "The target point is not reachable.");
+        }
+        
+        /**
+         * Returns an upper bound on the length of any shortest path: a
+         * shortest path visits each traversable cell at most once, and no
+         * move is longer than a diagonal one.
+         */
+        private double getMaximumPathLength() {
+            long freeCellCount = 0;
+            
+            for (int y = 0; y < grid.getHeight(); ++y) {
+                freeCellCount += grid.getWidth();
+                
+                for (int i = 0; i < grid.getWordsPerRow(); ++i) {
+                    freeCellCount -= Long.bitCount(grid.getRowWord(y, i));
+                }
+            }
+            
+            return (freeCellCount - 1) * DIAGONAL_WEIGHT;
+        }
+        
+        /**
+         * Records that a cell is entered at the given distance in the current
+         * iteration.
+         *
+         * @return {@code false} if the cell was entered at a distance at most
+         *         as long already.
+         */
+        private boolean enter(int index, double distance) {
+            int slot = getSlot(index);
+            
+            if (tableIterations[slot] == iteration
+                    && tableCells[slot] == index
+                    && tableDistances[slot] <= distance) {
+                return false;
+            }
+            
+            tableCells[slot] = index;
+            tableDistances[slot] = distance;
+            tableIterations[slot] = iteration;
+            return true;
+        }
+        
+        /**
+         * Floods from the source and from the target in turn, keeping the
+         * flooded cells in the transposition table under two fresh iteration
+         * stamps.
+         *
+         * @return {@code false} if either flood runs out of cells before the
+         *         floods meet, which proves the target unreachable.
+         */
+        private boolean mayReach(int sourceIndex) {
+            int limit = floodQueue.length;
+            
+            if (limit < 2) {
+                return true;
+            }
+            
+            int sourceStamp = workspace.nextIteration();
+            int targetStamp = workspace.nextIteration();
+            int sourceHead = 0;
+            int sourceTail = 0;
+            int targetHead = 0;
+            int targetTail = 0;
+            int[] neighbors = context.neighbors;
+            double[] weights = context.weights;
+            flood(sourceIndex, sourceStamp, targetStamp);
+            flood(targetIndex, targetStamp, sourceStamp);
+            floodQueue[sourceTail++] = sourceIndex;
+            floodQueue[limit - ++targetTail] = targetIndex;
+            
+            while (sourceHead < sourceTail && targetHead < targetTail) {
+                boolean forward = sourceHead <= targetHead;
+                int stamp = forward ? sourceStamp : targetStamp;
+                int otherStamp = forward ? targetStamp : sourceStamp;
+                int index = forward ?
+                            floodQueue[sourceHead++] :
+                            floodQueue[limit - ++targetHead];
+                int neighborCount = grid.expand(index, neighbors, weights);
+                
+                for (int i = 0; i < neighborCount; ++i) {
+                    int found = flood(neighbors[i], stamp, otherStamp);
+                    
+                    if (found != 0) {
+                        if (found != stamp) {
+                            return true;
+                        }
+                        
+                        continue;
+                    }
+                    
+                    if (sourceTail + targetTail == limit) {
+                        return true;
+                    }
+                    
+                    if (forward) {
+                        floodQueue[sourceTail++] = neighbors[i];
+                    } else {
+                        floodQueue[limit - ++targetTail] = neighbors[i];
+                    }
+                }
+            }
+            
+            return false;
+        }
+        
+        /**
+         * Adds a cell to a flood, probing the table linearly.
+         *
+         * @return the stamp of the flood the cell is already in, or zero if
+         *         it was added now.
+         */
+        private int flood(int index, int stamp, int otherStamp) {
+            int slot = getSlot(index);
+            
+            while (tableIterations[slot] == stamp
+                    || tableIterations[slot] == otherStamp) {
+                if (tableCells[slot] == index) {
+                    return tableIterations[slot];
+                }
+                
+                slot = (slot + 1) & tableMask;
+            }
+            
+            tableCells[slot] = index;
+            tableIterations[slot] = stamp;
+            return 0;
+        }
+        
+        private int getSlot(int index) {
+            int hash = index * 0x9e3779b9;
+            return (hash ^ (hash >>> 16)) & tableMask;
+        }
+        
+        private void push(int level, int index, double distance) {
+            ensureStackCapacity(level + 1);
+            stackCells[level] = index;
+            stackDistances[level] = distance;
+            stackNeighborCounts[level] = grid.expand(index,
+                                                     stackNeighbors[level],
+                                                     stackWeights[level]);
+            stackNextNeighbors[level] = 0;
+            observer.markAsClosed(index);
+            
+            if (++context.closedNodeCount % NODES_EXPANSIONS_PER_REPAINT
+                    == 0) {
+                context.frontierNodeCount = level + 1;
+                observer.repaint();
+            }
+        }
+        
+        private double estimate(int index) {
+            return heuristic.estimate(getPoint(index, context.point),
+                                      targetPoint);
+        }
+        
+        private List<Point> buildPath(int top, int targetIndex) {
+            List<Point> path = new ArrayList<>(top + 2);
+            
+            for (int level = 0; level <= top; ++level) {
+                path.add(getPoint(stackCells[level], new Point()));
+            }
+            
+            path.add(getPoint(targetIndex, new Point()));
+            
+            for (Point p : path) {
+                observer.markAsPath(grid.getIndex(p));
+            }
+            
+            context.frontierNodeCount = top + 1;
+            context.pathLength = getLength(path);
+            observer.repaint();
+            return path;
+        }
+        
+        private Point getPoint(int index, Point point) {
+            point.x = index % grid.getWidth();
+            point.y = index / grid.getWidth();
+            return point;
+        }
+        
+        private void ensureStackCapacity(int levels) {
+            if (stackCells.length >= levels) {
+                return;
+            }
+            
+            int oldLength = stackCells.length;
+            int newLength = Math.max(levels, 2 * oldLength);
+            stackCells = Arrays.copyOf(stackCells, newLength);
+            stackDistances = Arrays.copyOf(stackDistances, newLength);
+            stackNeighbors = Arrays.copyOf(stackNeighbors, newLength);
+            stackWeights = Arrays.copyOf(stackWeights, newLength);
+            stackNeighborCounts = Arrays.copyOf(stackNeighborCounts,
+                                                newLength);
+            stackNextNeighbors = Arrays.copyOf(stackNextNeighbors, newLength);
+            
+            for (int i = oldLength; i < newLength; ++i) {
+                stackNeighbors[i] = new int[MAXIMUM_NUMBER_OF_NEIGHBORS];
+                stackWeights[i] = new double[MAXIMUM_NUMBER_OF_NEIGHBORS];
+            }
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package net.coderodde.funky.pathfinding;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * This class implements an indexed d-ary heap over integer IDs with
+ * {@code double} priorities.
+ */
+public final class IntDaryHeap implements IntPriorityQueue {
+    
+    /**
+     * The default degree of the heap nodes.
+     */
+    public static final int DEFAULT_DEGREE = 4;
+    
+    /**
+     * Denotes that an ID is not present in this heap.
+     */
+    private static final int ABSENT = -1;
+    
+    /**
+     * The default capacity of the underlying heap arrays.
+     */
+    private static final int DEFAULT_CAPACITY = 1024;
+    
+    /**
+     * The maximum number of children of each heap node.
+     */
+    private final int degree;
+    
+    /**
+     * Stores the element IDs in heap order.
+     */
+    private int[] elements;
+    
+    /**
+     * Stores the priorities in heap order.
+     */
+    private double[] priorities;
+    
+    /**
+     * Maps each ID to its index in {@code elements}, or to {@code ABSENT}.
+     */
+    private final int[] positions;
+    
+    /**
+     * Caches the number of elements hold by this heap.
+     */
+    private int size;
+    
+    public IntDaryHeap(int capacity) {
+        this(capacity, DEFAULT_DEGREE);
+    }
+    
+    public IntDaryHeap(int capacity, int degree) {
+        if (degree < 2) {
+            throw new IllegalArgumentException(
+                    "The degree is too small: " + degree + ". Must be at " +
+                    "least 2.");
+        }
+        
+        int initialCapacity = Math.max(1, Math.min(capacity, DEFAULT_CAPACITY));
+        this.degree = degree;
+        this.elements = new int[initialCapacity];
+        this.priorities = new double[initialCapacity];
+        this.positions = new int[capacity];
+        Arrays.fill(positions, ABSENT);
+    }
+    
+    @Override
+    public void add(int element, double priority) {
+        if (positions[element] != ABSENT) {
+            // This heap already holds the element.
+            return;
+        }
+        
+        expandStorageArraysIfNeeded();
+        elements[size] = element;
+        priorities[size] = priority;
+        siftUp(size++);
+    }
+    
+    @Override
+    public boolean decreasePriority(int element, double newPriority) {
+        int index = positions[element];
+        
+        if (index == ABSENT) {
+            // Element not in this heap.
+            return false;
+        }
+        
+        if (priorities[index] <= newPriority) {
+            // Cannot improve the priority of the element.
+            return false;
+        }
+        
+        priorities[index] = newPriority;
+        siftUp(index);
+        return true;
+    }
+    
+    @Override
+    public int top() {
+        checkHeapIsNotEmpty();
+        return elements[0];
+    }
+    
+    @Override
+    public int extractMinimum() {
+        checkHeapIsNotEmpty();
+        int element = elements[0];
+        --size;
+        elements[0] = elements[size];
+        priorities[0] = priorities[size];
+        
+        if (size > 0) {
+            siftDownRoot();
+        }
+        
+        positions[element] = ABSENT;
+        return element;
+    }
+    
+    @Override
+    public int size() {
+        return size;
+    }
+    
+    @Override
+    public void clear() {
+        for (int i = 0; i < size; ++i) {
+            positions[elements[i]] = ABSENT;
+        }
+        
+        size = 0;
+    }
+    
+    @Override
+    public String toString() {
+        return "IntDaryHeap(" + degree + ")";
+    }
+    
+    private void siftUp(int index) {
+        int targetElement = elements[index];
+        double targetPriority = priorities[index];
+        
+        while (index > 0) {
+            int parentIndex = (index - 1) / degree;
+            
+            if (targetPriority < priorities[parentIndex]) {
+                elements[index] = elements[parentIndex];
+                priorities[index] = priorities[parentIndex];
+                positions[elements[index]] = index;
+                index = parentIndex;
+            } else {
+                break;
+            }
+        }
+        
+        elements[index] = targetElement;
+        priorities[index] = targetPriority;
+        positions[targetElement] = index;
+    }
+    
+    private void siftDownRoot() {
+        int index = 0;
+        int targetElement = elements[0];
+        double targetPriority = priorities[0];
+        
+        while (true) {
+            int firstChildIndex = degree * index + 1;
+            
+            if (firstChildIndex >= size) {
+                break;
+            }
+            
+            int lastChildIndex = Math.min(firstChildIndex + degree, size);
+            int minChildIndex = index;
+            double minChildPriority = targetPriority;
+            
+            for (int i = firstChildIndex; i < lastChildIndex; ++i) {
+                if (priorities[i] < minChildPriority) {
+                    minChildIndex = i;
+                    minChildPriority = priorities[i];
+                }
+            }
+            
+            if (minChildIndex == index) {
+                break;
+            }
+            
+            elements[index] = elements[minChildIndex];
+            priorities[index] = minChildPriority;
+            positions[elements[index]] = index;
+            index = minChildIndex;
+        }
+        
+        elements[index] = targetElement;
+        priorities[index] = targetPriority;
+        positions[targetElement] = index;
+    }
+    
+    /**
+     * Makes sure that the underlying storage arrays have capacity for new
+     * elements.
+     */
+    private void expandStorageArraysIfNeeded() {
+        if (size == elements.length) {
+            int newCapacity = Math.min(2 * size, positions.length);
+            elements = Arrays.copyOf(elements, newCapacity);
+            priorities = Arrays.copyOf(priorities, newCapacity);
+        }
+    }
+    
+    private void checkHeapIsNotEmpty() {
+        if (size == 0) {
+            throw new NoSuchElementException("This IntDaryHeap is empty.");
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package net.coderodde.funky.pathfinding;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * This class implements a primitive counterpart of {@link IndexedBinaryHeap}
+ * over integer IDs with {@code double} priorities.
+ */
+public final class IntIndexedBinaryHeap implements IntPriorityQueue {
+    
+    /**
+     * Denotes that an ID is not present in this heap.
+     */
+    private static final int ABSENT = -1;
+    
+    /**
+     * The default capacity of the underlying heap arrays.
+     */
+    private static final int DEFAULT_CAPACITY = 1024;
+    
+    /**
+     * Stores the element IDs in heap order.
+     */
+    private int[] elements;
+    
+    /**
+     * Stores the priorities in heap order; {@code priorities[i]} is the
+     * priority of {@code elements[i]}.
+     */
+    private double[] priorities;
+    
+    /**
+     * Maps each ID to its index in {@code elements}, or to {@code ABSENT}.
+     */
+    private final int[] positions;
+    
+    /**
+     * Caches the number of elements hold by this heap.
+     */
+    private int size;
+    
+    /**
+     * Constructs a heap capable of holding the IDs {@code 0, 1, ...,
+     * capacity - 1}.
+     *
+     * @param capacity the number of distinct IDs.
+     */
+    public IntIndexedBinaryHeap(int capacity) {
+        int initialCapacity = Math.max(1, Math.min(capacity, DEFAULT_CAPACITY));
+        this.elements = new int[initialCapacity];
+        this.priorities = new double[initialCapacity];
+        this.positions = new int[capacity];
+        Arrays.fill(positions, ABSENT);
+    }
+    
+    @Override
+    public void add(int element, double priority) {
+        if (positions[element] != ABSENT) {
+            // This heap already holds the element.
+            return;
+        }
+        
+        expandStorageArraysIfNeeded();
+        elements[size] = element;
+        priorities[size] = priority;
+        siftUp(size++);
+    }
+    
+    @Override
+    public boolean decreasePriority(int element, double newPriority) {
+        int index = positions[element];
+        
+        if (index == ABSENT) {
+            // Element not in this heap.
+            return false;
+        }
+        
+        if (priorities[index] <= newPriority) {
+            // Cannot improve the priority of the element.
+            return false;
+        }
+        
+        priorities[index] = newPriority;
+        siftUp(index);
+        return true;
+    }
+    
+    public boolean contains(int element) {
+        return positions[element] != ABSENT;
+    }
+    
+    @Override
+    public int top() {
+        checkHeapIsNotEmpty();
+        return elements[0];
+    }
+    
+    public double topPriority() {
+        checkHeapIsNotEmpty();
+        return priorities[0];
+    }
+    
+    @Override
+    public int extractMinimum() {
+        checkHeapIsNotEmpty();
+        int element = elements[0];
+        --size;
+        elements[0] = elements[size];
+        priorities[0] = priorities[size];
+        
+        if (size > 0) {
+            siftDownRoot();
+        }
+        
+        positions[element] = ABSENT;
+        return element;
+    }
+    
+    @Override
+    public int size() {
+        return size;
+    }
+    
+    @Override
+    public void clear() {
+        for (int i = 0; i < size; ++i) {
+            positions[elements[i]] = ABSENT;
+        }
+        
+        size = 0;
+    }
+    
+    @Override
+    public String toString() {
+        return "IntIndexedBinaryHeap";
+    }
+    
+    private void siftUp(int index) {
+        int targetElement = elements[index];
+        double targetPriority = priorities[index];
+        
+        while (index > 0) {
+            int parentIndex = getParentNodeIndex(index);
+            
+            if (targetPriority < priorities[parentIndex]) {
+                elements[index] = elements[parentIndex];
+                priorities[index] = priorities[parentIndex];
+                positions[elements[index]] = index;
+                index = parentIndex;
+            } else {
+                break;
+            }
+        }
+        
+        elements[index] = targetElement;
+        priorities[index] = targetPriority;
+        positions[targetElement] = index;
+    }
+    
+    private void siftDownRoot() {
+        int index = 0;
+        int targetElement = elements[0];
+        double targetPriority = priorities[0];
+        
+        while (true) {
+            int leftChildIndex = getLeftChildIndex(index);
+            
+            if (leftChildIndex >= size) {
+                break;
+            }
+            
+            int minChildIndex = index;
+            double minChildPriority = targetPriority;
+            
+            if (priorities[leftChildIndex] < minChildPriority) {
+                minChildIndex = leftChildIndex;
+                minChildPriority = priorities[leftChildIndex];
+            }
+            
+            int rightChildIndex = leftChildIndex + 1;
+            
+            if (rightChildIndex < size
+                    && priorities[rightChildIndex] < minChildPriority) {
+                minChildIndex = rightChildIndex;
+            }
+            
+            if (minChildIndex == index) {
+                break;
+            }
+            
+            elements[index] = elements[minChildIndex];
+            priorities[index] = priorities[minChildIndex];
+            positions[elements[index]] = index;
+            index = minChildIndex;
+        }
+        
+        elements[index] = targetElement;
+        priorities[index] = targetPriority;
+        positions[targetElement] = index;
+    }
+    
+    /**
+     * Given the index of a start node, returns the index of the parent node of
+     * the start node.
+     *
+     * @param index the index of the start node.
+     * @return the index of the parent node of the start node.
+     */
+    private static int getParentNodeIndex(int index) {
+        return (index - 1) >>> 1;
+    }
+    
+    /**
+     * Given the index of a start node, returns the index of the left child node
+     * of the start node. The index of the right child node may be computed via
+     * {@code getLeftChildIndex(index) + 1}.
+     *
+     * @param index the index of the start node.
+     * @return the index of the parent node of the start node.
+     */
+    private static int getLeftChildIndex(int index) {
+        return (index << 1) + 1;
+    }
+    
+    /**
+     * Makes sure that the underlying storage arrays have capacity for new
+     * elements.
+     */
+    private void expandStorageArraysIfNeeded() {
+        if (size == elements.length) {
+            int newCapacity = Math.min(2 * size, positions.length);
+            elements = Arrays.copyOf(elements, newCapacity);
+            priorities = Arrays.copyOf(priorities, newCapacity);
+        }
+    }
+    
+    private void checkHeapIsNotEmpty() {
+        if (size == 0) {
+            throw new NoSuchElementException(
+                    "This IntIndexedBinaryHeap is empty.");
+        }
+    }
+}
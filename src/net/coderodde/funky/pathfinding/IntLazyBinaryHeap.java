@@ -0,0 +1,214 @@
+package net.coderodde.funky.pathfinding;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * This class implements a binary heap over integer IDs with {@code double}
+ * priorities that pushes a duplicate entry instead of decreasing a priority.
+ */
+public final class IntLazyBinaryHeap implements IntPriorityQueue {
+    
+    /**
+     * The default capacity of the underlying heap arrays.
+     */
+    private static final int DEFAULT_CAPACITY = 1024;
+    
+    /**
+     * Stores the element IDs of the entries in heap order.
+     */
+    private int[] elements;
+    
+    /**
+     * Stores the priorities of the entries in heap order.
+     */
+    private double[] priorities;
+    
+    /**
+     * Maps each ID to its current priority. Only the entry carrying exactly
+     * this priority is valid.
+     */
+    private final double[] bestPriorities;
+    
+    /**
+     * Marks the IDs currently present in this heap.
+     */
+    private final boolean[] present;
+    
+    /**
+     * The number of entries, including the stale ones.
+     */
+    private int entryCount;
+    
+    /**
+     * Caches the number of distinct elements hold by this heap.
+     */
+    private int size;
+    
+    public IntLazyBinaryHeap(int capacity) {
+        int initialCapacity = Math.max(1, Math.min(capacity, DEFAULT_CAPACITY));
+        this.elements = new int[initialCapacity];
+        this.priorities = new double[initialCapacity];
+        this.bestPriorities = new double[capacity];
+        this.present = new boolean[capacity];
+    }
+    
+    @Override
+    public void add(int element, double priority) {
+        if (present[element]) {
+            // This heap already holds the element.
+            return;
+        }
+        
+        present[element] = true;
+        bestPriorities[element] = priority;
+        pushEntry(element, priority);
+        size++;
+    }
+    
+    @Override
+    public boolean decreasePriority(int element, double newPriority) {
+        if (!present[element]) {
+            // Element not in this heap.
+            return false;
+        }
+        
+        if (bestPriorities[element] <= newPriority) {
+            // Cannot improve the priority of the element.
+            return false;
+        }
+        
+        // The previous entry of the element becomes stale.
+        bestPriorities[element] = newPriority;
+        pushEntry(element, newPriority);
+        return true;
+    }
+    
+    @Override
+    public int top() {
+        checkHeapIsNotEmpty();
+        removeStaleEntries();
+        return elements[0];
+    }
+    
+    @Override
+    public int extractMinimum() {
+        checkHeapIsNotEmpty();
+        removeStaleEntries();
+        int element = elements[0];
+        popEntry();
+        present[element] = false;
+        size--;
+        return element;
+    }
+    
+    @Override
+    public int size() {
+        return size;
+    }
+    
+    @Override
+    public void clear() {
+        for (int i = 0; i < entryCount; ++i) {
+            present[elements[i]] = false;
+        }
+        
+        entryCount = 0;
+        size = 0;
+    }
+    
+    @Override
+    public String toString() {
+        return "IntLazyBinaryHeap";
+    }
+    
+    /**
+     * Pops the stale entries off the top of the heap until the topmost entry
+     * is valid. Must not be called on an empty heap.
+     */
+    private void removeStaleEntries() {
+        while (true) {
+            int element = elements[0];
+            
+            if (present[element]
+                    && priorities[0] == bestPriorities[element]) {
+                return;
+            }
+            
+            popEntry();
+        }
+    }
+    
+    private void pushEntry(int element, double priority) {
+        if (entryCount == elements.length) {
+            elements = Arrays.copyOf(elements, 2 * entryCount);
+            priorities = Arrays.copyOf(priorities, 2 * entryCount);
+        }
+        
+        int index = entryCount++;
+        
+        while (index > 0) {
+            int parentIndex = (index - 1) >>> 1;
+            
+            if (priority < priorities[parentIndex]) {
+                elements[index] = elements[parentIndex];
+                priorities[index] = priorities[parentIndex];
+                index = parentIndex;
+            } else {
+                break;
+            }
+        }
+        
+        elements[index] = element;
+        priorities[index] = priority;
+    }
+    
+    private void popEntry() {
+        --entryCount;
+        int targetElement = elements[entryCount];
+        double targetPriority = priorities[entryCount];
+        int index = 0;
+        
+        while (true) {
+            int leftChildIndex = (index << 1) + 1;
+            
+            if (leftChildIndex >= entryCount) {
+                break;
+            }
+            
+            int minChildIndex = index;
+            double minChildPriority = targetPriority;
+            
+            if (priorities[leftChildIndex] < minChildPriority) {
+                minChildIndex = leftChildIndex;
+                minChildPriority = priorities[leftChildIndex];
+            }
+            
+            int rightChildIndex = leftChildIndex + 1;
+            
+            if (rightChildIndex < entryCount
+                    && priorities[rightChildIndex] < minChildPriority) {
+                minChildIndex = rightChildIndex;
+                minChildPriority = priorities[rightChildIndex];
+            }
+            
+            if (minChildIndex == index) {
+                break;
+            }
+            
+            elements[index] = elements[minChildIndex];
+            priorities[index] = minChildPriority;
+            index = minChildIndex;
+        }
+        
+        elements[index] = targetElement;
+        priorities[index] = targetPriority;
+    }
+    
+    private void checkHeapIsNotEmpty() {
+        if (size == 0) {
+            throw new NoSuchElementException(
+                    "This IntLazyBinaryHeap is empty.");
+        }
+    }
+}
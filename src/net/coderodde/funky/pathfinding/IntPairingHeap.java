@@ -0,0 +1,275 @@
+package net.coderodde.funky.pathfinding;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * This class implements a pairing heap over integer IDs with {@code double}
+ * priorities, stored in flat arrays.
+ */
+public final class IntPairingHeap implements IntPriorityQueue {
+    
+    /**
+     * Denotes a missing tree link.
+     */
+    private static final int NIL = -1;
+    
+    /**
+     * Maps each ID to its priority.
+     */
+    private final double[] priorities;
+    
+    /**
+     * Maps each ID to its leftmost child.
+     */
+    private final int[] children;
+    
+    /**
+     * Maps each ID to its right sibling.
+     */
+    private final int[] nextSiblings;
+    
+    /**
+     * Maps each ID to its left sibling or, if the ID is the leftmost child, to
+     * its parent.
+     */
+    private final int[] previous;
+    
+    /**
+     * Marks the IDs currently present in this heap.
+     */
+    private final boolean[] present;
+    
+    /**
+     * The scratch array for the pairing passes.
+     */
+    private int[] subtrees = new int[16];
+    
+    /**
+     * The root of the heap or {@code NIL} if the heap is empty.
+     */
+    private int root = NIL;
+    
+    /**
+     * Caches the number of elements hold by this heap.
+     */
+    private int size;
+    
+    public IntPairingHeap(int capacity) {
+        this.priorities = new double[capacity];
+        this.children = new int[capacity];
+        this.nextSiblings = new int[capacity];
+        this.previous = new int[capacity];
+        this.present = new boolean[capacity];
+        Arrays.fill(children, NIL);
+        Arrays.fill(nextSiblings, NIL);
+        Arrays.fill(previous, NIL);
+    }
+    
+    @Override
+    public void add(int element, double priority) {
+        if (present[element]) {
+            // This heap already holds the element.
+            return;
+        }
+        
+        present[element] = true;
+        priorities[element] = priority;
+        root = link(root, element);
+        size++;
+    }
+    
+    @Override
+    public boolean decreasePriority(int element, double newPriority) {
+        if (!present[element]) {
+            // Element not in this heap.
+            return false;
+        }
+        
+        if (priorities[element] <= newPriority) {
+            // Cannot improve the priority of the element.
+            return false;
+        }
+        
+        priorities[element] = newPriority;
+        
+        if (element != root) {
+            cut(element);
+            root = link(root, element);
+        }
+        
+        return true;
+    }
+    
+    @Override
+    public int top() {
+        checkHeapIsNotEmpty();
+        return root;
+    }
+    
+    @Override
+    public int extractMinimum() {
+        checkHeapIsNotEmpty();
+        int element = root;
+        int subtreeCount = 0;
+        int child = children[element];
+        
+        while (child != NIL) {
+            int nextChild = nextSiblings[child];
+            nextSiblings[child] = NIL;
+            previous[child] = NIL;
+            
+            if (subtreeCount == subtrees.length) {
+                subtrees = Arrays.copyOf(subtrees, 2 * subtreeCount);
+            }
+            
+            subtrees[subtreeCount++] = child;
+            child = nextChild;
+        }
+        
+        children[element] = NIL;
+        present[element] = false;
+        size--;
+        root = pairSubtrees(subtreeCount);
+        return element;
+    }
+    
+    @Override
+    public int size() {
+        return size;
+    }
+    
+    @Override
+    public void clear() {
+        if (root == NIL) {
+            return;
+        }
+        
+        // Traverse the tree iteratively, resetting the links on the way.
+        int stackSize = 0;
+        subtrees[stackSize++] = root;
+        
+        while (stackSize > 0) {
+            int node = subtrees[--stackSize];
+            int child = children[node];
+            
+            while (child != NIL) {
+                if (stackSize == subtrees.length) {
+                    subtrees = Arrays.copyOf(subtrees, 2 * stackSize);
+                }
+                
+                subtrees[stackSize++] = child;
+                child = nextSiblings[child];
+            }
+            
+            children[node] = NIL;
+            nextSiblings[node] = NIL;
+            previous[node] = NIL;
+            present[node] = false;
+        }
+        
+        root = NIL;
+        size = 0;
+    }
+    
+    @Override
+    public String toString() {
+        return "IntPairingHeap";
+    }
+    
+    /**
+     * Links two detached trees and returns the root of the resulting tree.
+     *
+     * @param tree1 the root of the first tree or {@code NIL}.
+     * @param tree2 the root of the second tree or {@code NIL}.
+     * @return the root of the linked tree.
+     */
+    private int link(int tree1, int tree2) {
+        if (tree1 == NIL) {
+            return tree2;
+        }
+        
+        if (tree2 == NIL) {
+            return tree1;
+        }
+        
+        if (priorities[tree2] < priorities[tree1]) {
+            int tmp = tree1;
+            tree1 = tree2;
+            tree2 = tmp;
+        }
+        
+        // Make 'tree2' the leftmost child of 'tree1'.
+        int firstChild = children[tree1];
+        nextSiblings[tree2] = firstChild;
+        
+        if (firstChild != NIL) {
+            previous[firstChild] = tree2;
+        }
+        
+        previous[tree2] = tree1;
+        children[tree1] = tree2;
+        return tree1;
+    }
+    
+    /**
+     * Detaches the subtree rooted at {@code element} from its parent.
+     *
+     * @param element the root of the subtree to detach.
+     */
+    private void cut(int element) {
+        int previousNode = previous[element];
+        int nextNode = nextSiblings[element];
+        
+        if (children[previousNode] == element) {
+            children[previousNode] = nextNode;
+        } else {
+            nextSiblings[previousNode] = nextNode;
+        }
+        
+        if (nextNode != NIL) {
+            previous[nextNode] = previousNode;
+        }
+        
+        nextSiblings[element] = NIL;
+        previous[element] = NIL;
+    }
+    
+    /**
+     * Combines the first {@code subtreeCount} trees in {@code subtrees} via
+     * the standard two-pass pairing.
+     *
+     * @param subtreeCount the number of trees to combine.
+     * @return the root of the combined tree.
+     */
+    private int pairSubtrees(int subtreeCount) {
+        if (subtreeCount == 0) {
+            return NIL;
+        }
+        
+        int pairCount = 0;
+        
+        // Left to right: link the trees pairwise.
+        for (int i = 0; i < subtreeCount; i += 2) {
+            subtrees[pairCount++] =
+                    i + 1 < subtreeCount ?
+                    link(subtrees[i], subtrees[i + 1]) :
+                    subtrees[i];
+        }
+        
+        // Right to left: accumulate the pairs into a single tree.
+        int tree = subtrees[pairCount - 1];
+        
+        for (int i = pairCount - 2; i >= 0; --i) {
+            tree = link(subtrees[i], tree);
+        }
+        
+        return tree;
+    }
+    
+    private void checkHeapIsNotEmpty() {
+        if (size == 0) {
+            throw new NoSuchElementException("This IntPairingHeap is empty.");
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package net.coderodde.funky.pathfinding;
+
+/**
+ * This interface defines the API of the open lists used by the best-first
+ * pathfinders. The elements are integer IDs from {@code [0, capacity)}.
+ */
+public interface IntPriorityQueue {
+    
+    /**
+     * Creates priority queues capable of holding a given number of distinct
+     * IDs. The pathfinders receive a factory through their constructors and
+     * create their open lists with it.
+     */
+    public interface Factory {
+        IntPriorityQueue create(int capacity);
+    }
+    
+    /**
+     * Adds an element to this queue, unless it is already present.
+     *
+     * @param element  the element to add.
+     * @param priority the priority of the element.
+     */
+    public void add(int element, double priority);
+    
+    /**
+     * Lowers the priority of a present element.
+     *
+     * @param element     the element whose priority to lower.
+     * @param newPriority the new priority.
+     * @return {@code true} if the element is present and its priority was
+     *         improved.
+     */
+    public boolean decreasePriority(int element, double newPriority);
+    
+    /**
+     * Returns, without removing, an element with the lowest priority.
+     *
+     * @return an element with the lowest priority.
+     */
+    public int top();
+    
+    /**
+     * Removes and returns an element with the lowest priority.
+     *
+     * @return an element with the lowest priority.
+     */
+    public int extractMinimum();
+    
+    public int size();
+    
+    public void clear();
+}
@@ -0,0 +1,181 @@
+package net.coderodde.funky.pathfinding;
+
+import java.util.Objects;
+
+/**
+ * This class holds the JPS+ jump distances of a {@link GridModel}. A
+ * positive distance {@code d} means that the next jump point lies {@code d}
+ * steps away; {@code -d} means that there is none and that {@code d} steps
+ * may be taken before hitting a wall.
+ */
+public final class JumpDistanceTable {
+    
+    /**
+     * The number of directions.
+     */
+    static final int DIRECTIONS = 8;
+    
+    /**
+     * The x-components of the directions. The even directions are straight,
+     * the odd ones are diagonal.
+     */
+    static final int[] DX = { 1, 1, 0, -1, -1, -1,  0,  1 };
+    
+    /**
+     * The y-components of the directions.
+     */
+    static final int[] DY = { 0, 1, 1,  1,  0, -1, -1, -1 };
+    
+    /**
+     * The grid whose jump distances this table holds.
+     */
+    private final GridModel grid;
+    
+    /**
+     * The distance of the cell {@code c} in direction {@code d} is stored at
+     * the index {@code c * DIRECTIONS + d}.
+     */
+    private int[] distances;
+    
+    /**
+     * The modification count of the grid at the time the table was built.
+     */
+    private int modificationCount;
+    
+    public JumpDistanceTable(GridModel grid) {
+        this.grid = Objects.requireNonNull(grid, "The grid model is null.");
+    }
+    
+    public GridModel getGridModel() {
+        return grid;
+    }
+    
+    /**
+     * Returns the direction index of the move {@code (dx, dy)}, where both
+     * components are in {@code {-1, 0, 1}} and not both zero.
+     *
+     * @param dx the x-component of the move.
+     * @param dy the y-component of the move.
+     * @return the direction index.
+     */
+    static int getDirection(int dx, int dy) {
+        for (int direction = 0; direction < DIRECTIONS; ++direction) {
+            if (DX[direction] == dx && DY[direction] == dy) {
+                return direction;
+            }
+        }
+        
+        throw new IllegalArgumentException(
+                "Not a direction: (" + dx + ", " + dy + ").");
+    }
+    
+    /**
+     * Rebuilds this table if the grid was modified since the last build.
+     */
+    public synchronized void update() {
+        if (distances != null
+                && modificationCount == grid.getModificationCount()) {
+            return;
+        }
+        
+        int width = grid.getWidth();
+        int height = grid.getHeight();
+        int[] newDistances = new int[width * height * DIRECTIONS];
+        
+        // The straight directions first, since the diagonal distances depend
+        // on them.
+        for (int direction = 0; direction < DIRECTIONS; direction += 2) {
+            buildDirection(newDistances, direction);
+        }
+        
+        for (int direction = 1; direction < DIRECTIONS; direction += 2) {
+            buildDirection(newDistances, direction);
+        }
+        
+        this.distances = newDistances;
+        this.modificationCount = grid.getModificationCount();
+    }
+    
+    /**
+     * Returns the jump distance of a cell in a given direction. The table must
+     * be up to date.
+     *
+     * @param cellIndex the index of the cell.
+     * @param direction the direction.
+     * @return the jump distance.
+     */
+    public int getDistance(int cellIndex, int direction) {
+        return distances[cellIndex * DIRECTIONS + direction];
+    }
+    
+    private void buildDirection(int[] distances, int direction) {
+        int width = grid.getWidth();
+        int height = grid.getHeight();
+        int dx = DX[direction];
+        int dy = DY[direction];
+        int horizontal = dx != 0 && dy != 0 ? getDirection(dx, 0) : -1;
+        int vertical   = dx != 0 && dy != 0 ? getDirection(0, dy) : -1;
+        
+        // Visit the cells against the direction so that the distance of the
+        // next cell is known by the time it is needed.
+        int startX = dx > 0 ? width - 1 : 0;
+        int startY = dy > 0 ? height - 1 : 0;
+        int stepX  = dx > 0 ? -1 : 1;
+        int stepY  = dy > 0 ? -1 : 1;
+        
+        for (int y = startY; y >= 0 && y < height; y += stepY) {
+            for (int x = startX; x >= 0 && x < width; x += stepX) {
+                int nextX = x + dx;
+                int nextY = y + dy;
+                int distance;
+                
+                if (!grid.isTraversable(nextX, nextY)) {
+                    distance = 0;
+                } else if (isJumpPoint(distances, 
+                                       nextX, 
+                                       nextY, 
+                                       dx, 
+                                       dy, 
+                                       horizontal, 
+                                       vertical)) {
+                    distance = 1;
+                } else {
+                    int nextDistance =
+                            distances[grid.getIndex(nextX, nextY)
+                                      * DIRECTIONS + direction];
+                    
+                    distance = nextDistance > 0 ?
+                               nextDistance + 1 :
+                               nextDistance - 1;
+                }
+                
+                distances[grid.getIndex(x, y) * DIRECTIONS + direction] =
+                        distance;
+            }
+        }
+    }
+    
+    private boolean isJumpPoint(int[] distances,
+                                int x,
+                                int y,
+                                int dx,
+                                int dy,
+                                int horizontal,
+                                int vertical) {
+        if (dx != 0 && dy != 0) {
+            if (JumpPointSearchPathfinder.hasForcedNeighbor(grid,
+                                                            x,
+                                                            y,
+                                                            dx,
+                                                            dy)) {
+                return true;
+            }
+            
+            int cellIndex = grid.getIndex(x, y);
+            return distances[cellIndex * DIRECTIONS + horizontal] > 0
+                || distances[cellIndex * DIRECTIONS + vertical] > 0;
+        }
+        
+        return JumpPointSearchPathfinder.hasForcedNeighbor(grid, x, y, dx, dy);
+    }
+}
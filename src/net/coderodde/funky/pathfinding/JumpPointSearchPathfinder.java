@@ -0,0 +1,539 @@
+package net.coderodde.funky.pathfinding;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import static net.coderodde.funky.pathfinding.Configuration.NODES_EXPANSIONS_PER_REPAINT;
+import static net.coderodde.funky.pathfinding.Configuration.REPAINTS_PER_PATH_DRAWING;
+import static net.coderodde.funky.pathfinding.JumpDistanceTable.DIRECTIONS;
+import static net.coderodde.funky.pathfinding.JumpDistanceTable.DX;
+import static net.coderodde.funky.pathfinding.JumpDistanceTable.DY;
+
+/**
+ * This class implements Jump Point Search. If a {@link JumpDistanceTable} is
+ * given, it runs as JPS+ and reads the jumps from the table.
+ */
+public final class JumpPointSearchPathfinder extends AbstractPathFinder {
+    
+    /**
+     * The jump distances, or {@code null} when scanning the grid.
+     */
+    private final JumpDistanceTable table;
+    
+    /**
+     * The dimensions of the grid, cached when the grid is set.
+     */
+    private int width;
+    private int height;
+    private int wordsPerRow;
+    
+    public JumpPointSearchPathfinder() {
+        this.table = null;
+    }
+    
+    public JumpPointSearchPathfinder(IntPriorityQueue.Factory openListFactory) {
+        super(openListFactory);
+        this.table = null;
+    }
+    
+    /**
+     * Constructs a JPS+ pathfinder reading its jump distances from
+     * {@code table}. The table may be shared by several pathfinders.
+     *
+     * @param table the jump distance table.
+     */
+    public JumpPointSearchPathfinder(JumpDistanceTable table) {
+        this.table = Objects.requireNonNull(table, "The table is null.");
+    }
+    
+    public JumpPointSearchPathfinder(JumpDistanceTable table,
+                                     IntPriorityQueue.Factory openListFactory) {
+        super(openListFactory);
+        this.table = Objects.requireNonNull(table, "The table is null.");
+    }
+    
+    @Override
+    public void setGridModel(GridModel grid) {
+        super.setGridModel(grid);
+        this.width = grid.getWidth();
+        this.height = grid.getHeight();
+        this.wordsPerRow = grid.getWordsPerRow();
+    }
+    
+    @Override
+    public List<Point> search(Point sourcePoint,
+                              Point targetPoint,
+                              SearchContext context) {
+        Objects.requireNonNull(sourcePoint, "The source point is null.");
+        Objects.requireNonNull(targetPoint, "The target point is null.");
+        checkEndpoints(sourcePoint, targetPoint);
+        
+        context.pathLength = Double.NaN;
+        
+        if (table != null) {
+            if (table.getGridModel() != grid) {
+                throw new IllegalStateException(
+                        "The jump distance table belongs to another grid.");
+            }
+            
+            table.update();
+        }
+        
+        IntPriorityQueue open = getOpenList(context, SearchContext.FORWARD);
+        GridSearchState state = getSearchState(context, SearchContext.FORWARD);
+        List<Point> previousPartialPath = Collections.emptyList();
+        int[] successors = context.neighbors;
+        
+        int sourceIndex = state.getIndex(sourcePoint);
+        int targetIndex = state.getIndex(targetPoint);
+        open.add(sourceIndex, 0.0);
+        state.setDistance(sourceIndex, 0.0);
+        int repaints = 0;
+        
+        while (open.size() > 0) {
+            if (context.isExitRequested()) {
+                return null;
+            }
+            
+            if (context.pause) {
+                context.awaitResume();
+                continue;
+            }
+            
+            int currentIndex = open.extractMinimum();
+            observer.markAsClosed(currentIndex);
+            context.closedNodeCount++;
+            
+            if (currentIndex == targetIndex) {
+                for (Point p : previousPartialPath) {
+                    observer.markAsClosed(grid.getIndex(p));
+                }
+                
+                List<Point> shortestPath =
+                        interpolate(tracebackPath(currentIndex, state));
+                
+                for (Point p : shortestPath) {
+                    observer.markAsPath(grid.getIndex(p));
+                }
+                
+                context.frontierNodeCount = open.size();
+                context.pathLength = getLength(shortestPath);
+                observer.repaint();
+                return shortestPath;
+            }
+            
+            state.close(currentIndex);
+            
+            if (state.getClosedCount() % NODES_EXPANSIONS_PER_REPAINT == 0) {
+                repaints++;
+                
+                if (repaints % REPAINTS_PER_PATH_DRAWING == 0
+                        && observer != SearchObserver.NO_OP) {
+                    for (Point p : previousPartialPath) {
+                        observer.markAsClosed(grid.getIndex(p));
+                    }
+                    
+                    List<Point> partialPath =
+                            interpolate(tracebackPath(open.top(), state));
+                    
+                    for (Point p : partialPath) {
+                        observer.markAsPath(grid.getIndex(p));
+                    }
+                    
+                    previousPartialPath = partialPath;
+                    context.pathLength = getLength(partialPath);
+                }
+                
+                context.frontierNodeCount = open.size();
+                observer.repaint();
+            }
+            
+            int successorCount =
+                    findSuccessors(currentIndex,
+                                   state.getParent(currentIndex),
+                                   targetIndex,
+                                   successors);
+            
+            for (int i = 0; i < successorCount; ++i) {
+                int successorIndex = successors[i];
+                
+                if (state.isClosed(successorIndex)) {
+                    continue;
+                }
+                
+                double tentativeDistance =
+                        state.getDistance(currentIndex) +
+                        getOctileDistance(currentIndex, successorIndex);
+                
+                if (!state.isReached(successorIndex)) {
+                    observer.markAsFrontier(successorIndex);
+                    open.add(successorIndex,
+                             tentativeDistance +
+                                getOctileDistance(successorIndex,
+                                                  targetIndex));
+                    
+                    state.setParent(successorIndex, currentIndex);
+                    state.setDistance(successorIndex, tentativeDistance);
+                } else if (state.getDistance(successorIndex)
+                        > tentativeDistance) {
+                    open.decreasePriority(
+                            successorIndex,
+                            tentativeDistance +
+                                getOctileDistance(successorIndex,
+                                                  targetIndex));
+                    
+                    state.setParent(successorIndex, currentIndex);
+                    state.setDistance(successorIndex, tentativeDistance);
+                }
+            }
+        }
+        
+        throw new TargetNotReachableException(
+                "The target point is not reachable.");
+    }
+    
+    /**
+     * Returns {@code true} if the cell {@code (x, y)}, entered by the move
+     * {@code (dx, dy)}, has a forced neighbor: a neighbor that is reachable
+     * optimally only through {@code (x, y)} because of a wall next to it.
+     *
+     * @param grid the grid.
+     * @param x    the x-coordinate of the cell.
+     * @param y    the y-coordinate of the cell.
+     * @param dx   the x-component of the move.
+     * @param dy   the y-component of the move.
+     * @return {@code true} if the cell has a forced neighbor.
+     */
+    static boolean hasForcedNeighbor(GridModel grid,
+                                     int x,
+                                     int y,
+                                     int dx,
+                                     int dy) {
+        if (dx != 0 && dy != 0) {
+            return (grid.isTraversable(x - dx, y + dy)
+                        && !grid.isTraversable(x - dx, y))
+                || (grid.isTraversable(x + dx, y - dy)
+                        && !grid.isTraversable(x, y - dy));
+        }
+        
+        if (dx != 0) {
+            return (grid.isTraversable(x + dx, y + 1)
+                        && !grid.isTraversable(x, y + 1))
+                || (grid.isTraversable(x + dx, y - 1)
+                        && !grid.isTraversable(x, y - 1));
+        }
+        
+        return (grid.isTraversable(x + 1, y + dy)
+                    && !grid.isTraversable(x + 1, y))
+            || (grid.isTraversable(x - 1, y + dy)
+                    && !grid.isTraversable(x - 1, y));
+    }
+    
+    /**
+     * Writes the jump point successors of a cell to {@code successors}.
+     *
+     * @param cellIndex   the cell to expand.
+     * @param parentIndex the parent of the cell, or
+     *                    {@link GridSearchState#NO_PARENT}.
+     * @param targetIndex the target cell.
+     * @param successors  the buffer for the successors.
+     * @return the number of successors written.
+     */
+    private int findSuccessors(int cellIndex,
+                               int parentIndex,
+                               int targetIndex,
+                               int[] successors) {
+        int x = cellIndex % width;
+        int y = cellIndex / width;
+        int count = 0;
+        
+        if (parentIndex == GridSearchState.NO_PARENT) {
+            for (int direction = 0; direction < DIRECTIONS; ++direction) {
+                count = addSuccessor(x, y, DX[direction], DY[direction],
+                                     targetIndex, successors, count);
+            }
+            
+            return count;
+        }
+        
+        int dx = Integer.signum(x - parentIndex % width);
+        int dy = Integer.signum(y - parentIndex / width);
+        
+        if (dx != 0 && dy != 0) {
+            count = addSuccessor(x, y, 0, dy, targetIndex,
+                                 successors, count);
+            count = addSuccessor(x, y, dx, 0, targetIndex,
+                                 successors, count);
+            count = addSuccessor(x, y, dx, dy, targetIndex,
+                                 successors, count);
+            
+            if (!grid.isTraversable(x - dx, y)) {
+                count = addSuccessor(x, y, -dx, dy, targetIndex,
+                                     successors, count);
+            }
+            
+            if (!grid.isTraversable(x, y - dy)) {
+                count = addSuccessor(x, y, dx, -dy, targetIndex,
+                                     successors, count);
+            }
+        } else if (dx != 0) {
+            count = addSuccessor(x, y, dx, 0, targetIndex,
+                                 successors, count);
+            
+            if (!grid.isTraversable(x, y + 1)) {
+                count = addSuccessor(x, y, dx, 1, targetIndex,
+                                     successors, count);
+            }
+            
+            if (!grid.isTraversable(x, y - 1)) {
+                count = addSuccessor(x, y, dx, -1, targetIndex,
+                                     successors, count);
+            }
+        } else {
+            count = addSuccessor(x, y, 0, dy, targetIndex,
+                                 successors, count);
+            
+            if (!grid.isTraversable(x + 1, y)) {
+                count = addSuccessor(x, y, 1, dy, targetIndex,
+                                     successors, count);
+            }
+            
+            if (!grid.isTraversable(x - 1, y)) {
+                count = addSuccessor(x, y, -1, dy, targetIndex,
+                                     successors, count);
+            }
+        }
+        
+        return count;
+    }
+    
+    private int addSuccessor(int x,
+                             int y,
+                             int dx,
+                             int dy,
+                             int targetIndex,
+                             int[] successors,
+                             int count) {
+        int successor = table == null ?
+                        jump(x + dx, y + dy, dx, dy, targetIndex) :
+                        jumpWithTable(x, y, dx, dy, targetIndex);
+        
+        if (successor != GridSearchState.NO_PARENT) {
+            successors[count++] = successor;
+        }
+        
+        return count;
+    }
+    
+    /**
+     * Jumps from the cell {@code (x, y)} in the direction {@code (dx, dy)}
+     * and returns the first jump point, or {@link GridSearchState#NO_PARENT}
+     * if there is none. The cell {@code (x, y)} itself is the first candidate.
+     */
+    private int jump(int x, int y, int dx, int dy, int targetIndex) {
+        if (dx == 0) {
+            return jumpVertically(x, y, dy, targetIndex);
+        }
+        
+        if (dy == 0) {
+            return jumpHorizontally(x, y, dx, targetIndex);
+        }
+        
+        while (grid.isTraversable(x, y)) {
+            if (y * width + x == targetIndex
+                    || hasForcedNeighbor(grid, x, y, dx, dy)
+                    || jumpHorizontally(x + dx, y, dx, targetIndex)
+                            != GridSearchState.NO_PARENT
+                    || jumpVertically(x, y + dy, dy, targetIndex)
+                            != GridSearchState.NO_PARENT) {
+                return y * width + x;
+            }
+            
+            x += dx;
+            y += dy;
+        }
+        
+        return GridSearchState.NO_PARENT;
+    }
+    
+    private int jumpVertically(int x, int y, int dy, int targetIndex) {
+        while (grid.isTraversable(x, y)) {
+            if (y * width + x == targetIndex
+                    || hasForcedNeighbor(grid, x, y, 0, dy)) {
+                return y * width + x;
+            }
+            
+            y += dy;
+        }
+        
+        return GridSearchState.NO_PARENT;
+    }
+    
+    /**
+     * Jumps horizontally by scanning the wall rows one word at a time.
+     */
+    private int jumpHorizontally(int x, int y, int dx, int targetIndex) {
+        if (x < 0 || x >= width || y < 0 || y >= height) {
+            return GridSearchState.NO_PARENT;
+        }
+        
+        int targetX = targetIndex / width == y ? targetIndex % width : -1;
+        int wordIndex = x >>> 6;
+        int bit = x & 63;
+        
+        if (dx > 0) {
+            long mask = -1L << bit;
+            
+            for (; wordIndex < wordsPerRow; ++wordIndex, mask = -1L) {
+                long above = getBlockedWord(y - 1, wordIndex);
+                long below = getBlockedWord(y + 1, wordIndex);
+                long aboveNext = (above >>> 1) |
+                                 (getBlockedWord(y - 1, wordIndex + 1) << 63);
+                long belowNext = (below >>> 1) |
+                                 (getBlockedWord(y + 1, wordIndex + 1) << 63);
+                long blocked = getBlockedWord(y, wordIndex);
+                long stops = (blocked
+                                | (above & ~aboveNext)
+                                | (below & ~belowNext)
+                                | getTargetBit(wordIndex, targetX)) & mask;
+                
+                if (stops != 0) {
+                    long stop = Long.lowestOneBit(stops);
+                    return (blocked & stop) != 0 ?
+                           GridSearchState.NO_PARENT :
+                           y * width + (wordIndex << 6)
+                                     + Long.numberOfTrailingZeros(stop);
+                }
+            }
+        } else {
+            long mask = -1L >>> (63 - bit);
+            
+            for (; wordIndex >= 0; --wordIndex, mask = -1L) {
+                long above = getBlockedWord(y - 1, wordIndex);
+                long below = getBlockedWord(y + 1, wordIndex);
+                long abovePrevious = (above << 1) |
+                        (getBlockedWord(y - 1, wordIndex - 1) >>> 63);
+                long belowPrevious = (below << 1) |
+                        (getBlockedWord(y + 1, wordIndex - 1) >>> 63);
+                long blocked = getBlockedWord(y, wordIndex);
+                long stops = (blocked
+                                | (above & ~abovePrevious)
+                                | (below & ~belowPrevious)
+                                | getTargetBit(wordIndex, targetX)) & mask;
+                
+                if (stops != 0) {
+                    long stop = Long.highestOneBit(stops);
+                    return (blocked & stop) != 0 ?
+                           GridSearchState.NO_PARENT :
+                           y * width + (wordIndex << 6)
+                                     + Long.numberOfTrailingZeros(stop);
+                }
+            }
+        }
+        
+        return GridSearchState.NO_PARENT;
+    }
+    
+    /**
+     * Returns the wall bits of a word, with the cells outside the grid
+     * counted as walls.
+     */
+    private long getBlockedWord(int y, int wordIndex) {
+        if (y < 0 || y >= height || wordIndex < 0 || wordIndex >= wordsPerRow) {
+            return -1L;
+        }
+        
+        long word = grid.getRowWord(y, wordIndex);
+        
+        if (wordIndex == wordsPerRow - 1 && (width & 63) != 0) {
+            word |= -1L << (width & 63);
+        }
+        
+        return word;
+    }
+    
+    /**
+     * Returns the bit of the target in a word of a row, where
+     * {@code targetX} is -1 unless the target is on the row.
+     */
+    private static long getTargetBit(int wordIndex, int targetX) {
+        return targetX >= 0 && (targetX >>> 6) == wordIndex ?
+               1L << targetX :
+               0L;
+    }
+    
+    /**
+     * The JPS+ counterpart of {@link #jump(int, int, int, int, int)}.
+     */
+    private int jumpWithTable(int x,
+                              int y,
+                              int dx,
+                              int dy,
+                              int targetIndex) {
+        int targetX = targetIndex % width;
+        int targetY = targetIndex / width;
+        int direction = JumpDistanceTable.getDirection(dx, dy);
+        int distance = table.getDistance(y * width + x, direction);
+        int reach = Math.abs(distance);
+        int toTargetX = (targetX - x) * dx;
+        int toTargetY = (targetY - y) * dy;
+        
+        if (dx == 0 || dy == 0) {
+            int steps = dx == 0 ? toTargetY : toTargetX;
+            boolean onLine = dx == 0 ? targetX == x : targetY == y;
+            
+            if (onLine && steps > 0 && steps <= reach) {
+                return targetY * width + targetX;
+            }
+        } else if (toTargetX > 0 && toTargetY > 0) {
+            int steps = Math.min(toTargetX, toTargetY);
+            
+            if (steps <= reach) {
+                return (y + steps * dy) * width + x + steps * dx;
+            }
+        }
+        
+        return distance > 0 ?
+               (y + distance * dy) * width + x + distance * dx :
+               GridSearchState.NO_PARENT;
+    }
+    
+    private double getOctileDistance(int cellIndex1, int cellIndex2) {
+        int dx = Math.abs(cellIndex1 % width - cellIndex2 % width);
+        int dy = Math.abs(cellIndex1 / width - cellIndex2 / width);
+        return Math.min(dx, dy) * GridModel.DIAGONAL_WEIGHT +
+               Math.abs(dx - dy);
+    }
+    
+    /**
+     * Fills in the cells between the consecutive jump points of a path. Each
+     * leg of the path is a straight or a diagonal line.
+     */
+    private List<Point> interpolate(List<Point> jumpPoints) {
+        List<Point> path = new ArrayList<>();
+        
+        for (int i = 0; i < jumpPoints.size(); ++i) {
+            Point point = jumpPoints.get(i);
+            
+            if (i > 0) {
+                Point previous = jumpPoints.get(i - 1);
+                int dx = Integer.signum(point.x - previous.x);
+                int dy = Integer.signum(point.y - previous.y);
+                int x = previous.x + dx;
+                int y = previous.y + dy;
+                
+                while (x != point.x || y != point.y) {
+                    path.add(new Point(x, y));
+                    x += dx;
+                    y += dy;
+                }
+            }
+            
+            path.add(point);
+        }
+        
+        return path;
+    }
+}
@@ -0,0 +1,92 @@
+package net.coderodde.funky.pathfinding;
+
+import java.awt.Point;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * This class wraps a pathfinder and records every search it runs in the
+ * {@link AlgorithmMetrics} of an algorithm.
+ */
+public final class MeteredPathfinder extends AbstractPathFinder {
+    
+    private final AbstractPathFinder pathfinder;
+    private final AlgorithmMetrics metrics;
+    
+    /**
+     * Wraps a pathfinder and records its searches under the given algorithm
+     * name in the platform registry.
+     *
+     * @param pathfinder    the pathfinder to wrap.
+     * @param algorithmName the name of the algorithm.
+     */
+    public MeteredPathfinder(AbstractPathFinder pathfinder,
+                             String algorithmName) {
+        this(pathfinder,
+             SearchMetrics.getPlatformMetrics()
+                          .getAlgorithmMetrics(algorithmName));
+    }
+    
+    public MeteredPathfinder(AbstractPathFinder pathfinder,
+                             AlgorithmMetrics metrics) {
+        this.pathfinder = Objects.requireNonNull(pathfinder,
+                                                 "The pathfinder is null.");
+        this.metrics = Objects.requireNonNull(metrics, "The metrics is null.");
+        this.grid = pathfinder.grid;
+        this.observer = pathfinder.observer;
+    }
+    
+    public AbstractPathFinder getPathfinder() {
+        return pathfinder;
+    }
+    
+    public AlgorithmMetrics getMetrics() {
+        return metrics;
+    }
+    
+    @Override
+    public void setGridModel(GridModel grid) {
+        pathfinder.setGridModel(grid);
+        super.setGridModel(grid);
+    }
+    
+    @Override
+    public void setSearchObserver(SearchObserver observer) {
+        pathfinder.setSearchObserver(observer);
+        super.setSearchObserver(observer);
+    }
+    
+    @Override
+    public void dispose() {
+        pathfinder.dispose();
+    }
+    
+    @Override
+    public List<Point> search(Point source,
+                              Point target,
+                              SearchContext context) {
+        int closedNodeCount = context.closedNodeCount;
+        boolean countOpenListOperations = context.countOpenListOperations;
+        context.countOpenListOperations = true;
+        context.openListCounted = false;
+        context.openListInsertionCount = 0;
+        context.openListDecreaseKeyCount = 0;
+        context.openListExtractionCount = 0;
+        context.peakOpenListSize = 0;
+        
+        List<Point> path = null;
+        long startTime = System.nanoTime();
+        
+        try {
+            path = pathfinder.search(source, target, context);
+            return path;
+        } finally {
+            long latencyNanos = System.nanoTime() - startTime;
+            context.countOpenListOperations = countOpenListOperations;
+            metrics.record(latencyNanos,
+                           context.closedNodeCount - closedNodeCount,
+                           context,
+                           path == null ? Double.NaN : getLength(path));
+        }
+    }
+}
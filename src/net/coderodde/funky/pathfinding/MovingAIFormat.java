@@ -0,0 +1,227 @@
+package net.coderodde.funky.pathfinding;
+
+import java.awt.Point;
+import java.awt.image.BufferedImage;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import javax.imageio.ImageIO;
+
+/**
+ * This class reads the grid maps and scenarios of the MovingAI benchmark
+ * format, as well as maps drawn as images.
+ */
+public final class MovingAIFormat {
+    
+    /**
+     * A query of a scenario: the path from the source to the target and its
+     * optimal length.
+     */
+    public static final class Query {
+        
+        private final int bucket;
+        private final Point sourcePoint;
+        private final Point targetPoint;
+        private final double optimalLength;
+        
+        public Query(int bucket,
+                     Point sourcePoint,
+                     Point targetPoint,
+                     double optimalLength) {
+            this.bucket = bucket;
+            this.sourcePoint = new Point(sourcePoint);
+            this.targetPoint = new Point(targetPoint);
+            this.optimalLength = optimalLength;
+        }
+        
+        public int getBucket() {
+            return bucket;
+        }
+        
+        public Point getSourcePoint() {
+            return new Point(sourcePoint);
+        }
+        
+        public Point getTargetPoint() {
+            return new Point(targetPoint);
+        }
+        
+        public double getOptimalLength() {
+            return optimalLength;
+        }
+    }
+    
+    /**
+     * Pixels darker than this are walls in map images.
+     */
+    private static final int MAXIMUM_WALL_LUMINANCE = 127;
+    
+    private MovingAIFormat() {}
+    
+    /**
+     * Reads a grid from a MovingAI {@code .map} file.
+     *
+     * @param file the map file.
+     * @return the grid.
+     * @throws IOException if the file cannot be read or is malformed.
+     */
+    public static GridModel readMap(Path file) throws IOException {
+        Objects.requireNonNull(file, "The map file is null.");
+        
+        try (BufferedReader reader =
+                Files.newBufferedReader(file, StandardCharsets.US_ASCII)) {
+            int width = -1;
+            int height = -1;
+            String line;
+            
+            while ((line = reader.readLine()) != null) {
+                String[] tokens = line.trim().split("\\s+");
+                
+                if (tokens[0].equals("map")) {
+                    break;
+                } else if (tokens[0].equals("width") && tokens.length == 2) {
+                    width = parseInt(tokens[1], file);
+                } else if (tokens[0].equals("height") && tokens.length == 2) {
+                    height = parseInt(tokens[1], file);
+                }
+            }
+            
+            if (line == null || width < 1 || height < 1) {
+                throw new IOException(
+                        "Malformed map header in " + file + ".");
+            }
+            
+            GridModel grid = new GridModel(width, height);
+            
+            for (int y = 0; y < height; ++y) {
+                line = reader.readLine();
+                
+                if (line == null || line.length() < width) {
+                    throw new IOException(
+                            "Map row " + y + " is missing or too short in " +
+                            file + ".");
+                }
+                
+                for (int x = 0; x < width; ++x) {
+                    if (!isTraversable(line.charAt(x))) {
+                        grid.setWall(x, y);
+                    }
+                }
+            }
+            
+            return grid;
+        }
+    }
+    
+    /**
+     * Reads a grid from an image in any format {@link ImageIO} supports. The
+     * dark pixels are walls.
+     *
+     * @param file the image file.
+     * @return the grid.
+     * @throws IOException if the file cannot be read or is not an image.
+     */
+    public static GridModel readImage(Path file) throws IOException {
+        Objects.requireNonNull(file, "The image file is null.");
+        BufferedImage image = ImageIO.read(file.toFile());
+        
+        if (image == null) {
+            throw new IOException("Not an image: " + file + ".");
+        }
+        
+        int width = image.getWidth();
+        int height = image.getHeight();
+        GridModel grid = new GridModel(width, height);
+        int[] row = new int[width];
+        
+        for (int y = 0; y < height; ++y) {
+            image.getRGB(0, y, width, 1, row, 0, width);
+            
+            for (int x = 0; x < width; ++x) {
+                if (getLuminance(row[x]) <= MAXIMUM_WALL_LUMINANCE) {
+                    grid.setWall(x, y);
+                }
+            }
+        }
+        
+        return grid;
+    }
+    
+    /**
+     * Reads the queries of a MovingAI {@code .scen} file.
+     *
+     * @param file the scenario file.
+     * @return the queries in the order of the file.
+     * @throws IOException if the file cannot be read or is malformed.
+     */
+    public static List<Query> readScenario(Path file) throws IOException {
+        Objects.requireNonNull(file, "The scenario file is null.");
+        List<Query> queries = new ArrayList<>();
+        
+        try (BufferedReader reader =
+                Files.newBufferedReader(file, StandardCharsets.US_ASCII)) {
+            String line;
+            
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                
+                if (line.isEmpty() || line.startsWith("version")) {
+                    continue;
+                }
+                
+                // bucket, map, map width, map height, start x, start y,
+                // goal x, goal y, optimal length. The map name may contain
+                // spaces, so the fields are taken from both ends.
+                String[] tokens = line.split("\\s+");
+                int n = tokens.length;
+                
+                if (n < 9) {
+                    throw new IOException(
+                            "Malformed scenario line in " + file + ": " +
+                            line);
+                }
+                
+                try {
+                    queries.add(new Query(
+                            Integer.parseInt(tokens[0]),
+                            new Point(Integer.parseInt(tokens[n - 5]),
+                                      Integer.parseInt(tokens[n - 4])),
+                            new Point(Integer.parseInt(tokens[n - 3]),
+                                      Integer.parseInt(tokens[n - 2])),
+                            Double.parseDouble(tokens[n - 1])));
+                } catch (NumberFormatException ex) {
+                    throw new IOException(
+                            "Malformed scenario line in " + file + ": " +
+                            line, ex);
+                }
+            }
+        }
+        
+        return queries;
+    }
+    
+    private static boolean isTraversable(char terrain) {
+        return terrain == '.' || terrain == 'G' || terrain == 'S';
+    }
+    
+    private static int getLuminance(int rgb) {
+        int r = (rgb >>> 16) & 0xff;
+        int g = (rgb >>> 8) & 0xff;
+        int b = rgb & 0xff;
+        return (299 * r + 587 * g + 114 * b) / 1000;
+    }
+    
+    private static int parseInt(String token, Path file) throws IOException {
+        try {
+            return Integer.parseInt(token);
+        } catch (NumberFormatException ex) {
+            throw new IOException("Malformed number in " + file + ": " +
+                                  token, ex);
+        }
+    }
+}
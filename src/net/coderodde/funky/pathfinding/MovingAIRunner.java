@@ -0,0 +1,238 @@
+package net.coderodde.funky.pathfinding;
+
+import java.awt.Point;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * This class replays MovingAI scenarios against the pathfinders and writes
+ * one CSV line per query and algorithm to the standard output. Usage:
+ * {@code MovingAIRunner [-a ALGORITHM]... [-w WARMUP_ROUNDS] MAP SCEN}.
+ */
+public final class MovingAIRunner {
+    
+    private static final String USAGE =
+            "Usage: MovingAIRunner [-a ALGORITHM]... [-w WARMUP_ROUNDS] " +
+            "MAP SCEN\nAlgorithms: " +
+            String.join(", ", PathfinderRegistry.getNames());
+    
+    /**
+     * The largest relative difference between a length found and the
+     * optimal one still considered equal. The scenario files round the
+     * lengths.
+     */
+    private static final double LENGTH_TOLERANCE = 1e-4;
+    
+    private final GridModel grid;
+    private final List<MovingAIFormat.Query> queries;
+    private final PrintStream out;
+    private int failureCount;
+    
+    public MovingAIRunner(GridModel grid,
+                          List<MovingAIFormat.Query> queries,
+                          PrintStream out) {
+        this.grid = grid;
+        this.queries = queries;
+        this.out = out;
+    }
+    
+    public static void main(String[] args) {
+        List<String> algorithms = new ArrayList<>();
+        List<String> files = new ArrayList<>();
+        int warmupRounds = 0;
+        
+        try {
+            for (int i = 0; i < args.length; ++i) {
+                switch (args[i]) {
+                    case "-a":
+                        algorithms.add(args[++i]);
+                        break;
+                    
+                    case "-w":
+                        warmupRounds = Integer.parseInt(args[++i]);
+                        break;
+                    
+                    default:
+                        files.add(args[i]);
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException ex) {
+            exitWithUsage();
+        }
+        
+        if (files.size() != 2 || warmupRounds < 0) {
+            exitWithUsage();
+        }
+        
+        if (algorithms.isEmpty()) {
+            algorithms.addAll(PathfinderRegistry.getNames());
+        }
+        
+        for (String algorithm : algorithms) {
+            if (!PathfinderRegistry.getNames().contains(algorithm)) {
+                System.err.println("Unknown algorithm: " + algorithm);
+                exitWithUsage();
+            }
+        }
+        
+        MovingAIRunner runner;
+        
+        try {
+            Path mapFile = Paths.get(files.get(0));
+            String name = mapFile.toString().toLowerCase(Locale.ROOT);
+            GridModel grid;
+            
+            if (name.endsWith(".map")) {
+                grid = MovingAIFormat.readMap(mapFile);
+            } else if (name.endsWith(BinaryGridFormat.FILE_EXTENSION)) {
+                grid = BinaryGridFormat.map(mapFile, false);
+            } else {
+                grid = MovingAIFormat.readImage(mapFile);
+            }
+            runner = new MovingAIRunner(
+                    grid,
+                    MovingAIFormat.readScenario(Paths.get(files.get(1))),
+                    System.out);
+        } catch (IOException | IllegalArgumentException ex) {
+            System.err.println(ex.getMessage());
+            System.exit(2);
+            return;
+        }
+        
+        runner.printHeader();
+        PathfinderRegistry registry = new PathfinderRegistry(runner.grid);
+        
+        for (String algorithm : algorithms) {
+            runner.run(algorithm, registry.create(algorithm), warmupRounds);
+        }
+        
+        registry.dispose();
+        System.exit(runner.failureCount == 0 ? 0 : 1);
+    }
+    
+    public void printHeader() {
+        out.println("algorithm,bucket,source_x,source_y,target_x,target_y," +
+                    "optimal_length,length,suboptimality,expansions," +
+                    "time_ns,status");
+        out.flush();
+    }
+    
+    /**
+     * Replays all the queries with a pathfinder and prints the results.
+     *
+     * @param algorithm    the name of the algorithm to print.
+     * @param pathfinder   the pathfinder, set to search the grid.
+     * @param warmupRounds the number of the rounds of all the queries to run
+     *                     unrecorded first.
+     * @return the number of the queries with a suboptimal path or no path.
+     */
+    public int run(String algorithm,
+                   AbstractPathFinder pathfinder,
+                   int warmupRounds) {
+        SearchContext context = new SearchContext();
+        
+        for (int round = 0; round < warmupRounds; ++round) {
+            for (MovingAIFormat.Query query : queries) {
+                search(pathfinder, query, context);
+            }
+        }
+        
+        int failures = 0;
+        
+        for (MovingAIFormat.Query query : queries) {
+            long startTime = System.nanoTime();
+            List<Point> path = search(pathfinder, query, context);
+            long time = System.nanoTime() - startTime;
+            
+            double optimalLength = query.getOptimalLength();
+            double length = path == null ? Double.NaN : getLength(path);
+            String status = getStatus(length, optimalLength);
+            
+            if (status.equals("LONGER") || status.equals("NO_PATH")) {
+                failures++;
+            }
+            
+            Point source = query.getSourcePoint();
+            Point target = query.getTargetPoint();
+            out.println(String.format(
+                    Locale.ROOT,
+                    "%s,%d,%d,%d,%d,%d,%.6f,%.6f,%.6f,%d,%d,%s",
+                    quote(algorithm),
+                    query.getBucket(),
+                    source.x,
+                    source.y,
+                    target.x,
+                    target.y,
+                    optimalLength,
+                    length,
+                    optimalLength > 0.0 ? length / optimalLength : 1.0,
+                    context.getNumberOfClosedNodes(),
+                    time,
+                    status));
+            out.flush();
+        }
+        
+        failureCount += failures;
+        return failures;
+    }
+    
+    private List<Point> search(AbstractPathFinder pathfinder,
+                               MovingAIFormat.Query query,
+                               SearchContext context) {
+        context.reset();
+        
+        try {
+            return pathfinder.search(query.getSourcePoint(),
+                                     query.getTargetPoint(),
+                                     context);
+        } catch (TargetNotReachableException ex) {
+            return null;
+        }
+    }
+    
+    private static String getStatus(double length, double optimalLength) {
+        if (Double.isNaN(length)) {
+            return "NO_PATH";
+        }
+        
+        double tolerance = LENGTH_TOLERANCE * Math.max(1.0, optimalLength);
+        
+        if (length < optimalLength - tolerance) {
+            return "SHORTER";
+        }
+        
+        if (length > optimalLength + tolerance) {
+            return "LONGER";
+        }
+        
+        return "OK";
+    }
+    
+    private static double getLength(List<Point> path) {
+        double length = 0.0;
+        
+        for (int i = 0; i < path.size() - 1; ++i) {
+            length += path.get(i).distance(path.get(i + 1));
+        }
+        
+        return length;
+    }
+    
+    private static String quote(String field) {
+        if (field.indexOf(',') < 0 && field.indexOf('"') < 0) {
+            return field;
+        }
+        
+        return '"' + field.replace("\"", "\"\"") + '"';
+    }
+    
+    private static void exitWithUsage() {
+        System.err.println(USAGE);
+        System.exit(2);
+    }
+}
@@ -2,272 +2,344 @@ package net.coderodde.funky.pathfinding;
 
 import java.awt.Point;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
-import java.util.Set;
 import static net.coderodde.funky.pathfinding.Configuration.NODES_EXPANSIONS_PER_REPAINT;
 import static net.coderodde.funky.pathfinding.Configuration.REPAINTS_PER_PATH_DRAWING;
 
 public final class NewBidirectionalAStarPathfinder 
 extends AbstractPathFinder {
 
+    private final boolean parallel;
+    
+    public NewBidirectionalAStarPathfinder() {
+        this(false);
+    }
+    
+    /**
+     * Constructs a pathfinder.
+     *
+     * @param parallel whether to search on two threads.
+     */
+    public NewBidirectionalAStarPathfinder(boolean parallel) {
+        this.parallel = parallel;
+    }
+    
+    public NewBidirectionalAStarPathfinder(
+            IntPriorityQueue.Factory openListFactory) {
+        this(openListFactory, false);
+    }
+    
+    public NewBidirectionalAStarPathfinder(
+            IntPriorityQueue.Factory openListFactory,
+            boolean parallel) {
+        super(openListFactory);
+        this.parallel = parallel;
+    }
+    
     @Override
-    public List<Point> search(Point sourcePoint, Point targetPoint) {
+    public List<Point> search(Point sourcePoint,
+                              Point targetPoint,
+                              SearchContext context) {
         Objects.requireNonNull(sourcePoint, "The source point is null.");
         Objects.requireNonNull(targetPoint, "The target point is null.");
+        checkEndpoints(sourcePoint, targetPoint);
         
-        IndexedBinaryHeap<Point, Double> openForward = new IndexedBinaryHeap<>();
-        IndexedBinaryHeap<Point, Double> openBackward = new IndexedBinaryHeap<>();
+        if (sourcePoint.equals(targetPoint)) {
+            observer.markAsPath(grid.getIndex(sourcePoint));
+            observer.repaint();
+            context.pathLength = 0.0;
+            return new ArrayList<>(Arrays.asList(sourcePoint));
+        }
+        
+        if (parallel) {
+            return new ParallelBidirectionalSearch(
+                    this,
+                    ParallelBidirectionalSearch.Variant.NBA_STAR,
+                    sourcePoint,
+                    targetPoint,
+                    context).search();
+        }
         
-        Set<Point> closed = new HashSet<>();
+        IntPriorityQueue openForward  =
+                getOpenList(context, SearchContext.FORWARD);
+        IntPriorityQueue openBackward =
+                getOpenList(context, SearchContext.BACKWARD);
         
-        Map<Point, Point> parentsForward  = new HashMap<>();
-        Map<Point, Point> parentsBackward = new HashMap<>();
+        // The closed set is shared by both the search directions and lives in
+        // 'stateForward'.
+        GridSearchState stateForward  =
+                getSearchState(context, SearchContext.FORWARD);
+        GridSearchState stateBackward =
+                getSearchState(context, SearchContext.BACKWARD);
         
-        Map<Point, Double> distancesForward  = new HashMap<>();
-        Map<Point, Double> distancesBackward = new HashMap<>();
+        int[] neighbors = context.neighbors;
+        double[] weights = context.weights;
         
         double bestPathLength = Double.POSITIVE_INFINITY;
         double fForward  = sourcePoint.distance(targetPoint);
         double fBackward = targetPoint.distance(sourcePoint);
-        Point meetingPoint = null;
+        int meetingIndex = GridSearchState.NO_PARENT;
         
-        openForward.add(sourcePoint, fForward);
-        openBackward.add(targetPoint, fBackward);
-        parentsForward.put(sourcePoint, null);
-        parentsBackward.put(targetPoint, null);
-        distancesForward.put(sourcePoint, 0.0);
-        distancesBackward.put(targetPoint, 0.0);
+        int sourceIndex = stateForward.getIndex(sourcePoint);
+        int targetIndex = stateBackward.getIndex(targetPoint);
         
-        List<Point> previousPartialForwardPath  = new ArrayList<>(0);
-        List<Point> previousPartialBackwardPath = new ArrayList<>();
-        this.pathLength = Double.NaN;
+        openForward.add(sourceIndex, fForward);
+        openBackward.add(targetIndex, fBackward);
+        stateForward.setDistance(sourceIndex, 0.0);
+        stateBackward.setDistance(targetIndex, 0.0);
+        
+        List<Point> previousPartialForwardPath  = Collections.emptyList();
+        List<Point> previousPartialBackwardPath = Collections.emptyList();
+        context.pathLength = Double.NaN;
         
         int repaints = 0;
         
         while (openForward.size() > 0 && openBackward.size() > 0) {
-            if (exit) {
+            if (context.isExitRequested()) {
                 return null;
             }
             
-            if (pause) {
-                sleep();
+            if (context.pause) {
+                context.awaitResume();
                 continue;
             }
             
-            if (closed.size() % NODES_EXPANSIONS_PER_REPAINT == 0) {
+            if (stateForward.getClosedCount() 
+                    % NODES_EXPANSIONS_PER_REPAINT == 0) {
                 repaints++;
                 
-                if (repaints % REPAINTS_PER_PATH_DRAWING == 0) {
+                if (repaints % REPAINTS_PER_PATH_DRAWING == 0
+                        && observer != SearchObserver.NO_OP) {
                     for (Point p : previousPartialForwardPath) {
-                        panel.markAsClosed(p);
+                        observer.markAsClosed(grid.getIndex(p));
                     }
 
                     for (Point p : previousPartialBackwardPath) {
-                        panel.markAsClosed(p);
+                        observer.markAsClosed(grid.getIndex(p));
                     }
 
                     List<Point> partialForwardPath = 
-                            tracebackPath(openForward.top(), parentsForward);
+                            tracebackPath(openForward.top(), stateForward);
 
                     List<Point> partialBackwardPath = 
-                            tracebackPath(openBackward.top(), parentsBackward);
+                            tracebackPath(openBackward.top(), stateBackward);
 
                     for (Point p : partialForwardPath) {
-                        panel.markAsPath(p);
+                        observer.markAsPath(grid.getIndex(p));
                     }
 
                     for (Point p : partialBackwardPath) {
-                        panel.markAsPath(p);
+                        observer.markAsPath(grid.getIndex(p));
                     }
 
                     previousPartialForwardPath = partialForwardPath;
                     previousPartialBackwardPath = partialBackwardPath;
 
-                    this.pathLength = getLength(partialForwardPath) + 
-                                      getLength(partialBackwardPath);
+                    context.pathLength = getLength(partialForwardPath) + 
+                                         getLength(partialBackwardPath);
                 }
                     
-                this.frontierNodeCount = openForward.size() + 
-                                         openBackward.size();
-                panel.repaint();
+                context.frontierNodeCount = openForward.size() + 
+                                            openBackward.size();
+                observer.repaint();
             }
             
-            Point currentPoint = openForward.extractMinimum();
-            closed.add(currentPoint);
-            panel.markAsClosed(currentPoint);
-            this.closedNodeCount++;
-
-            double distance1 = distancesForward.get(currentPoint) +
-                               currentPoint.distance(targetPoint);
-
-            double distance2 = distancesForward.get(currentPoint) +
-                               fBackward -
-                               currentPoint.distance(sourcePoint);
+            int currentIndex = openForward.extractMinimum();
+            stateForward.close(currentIndex);
+            observer.markAsClosed(currentIndex);
+            context.closedNodeCount++;
+
+            double distance1 = 
+                    stateForward.getDistance(currentIndex) +
+                    stateForward.getEuclideanDistance(currentIndex, 
+                                                      targetPoint);
+
+            double distance2 = 
+                    stateForward.getDistance(currentIndex) +
+                    fBackward -
+                    stateForward.getEuclideanDistance(currentIndex, 
+                                                      sourcePoint);
 
             if (Math.max(distance1, distance2) >= bestPathLength) {
                 continue;
             }
 
-            for (Point childPoint : panel.expand(currentPoint)) {
-                if (closed.contains(childPoint)) {
+            int neighborCount = 
+                    grid.expand(currentIndex, neighbors, weights);
+            
+            for (int i = 0; i < neighborCount; ++i) {
+                int childIndex = neighbors[i];
+                
+                if (stateForward.isClosed(childIndex)) {
                     continue;
                 }
 
                 double tentativeDistance = 
-                        distancesForward.get(currentPoint) +
-                        currentPoint.distance(childPoint);
+                        stateForward.getDistance(currentIndex) +
+                        weights[i];
 
-                if (!distancesForward.containsKey(childPoint)) {
-                    distancesForward.put(childPoint, tentativeDistance);
-                    parentsForward.put(childPoint, currentPoint);
+                if (!stateForward.isReached(childIndex)) {
+                    stateForward.setDistance(childIndex, tentativeDistance);
+                    stateForward.setParent(childIndex, currentIndex);
 
-                    openForward.add(childPoint,
+                    openForward.add(childIndex,
                                     tentativeDistance +
-                                    childPoint.distance(targetPoint));
+                                    stateForward.getEuclideanDistance(
+                                            childIndex, targetPoint));
 
-                    panel.markAsFrontier(childPoint);
+                    observer.markAsFrontier(childIndex);
 
-                    if (distancesBackward.containsKey(childPoint)) {
+                    if (stateBackward.isReached(childIndex)) {
                         double pathLength = 
                                 tentativeDistance +
-                                distancesBackward.get(childPoint);
+                                stateBackward.getDistance(childIndex);
 
                         if (bestPathLength > pathLength) {
                             bestPathLength = pathLength;
-                            meetingPoint = childPoint;
+                            meetingIndex = childIndex;
                         }
                     }
-                } else if (distancesForward.get(childPoint) 
+                } else if (stateForward.getDistance(childIndex) 
                         > tentativeDistance) {
-                    distancesForward.put(childPoint, tentativeDistance);
-                    parentsForward.put(childPoint, currentPoint);
+                    stateForward.setDistance(childIndex, tentativeDistance);
+                    stateForward.setParent(childIndex, currentIndex);
 
-                    openForward.decreasePriority(
-                            childPoint,
+                    openForward.decreasePriority(childIndex,
                             tentativeDistance +
-                                    childPoint.distance(targetPoint));
+                                    stateForward.getEuclideanDistance(
+                                            childIndex, targetPoint));
 
-                    if (distancesBackward.containsKey(childPoint)) {
+                    if (stateBackward.isReached(childIndex)) {
                         double pathLength = 
                                 tentativeDistance +
-                                distancesBackward.get(childPoint);
+                                stateBackward.getDistance(childIndex);
 
                         if (bestPathLength > pathLength) {
                             bestPathLength = pathLength;
-                            meetingPoint = childPoint;
+                            meetingIndex = childIndex;
                         }
                     }
                 }
             }
 
             if (openForward.size() > 0) {
-                Point point = openForward.top();
-                fForward = distancesForward.get(point) + 
-                        point.distance(targetPoint);
+                int index = openForward.top();
+                fForward = stateForward.getDistance(index) + 
+                           stateForward.getEuclideanDistance(index, 
+                                                             targetPoint);
             }
                 
-            currentPoint = openBackward.extractMinimum();
-            closed.add(currentPoint);
-            panel.markAsClosed(currentPoint);
-            this.closedNodeCount++;
+            currentIndex = openBackward.extractMinimum();
+            stateForward.close(currentIndex);
+            observer.markAsClosed(currentIndex);
+            context.closedNodeCount++;
 
-            distance1 = distancesBackward.get(currentPoint) +
-                               currentPoint.distance(sourcePoint);
+            distance1 = stateBackward.getDistance(currentIndex) +
+                        stateBackward.getEuclideanDistance(currentIndex,
+                                                           sourcePoint);
 
-            distance2 = distancesBackward.get(currentPoint) +
-                               fForward -
-                               currentPoint.distance(targetPoint);
+            distance2 = stateBackward.getDistance(currentIndex) +
+                        fForward -
+                        stateBackward.getEuclideanDistance(currentIndex,
+                                                           targetPoint);
 
             if (Math.max(distance1, distance2) >= bestPathLength) {
                 continue;
             }
 
-            for (Point parentPoint : panel.expand(currentPoint)) {
-                if (closed.contains(parentPoint)) {
+            neighborCount = grid.expand(currentIndex, neighbors, weights);
+            
+            for (int i = 0; i < neighborCount; ++i) {
+                int parentIndex = neighbors[i];
+                
+                if (stateForward.isClosed(parentIndex)) {
                     continue;
                 }
 
                 double tentativeDistance = 
-                        distancesBackward.get(currentPoint) +
-                        parentPoint.distance(currentPoint);
+                        stateBackward.getDistance(currentIndex) +
+                        weights[i];
 
-                if (!distancesBackward.containsKey(parentPoint)) {
-                    distancesBackward.put(parentPoint, tentativeDistance);
-                    parentsBackward.put(parentPoint, currentPoint);
+                if (!stateBackward.isReached(parentIndex)) {
+                    stateBackward.setDistance(parentIndex, tentativeDistance);
+                    stateBackward.setParent(parentIndex, currentIndex);
 
-                    openBackward.add(parentPoint,
+                    openBackward.add(parentIndex,
                                      tentativeDistance + 
-                                        parentPoint.distance(sourcePoint));
+                                        stateBackward.getEuclideanDistance(
+                                                parentIndex, sourcePoint));
 
-                    panel.markAsFrontier(parentPoint);
+                    observer.markAsFrontier(parentIndex);
 
-                    if (distancesForward.containsKey(parentPoint)) {
+                    if (stateForward.isReached(parentIndex)) {
                         double pathLength = 
                                 tentativeDistance + 
-                                distancesForward.get(parentPoint);
+                                stateForward.getDistance(parentIndex);
 
                         if (bestPathLength > pathLength) {
                             bestPathLength = pathLength;
-                            meetingPoint = parentPoint;
+                            meetingIndex = parentIndex;
                         }
                     }
-                } else if (distancesBackward.get(parentPoint) 
+                } else if (stateBackward.getDistance(parentIndex) 
                         > tentativeDistance) {
-                    distancesBackward.put(parentPoint, tentativeDistance);
-                    parentsBackward.put(parentPoint, currentPoint);
+                    stateBackward.setDistance(parentIndex, tentativeDistance);
+                    stateBackward.setParent(parentIndex, currentIndex);
 
-                    openBackward.decreasePriority(
-                            parentPoint,
+                    openBackward.decreasePriority(parentIndex,
                             tentativeDistance +
-                                    parentPoint.distance(sourcePoint));
+                                    stateBackward.getEuclideanDistance(
+                                            parentIndex, sourcePoint));
 
-                    if (distancesForward.containsKey(parentPoint)) {
+                    if (stateForward.isReached(parentIndex)) {
                         double pathLength = 
                                 tentativeDistance + 
-                                distancesForward.get(parentPoint);
+                                stateForward.getDistance(parentIndex);
 
                         if (bestPathLength > pathLength) {
                             bestPathLength = pathLength;
-                            meetingPoint = parentPoint;
+                            meetingIndex = parentIndex;
                         }
                     }
                 }
             }
 
             if (openBackward.size() > 0) {
-                Point point = openBackward.top();
-                fBackward = distancesBackward.get(point) + 
-                            point.distance(sourcePoint);
+                int index = openBackward.top();
+                fBackward = stateBackward.getDistance(index) + 
+                            stateBackward.getEuclideanDistance(index,
+                                                               sourcePoint);
             }
         }
         
-        if (meetingPoint != null) {
-            for (Point p : previousPartialForwardPath) {
-                panel.markAsClosed(p);
-            }
-            
-            for (Point p : previousPartialBackwardPath) {
-                panel.markAsClosed(p);
-            }
-            
-            List<Point> shortestPath = tracebackPath(meetingPoint,
-                                                     parentsForward,
-                                                     parentsBackward);
-            
-            for (Point p : shortestPath) {
-                panel.markAsPath(p);
-            }
-            
-            this.frontierNodeCount = openForward.size() + 
-                                     openBackward.size();
-            this.pathLength = getLength(shortestPath);
-            panel.repaint();
+        if (meetingIndex == GridSearchState.NO_PARENT) {
+            throw new TargetNotReachableException(
+                    "The target point is not reachable.");
+        }
+        
+        for (Point p : previousPartialForwardPath) {
+            observer.markAsClosed(grid.getIndex(p));
+        }
+        
+        for (Point p : previousPartialBackwardPath) {
+            observer.markAsClosed(grid.getIndex(p));
+        }
+        
+        List<Point> shortestPath = tracebackPath(meetingIndex,
+                                                 stateForward,
+                                                 stateBackward);
+        
+        for (Point p : shortestPath) {
+            observer.markAsPath(grid.getIndex(p));
         }
         
-        return null;
+        context.frontierNodeCount = openForward.size() + 
+                                    openBackward.size();
+        context.pathLength = getLength(shortestPath);
+        observer.repaint();
+        return shortestPath;
     }
 }
@@ -2,262 +2,301 @@ package net.coderodde.funky.pathfinding;
 
 import java.awt.Point;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
-import java.util.Set;
 import static net.coderodde.funky.pathfinding.Configuration.NODES_EXPANSIONS_PER_REPAINT;
 import static net.coderodde.funky.pathfinding.Configuration.REPAINTS_PER_PATH_DRAWING;
 
 public class PHBAPathfinder extends AbstractPathFinder {
 
+    private final boolean parallel;
+    
+    public PHBAPathfinder() {
+        this(false);
+    }
+    
+    /**
+     * Constructs a pathfinder.
+     *
+     * @param parallel whether to search on two threads.
+     */
+    public PHBAPathfinder(boolean parallel) {
+        this.parallel = parallel;
+    }
+    
+    public PHBAPathfinder(IntPriorityQueue.Factory openListFactory) {
+        this(openListFactory, false);
+    }
+    
+    public PHBAPathfinder(IntPriorityQueue.Factory openListFactory,
+                          boolean parallel) {
+        super(openListFactory);
+        this.parallel = parallel;
+    }
+    
     @Override
-    public List<Point> search(Point sourcePoint, Point targetPoint) {
+    public List<Point> search(Point sourcePoint,
+                              Point targetPoint,
+                              SearchContext context) {
         Objects.requireNonNull(sourcePoint, "The source point is null.");
         Objects.requireNonNull(targetPoint, "The target point is null.");
+        checkEndpoints(sourcePoint, targetPoint);
         
-        List<Point> previousPartialForwardPath  = new ArrayList<>();
-        List<Point> previousPartialBackwardPath = new ArrayList<>();
+        if (sourcePoint.equals(targetPoint)) {
+            observer.markAsPath(grid.getIndex(sourcePoint));
+            observer.repaint();
+            context.pathLength = 0.0;
+            return new ArrayList<>(Arrays.asList(sourcePoint));
+        }
         
-        this.pathLength = Double.NaN;
+        if (parallel) {
+            return new ParallelBidirectionalSearch(
+                    this,
+                    ParallelBidirectionalSearch.Variant.PHBA,
+                    sourcePoint,
+                    targetPoint,
+                    context).search();
+        }
+        
+        List<Point> previousPartialForwardPath  = Collections.emptyList();
+        List<Point> previousPartialBackwardPath = Collections.emptyList();
         
-        IndexedBinaryHeap<Point, Double> openForward = new IndexedBinaryHeap<>();
-        IndexedBinaryHeap<Point, Double> openBackward = new IndexedBinaryHeap<>();
+        context.pathLength = Double.NaN;
         
-        Set<Point> closedForward  = new HashSet<>();
-        Set<Point> closedBackward = new HashSet<>();
+        IntPriorityQueue openForward  =
+                getOpenList(context, SearchContext.FORWARD);
+        IntPriorityQueue openBackward =
+                getOpenList(context, SearchContext.BACKWARD);
         
-        Map<Point, Point> parentsForward  = new HashMap<>();
-        Map<Point, Point> parentsBackward = new HashMap<>();
+        GridSearchState stateForward  =
+                getSearchState(context, SearchContext.FORWARD);
+        GridSearchState stateBackward =
+                getSearchState(context, SearchContext.BACKWARD);
         
-        Map<Point, Double> distancesForward  = new HashMap<>();
-        Map<Point, Double> distancesBackward = new HashMap<>();
+        int[] neighbors = context.neighbors;
+        double[] weights = context.weights;
         
         double bestPathLength = Double.POSITIVE_INFINITY;
-        Point meetingPoint = null;
+        int meetingIndex = GridSearchState.NO_PARENT;
         
-        openForward.add(sourcePoint, 0.0);
-        openBackward.add(targetPoint, 0.0);
+        int sourceIndex = stateForward.getIndex(sourcePoint);
+        int targetIndex = stateBackward.getIndex(targetPoint);
         
-        parentsForward.put(sourcePoint, null);
-        parentsBackward.put(targetPoint, null);
+        openForward.add(sourceIndex, 0.0);
+        openBackward.add(targetIndex, 0.0);
         
-        distancesForward.put(sourcePoint, 0.0);
-        distancesBackward.put(targetPoint, 0.0);
+        stateForward.setDistance(sourceIndex, 0.0);
+        stateBackward.setDistance(targetIndex, 0.0);
         
         int repaints = 0;
         
         while (openForward.size() > 0 && openBackward.size() > 0) {
-            if (exit) {
+            if (context.isExitRequested()) {
                 return null;
             }
             
-            if (pause) {
-                sleep();
+            if (context.pause) {
+                context.awaitResume();
                 continue;
             }
             
-            if (meetingPoint != null) {
-                Point minForward  = openForward.top();
-                Point minBackward = openBackward.top();
+            if (meetingIndex != GridSearchState.NO_PARENT) {
+                int minForward  = openForward.top();
+                int minBackward = openBackward.top();
                 
-                double distanceForward = distancesForward.get(minForward) +
-                                         minForward.distance(targetPoint);
+                double distanceForward = 
+                        stateForward.getDistance(minForward) +
+                        stateForward.getEuclideanDistance(minForward,
+                                                          targetPoint);
                 
-                double distanceBackward = distancesBackward.get(minBackward) +
-                                          minBackward.distance(sourcePoint);
+                double distanceBackward = 
+                        stateBackward.getDistance(minBackward) +
+                        stateBackward.getEuclideanDistance(minBackward,
+                                                           sourcePoint);
                 
-                this.pathLength = distanceForward + distanceBackward;
+                context.pathLength = distanceForward + distanceBackward;
                 
                 if (bestPathLength <= Math.max(distanceForward, 
                                                distanceBackward)) {
-                    for (Point p : previousPartialForwardPath) {
-                        panel.markAsClosed(p);
-                    }
-                    
-                    for (Point p : previousPartialBackwardPath) {
-                        panel.markAsClosed(p);
-                    }
-                    
-                    List<Point> shortestPath = tracebackPath(meetingPoint, 
-                                                             parentsForward, 
-                                                             parentsBackward);
-                    
-                    for (Point p : shortestPath) {
-                        panel.markAsPath(p);
-                    }
-                    
-                    this.frontierNodeCount = openForward.size() + 
-                                             openBackward.size();
-                    this.pathLength = getLength(shortestPath);
-                    panel.repaint();
-                    return shortestPath;
+                    break;
                 }
             }
             
-            if ((closedForward.size() + closedBackward.size())
+            if ((stateForward.getClosedCount() + 
+                 stateBackward.getClosedCount())
                     % NODES_EXPANSIONS_PER_REPAINT == 0) {
                 repaints++;
                 
-                if (repaints % REPAINTS_PER_PATH_DRAWING == 0) {
+                if (repaints % REPAINTS_PER_PATH_DRAWING == 0
+                        && observer != SearchObserver.NO_OP) {
                     for (Point p : previousPartialForwardPath) {
-                        panel.markAsClosed(p);
+                        observer.markAsClosed(grid.getIndex(p));
                     }
 
                     for (Point p : previousPartialBackwardPath) {
-                        panel.markAsClosed(p);
+                        observer.markAsClosed(grid.getIndex(p));
                     }
 
                     List<Point> partialForwardPath = 
-                            tracebackPath(openForward.top(),
-                                          parentsForward);
+                            tracebackPath(openForward.top(), stateForward);
 
                     List<Point> partialBackwardPath = 
-                            tracebackPath(openBackward.top(),
-                                          parentsBackward);
+                            tracebackPath(openBackward.top(), stateBackward);
 
                     // Not necessarily required, but what the hell.
                     Collections.reverse(partialBackwardPath);
 
                     for (Point p : partialForwardPath) {
-                        panel.markAsPath(p);
+                        observer.markAsPath(grid.getIndex(p));
                     }
 
                     for (Point p : partialBackwardPath) {
-                        panel.markAsPath(p);
+                        observer.markAsPath(grid.getIndex(p));
                     }
 
                     previousPartialForwardPath = partialForwardPath;
                     previousPartialBackwardPath = partialBackwardPath;
-                    this.pathLength = getLength(partialForwardPath) +
-                                      getLength(partialBackwardPath);    
+                    context.pathLength = getLength(partialForwardPath) +
+                                         getLength(partialBackwardPath);    
                 }
                 
-                this.frontierNodeCount = openForward.size() + 
-                                         openBackward.size();
-                panel.repaint();
+                context.frontierNodeCount = openForward.size() + 
+                                            openBackward.size();
+                observer.repaint();
             }
             
-            int totalForwardNodes  = openForward.size() + closedForward.size();
+            int totalForwardNodes  = openForward.size() + 
+                                     stateForward.getClosedCount();
             int totalBackwardNodes = openBackward.size() + 
-                                     closedBackward.size();
+                                     stateBackward.getClosedCount();
             
             if (totalForwardNodes < totalBackwardNodes) {
-                Point currentPoint = openForward.extractMinimum();
-                panel.markAsClosed(currentPoint);
-                this.closedNodeCount++;
-                closedForward.add(currentPoint);
+                int currentIndex = openForward.extractMinimum();
+                observer.markAsClosed(currentIndex);
+                context.closedNodeCount++;
+                stateForward.close(currentIndex);
+                
+                int neighborCount = 
+                        grid.expand(currentIndex, neighbors, weights);
                 
-                for (Point childPoint : panel.expand(currentPoint)) {
-                    if (closedForward.contains(childPoint)) {
+                for (int i = 0; i < neighborCount; ++i) {
+                    int childIndex = neighbors[i];
+                    
+                    if (stateForward.isClosed(childIndex)) {
                         continue;
                     }
                     
                     double tentativeDistance = 
-                            distancesForward.get(currentPoint) +
-                            currentPoint.distance(childPoint);
+                            stateForward.getDistance(currentIndex) +
+                            weights[i];
                     
-                    if (!distancesForward.containsKey(childPoint)) {
-                        distancesForward.put(childPoint, tentativeDistance);
-                        parentsForward.put(childPoint, currentPoint);
+                    if (!stateForward.isReached(childIndex)) {
+                        stateForward.setDistance(childIndex, tentativeDistance);
+                        stateForward.setParent(childIndex, currentIndex);
                         
-                        openForward.add(childPoint,
+                        openForward.add(childIndex,
                                         tentativeDistance + 
-                                            childPoint.distance(targetPoint));
-                        panel.markAsFrontier(childPoint);
+                                            stateForward.getEuclideanDistance(
+                                                    childIndex, targetPoint));
+                        observer.markAsFrontier(childIndex);
                         
-                        if (closedBackward.contains(childPoint)) {
+                        if (stateBackward.isReached(childIndex)) {
                             double pathLength = 
-                                    distancesBackward.get(childPoint) +
+                                    stateBackward.getDistance(childIndex) +
                                     tentativeDistance;
                             
                             if (bestPathLength > pathLength) {
                                 bestPathLength = pathLength;
-                                meetingPoint = childPoint;
-                                this.pathLength = pathLength;
+                                meetingIndex = childIndex;
+                                context.pathLength = pathLength;
                             }
                         }
-                    } else if (distancesForward.get(childPoint) 
+                    } else if (stateForward.getDistance(childIndex) 
                             > tentativeDistance) {
-                        distancesForward.put(childPoint, tentativeDistance);
-                        parentsForward.put(childPoint, currentPoint);
+                        stateForward.setDistance(childIndex, tentativeDistance);
+                        stateForward.setParent(childIndex, currentIndex);
                         
-                        openForward.decreasePriority(
-                                childPoint,
+                        openForward.decreasePriority(childIndex,
                                 tentativeDistance +
-                                        childPoint.distance(targetPoint));
+                                        stateForward.getEuclideanDistance(
+                                                childIndex, targetPoint));
                         
-                        if (closedBackward.contains(childPoint)) {
+                        if (stateBackward.isReached(childIndex)) {
                             double pathLength = 
-                                    distancesBackward.get(childPoint) +
+                                    stateBackward.getDistance(childIndex) +
                                     tentativeDistance;
                             
                             if (bestPathLength > pathLength) {
                                 bestPathLength = pathLength;
-                                meetingPoint = childPoint;
-                                this.pathLength = pathLength;
+                                meetingIndex = childIndex;
+                                context.pathLength = pathLength;
                             }
                         }
                     }
                 }
             } else {
-                Point currentPoint = openBackward.extractMinimum();
-                panel.markAsClosed(currentPoint);
-                this.closedNodeCount++;
-                closedBackward.add(currentPoint);
+                int currentIndex = openBackward.extractMinimum();
+                observer.markAsClosed(currentIndex);
+                context.closedNodeCount++;
+                stateBackward.close(currentIndex);
+                
+                int neighborCount = 
+                        grid.expand(currentIndex, neighbors, weights);
                 
-                for (Point parentPoint : panel.expand(currentPoint)) {
-                    if (closedBackward.contains(parentPoint)) {
+                for (int i = 0; i < neighborCount; ++i) {
+                    int parentIndex = neighbors[i];
+                    
+                    if (stateBackward.isClosed(parentIndex)) {
                         continue;
                     }
                     
                     double tentativeDistance = 
-                            distancesBackward.get(currentPoint) +
-                            parentPoint.distance(currentPoint);
+                            stateBackward.getDistance(currentIndex) +
+                            weights[i];
                     
-                    if (!distancesBackward.containsKey(parentPoint)) {
-                        distancesBackward.put(parentPoint, tentativeDistance);
-                        parentsBackward.put(parentPoint, currentPoint);
+                    if (!stateBackward.isReached(parentIndex)) {
+                        stateBackward.setDistance(parentIndex, tentativeDistance);
+                        stateBackward.setParent(parentIndex, currentIndex);
                         
-                        openBackward.add(parentPoint,
+                        openBackward.add(parentIndex,
                                          tentativeDistance + 
-                                            parentPoint.distance(sourcePoint));
+                                            stateBackward.getEuclideanDistance(
+                                                    parentIndex, sourcePoint));
                         
-                        panel.markAsFrontier(parentPoint);
+                        observer.markAsFrontier(parentIndex);
                         
-                        if (closedForward.contains(parentPoint)) {
+                        if (stateForward.isReached(parentIndex)) {
                             double pathLength = 
-                                    distancesForward.get(parentPoint) +
+                                    stateForward.getDistance(parentIndex) +
                                     tentativeDistance;
                             
-                            if (bestPathLength > tentativeDistance) {
-                                bestPathLength = tentativeDistance;
-                                meetingPoint = parentPoint;
-                                this.pathLength = pathLength;
+                            if (bestPathLength > pathLength) {
+                                bestPathLength = pathLength;
+                                meetingIndex = parentIndex;
+                                context.pathLength = pathLength;
                             }
                         }
-                    } else if (distancesBackward.get(parentPoint) 
+                    } else if (stateBackward.getDistance(parentIndex) 
                             > tentativeDistance) {
-                        distancesBackward.put(parentPoint, tentativeDistance);
-                        parentsBackward.put(parentPoint, currentPoint);
+                        stateBackward.setDistance(parentIndex, tentativeDistance);
+                        stateBackward.setParent(parentIndex, currentIndex);
                         
-                        openBackward.decreasePriority(
-                                parentPoint,
+                        openBackward.decreasePriority(parentIndex,
                                 tentativeDistance + 
-                                        parentPoint.distance(sourcePoint));
+                                        stateBackward.getEuclideanDistance(
+                                                parentIndex, sourcePoint));
                         
-                        if (closedForward.contains(parentPoint)) {
+                        if (stateForward.isReached(parentIndex)) {
                             double pathLength = 
-                                    distancesForward.get(parentPoint) +
+                                    stateForward.getDistance(parentIndex) +
                                     tentativeDistance;
                             
-                            if (bestPathLength > tentativeDistance) {
-                                bestPathLength = tentativeDistance;
-                                meetingPoint = parentPoint;
-                                this.pathLength = pathLength;
+                            if (bestPathLength > pathLength) {
+                                bestPathLength = pathLength;
+                                meetingIndex = parentIndex;
+                                context.pathLength = pathLength;
                             }
                         }
                     }
@@ -265,6 +304,31 @@ public class PHBAPathfinder extends AbstractPathFinder {
             }
         }
         
-        return null;
+        if (meetingIndex == GridSearchState.NO_PARENT) {
+            throw new TargetNotReachableException(
+                    "The target point is not reachable.");
+        }
+        
+        for (Point p : previousPartialForwardPath) {
+            observer.markAsClosed(grid.getIndex(p));
+        }
+        
+        for (Point p : previousPartialBackwardPath) {
+            observer.markAsClosed(grid.getIndex(p));
+        }
+        
+        List<Point> shortestPath = tracebackPath(meetingIndex,
+                                                 stateForward,
+                                                 stateBackward);
+        
+        for (Point p : shortestPath) {
+            observer.markAsPath(grid.getIndex(p));
+        }
+        
+        context.frontierNodeCount = openForward.size() + 
+                                    openBackward.size();
+        context.pathLength = getLength(shortestPath);
+        observer.repaint();
+        return shortestPath;
     }
 }
@@ -0,0 +1,558 @@
+package net.coderodde.funky.pathfinding;
+
+import java.awt.Point;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import static net.coderodde.funky.pathfinding.Configuration.NODES_EXPANSIONS_PER_REPAINT;
+import static net.coderodde.funky.pathfinding.GridModel.MAXIMUM_NUMBER_OF_NEIGHBORS;
+
+/**
+ * This class runs the forward search of a bidirectional pathfinder on the
+ * calling thread and the backward search on an executor. The threads share
+ * the best meeting found so far and the sets of the nodes they have settled.
+ */
+final class ParallelBidirectionalSearch {
+    
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+    
+    /**
+     * Runs the backward searches of the contexts without an executor.
+     */
+    private static final ExecutorService DEFAULT_EXECUTOR =
+            Executors.newCachedThreadPool((r) -> {
+                Thread thread = new Thread(r,
+                                           "Backward search " +
+                                           THREAD_COUNT.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+    
+    /**
+     * Lists the bidirectional algorithms that may run in parallel.
+     */
+    enum Variant {
+        DIJKSTRA,
+        PHBA,
+        NBA_STAR
+    }
+    
+    /**
+     * A path found by the two searches: the forward tree path to the forward
+     * meeting node, then the backward one from the backward meeting node.
+     */
+    private static final class Meeting {
+        
+        static final Meeting NONE = new Meeting(Double.POSITIVE_INFINITY,
+                                                GridSearchState.NO_PARENT,
+                                                GridSearchState.NO_PARENT);
+        
+        final double length;
+        final int forwardIndex;
+        final int backwardIndex;
+        
+        Meeting(double length, int forwardIndex, int backwardIndex) {
+            this.length = length;
+            this.forwardIndex = forwardIndex;
+            this.backwardIndex = backwardIndex;
+        }
+    }
+    
+    /**
+     * The data of the parallel searches run in one context, indexed by
+     * {@link SearchContext#FORWARD} and {@link SearchContext#BACKWARD}.
+     */
+    private static final class Workspace {
+        
+        final IntPriorityQueue[] openLists = new IntPriorityQueue[2];
+        final GridSearchState[] states = new GridSearchState[2];
+        final ConcurrentCellSet[] settledSets = new ConcurrentCellSet[2];
+        final int[][] neighbors = new int[2][MAXIMUM_NUMBER_OF_NEIGHBORS];
+        final double[][] weights = new double[2][MAXIMUM_NUMBER_OF_NEIGHBORS];
+        
+        /**
+         * The nodes reached by each search and the middle set. Used by NBA*
+         * only.
+         */
+        final ConcurrentCellSet[] reachedSets;
+        final ConcurrentCellSet middle;
+        
+        Workspace(AbstractPathFinder pathfinder, Variant variant) {
+            int cellCount = pathfinder.grid.getWidth() *
+                            pathfinder.grid.getHeight();
+            boolean nbaStar = variant == Variant.NBA_STAR;
+            this.reachedSets = nbaStar ? new ConcurrentCellSet[2] : null;
+            this.middle = nbaStar ? new ConcurrentCellSet(cellCount) : null;
+            
+            for (int slot = 0; slot < 2; ++slot) {
+                openLists[slot] = pathfinder.createOpenList();
+                states[slot] = pathfinder.createSearchState();
+                settledSets[slot] = new ConcurrentCellSet(cellCount);
+                
+                if (nbaStar) {
+                    reachedSets[slot] = new ConcurrentCellSet(cellCount);
+                }
+            }
+        }
+        
+        void clear() {
+            for (int slot = 0; slot < 2; ++slot) {
+                openLists[slot].clear();
+                states[slot].clear();
+                settledSets[slot].clear();
+                
+                if (reachedSets != null) {
+                    reachedSets[slot].clear();
+                }
+            }
+            
+            if (middle != null) {
+                middle.clear();
+            }
+        }
+    }
+    
+    /**
+     * Passes the callbacks of both threads to another observer one at a
+     * time.
+     */
+    private static final class SerializedObserver implements SearchObserver {
+        
+        private final SearchObserver observer;
+        
+        SerializedObserver(SearchObserver observer) {
+            this.observer = observer;
+        }
+        
+        @Override
+        public synchronized void markAsClosed(int cellIndex) {
+            observer.markAsClosed(cellIndex);
+        }
+        
+        @Override
+        public synchronized void unmarkAsClosed(int cellIndex) {
+            observer.unmarkAsClosed(cellIndex);
+        }
+        
+        @Override
+        public synchronized void markAsFrontier(int cellIndex) {
+            observer.markAsFrontier(cellIndex);
+        }
+        
+        @Override
+        public synchronized void markAsPath(int cellIndex) {
+            observer.markAsPath(cellIndex);
+        }
+        
+        @Override
+        public synchronized void repaint() {
+            observer.repaint();
+        }
+    }
+    
+    private final AbstractPathFinder pathfinder;
+    private final SearchObserver observer;
+    private final SearchContext context;
+    private final Variant variant;
+    private final GridModel grid;
+    private final AtomicReference<Meeting> best =
+            new AtomicReference<>(Meeting.NONE);
+    private final Workspace workspace;
+    
+    /**
+     * The nodes expanded or rejected by either search. Used by NBA* only.
+     */
+    private final ConcurrentCellSet middle;
+    
+    private final Direction forward;
+    private final Direction backward;
+    private volatile boolean finished;
+    
+    ParallelBidirectionalSearch(AbstractPathFinder pathfinder,
+                                Variant variant,
+                                Point sourcePoint,
+                                Point targetPoint,
+                                SearchContext context) {
+        this.pathfinder = pathfinder;
+        this.observer = pathfinder.observer == SearchObserver.NO_OP ?
+                        SearchObserver.NO_OP :
+                        new SerializedObserver(pathfinder.observer);
+        this.context = context;
+        this.variant = variant;
+        this.grid = pathfinder.grid;
+        this.workspace = getWorkspace();
+        this.middle = workspace.middle;
+        this.forward = new Direction(true, sourcePoint, targetPoint);
+        this.backward = new Direction(false, targetPoint, sourcePoint);
+        this.forward.opposite = backward;
+        this.backward.opposite = forward;
+    }
+    
+    List<Point> search() {
+        context.pathLength = Double.NaN;
+        AtomicBoolean started = new AtomicBoolean();
+        FutureTask<Void> backwardSearch = new FutureTask<>(() -> {
+            if (started.compareAndSet(false, true)) {
+                try {
+                    backward.run();
+                } finally {
+                    finished = true;
+                }
+            }
+        }, null);
+        
+        Executor executor = context.getExecutor() != null ?
+                            context.getExecutor() :
+                            DEFAULT_EXECUTOR;
+        
+        try {
+            executor.execute(backwardSearch);
+        } catch (RejectedExecutionException ex) {
+            // The forward search will do on its own.
+        }
+        
+        try {
+            forward.run();
+        } finally {
+            finished = true;
+            
+            if (!started.compareAndSet(false, true)) {
+                getUninterruptibly(backwardSearch);
+            }
+        }
+        
+        context.closedNodeCount += forward.closedCount +
+                                   backward.closedCount;
+        context.frontierNodeCount = forward.open.size() +
+                                    backward.open.size();
+        
+        Meeting meeting = best.get();
+        
+        if (context.isExitRequested()) {
+            return null;
+        }
+        
+        if (meeting == Meeting.NONE) {
+            throw new TargetNotReachableException(
+                    "The target point is not reachable.");
+        }
+        
+        List<Point> path = pathfinder.tracebackPath(meeting.forwardIndex,
+                                                    forward.state);
+        
+        if (meeting.backwardIndex != meeting.forwardIndex) {
+            path.add(backward.state.getPoint(meeting.backwardIndex));
+        }
+        
+        int currentIndex = backward.state.getParent(meeting.backwardIndex);
+        
+        while (currentIndex != GridSearchState.NO_PARENT) {
+            path.add(backward.state.getPoint(currentIndex));
+            currentIndex = backward.state.getParent(currentIndex);
+        }
+        
+        for (Point p : path) {
+            observer.markAsPath(grid.getIndex(p));
+        }
+        
+        context.pathLength = pathfinder.getLength(path);
+        observer.repaint();
+        return path;
+    }
+    
+    private Workspace getWorkspace() {
+        Workspace workspace = (Workspace) context.getAttachment(pathfinder);
+        GridSearchState state = workspace != null ? workspace.states[0] : null;
+        
+        if (state == null
+                || state.getWidth() != grid.getWidth()
+                || state.getHeight() != grid.getHeight()) {
+            workspace = new Workspace(pathfinder, variant);
+            context.setAttachment(pathfinder, workspace);
+        } else {
+            workspace.clear();
+        }
+        
+        return workspace;
+    }
+    
+    /**
+     * Waits for the backward search to stop.
+     *
+     * @throws IllegalStateException if the backward search failed.
+     */
+    private static void getUninterruptibly(FutureTask<Void> backwardSearch) {
+        boolean interrupted = false;
+        
+        try {
+            while (true) {
+                try {
+                    backwardSearch.get();
+                    return;
+                } catch (InterruptedException ex) {
+                    interrupted = true;
+                } catch (ExecutionException ex) {
+                    throw new IllegalStateException(
+                            "The backward search failed.", ex.getCause());
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+    
+    private void offer(double length, int forwardIndex, int backwardIndex) {
+        while (true) {
+            Meeting current = best.get();
+            
+            if (current.length <= length) {
+                return;
+            }
+            
+            Meeting meeting = new Meeting(length, forwardIndex, backwardIndex);
+            
+            if (best.compareAndSet(current, meeting)) {
+                return;
+            }
+        }
+    }
+    
+    /**
+     * One of the two searches.
+     */
+    private final class Direction {
+        
+        final boolean isForward;
+        final int slot;
+        final Point startPoint;
+        final Point goalPoint;
+        final IntPriorityQueue open;
+        final GridSearchState state;
+        
+        /**
+         * The nodes this search has expanded. Written before the neighbors of
+         * a node are scanned, so that the opposite search sees the final
+         * distance of any node it finds here.
+         */
+        final ConcurrentCellSet settled;
+        
+        /**
+         * The nodes this search has assigned a distance to. Written after the
+         * first distance of a node, so that the opposite search reads a
+         * distance of the current search. Used by NBA* only.
+         */
+        final ConcurrentCellSet reached;
+        
+        Direction opposite;
+        int closedCount;
+        
+        /**
+         * The last top key of the open list, or the lower bound of NBA*.
+         * Never decreases.
+         */
+        volatile double publishedKey;
+        
+        Direction(boolean isForward, Point startPoint, Point goalPoint) {
+            this.isForward = isForward;
+            this.slot = isForward ? SearchContext.FORWARD :
+                                    SearchContext.BACKWARD;
+            this.startPoint = startPoint;
+            this.goalPoint = goalPoint;
+            this.open = workspace.openLists[slot];
+            this.state = workspace.states[slot];
+            this.settled = workspace.settledSets[slot];
+            this.reached = middle != null ? workspace.reachedSets[slot] :
+                                            null;
+            this.publishedKey = variant == Variant.NBA_STAR ?
+                    startPoint.distance(goalPoint) : 0.0;
+            
+            // The distance of the start node is final, so it counts as
+            // settled before the threads start. Otherwise a search that
+            // exhausts its open list before the opposite thread is scheduled
+            // would never see the opposite start node.
+            int startIndex = state.getIndex(startPoint);
+            state.setDistance(startIndex, 0.0);
+            open.add(startIndex, getKey(startIndex, 0.0));
+            settled.add(startIndex);
+            
+            if (reached != null) {
+                reached.add(startIndex);
+            }
+        }
+        
+        void run() {
+            int[] neighbors = workspace.neighbors[slot];
+            double[] weights = workspace.weights[slot];
+            
+            while (!finished) {
+                if (context.isExitRequested()) {
+                    finished = true;
+                    return;
+                }
+                
+                if (context.pause) {
+                    context.awaitResume();
+                    continue;
+                }
+                
+                if (open.size() == 0) {
+                    finished = true;
+                    return;
+                }
+                
+                if (variant != Variant.NBA_STAR && isDone()) {
+                    finished = true;
+                    return;
+                }
+                
+                int currentIndex = open.extractMinimum();
+                double currentDistance = state.getDistance(currentIndex);
+                
+                if (variant == Variant.NBA_STAR) {
+                    if (!middle.add(currentIndex)) {
+                        continue;
+                    }
+                    
+                    if (isRejected(currentIndex, currentDistance)) {
+                        publishLowerBound();
+                        continue;
+                    }
+                }
+                
+                settled.add(currentIndex);
+                state.close(currentIndex);
+                
+                if (opposite.settled.contains(currentIndex)) {
+                    offerPath(currentDistance +
+                            opposite.state.getDistance(currentIndex),
+                          currentIndex,
+                          currentIndex);
+                }
+                observer.markAsClosed(currentIndex);
+                closedCount++;
+                
+                if (closedCount % NODES_EXPANSIONS_PER_REPAINT == 0) {
+                    observer.repaint();
+                }
+                
+                int neighborCount =
+                        grid.expand(currentIndex, neighbors, weights);
+                
+                for (int i = 0; i < neighborCount; ++i) {
+                    int neighborIndex = neighbors[i];
+                    
+                    if (opposite.settled.contains(neighborIndex)) {
+                        offerPath(currentDistance + weights[i] +
+                                opposite.state.getDistance(neighborIndex),
+                              currentIndex,
+                              neighborIndex);
+                    }
+                    
+                    if (state.isClosed(neighborIndex)
+                            || (middle != null
+                                && middle.contains(neighborIndex))) {
+                        continue;
+                    }
+                    
+                    double tentativeDistance = currentDistance + weights[i];
+                    
+                    if (!state.isReached(neighborIndex)) {
+                        open.add(neighborIndex,
+                                 getKey(neighborIndex, tentativeDistance));
+                        observer.markAsFrontier(neighborIndex);
+                    } else if (state.getDistance(neighborIndex)
+                            > tentativeDistance) {
+                        open.decreasePriority(
+                                neighborIndex,
+                                getKey(neighborIndex, tentativeDistance));
+                    } else {
+                        continue;
+                    }
+                    
+                    state.setDistance(neighborIndex, tentativeDistance);
+                    state.setParent(neighborIndex, currentIndex);
+                    
+                    if (variant == Variant.NBA_STAR) {
+                        reached.add(neighborIndex);
+                        
+                        // The opposite distance may be stale, but it is the
+                        // length of an actual path of the current search. The
+                        // exact bounds come from the settled sets.
+                        if (opposite.reached.contains(neighborIndex)) {
+                            offerPath(tentativeDistance +
+                                    opposite.state.getDistance(neighborIndex),
+                                  neighborIndex,
+                                  neighborIndex);
+                        }
+                    }
+                }
+                
+                if (variant == Variant.NBA_STAR) {
+                    publishLowerBound();
+                }
+            }
+        }
+        
+        private void offerPath(double length, int index, int oppositeIndex) {
+            if (isForward) {
+                offer(length, index, oppositeIndex);
+            } else {
+                offer(length, oppositeIndex, index);
+            }
+        }
+        
+        /**
+         * Implements the stopping criteria of bidirectional Dijkstra and
+         * PHBA, publishing the current top key first.
+         */
+        private boolean isDone() {
+            int topIndex = open.top();
+            double key = getKey(topIndex, state.getDistance(topIndex));
+            publishedKey = key;
+            double oppositeKey = opposite.publishedKey;
+            double bestLength = best.get().length;
+            
+            if (variant == Variant.DIJKSTRA) {
+                return key + oppositeKey >= bestLength;
+            }
+            
+            return bestLength <= Math.max(key, oppositeKey);
+        }
+        
+        /**
+         * Implements the pruning rules of NBA*.
+         */
+        private boolean isRejected(int index, double distance) {
+            double bestLength = best.get().length;
+            return distance + state.getEuclideanDistance(index, goalPoint)
+                        >= bestLength
+                || distance + opposite.publishedKey -
+                   state.getEuclideanDistance(index, startPoint)
+                        >= bestLength;
+        }
+        
+        private void publishLowerBound() {
+            if (open.size() > 0) {
+                int topIndex = open.top();
+                publishedKey = getKey(topIndex, state.getDistance(topIndex));
+            }
+        }
+        
+        private double getKey(int index, double distance) {
+            if (variant == Variant.DIJKSTRA) {
+                return distance;
+            }
+            
+            return distance + state.getEuclideanDistance(index, goalPoint);
+        }
+    }
+}
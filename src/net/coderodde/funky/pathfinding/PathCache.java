@@ -0,0 +1,379 @@
+package net.coderodde.funky.pathfinding;
+
+import java.awt.Point;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import static net.coderodde.funky.pathfinding.GridModel.DIAGONAL_WEIGHT;
+
+/**
+ * This class caches the paths found by pathfinders over a grid, evicting the
+ * least recently used entry once full. An edit of the grid drops only the
+ * entries it may affect. Call {@link #dispose()} when the cache is no longer
+ * needed.
+ */
+public final class PathCache implements GridModel.ChangeListener {
+    
+    /**
+     * A cached answer.
+     */
+    private static final class CachedPath {
+        
+        final Key key;
+        
+        /**
+         * The unmodifiable path, or {@code null} if there is none.
+         */
+        final List<Point> path;
+        
+        /**
+         * The length of the path, or infinity if there is none.
+         */
+        final double length;
+        
+        /**
+         * The indices of the cells on the path, sorted.
+         */
+        final int[] cells;
+        
+        CachedPath(Key key, List<Point> path, int width) {
+            this.key = key;
+            
+            if (path == null) {
+                this.path = null;
+                this.length = Double.POSITIVE_INFINITY;
+                this.cells = new int[0];
+                return;
+            }
+            
+            this.path = Collections.unmodifiableList(path);
+            this.cells = new int[path.size()];
+            double pathLength = 0.0;
+            
+            for (int i = 0; i < cells.length; ++i) {
+                Point point = path.get(i);
+                cells[i] = point.y * width + point.x;
+                
+                if (i > 0) {
+                    pathLength += point.distance(path.get(i - 1));
+                }
+            }
+            
+            Arrays.sort(cells);
+            this.length = pathLength;
+        }
+        
+        boolean containsCell(int cell) {
+            return Arrays.binarySearch(cells, cell) >= 0;
+        }
+    }
+    
+    /**
+     * The key of a cached answer. The pathfinders are compared by identity.
+     */
+    private static final class Key {
+        
+        final AbstractPathFinder pathfinder;
+        final int sourceIndex;
+        final int targetIndex;
+        
+        Key(AbstractPathFinder pathfinder, int sourceIndex, int targetIndex) {
+            this.pathfinder = pathfinder;
+            this.sourceIndex = sourceIndex;
+            this.targetIndex = targetIndex;
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            
+            Key other = (Key) o;
+            return pathfinder == other.pathfinder
+                    && sourceIndex == other.sourceIndex
+                    && targetIndex == other.targetIndex;
+        }
+        
+        @Override
+        public int hashCode() {
+            int hash = System.identityHashCode(pathfinder);
+            hash = 31 * hash + sourceIndex;
+            return 31 * hash + targetIndex;
+        }
+    }
+    
+    private final GridModel grid;
+    private final int capacity;
+    
+    /**
+     * The cached entries in access order. Guarded by itself, as are the
+     * statistics and the edit count.
+     */
+    private final LinkedHashMap<Key, CachedPath> entries;
+    
+    /**
+     * The searches running, keyed like the entries.
+     */
+    private final ConcurrentMap<Key, CompletableFuture<CachedPath>> searches =
+            new ConcurrentHashMap<>();
+    
+    private final SearchContextPool contexts = new SearchContextPool();
+    
+    /**
+     * The number of the edits seen so far. A search that overlaps an edit
+     * may have seen either grid, so its result is returned but not cached.
+     */
+    private long editCount;
+    
+    private long hitCount;
+    private long missCount;
+    
+    /**
+     * Constructs a cache of the paths over the given grid.
+     *
+     * @param grid     the grid.
+     * @param capacity the maximum number of the entries.
+     */
+    public PathCache(GridModel grid, int capacity) {
+        this.grid = Objects.requireNonNull(grid, "The grid model is null.");
+        
+        if (capacity < 1) {
+            throw new IllegalArgumentException(
+                    "The capacity must be positive: " + capacity + ".");
+        }
+        
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<Key, CachedPath>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, CachedPath> e) {
+                return size() > PathCache.this.capacity;
+            }
+        };
+        
+        grid.addChangeListener(this);
+    }
+    
+    public GridModel getGridModel() {
+        return grid;
+    }
+    
+    public int getCapacity() {
+        return capacity;
+    }
+    
+    /**
+     * Returns a path found by {@code pathfinder}, from the cache if possible.
+     *
+     * @param pathfinder the pathfinder.
+     * @param source     the source point.
+     * @param target     the target point.
+     * @return the unmodifiable path, or {@code null} if the target is not
+     *         reachable from the source or the search was asked to exit.
+     */
+    public List<Point> getPath(AbstractPathFinder pathfinder,
+                               Point source,
+                               Point target) {
+        Objects.requireNonNull(pathfinder, "The pathfinder is null.");
+        Objects.requireNonNull(source, "The source point is null.");
+        Objects.requireNonNull(target, "The target point is null.");
+        
+        if (pathfinder.grid != grid) {
+            throw new IllegalStateException(
+                    "The pathfinder belongs to another grid.");
+        }
+        
+        Key key = new Key(pathfinder,
+                          grid.getIndex(source),
+                          grid.getIndex(target));
+        long startEditCount;
+        
+        synchronized (entries) {
+            CachedPath entry = entries.get(key);
+            
+            if (entry != null) {
+                hitCount++;
+                return entry.path;
+            }
+            
+            missCount++;
+            startEditCount = editCount;
+        }
+        
+        CompletableFuture<CachedPath> future = new CompletableFuture<>();
+        CompletableFuture<CachedPath> running =
+                searches.putIfAbsent(key, future);
+        
+        if (running != null) {
+            CachedPath entry = join(running);
+            
+            if (entry != null) {
+                return entry.path;
+            }
+            
+            // The running search was asked to exit. Run a search of our own.
+            return getPath(pathfinder, source, target);
+        }
+        
+        try {
+            CachedPath entry = search(key, source, target);
+            
+            if (entry == null) {
+                future.complete(null);
+                return null;
+            }
+            
+            synchronized (entries) {
+                if (editCount == startEditCount) {
+                    entries.put(key, entry);
+                }
+            }
+            
+            future.complete(entry);
+            return entry.path;
+        } catch (RuntimeException | Error ex) {
+            future.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            searches.remove(key, future);
+        }
+    }
+    
+    /**
+     * Returns the number of the requests answered from the cache.
+     *
+     * @return the number of hits.
+     */
+    public long getHitCount() {
+        synchronized (entries) {
+            return hitCount;
+        }
+    }
+    
+    /**
+     * Returns the number of the requests not answered from the cache,
+     * including those coalesced with a running search.
+     *
+     * @return the number of misses.
+     */
+    public long getMissCount() {
+        synchronized (entries) {
+            return missCount;
+        }
+    }
+    
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+    
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+            editCount++;
+        }
+    }
+    
+    /**
+     * Stops listening to the changes of the grid.
+     */
+    public void dispose() {
+        grid.removeChangeListener(this);
+    }
+    
+    @Override
+    public void cellChanged(int x, int y) {
+        int cell = grid.getIndex(x, y);
+        boolean wall = grid.isWall(x, y);
+        int width = grid.getWidth();
+        
+        synchronized (entries) {
+            editCount++;
+            Iterator<CachedPath> iterator = entries.values().iterator();
+            
+            while (iterator.hasNext()) {
+                CachedPath entry = iterator.next();
+                
+                if (wall ? entry.containsCell(cell) :
+                           mayShorten(entry, cell, width)) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+    
+    @Override
+    public void gridCleared() {
+        clear();
+    }
+    
+    /**
+     * Runs a search, returning {@code null} if it was asked to exit. Only a
+     * target proven unreachable gets an entry without a path.
+     */
+    private CachedPath search(Key key, Point source, Point target) {
+        SearchContext context = contexts.acquire();
+        List<Point> path;
+        
+        try {
+            path = key.pathfinder.search(source, target, context);
+            
+            if (path == null) {
+                return null;
+            }
+        } catch (TargetNotReachableException ex) {
+            path = null;
+        } finally {
+            contexts.release(context);
+        }
+        
+        return new CachedPath(key, path, grid.getWidth());
+    }
+    
+    /**
+     * Returns {@code true} if a path through the newly traversable cell may
+     * be shorter than the cached one.
+     */
+    private static boolean mayShorten(CachedPath entry, int cell, int width) {
+        if (entry.path == null) {
+            return true;
+        }
+        
+        return getOctileDistance(entry.key.sourceIndex, cell, width) +
+               getOctileDistance(cell, entry.key.targetIndex, width) <
+               entry.length;
+    }
+    
+    private static double getOctileDistance(int cell1, int cell2, int width) {
+        int dx = Math.abs(cell1 % width - cell2 % width);
+        int dy = Math.abs(cell1 / width - cell2 / width);
+        return Math.abs(dx - dy) + DIAGONAL_WEIGHT * Math.min(dx, dy);
+    }
+    
+    private static CachedPath join(CompletableFuture<CachedPath> future) {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            Throwable cause = ex.getCause();
+            
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            
+            throw new IllegalStateException("The search failed.", cause);
+        }
+    }
+}
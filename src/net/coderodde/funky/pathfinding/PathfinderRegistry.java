@@ -0,0 +1,211 @@
+package net.coderodde.funky.pathfinding;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * This class creates the pathfinders of this project by name, sharing the
+ * data ALT, JPS+ and HPA* preprocess from the grid and optionally metering
+ * their searches. Call {@link #dispose()} when the registry is no longer
+ * needed.
+ */
+public final class PathfinderRegistry {
+    
+    public static final String ASTAR_NAME      = "A*";
+    public static final String ALT_NAME        = "A* (ALT)";
+    public static final String NBASTAR_NAME    = "NBA*";
+    public static final String PHBA_NAME       = "PHBA";
+    public static final String DIJKSTRA_NAME   = "Dijkstra";
+    public static final String BIDIJKSTRA_NAME = "Bidirectional Dijkstra";
+    public static final String NBASTAR_PARALLEL_NAME    = "NBA* (parallel)";
+    public static final String PHBA_PARALLEL_NAME       = "PHBA (parallel)";
+    public static final String BIDIJKSTRA_PARALLEL_NAME =
+            "Bidirectional Dijkstra (parallel)";
+    public static final String BIDDFS_NAME     = "BIDDFS";
+    public static final String JPS_NAME        = "JPS";
+    public static final String JPS_PLUS_NAME   = "JPS+";
+    public static final String HPASTAR_NAME    = "HPA*";
+    public static final String DSTAR_LITE_NAME = "D* Lite";
+    public static final String IDASTAR_NAME    = "IDA*";
+    public static final String FRINGE_NAME     = "Fringe Search";
+    public static final String ARASTAR_NAME    = "ARA*";
+    
+    private static final List<String> NAMES =
+            Collections.unmodifiableList(Arrays.asList(
+                    ASTAR_NAME,
+                    ALT_NAME,
+                    NBASTAR_NAME,
+                    PHBA_NAME,
+                    DIJKSTRA_NAME,
+                    BIDIJKSTRA_NAME,
+                    NBASTAR_PARALLEL_NAME,
+                    PHBA_PARALLEL_NAME,
+                    BIDIJKSTRA_PARALLEL_NAME,
+                    BIDDFS_NAME,
+                    JPS_NAME,
+                    JPS_PLUS_NAME,
+                    HPASTAR_NAME,
+                    DSTAR_LITE_NAME,
+                    IDASTAR_NAME,
+                    FRINGE_NAME,
+                    ARASTAR_NAME));
+    
+    private final GridModel grid;
+    
+    /**
+     * The metrics to record the searches in, or {@code null} if the
+     * pathfinders are not metered.
+     */
+    private final SearchMetrics metrics;
+    private JumpDistanceTable jumpDistanceTable;
+    private ALTHeuristic altHeuristic;
+    private ClusterHierarchy clusterHierarchy;
+    
+    /**
+     * The D* Lite pathfinders created so far, each listening to the grid.
+     */
+    private final List<DStarLitePathfinder> dStarLitePathfinders =
+            new ArrayList<>();
+    
+    public PathfinderRegistry(GridModel grid) {
+        this(grid, null);
+    }
+    
+    /**
+     * Constructs a registry whose pathfinders record their searches in the
+     * given metrics, under their names.
+     *
+     * @param grid    the grid to search.
+     * @param metrics the metrics, or {@code null} for no metering.
+     */
+    public PathfinderRegistry(GridModel grid, SearchMetrics metrics) {
+        this.grid = Objects.requireNonNull(grid, "The grid model is null.");
+        this.metrics = metrics;
+    }
+    
+    /**
+     * Returns the names of all the pathfinders, in the order they are
+     * offered to the user.
+     *
+     * @return the unmodifiable list of the names.
+     */
+    public static List<String> getNames() {
+        return NAMES;
+    }
+    
+    public GridModel getGridModel() {
+        return grid;
+    }
+    
+    /**
+     * Creates a new pathfinder set to search the grid of this registry,
+     * wrapped in a {@link MeteredPathfinder} if the registry has metrics.
+     *
+     * @param name the name of the pathfinder.
+     * @return the pathfinder.
+     * @throws IllegalArgumentException if the name is unknown.
+     */
+    public synchronized AbstractPathFinder create(String name) {
+        Objects.requireNonNull(name, "The pathfinder name is null.");
+        AbstractPathFinder pathfinder = instantiate(name);
+        
+        if (metrics != null) {
+            pathfinder = new MeteredPathfinder(
+                    pathfinder,
+                    metrics.getAlgorithmMetrics(name));
+        }
+        
+        pathfinder.setGridModel(grid);
+        return pathfinder;
+    }
+    
+    /**
+     * Stops keeping the preprocessed data up to date with the grid and
+     * disposes the D* Lite pathfinders created by this registry.
+     */
+    public synchronized void dispose() {
+        if (clusterHierarchy != null) {
+            clusterHierarchy.dispose();
+        }
+        
+        dStarLitePathfinders.forEach(DStarLitePathfinder::dispose);
+        dStarLitePathfinders.clear();
+    }
+    
+    private AbstractPathFinder instantiate(String name) {
+        switch (name) {
+            case ASTAR_NAME:
+                return new AStarPathfinder();
+            
+            case ALT_NAME:
+                if (altHeuristic == null) {
+                    altHeuristic = new ALTHeuristic(grid);
+                }
+                
+                return new AStarTemplatePathfinder(altHeuristic);
+            
+            case DIJKSTRA_NAME:
+                return new DijkstraPathfinder();
+            
+            case PHBA_NAME:
+                return new PHBAPathfinder();
+            
+            case NBASTAR_NAME:
+                return new NewBidirectionalAStarPathfinder();
+            
+            case BIDIJKSTRA_NAME:
+                return new BidirectionalDijkstraPathfinder();
+            
+            case NBASTAR_PARALLEL_NAME:
+                return new NewBidirectionalAStarPathfinder(true);
+            
+            case PHBA_PARALLEL_NAME:
+                return new PHBAPathfinder(true);
+            
+            case BIDIJKSTRA_PARALLEL_NAME:
+                return new BidirectionalDijkstraPathfinder(true);
+            
+            case BIDDFS_NAME:
+                return new BIDDFSPathFinder();
+            
+            case JPS_NAME:
+                return new JumpPointSearchPathfinder();
+            
+            case JPS_PLUS_NAME:
+                if (jumpDistanceTable == null) {
+                    jumpDistanceTable = new JumpDistanceTable(grid);
+                }
+                
+                return new JumpPointSearchPathfinder(jumpDistanceTable);
+            
+            case HPASTAR_NAME:
+                if (clusterHierarchy == null) {
+                    clusterHierarchy = new ClusterHierarchy(grid);
+                }
+                
+                return new HierarchicalPathfinder(clusterHierarchy);
+            
+            case DSTAR_LITE_NAME:
+                DStarLitePathfinder dStarLitePathfinder =
+                        new DStarLitePathfinder();
+                dStarLitePathfinders.add(dStarLitePathfinder);
+                return dStarLitePathfinder;
+            
+            case IDASTAR_NAME:
+                return new IDAStarPathfinder();
+            
+            case FRINGE_NAME:
+                return new FringeSearchPathfinder();
+            
+            case ARASTAR_NAME:
+                return new ARAStarPathfinder();
+            
+            default:
+                throw new IllegalArgumentException(
+                        "Unknown pathfinder name: " + name + ".");
+        }
+    }
+}
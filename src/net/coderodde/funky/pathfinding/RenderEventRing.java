@@ -0,0 +1,200 @@
+package net.coderodde.funky.pathfinding;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class implements a bounded, lock-free ring buffer of render events
+ * for one producer, the search, and one consumer, the renderer. The events of
+ * a cell are coalesced, so the renderer sees only the last kind published for
+ * it. A cell is queued at most once, so the producer never waits and never
+ * drops an event.
+ */
+public final class RenderEventRing {
+    
+    /**
+     * A cell was closed.
+     */
+    public static final int CLOSED = 0;
+    
+    /**
+     * A cell is no longer closed.
+     */
+    public static final int UNMARK_CLOSED = 1;
+    
+    /**
+     * A cell was added to the frontier.
+     */
+    public static final int FRONTIER = 2;
+    
+    /**
+     * A cell lies on the path.
+     */
+    public static final int PATH = 3;
+    
+    private static final int KIND_BITS = 2;
+    private static final int KIND_MASK = (1 << KIND_BITS) - 1;
+    
+    /**
+     * Set in the state of a cell while the cell is in the ring.
+     */
+    private static final int QUEUED = 1 << KIND_BITS;
+    
+    /**
+     * The indices of the queued cells.
+     */
+    private final int[] cells;
+    private final int mask;
+    
+    /**
+     * The last kind published for each cell, or'ed with {@link #QUEUED}
+     * while the cell is in the ring.
+     */
+    private final AtomicIntegerArray states;
+    
+    /**
+     * The number of the events consumed so far. Written by the consumer only.
+     */
+    private final AtomicLong head = new AtomicLong();
+    
+    /**
+     * The number of the events published so far. Written by the producer
+     * only.
+     */
+    private final AtomicLong tail = new AtomicLong();
+    
+    /**
+     * The number of the events merged into an event already queued. Written
+     * by the producer only.
+     */
+    private final AtomicLong coalescedCount = new AtomicLong();
+    
+    /**
+     * Constructs a ring for the events of {@code cellCount} cells.
+     *
+     * @param cellCount the number of the cells.
+     */
+    public RenderEventRing(int cellCount) {
+        if (cellCount < 1 || cellCount > (1 << 30)) {
+            throw new IllegalArgumentException(
+                    "The cell count must be within [1, 2^30]: " +
+                    cellCount + ".");
+        }
+        
+        int capacity = Integer.highestOneBit(cellCount);
+        
+        if (capacity < cellCount) {
+            capacity <<= 1;
+        }
+        
+        this.cells = new int[capacity];
+        this.mask = capacity - 1;
+        this.states = new AtomicIntegerArray(cellCount);
+    }
+    
+    public int getCapacity() {
+        return cells.length;
+    }
+    
+    public int getCellCount() {
+        return states.length();
+    }
+    
+    public static int getCellIndex(int event) {
+        return event >>> KIND_BITS;
+    }
+    
+    public static int getKind(int event) {
+        return event & KIND_MASK;
+    }
+    
+    /**
+     * Publishes an event. May be called by the producer only.
+     *
+     * @param cellIndex the index of the cell.
+     * @param kind      the kind of the event.
+     * @return {@code true} if the cell was queued, {@code false} if the event
+     *         replaced the pending event of the cell.
+     */
+    public boolean publish(int cellIndex, int kind) {
+        int state = states.getAndSet(cellIndex, kind | QUEUED);
+        
+        if ((state & QUEUED) != 0) {
+            coalescedCount.lazySet(coalescedCount.get() + 1);
+            return false;
+        }
+        
+        long currentTail = tail.get();
+        cells[(int) currentTail & mask] = cellIndex;
+        tail.lazySet(currentTail + 1);
+        return true;
+    }
+    
+    /**
+     * Moves the pending events, in the order their cells were queued, to
+     * {@code buffer}. May be called by the consumer only.
+     *
+     * @param buffer the buffer.
+     * @return the number of the events moved.
+     */
+    public int drain(int[] buffer) {
+        long currentHead = head.get();
+        int count = (int) Math.min(tail.get() - currentHead, buffer.length);
+        
+        for (int i = 0; i < count; ++i) {
+            buffer[i] = cells[(int)(currentHead + i) & mask];
+        }
+        
+        // The cells stay queued until dequeued below, so the producer cannot
+        // reuse the freed slots for more cells than the ring holds.
+        head.lazySet(currentHead + count);
+        
+        for (int i = 0; i < count; ++i) {
+            int cellIndex = buffer[i];
+            buffer[i] = (cellIndex << KIND_BITS) | dequeue(cellIndex);
+        }
+        
+        return count;
+    }
+    
+    /**
+     * Discards the pending events. May be called by the consumer only.
+     */
+    public void clear() {
+        long currentHead = head.get();
+        long currentTail = tail.get();
+        head.lazySet(currentTail);
+        
+        for (long i = currentHead; i < currentTail; ++i) {
+            dequeue(cells[(int) i & mask]);
+        }
+    }
+    
+    /**
+     * Returns the number of the pending events. The value is exact only if
+     * neither end is in use.
+     *
+     * @return the number of the pending events.
+     */
+    public int size() {
+        return (int)(tail.get() - head.get());
+    }
+    
+    public long getCoalescedCount() {
+        return coalescedCount.get();
+    }
+    
+    /**
+     * Clears the queued flag of a cell and returns its last kind. A later
+     * publish queues the cell again.
+     */
+    private int dequeue(int cellIndex) {
+        int state;
+        
+        do {
+            state = states.get(cellIndex);
+        } while (!states.compareAndSet(cellIndex, state, state & ~QUEUED));
+        
+        return state & KIND_MASK;
+    }
+}
@@ -0,0 +1,292 @@
+package net.coderodde.funky.pathfinding;
+
+import java.awt.Point;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import static net.coderodde.funky.pathfinding.GridModel.MAXIMUM_NUMBER_OF_NEIGHBORS;
+
+/**
+ * This class holds everything a single search changes: its statistics, its
+ * exit and pause requests, and the search states, open lists and buffers it
+ * works on. Contexts are not thread-safe; see {@link SearchContextPool}.
+ */
+public final class SearchContext {
+    
+    /**
+     * The slot of the search state and the open list of a forward search.
+     */
+    public static final int FORWARD = 0;
+    
+    /**
+     * The slot of the search state and the open list of a backward search.
+     */
+    public static final int BACKWARD = 1;
+    
+    int frontierNodeCount;
+    int closedNodeCount;
+    double pathLength = Double.NaN;
+    volatile boolean exit;
+    volatile boolean pause;
+    
+    /**
+     * Guards the changes of {@link #pause} and wakes the paused searches.
+     */
+    private final ReentrantLock pauseLock = new ReentrantLock();
+    private final Condition pauseChanged = pauseLock.newCondition();
+    
+    /**
+     * Whether the open lists handed out count their operations. Set by
+     * {@link MeteredPathfinder} for the duration of a search.
+     */
+    boolean countOpenListOperations;
+    
+    /**
+     * Whether the search took a counting open list, that is, whether the
+     * counts below cover its queues.
+     */
+    boolean openListCounted;
+    long openListInsertionCount;
+    long openListDecreaseKeyCount;
+    long openListExtractionCount;
+    int peakOpenListSize;
+    
+    /**
+     * The buffers for expanding a node.
+     */
+    final int[] neighbors = new int[MAXIMUM_NUMBER_OF_NEIGHBORS];
+    final double[] weights = new double[MAXIMUM_NUMBER_OF_NEIGHBORS];
+    
+    /**
+     * A point for passing cells to the heuristics.
+     */
+    final Point point = new Point();
+    
+    private final GridSearchState[] states = new GridSearchState[2];
+    private final IntPriorityQueue[] openLists = new IntPriorityQueue[2];
+    private final IntPriorityQueue.Factory[] openListFactories =
+            new IntPriorityQueue.Factory[2];
+    private final int[] openListCapacities = new int[2];
+    private final CountingIntPriorityQueue[] countingOpenLists =
+            new CountingIntPriorityQueue[2];
+    
+    /**
+     * The data the pathfinders keep in this context, keyed by pathfinder.
+     */
+    private final Map<Object, Object> attachments = new IdentityHashMap<>();
+    
+    /**
+     * Runs the helper tasks of the searches, or {@code null} for the
+     * default one.
+     */
+    private volatile Executor executor;
+    
+    public int getNumberOfFrontierNodes() {
+        return frontierNodeCount;
+    }
+    
+    public int getNumberOfClosedNodes() {
+        return closedNodeCount;
+    }
+    
+    /**
+     * Returns the length of the path found, or of the partial path shown
+     * last while the search runs, or {@link Double#NaN} if there is none.
+     *
+     * @return the path length.
+     */
+    public double getPathLength() {
+        return pathLength;
+    }
+    
+    /**
+     * Returns the number of the elements added to the open lists of the last
+     * search. The open list operations are counted only by the searches run
+     * through a {@link MeteredPathfinder}.
+     *
+     * @return the number of insertions.
+     */
+    public long getOpenListInsertionCount() {
+        return openListInsertionCount;
+    }
+    
+    public long getOpenListDecreaseKeyCount() {
+        return openListDecreaseKeyCount;
+    }
+    
+    public long getOpenListExtractionCount() {
+        return openListExtractionCount;
+    }
+    
+    public int getPeakOpenListSize() {
+        return peakOpenListSize;
+    }
+    
+    public Executor getExecutor() {
+        return executor;
+    }
+    
+    /**
+     * Sets the executor running the helper tasks of the searches in this
+     * context, such as the backward half of a parallel bidirectional search.
+     *
+     * @param executor the executor, or {@code null} for the default one.
+     */
+    public void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+    
+    public void togglePause() {
+        pauseLock.lock();
+        
+        try {
+            pause = !pause;
+            pauseChanged.signalAll();
+        } finally {
+            pauseLock.unlock();
+        }
+    }
+    
+    public boolean isPaused() {
+        return pause;
+    }
+    
+    /**
+     * Asks the search to exit, waking it if it is paused.
+     */
+    public void requestExit() {
+        exit = true;
+        pauseLock.lock();
+        
+        try {
+            pauseChanged.signalAll();
+        } finally {
+            pauseLock.unlock();
+        }
+    }
+    
+    /**
+     * Resets the statistics and the exit and pause requests, so that the
+     * context may be used for a new search.
+     */
+    public void reset() {
+        resetStatistics();
+        exit = false;
+        pauseLock.lock();
+        
+        try {
+            pause = false;
+            pauseChanged.signalAll();
+        } finally {
+            pauseLock.unlock();
+        }
+    }
+    
+    /**
+     * Blocks the calling search while it is paused. An interrupt counts as a
+     * request to exit.
+     */
+    void awaitResume() {
+        pauseLock.lock();
+        
+        try {
+            while (pause && !exit) {
+                try {
+                    pauseChanged.await();
+                } catch (InterruptedException ex) {
+                    exit = true;
+                    Thread.currentThread().interrupt();
+                }
+            }
+        } finally {
+            pauseLock.unlock();
+        }
+    }
+    
+    /**
+     * Returns {@code true} if the search is asked to exit. Like in
+     * {@link #awaitResume()}, an interrupt of the searching thread counts as
+     * a request to exit.
+     */
+    boolean isExitRequested() {
+        if (!exit && Thread.currentThread().isInterrupted()) {
+            exit = true;
+        }
+        
+        return exit;
+    }
+    
+    void resetStatistics() {
+        frontierNodeCount = 0;
+        closedNodeCount = 0;
+        pathLength = Double.NaN;
+        openListInsertionCount = 0;
+        openListDecreaseKeyCount = 0;
+        openListExtractionCount = 0;
+        peakOpenListSize = 0;
+    }
+    
+    /**
+     * Returns a cleared search state for a grid of the given size, creating
+     * it only if the slot holds none or one for another size.
+     */
+    GridSearchState getSearchState(int slot, int width, int height) {
+        GridSearchState state = states[slot];
+        
+        if (state == null
+                || state.getWidth() != width
+                || state.getHeight() != height) {
+            state = new GridSearchState(width, height);
+            states[slot] = state;
+        } else {
+            state.clear();
+        }
+        
+        return state;
+    }
+    
+    /**
+     * Returns an empty open list from the given factory, reusing the one in
+     * the slot if it fits.
+     */
+    IntPriorityQueue getOpenList(int slot,
+                                 IntPriorityQueue.Factory factory,
+                                 int capacity) {
+        IntPriorityQueue open = openLists[slot];
+        
+        if (open == null
+                || openListFactories[slot] != factory
+                || openListCapacities[slot] != capacity) {
+            open = factory.create(capacity);
+            openLists[slot] = open;
+            openListFactories[slot] = factory;
+            openListCapacities[slot] = capacity;
+        } else {
+            open.clear();
+        }
+        
+        if (!countOpenListOperations) {
+            return open;
+        }
+        
+        openListCounted = true;
+        CountingIntPriorityQueue counting = countingOpenLists[slot];
+        
+        if (counting == null || counting.delegate != open) {
+            counting = new CountingIntPriorityQueue(open, this);
+            countingOpenLists[slot] = counting;
+        }
+        
+        return counting;
+    }
+    
+    Object getAttachment(Object owner) {
+        return attachments.get(owner);
+    }
+    
+    void setAttachment(Object owner, Object attachment) {
+        attachments.put(owner, attachment);
+    }
+}
@@ -0,0 +1,49 @@
+package net.coderodde.funky.pathfinding;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Objects;
+
+/**
+ * This class pools {@link SearchContext}s for threads that run searches
+ * concurrently. The most recently released context is handed out first,
+ * since its arrays are the most likely to be in cache.
+ */
+public final class SearchContextPool {
+    
+    private final Deque<SearchContext> contexts = new ArrayDeque<>();
+    
+    /**
+     * Takes a context out of the pool, or creates one if the pool is empty.
+     * The context is reset.
+     *
+     * @return a context.
+     */
+    public SearchContext acquire() {
+        SearchContext context;
+        
+        synchronized (contexts) {
+            context = contexts.pollFirst();
+        }
+        
+        if (context == null) {
+            return new SearchContext();
+        }
+        
+        context.reset();
+        return context;
+    }
+    
+    /**
+     * Returns a context to the pool. The caller must not use it afterwards.
+     *
+     * @param context the context to return.
+     */
+    public void release(SearchContext context) {
+        Objects.requireNonNull(context, "The context is null.");
+        
+        synchronized (contexts) {
+            contexts.addFirst(context);
+        }
+    }
+}
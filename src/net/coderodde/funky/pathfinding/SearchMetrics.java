@@ -0,0 +1,134 @@
+package net.coderodde.funky.pathfinding;
+
+import java.lang.management.ManagementFactory;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * This class keeps the {@link AlgorithmMetrics} of the searches, one per
+ * algorithm name, registered as MXBeans. It is thread-safe.
+ */
+public final class SearchMetrics {
+    
+    /**
+     * The domain of the names of the MXBeans.
+     */
+    public static final String DOMAIN = "net.coderodde.funky.pathfinding";
+    
+    private static volatile SearchMetrics platformMetrics;
+    
+    /**
+     * The server to register the MXBeans with, or {@code null} if they are
+     * not registered.
+     */
+    private final MBeanServer server;
+    
+    private final ConcurrentMap<String, AlgorithmMetrics> algorithms =
+            new ConcurrentHashMap<>();
+    
+    /**
+     * Constructs a registry whose metrics are registered with the given
+     * server.
+     *
+     * @param server the server, or {@code null} for metrics visible through
+     *               this object only.
+     */
+    public SearchMetrics(MBeanServer server) {
+        this.server = server;
+    }
+    
+    /**
+     * Returns the registry whose metrics are registered with the platform
+     * MBean server.
+     *
+     * @return the platform registry.
+     */
+    public static SearchMetrics getPlatformMetrics() {
+        SearchMetrics metrics = platformMetrics;
+        
+        if (metrics == null) {
+            synchronized (SearchMetrics.class) {
+                metrics = platformMetrics;
+                
+                if (metrics == null) {
+                    metrics = new SearchMetrics(
+                            ManagementFactory.getPlatformMBeanServer());
+                    platformMetrics = metrics;
+                }
+            }
+        }
+        
+        return metrics;
+    }
+    
+    /**
+     * Returns the metrics of the given algorithm, creating and registering
+     * them on the first request.
+     *
+     * @param algorithmName the name of the algorithm.
+     * @return the metrics.
+     */
+    public AlgorithmMetrics getAlgorithmMetrics(String algorithmName) {
+        Objects.requireNonNull(algorithmName, "The algorithm name is null.");
+        return algorithms.computeIfAbsent(algorithmName, this::register);
+    }
+    
+    /**
+     * Unregisters the MXBeans of all the algorithms and forgets their
+     * metrics.
+     */
+    public void unregisterAll() {
+        for (String algorithmName : algorithms.keySet()) {
+            algorithms.remove(algorithmName);
+            
+            if (server != null) {
+                try {
+                    server.unregisterMBean(getObjectName(algorithmName));
+                } catch (InstanceNotFoundException ex) {
+                    // Already unregistered by someone else.
+                } catch (JMException ex) {
+                    throw new IllegalStateException(
+                            "Could not unregister the metrics of " +
+                            algorithmName + ".", ex);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Returns the name of the MXBean of the metrics of an algorithm.
+     *
+     * @param algorithmName the name of the algorithm.
+     * @return the object name.
+     */
+    public static ObjectName getObjectName(String algorithmName) {
+        try {
+            return new ObjectName(DOMAIN + ":type=SearchMetrics,algorithm=" +
+                                  ObjectName.quote(algorithmName));
+        } catch (JMException ex) {
+            throw new IllegalArgumentException(
+                    "Bad algorithm name: " + algorithmName + ".", ex);
+        }
+    }
+    
+    private AlgorithmMetrics register(String algorithmName) {
+        AlgorithmMetrics metrics = new AlgorithmMetrics(algorithmName);
+        
+        if (server != null) {
+            try {
+                server.registerMBean(metrics, getObjectName(algorithmName));
+            } catch (JMException ex) {
+                throw new IllegalStateException(
+                        "Could not register the metrics of " +
+                        algorithmName + ".", ex);
+            }
+        }
+        
+        return metrics;
+    }
+}
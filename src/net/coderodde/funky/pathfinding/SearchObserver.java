@@ -0,0 +1,44 @@
+package net.coderodde.funky.pathfinding;
+
+/**
+ * This interface defines the callbacks through which a pathfinder reports
+ * its progress on the cells of a {@link GridModel}. The callbacks of a search
+ * never run concurrently.
+ */
+public interface SearchObserver {
+    
+    /**
+     * An observer that ignores all the events.
+     */
+    public static final SearchObserver NO_OP = new SearchObserver() {
+        
+        @Override
+        public void markAsClosed(int cellIndex) {}
+        
+        @Override
+        public void unmarkAsClosed(int cellIndex) {}
+        
+        @Override
+        public void markAsFrontier(int cellIndex) {}
+        
+        @Override
+        public void markAsPath(int cellIndex) {}
+        
+        @Override
+        public void repaint() {}
+    };
+    
+    public void markAsClosed(int cellIndex);
+    
+    public void unmarkAsClosed(int cellIndex);
+    
+    public void markAsFrontier(int cellIndex);
+    
+    public void markAsPath(int cellIndex);
+    
+    /**
+     * Called whenever the pathfinder has made enough progress to be worth
+     * showing.
+     */
+    public void repaint();
+}
@@ -0,0 +1,231 @@
+package net.coderodde.funky.pathfinding;
+
+import java.awt.Point;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class runs searches on an executor and hands out a future for each,
+ * through which a search may be paused, resumed or cancelled. By default the
+ * searches run on a pool of daemon threads, one per processor.
+ */
+public final class SearchScheduler implements AutoCloseable {
+    
+    /**
+     * The time an idle thread of the default pool waits for work before it
+     * ends.
+     */
+    private static final long IDLE_THREAD_SECONDS = 30;
+    
+    /**
+     * The future of a scheduled search.
+     */
+    public static final class SearchFuture extends FutureTask<List<Point>> {
+        
+        private final AbstractPathFinder pathfinder;
+        private final SearchContext context;
+        private final AtomicBoolean started = new AtomicBoolean();
+        
+        /**
+         * Completed once the search has returned, or once it is cancelled
+         * before it started.
+         */
+        private final CompletableFuture<Void> stopped =
+                new CompletableFuture<>();
+        
+        SearchFuture(AbstractPathFinder pathfinder,
+                     Point sourcePoint,
+                     Point targetPoint,
+                     SearchContext context) {
+            super(() -> pathfinder.search(sourcePoint, targetPoint, context));
+            this.pathfinder = pathfinder;
+            this.context = context;
+        }
+        
+        public AbstractPathFinder getPathfinder() {
+            return pathfinder;
+        }
+        
+        public SearchContext getSearchContext() {
+            return context;
+        }
+        
+        @Override
+        public void run() {
+            if (!started.compareAndSet(false, true)) {
+                return;
+            }
+            
+            try {
+                super.run();
+            } finally {
+                stopped.complete(null);
+            }
+        }
+        
+        /**
+         * Runs an action once the search has returned, or right away if it
+         * has stopped already. Unlike {@link #done()}, this waits for a
+         * cancelled search.
+         *
+         * @param action the action.
+         */
+        public void whenStopped(Runnable action) {
+            Objects.requireNonNull(action, "The action is null.");
+            stopped.thenRun(action);
+        }
+        
+        public void togglePause() {
+            context.togglePause();
+        }
+        
+        public boolean isPaused() {
+            return context.isPaused();
+        }
+        
+        /**
+         * Asks the search to exit. Unlike {@link #cancel(boolean)}, the future
+         * completes normally once the search returns, usually with
+         * {@code null}, so that the caller may wait for the search to stop.
+         */
+        public void halt() {
+            context.requestExit();
+        }
+        
+        /**
+         * Cancels the search, asking it to exit if it runs already.
+         *
+         * @param mayInterruptIfRunning whether to interrupt the thread running
+         *                              the search as well.
+         * @return {@code false} if the search could not be cancelled, most
+         *         likely because it has completed already.
+         */
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            
+            if (cancelled) {
+                context.requestExit();
+                
+                if (started.compareAndSet(false, true)) {
+                    stopped.complete(null);
+                }
+            }
+            
+            return cancelled;
+        }
+    }
+    
+    private final Executor executor;
+    
+    /**
+     * The executor created by this scheduler, or {@code null} if the
+     * executor was passed in and belongs to the caller.
+     */
+    private final ExecutorService ownExecutor;
+    
+    /**
+     * Constructs a scheduler running the searches on a pool of daemon
+     * threads, one per processor.
+     */
+    public SearchScheduler() {
+        int threads = Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(
+                threads,
+                threads,
+                IDLE_THREAD_SECONDS,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                (r) -> {
+                    Thread thread = new Thread(
+                            r,
+                            "Search scheduler " +
+                            threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        pool.allowCoreThreadTimeOut(true);
+        this.ownExecutor = pool;
+        this.executor = pool;
+    }
+    
+    /**
+     * Constructs a scheduler running the searches on the given executor,
+     * which remains owned by the caller.
+     *
+     * @param executor the executor.
+     */
+    public SearchScheduler(Executor executor) {
+        this.executor = Objects.requireNonNull(executor,
+                                               "The executor is null.");
+        this.ownExecutor = null;
+    }
+    
+    /**
+     * Schedules a search in a new context.
+     *
+     * @param pathfinder  the pathfinder.
+     * @param sourcePoint the source point.
+     * @param targetPoint the target point.
+     * @return the future of the search.
+     */
+    public SearchFuture submit(AbstractPathFinder pathfinder,
+                               Point sourcePoint,
+                               Point targetPoint) {
+        return submit(pathfinder,
+                      sourcePoint,
+                      targetPoint,
+                      new SearchContext());
+    }
+    
+    /**
+     * Schedules a search in the given context, which must not be used by any
+     * other search until this one completes.
+     *
+     * @param pathfinder  the pathfinder.
+     * @param sourcePoint the source point.
+     * @param targetPoint the target point.
+     * @param context     the context of the search.
+     * @return the future of the search.
+     */
+    public SearchFuture submit(AbstractPathFinder pathfinder,
+                               Point sourcePoint,
+                               Point targetPoint,
+                               SearchContext context) {
+        Objects.requireNonNull(pathfinder, "The pathfinder is null.");
+        Objects.requireNonNull(sourcePoint, "The source point is null.");
+        Objects.requireNonNull(targetPoint, "The target point is null.");
+        Objects.requireNonNull(context, "The search context is null.");
+        if (context.getExecutor() == null) {
+            context.setExecutor(executor);
+        }
+        
+        SearchFuture future = new SearchFuture(pathfinder,
+                                               sourcePoint,
+                                               targetPoint,
+                                               context);
+        executor.execute(future);
+        return future;
+    }
+    
+    /**
+     * Shuts down the executor created by this scheduler, letting the
+     * scheduled searches complete. An executor passed in is left alone.
+     */
+    @Override
+    public void close() {
+        if (ownExecutor != null) {
+            ownExecutor.shutdown();
+        }
+    }
+}
@@ -25,12 +25,4 @@ public final class Utils {
         
         return height;
     }
-    
-    static void sleep(int milliseconds) {
-        try {
-            Thread.sleep(milliseconds);
-        } catch (InterruptedException ex) {
-            
-        }
-    }
 }
@@ -0,0 +1,126 @@
+package net.coderodde.funky.pathfinding;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+import org.junit.After;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class BatchPathfinderTest {
+    
+    private static final int WIDTH = 64;
+    private static final int HEIGHT = 48;
+    private static final double EPSILON = 1e-9;
+    
+    private BatchPathfinder batch;
+    
+    @After
+    public void closeBatch() {
+        if (batch != null) {
+            batch.close();
+        }
+    }
+    
+    @Test
+    public void matchesDijkstraInQueryOrder() {
+        Random random = new Random(23L);
+        GridModel grid = createRandomGrid(random);
+        List<BatchPathfinder.Query> queries = new ArrayList<>();
+        Supplier<AbstractPathFinder> astar = AStarPathfinder::new;
+        Supplier<AbstractPathFinder> nbastar =
+                NewBidirectionalAStarPathfinder::new;
+        
+        while (queries.size() < 200) {
+            Point source = new Point(random.nextInt(WIDTH),
+                                     random.nextInt(HEIGHT));
+            Point target = new Point(random.nextInt(WIDTH),
+                                     random.nextInt(HEIGHT));
+            
+            if (!grid.isWall(source.x, source.y)
+                    && !grid.isWall(target.x, target.y)) {
+                queries.add(new BatchPathfinder.Query(
+                        source,
+                        target,
+                        queries.size() % 2 == 0 ? astar : nbastar));
+            }
+        }
+        
+        batch = new BatchPathfinder(grid, 4);
+        List<BatchPathfinder.Result> results = batch.search(queries);
+        AbstractPathFinder dijkstra = new DijkstraPathfinder();
+        dijkstra.setGridModel(grid);
+        assertEquals(queries.size(), results.size());
+        
+        for (int i = 0; i < queries.size(); ++i) {
+            BatchPathfinder.Query query = queries.get(i);
+            BatchPathfinder.Result result = results.get(i);
+            assertSame(query, result.getQuery());
+            
+            try {
+                List<Point> expected =
+                        dijkstra.search(query.getSourcePoint(),
+                                        query.getTargetPoint());
+                assertEquals(dijkstra.getLength(expected),
+                             result.getPathLength(),
+                             EPSILON);
+                assertEquals(query.getSourcePoint(), result.getPath().get(0));
+                assertEquals(query.getTargetPoint(),
+                             result.getPath()
+                                   .get(result.getPath().size() - 1));
+            } catch (TargetNotReachableException ex) {
+                assertNull(result.getPath());
+                assertTrue(Double.isNaN(result.getPathLength()));
+            }
+        }
+    }
+    
+    @Test
+    public void releasesTheGridListenersAfterEachBatch() {
+        GridModel grid = new GridModel(20, 20);
+        batch = new BatchPathfinder(grid, 3);
+        
+        for (int round = 0; round < 5; ++round) {
+            List<BatchPathfinder.Query> queries = new ArrayList<>();
+            
+            for (int i = 0; i < 30; ++i) {
+                // A distinct supplier per query, like a capturing lambda.
+                int offset = i % 7;
+                queries.add(new BatchPathfinder.Query(
+                        new Point(offset, 0),
+                        new Point(19, 19 - offset),
+                        new Supplier<AbstractPathFinder>() {
+                            @Override
+                            public AbstractPathFinder get() {
+                                return new DStarLitePathfinder();
+                            }
+                        }));
+            }
+            
+            List<BatchPathfinder.Result> results = batch.search(queries);
+            assertEquals(14.0 * Math.sqrt(2.0),
+                         results.get(5).getPathLength(),
+                         EPSILON);
+            assertEquals(0, grid.getNumberOfChangeListeners());
+        }
+    }
+    
+    private static GridModel createRandomGrid(Random random) {
+        GridModel grid = new GridModel(WIDTH, HEIGHT);
+        
+        for (int y = 0; y < HEIGHT; ++y) {
+            for (int x = 0; x < WIDTH; ++x) {
+                if (random.nextDouble() < 0.3) {
+                    grid.setWall(x, y, true);
+                }
+            }
+        }
+        
+        return grid;
+    }
+}
@@ -0,0 +1,118 @@
+package net.coderodde.funky.pathfinding;
+
+import java.awt.Point;
+import java.io.IOException;
+import java.nio.ReadOnlyBufferException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BinaryGridFormatTest {
+    
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+    
+    @Test
+    public void mapsWhatWasWritten() throws IOException {
+        Random random = new Random(17L);
+        int[][] sizes = { { 1, 1 }, { 63, 5 }, { 64, 7 }, { 65, 3 },
+                          { 130, 40 }, { 700, 20 } };
+        
+        for (int[] size : sizes) {
+            GridModel grid = new GridModel(size[0], size[1]);
+            
+            for (int y = 0; y < size[1]; ++y) {
+                for (int x = 0; x < size[0]; ++x) {
+                    grid.setWall(x, y, random.nextInt(3) == 0);
+                }
+            }
+            
+            Path file = folder.newFile().toPath();
+            BinaryGridFormat.write(grid, file);
+            
+            assertEquals(BinaryGridFormat.HEADER_SIZE +
+                         8L * grid.getWordsPerRow() * size[1],
+                         Files.size(file));
+            assertSameWalls(grid, BinaryGridFormat.map(file, false));
+        }
+    }
+    
+    @Test
+    public void writesTheChangesOfAWritableGridThrough() throws IOException {
+        Path file = folder.newFile().toPath();
+        BinaryGridFormat.write(new GridModel(100, 50), file);
+        GridModel grid = BinaryGridFormat.map(file, true);
+        
+        grid.setWall(99, 49, true);
+        grid.setWall(0, 0, true);
+        grid.setWall(0, 0, false);
+        
+        GridModel mapped = BinaryGridFormat.map(file, false);
+        assertTrue(mapped.isWall(99, 49));
+        assertFalse(mapped.isWall(0, 0));
+        assertSameWalls(grid, mapped);
+    }
+    
+    @Test(expected = ReadOnlyBufferException.class)
+    public void rejectsChangesOfAReadOnlyGrid() throws IOException {
+        Path file = folder.newFile().toPath();
+        BinaryGridFormat.write(new GridModel(10, 10), file);
+        BinaryGridFormat.map(file, false).setWall(3, 3, true);
+    }
+    
+    @Test
+    public void searchesAMappedGridLikeTheOriginal() throws IOException {
+        Random random = new Random(19L);
+        GridModel grid = new GridModel(80, 60);
+        
+        for (int i = 0; i < 1500; ++i) {
+            grid.setWall(random.nextInt(80), random.nextInt(60), true);
+        }
+        
+        grid.setWall(0, 0, false);
+        grid.setWall(79, 59, false);
+        Path file = folder.newFile().toPath();
+        BinaryGridFormat.write(grid, file);
+        AbstractPathFinder original = new DijkstraPathfinder();
+        AbstractPathFinder mapped = new DijkstraPathfinder();
+        original.setGridModel(grid);
+        mapped.setGridModel(BinaryGridFormat.map(file, false));
+        
+        assertEquals(original.search(new Point(0, 0), new Point(79, 59)),
+                     mapped.search(new Point(0, 0), new Point(79, 59)));
+    }
+    
+    @Test(expected = IOException.class)
+    public void rejectsATruncatedFile() throws IOException {
+        Path file = folder.newFile().toPath();
+        BinaryGridFormat.write(new GridModel(100, 100), file);
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 8));
+        BinaryGridFormat.map(file, false);
+    }
+    
+    @Test(expected = IOException.class)
+    public void rejectsAForeignFile() throws IOException {
+        Path file = folder.newFile().toPath();
+        Files.write(file, new byte[BinaryGridFormat.HEADER_SIZE + 8]);
+        BinaryGridFormat.map(file, false);
+    }
+    
+    private static void assertSameWalls(GridModel expected, GridModel actual) {
+        assertEquals(expected.getWidth(), actual.getWidth());
+        assertEquals(expected.getHeight(), actual.getHeight());
+        
+        for (int y = 0; y < expected.getHeight(); ++y) {
+            for (int x = 0; x < expected.getWidth(); ++x) {
+                assertEquals(expected.isWall(x, y), actual.isWall(x, y));
+            }
+        }
+    }
+}
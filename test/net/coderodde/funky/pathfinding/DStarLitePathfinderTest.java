@@ -0,0 +1,65 @@
+package net.coderodde.funky.pathfinding;
+
+import java.awt.Point;
+import java.util.List;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+
+public class DStarLitePathfinderTest {
+    
+    private static final double EPSILON = 1e-9;
+    
+    @Test
+    public void registryDisposeReleasesTheGridListeners() {
+        GridModel grid = new GridModel(20, 20);
+        PathfinderRegistry registry = new PathfinderRegistry(grid);
+        registry.create(PathfinderRegistry.DSTAR_LITE_NAME);
+        registry.create(PathfinderRegistry.DSTAR_LITE_NAME);
+        registry.create(PathfinderRegistry.ASTAR_NAME);
+        assertEquals(2, grid.getNumberOfChangeListeners());
+        
+        registry.dispose();
+        assertEquals(0, grid.getNumberOfChangeListeners());
+    }
+    
+    @Test
+    public void searchesCorrectlyAfterMissingChanges() {
+        GridModel grid = new GridModel(20, 20);
+        DStarLitePathfinder pathfinder = new DStarLitePathfinder();
+        pathfinder.setGridModel(grid);
+        SearchContext context = new SearchContext();
+        Point source = new Point(0, 10);
+        Point target = new Point(19, 10);
+        pathfinder.search(source, target, context);
+        
+        pathfinder.dispose();
+        assertEquals(0, grid.getNumberOfChangeListeners());
+        
+        for (int y = 0; y < 19; ++y) {
+            grid.setWall(10, y, true);
+        }
+        
+        assertSameLength(grid, source, target,
+                         pathfinder.search(source, target, context));
+        
+        pathfinder.setGridModel(grid);
+        assertEquals(1, grid.getNumberOfChangeListeners());
+        grid.setWall(10, 19, true);
+        grid.setWall(10, 0, false);
+        
+        assertSameLength(grid, source, target,
+                         pathfinder.search(source, target, context));
+        pathfinder.dispose();
+    }
+    
+    private static void assertSameLength(GridModel grid,
+                                         Point source,
+                                         Point target,
+                                         List<Point> path) {
+        AbstractPathFinder dijkstra = new DijkstraPathfinder();
+        dijkstra.setGridModel(grid);
+        assertEquals(dijkstra.getLength(dijkstra.search(source, target)),
+                     dijkstra.getLength(path),
+                     EPSILON);
+    }
+}
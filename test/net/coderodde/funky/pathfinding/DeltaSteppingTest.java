@@ -0,0 +1,120 @@
+package net.coderodde.funky.pathfinding;
+
+import java.awt.Point;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.AfterClass;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class DeltaSteppingTest {
+    
+    private static final int WIDTH = 96;
+    private static final int HEIGHT = 64;
+    private static final double EPSILON = 1e-9;
+    
+    private static final ForkJoinPool POOL = new ForkJoinPool(4);
+    
+    @AfterClass
+    public static void shutDownPool() {
+        POOL.shutdownNow();
+    }
+    
+    @Test
+    public void matchesDijkstraForEveryDelta() {
+        for (double delta : new double[]{ 0.25, 1.0, 3.0, 100.0 }) {
+            Random random = new Random(11L);
+            GridModel grid = createRandomGrid(random);
+            Point source = new Point(WIDTH / 2, HEIGHT / 2);
+            grid.setWall(source.x, source.y, false);
+            DeltaStepping.Result result =
+                    new DeltaStepping(grid, delta, POOL).compute(source);
+            assertMatchesDijkstra(grid, source, result, random);
+        }
+    }
+    
+    @Test
+    public void matchesAFlowFieldOnEveryCell() {
+        GridModel grid = createRandomGrid(new Random(13L));
+        Point source = new Point(5, 5);
+        grid.setWall(source.x, source.y, false);
+        DeltaStepping.Result result = new DeltaStepping(grid).compute(source);
+        FlowField field = new FlowField(grid);
+        
+        try {
+            field.setTarget(source);
+            field.update();
+            
+            for (int cell = 0; cell < WIDTH * HEIGHT; ++cell) {
+                assertEquals(field.getDistance(cell),
+                             result.getDistance(cell),
+                             EPSILON);
+            }
+        } finally {
+            field.dispose();
+        }
+    }
+    
+    private static void assertMatchesDijkstra(GridModel grid,
+                                              Point source,
+                                              DeltaStepping.Result result,
+                                              Random random) {
+        AbstractPathFinder dijkstra = new DijkstraPathfinder();
+        dijkstra.setGridModel(grid);
+        
+        for (int i = 0; i < 40; ++i) {
+            Point target = new Point(random.nextInt(WIDTH),
+                                     random.nextInt(HEIGHT));
+            
+            if (grid.isWall(target.x, target.y)) {
+                continue;
+            }
+            
+            List<Point> path = result.getPath(target);
+            
+            try {
+                double expected = getLength(dijkstra.search(source, target));
+                assertEquals(expected,
+                             result.getDistance(grid.getIndex(target)),
+                             EPSILON);
+                assertEquals(expected, getLength(path), EPSILON);
+                assertEquals(source, path.get(0));
+                assertEquals(target, path.get(path.size() - 1));
+                
+                for (int j = 1; j < path.size(); ++j) {
+                    assertTrue(grid.expand(path.get(j - 1))
+                                   .contains(path.get(j)));
+                }
+            } catch (TargetNotReachableException ex) {
+                assertNull(path);
+            }
+        }
+    }
+    
+    private static GridModel createRandomGrid(Random random) {
+        GridModel grid = new GridModel(WIDTH, HEIGHT);
+        
+        for (int y = 0; y < HEIGHT; ++y) {
+            for (int x = 0; x < WIDTH; ++x) {
+                if (random.nextDouble() < 0.3) {
+                    grid.setWall(x, y, true);
+                }
+            }
+        }
+        
+        return grid;
+    }
+    
+    private static double getLength(List<Point> path) {
+        double length = 0.0;
+        
+        for (int i = 1; i < path.size(); ++i) {
+            length += path.get(i - 1).distance(path.get(i));
+        }
+        
+        return length;
+    }
+}
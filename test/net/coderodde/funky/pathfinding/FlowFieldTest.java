@@ -0,0 +1,158 @@
+package net.coderodde.funky.pathfinding;
+
+import java.awt.Point;
+import java.util.List;
+import java.util.Random;
+import org.junit.After;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class FlowFieldTest {
+    
+    private static final int WIDTH = 48;
+    private static final int HEIGHT = 32;
+    private static final double EPSILON = 1e-9;
+    
+    private FlowField field;
+    private FlowField reference;
+    
+    @After
+    public void disposeFields() {
+        if (field != null) {
+            field.dispose();
+        }
+        
+        if (reference != null) {
+            reference.dispose();
+        }
+    }
+    
+    @Test
+    public void matchesDijkstra() {
+        Random random = new Random(3L);
+        GridModel grid = createRandomGrid(random);
+        Point target = new Point(WIDTH / 2, HEIGHT / 2);
+        grid.setWall(target.x, target.y, false);
+        field = new FlowField(grid);
+        field.setTarget(target);
+        field.update();
+        AbstractPathFinder dijkstra = new DijkstraPathfinder();
+        dijkstra.setGridModel(grid);
+        
+        for (int i = 0; i < 50; ++i) {
+            Point source = new Point(random.nextInt(WIDTH),
+                                     random.nextInt(HEIGHT));
+            
+            if (grid.isWall(source.x, source.y)) {
+                continue;
+            }
+            
+            List<Point> path = field.getPath(source);
+            
+            try {
+                List<Point> expected = dijkstra.search(source, target);
+                assertEquals(getLength(expected), getLength(path), EPSILON);
+                assertEquals(getLength(expected),
+                             field.getDistance(grid.getIndex(source)),
+                             EPSILON);
+                assertEquals(target, path.get(path.size() - 1));
+            } catch (TargetNotReachableException ex) {
+                assertNull(path);
+            }
+        }
+    }
+    
+    @Test
+    public void incrementalUpdatesMatchAFullComputation() {
+        Random random = new Random(5L);
+        GridModel grid = createRandomGrid(random);
+        Point target = new Point(3, 3);
+        field = new FlowField(grid);
+        field.setTarget(target);
+        field.update();
+        
+        for (int round = 0; round < 200; ++round) {
+            int changes = 1 + random.nextInt(round % 50 == 49 ? 5000 : 20);
+            
+            for (int i = 0; i < changes; ++i) {
+                int x = random.nextInt(WIDTH);
+                int y = random.nextInt(HEIGHT);
+                grid.setWall(x, y, !grid.isWall(x, y));
+            }
+            
+            field.update();
+            reference = new FlowField(grid);
+            reference.setTarget(target);
+            reference.update();
+            assertSameField(grid, reference, field);
+            reference.dispose();
+            reference = null;
+        }
+    }
+    
+    @Test
+    public void followsANewTarget() {
+        GridModel grid = createRandomGrid(new Random(7L));
+        Point target = new Point(WIDTH - 3, HEIGHT - 3);
+        field = new FlowField(grid);
+        field.setTarget(new Point(2, 2));
+        field.update();
+        field.setTarget(target);
+        field.update();
+        reference = new FlowField(grid);
+        reference.setTarget(target);
+        reference.update();
+        
+        assertEquals(target, field.getTarget());
+        assertSameField(grid, reference, field);
+    }
+    
+    private static void assertSameField(GridModel grid,
+                                        FlowField expected,
+                                        FlowField actual) {
+        for (int cell = 0; cell < WIDTH * HEIGHT; ++cell) {
+            double distance = actual.getDistance(cell);
+            assertEquals(expected.getDistance(cell), distance, EPSILON);
+            int next = actual.getNextStep(cell);
+            
+            if (distance == Double.POSITIVE_INFINITY || distance == 0.0) {
+                assertEquals(-1, next);
+                continue;
+            }
+            
+            // The next step lies on a shortest path.
+            Point point = new Point(cell % WIDTH, cell / WIDTH);
+            Point nextPoint = new Point(next % WIDTH, next / WIDTH);
+            assertTrue(grid.expand(point).contains(nextPoint));
+            assertEquals(distance,
+                         point.distance(nextPoint) + actual.getDistance(next),
+                         EPSILON);
+        }
+    }
+    
+    private static GridModel createRandomGrid(Random random) {
+        GridModel grid = new GridModel(WIDTH, HEIGHT);
+        
+        for (int y = 0; y < HEIGHT; ++y) {
+            for (int x = 0; x < WIDTH; ++x) {
+                if (random.nextDouble() < 0.25) {
+                    grid.setWall(x, y, true);
+                }
+            }
+        }
+        
+        return grid;
+    }
+    
+    private static double getLength(List<Point> path) {
+        double length = 0.0;
+        
+        for (int i = 1; i < path.size(); ++i) {
+            length += path.get(i - 1).distance(path.get(i));
+        }
+        
+        return length;
+    }
+}
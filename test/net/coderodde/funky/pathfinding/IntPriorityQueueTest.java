@@ -0,0 +1,179 @@
+package net.coderodde.funky.pathfinding;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks every {@link IntPriorityQueue} against a plain array model.
+ */
+@RunWith(Parameterized.class)
+public class IntPriorityQueueTest {
+    
+    private static final int CAPACITY = 64;
+    private static final int OPERATIONS = 20_000;
+    
+    @Parameters(name = "{0}")
+    public static Collection<Object[]> getFactories() {
+        List<Object[]> factories = new ArrayList<>();
+        factories.add(new Object[]{
+            "IntIndexedBinaryHeap",
+            (IntPriorityQueue.Factory) IntIndexedBinaryHeap::new
+        });
+        factories.add(new Object[]{
+            "IntDaryHeap",
+            (IntPriorityQueue.Factory) IntDaryHeap::new
+        });
+        factories.add(new Object[]{
+            "IntDaryHeap (d = 2)",
+            (IntPriorityQueue.Factory) capacity -> new IntDaryHeap(capacity, 2)
+        });
+        factories.add(new Object[]{
+            "IntPairingHeap",
+            (IntPriorityQueue.Factory) IntPairingHeap::new
+        });
+        factories.add(new Object[]{
+            "IntLazyBinaryHeap",
+            (IntPriorityQueue.Factory) IntLazyBinaryHeap::new
+        });
+        return factories;
+    }
+    
+    private final IntPriorityQueue.Factory factory;
+    
+    public IntPriorityQueueTest(String name,
+                                IntPriorityQueue.Factory factory) {
+        this.factory = factory;
+    }
+    
+    @Test
+    public void extractsInPriorityOrder() {
+        Random random = new Random(1L);
+        IntPriorityQueue queue = factory.create(3000);
+        double[] priorities = new double[3000];
+        
+        for (int element = 0; element < priorities.length; ++element) {
+            priorities[element] = random.nextInt(100);
+            queue.add(element, priorities[element]);
+        }
+        
+        double previous = Double.NEGATIVE_INFINITY;
+        
+        while (queue.size() > 0) {
+            double priority = priorities[queue.extractMinimum()];
+            assertTrue(previous <= priority);
+            previous = priority;
+        }
+    }
+    
+    @Test
+    public void ignoresPresentElementsAndWorsePriorities() {
+        IntPriorityQueue queue = factory.create(CAPACITY);
+        queue.add(3, 5.0);
+        queue.add(3, 1.0);
+        queue.add(4, 2.0);
+        
+        assertEquals(2, queue.size());
+        assertEquals(4, queue.top());
+        assertFalse(queue.decreasePriority(3, 7.0));
+        assertFalse(queue.decreasePriority(9, 0.0));
+        assertTrue(queue.decreasePriority(3, 0.5));
+        assertEquals(3, queue.extractMinimum());
+        assertEquals(4, queue.extractMinimum());
+        assertEquals(0, queue.size());
+    }
+    
+    @Test
+    public void matchesAnArrayModelUnderRandomOperations() {
+        for (long seed = 0; seed < 10; ++seed) {
+            fuzz(new Random(seed));
+        }
+    }
+    
+    private void fuzz(Random random) {
+        IntPriorityQueue queue = factory.create(CAPACITY);
+        double[] model = new double[CAPACITY];
+        Arrays.fill(model, Double.NaN);
+        int size = 0;
+        
+        for (int operation = 0; operation < OPERATIONS; ++operation) {
+            int element = random.nextInt(CAPACITY);
+            // Few distinct priorities, so that ties are common.
+            double priority = random.nextInt(32);
+            
+            if (random.nextInt(500) == 0) {
+                queue.clear();
+                Arrays.fill(model, Double.NaN);
+                size = 0;
+            }
+            
+            switch (random.nextInt(10)) {
+                case 0:
+                case 1:
+                case 2:
+                    queue.add(element, priority);
+                    
+                    if (Double.isNaN(model[element])) {
+                        model[element] = priority;
+                        size++;
+                    }
+                    
+                    break;
+                
+                case 3:
+                case 4:
+                    boolean improves = !Double.isNaN(model[element])
+                                       && priority < model[element];
+                    assertEquals(improves,
+                                 queue.decreasePriority(element, priority));
+                    
+                    if (improves) {
+                        model[element] = priority;
+                    }
+                    
+                    break;
+                
+                case 5:
+                    if (size > 0) {
+                        assertEquals(getMinimum(model),
+                                     model[queue.top()],
+                                     0.0);
+                    }
+                    
+                    break;
+                
+                default:
+                    if (size > 0) {
+                        double minimum = getMinimum(model);
+                        int minimumElement = queue.extractMinimum();
+                        assertEquals(minimum, model[minimumElement], 0.0);
+                        model[minimumElement] = Double.NaN;
+                        size--;
+                    }
+            }
+            
+            assertEquals(size, queue.size());
+        }
+    }
+    
+    private static double getMinimum(double[] model) {
+        double minimum = Double.POSITIVE_INFINITY;
+        
+        for (double priority : model) {
+            if (!Double.isNaN(priority)) {
+                minimum = Math.min(minimum, priority);
+            }
+        }
+        
+        return minimum;
+    }
+}
@@ -0,0 +1,60 @@
+package net.coderodde.funky.pathfinding;
+
+import java.awt.Point;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MeteredPathfinderTest {
+    
+    private final GridModel grid = new GridModel(30, 20);
+    private final SearchMetrics metrics = new SearchMetrics(null);
+    private final PathfinderRegistry registry =
+            new PathfinderRegistry(grid, metrics);
+    
+    @Test
+    public void recordsTheSearchesOfARegistryPathfinder() {
+        AbstractPathFinder pathfinder =
+                registry.create(PathfinderRegistry.ASTAR_NAME);
+        pathfinder.search(new Point(0, 0), new Point(29, 0));
+        pathfinder.search(new Point(0, 0), new Point(29, 19));
+        
+        AlgorithmMetrics astar =
+                metrics.getAlgorithmMetrics(PathfinderRegistry.ASTAR_NAME);
+        assertEquals(2, astar.getSearchCount());
+        assertEquals(2, astar.getPathCount());
+        assertEquals(19.0 * Math.sqrt(2.0) + 10.0,
+                     astar.getLastPathCost(),
+                     1e-9);
+        assertTrue(astar.getOpenListInsertionCount() > 0);
+        assertTrue(astar.getOpenListExtractionCount() > 0);
+        assertTrue(astar.getPeakOpenListSize() > 0);
+    }
+    
+    @Test
+    public void omitsTheOpenListsOfTheEnginesWithQueuesOfTheirOwn() {
+        for (String name : new String[]{ PathfinderRegistry.IDASTAR_NAME,
+                                         PathfinderRegistry.FRINGE_NAME,
+                                         PathfinderRegistry.DSTAR_LITE_NAME }) {
+            registry.create(name).search(new Point(0, 0), new Point(29, 19));
+            AlgorithmMetrics algorithm = metrics.getAlgorithmMetrics(name);
+            
+            assertEquals(1, algorithm.getSearchCount());
+            assertTrue(algorithm.getExpansionCount() > 0);
+            assertEquals(-1, algorithm.getOpenListInsertionCount());
+            assertEquals(-1, algorithm.getOpenListDecreaseKeyCount());
+            assertEquals(-1, algorithm.getOpenListExtractionCount());
+            assertEquals(-1, algorithm.getPeakOpenListSize());
+        }
+    }
+    
+    @Test
+    public void disposesTheWrappedPathfinder() {
+        AbstractPathFinder pathfinder =
+                registry.create(PathfinderRegistry.DSTAR_LITE_NAME);
+        assertEquals(1, grid.getNumberOfChangeListeners());
+        
+        pathfinder.dispose();
+        assertEquals(0, grid.getNumberOfChangeListeners());
+    }
+}
@@ -0,0 +1,111 @@
+package net.coderodde.funky.pathfinding;
+
+import java.awt.Color;
+import java.awt.Point;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import javax.imageio.ImageIO;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MovingAIFormatTest {
+    
+    private static final String MAP =
+            "type octile\n" +
+            "height 3\n" +
+            "width 5\n" +
+            "map\n" +
+            ".@T..\n" +
+            "GW.S.\n" +
+            "....O\n";
+    
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+    
+    @Test
+    public void readsAMap() throws IOException {
+        GridModel grid = MovingAIFormat.readMap(write(MAP));
+        
+        assertEquals(5, grid.getWidth());
+        assertEquals(3, grid.getHeight());
+        assertFalse(grid.isWall(0, 0));
+        assertTrue(grid.isWall(1, 0));
+        assertTrue(grid.isWall(2, 0));
+        assertFalse(grid.isWall(0, 1));
+        assertTrue(grid.isWall(1, 1));
+        assertFalse(grid.isWall(3, 1));
+        assertTrue(grid.isWall(4, 2));
+    }
+    
+    @Test(expected = IOException.class)
+    public void rejectsAMapWithoutASize() throws IOException {
+        MovingAIFormat.readMap(write("type octile\nmap\n.....\n"));
+    }
+    
+    @Test(expected = IOException.class)
+    public void rejectsAShortRow() throws IOException {
+        MovingAIFormat.readMap(write(MAP.replace("GW.S.", "GW.S")));
+    }
+    
+    @Test
+    public void readsAScenario() throws IOException {
+        List<MovingAIFormat.Query> queries = MovingAIFormat.readScenario(
+                write("version 1\n" +
+                      "0\tmaps/a map.map\t5\t3\t0\t0\t3\t1\t3.41421356\n" +
+                      "\n" +
+                      "2\tb.map\t5\t3\t4\t0\t0\t2\t4.82842712\n"));
+        
+        assertEquals(2, queries.size());
+        assertEquals(0, queries.get(0).getBucket());
+        assertEquals(new Point(0, 0), queries.get(0).getSourcePoint());
+        assertEquals(new Point(3, 1), queries.get(0).getTargetPoint());
+        assertEquals(3.41421356, queries.get(0).getOptimalLength(), 0.0);
+        assertEquals(2, queries.get(1).getBucket());
+        assertEquals(new Point(4, 0), queries.get(1).getSourcePoint());
+    }
+    
+    @Test(expected = IOException.class)
+    public void rejectsAMalformedScenarioLine() throws IOException {
+        MovingAIFormat.readScenario(
+                write("version 1\n0\tb.map\t5\t3\tx\t0\t0\t2\t4.8\n"));
+    }
+    
+    @Test
+    public void readsTheDarkPixelsOfAnImageAsWalls() throws IOException {
+        BufferedImage image =
+                new BufferedImage(4, 2, BufferedImage.TYPE_INT_RGB);
+        image.setRGB(0, 0, Color.WHITE.getRGB());
+        image.setRGB(1, 0, Color.BLACK.getRGB());
+        image.setRGB(2, 0, Color.LIGHT_GRAY.getRGB());
+        image.setRGB(3, 0, Color.DARK_GRAY.getRGB());
+        image.setRGB(0, 1, Color.YELLOW.getRGB());
+        image.setRGB(1, 1, Color.BLUE.getRGB());
+        image.setRGB(2, 1, Color.WHITE.getRGB());
+        image.setRGB(3, 1, Color.WHITE.getRGB());
+        Path file = folder.newFile("map.png").toPath();
+        ImageIO.write(image, "png", file.toFile());
+        
+        GridModel grid = MovingAIFormat.readImage(file);
+        
+        assertFalse(grid.isWall(0, 0));
+        assertTrue(grid.isWall(1, 0));
+        assertFalse(grid.isWall(2, 0));
+        assertTrue(grid.isWall(3, 0));
+        assertFalse(grid.isWall(0, 1));
+        assertTrue(grid.isWall(1, 1));
+    }
+    
+    private Path write(String text) throws IOException {
+        Path file = folder.newFile().toPath();
+        Files.write(file, text.getBytes(StandardCharsets.US_ASCII));
+        return file;
+    }
+}
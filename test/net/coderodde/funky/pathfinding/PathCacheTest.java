@@ -0,0 +1,245 @@
+package net.coderodde.funky.pathfinding;
+
+import java.awt.Point;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class PathCacheTest {
+    
+    private static final double EPSILON = 1e-9;
+    
+    /**
+     * Answers every query with the straight path between two neighbors,
+     * counting the calls and optionally waiting for a latch first.
+     */
+    private static final class StubPathfinder extends AbstractPathFinder {
+        
+        final AtomicInteger calls = new AtomicInteger();
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        volatile boolean exit;
+        volatile boolean block;
+        
+        @Override
+        public List<Point> search(Point source,
+                                  Point target,
+                                  SearchContext context) {
+            calls.incrementAndGet();
+            entered.countDown();
+            
+            if (block) {
+                try {
+                    release.await();
+                } catch (InterruptedException ex) {
+                    return null;
+                }
+            }
+            
+            return exit ? null : Arrays.asList(source, target);
+        }
+    }
+    
+    private PathCache cache;
+    
+    @After
+    public void disposeCache() {
+        if (cache != null) {
+            cache.dispose();
+        }
+    }
+    
+    @Test
+    public void returnsShortestPathsAndCountsHits() {
+        GridModel grid = new GridModel(40, 20);
+        
+        for (int y = 0; y < 19; ++y) {
+            grid.setWall(10, y, true);
+        }
+        
+        cache = new PathCache(grid, 8);
+        AbstractPathFinder pathfinder = createDijkstra(grid);
+        Point source = new Point(5, 0);
+        Point target = new Point(15, 0);
+        List<Point> expected = createDijkstra(grid).search(source, target);
+        
+        List<Point> path = cache.getPath(pathfinder, source, target);
+        
+        assertEquals(getLength(expected), getLength(path), EPSILON);
+        assertSame(path, cache.getPath(pathfinder, source, target));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.size());
+    }
+    
+    @Test
+    public void cachesUnreachableTargets() {
+        GridModel grid = new GridModel(20, 20);
+        Point target = new Point(10, 10);
+        
+        for (int dx = -1; dx <= 1; ++dx) {
+            for (int dy = -1; dy <= 1; ++dy) {
+                if (dx != 0 || dy != 0) {
+                    grid.setWall(target.x + dx, target.y + dy, true);
+                }
+            }
+        }
+        
+        cache = new PathCache(grid, 8);
+        AbstractPathFinder pathfinder = createDijkstra(grid);
+        
+        assertNull(cache.getPath(pathfinder, new Point(0, 0), target));
+        assertNull(cache.getPath(pathfinder, new Point(0, 0), target));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.size());
+        
+        grid.setWall(target.x + 1, target.y, false);
+        
+        assertEquals(0, cache.size());
+        assertEquals(target,
+                     last(cache.getPath(pathfinder, new Point(0, 0), target)));
+    }
+    
+    @Test
+    public void doesNotCacheExitedSearches() {
+        GridModel grid = new GridModel(20, 20);
+        cache = new PathCache(grid, 8);
+        StubPathfinder pathfinder = createStub(grid);
+        pathfinder.exit = true;
+        Point source = new Point(0, 0);
+        Point target = new Point(1, 1);
+        
+        assertNull(cache.getPath(pathfinder, source, target));
+        assertEquals(0, cache.size());
+        
+        pathfinder.exit = false;
+        
+        assertEquals(Arrays.asList(source, target),
+                     cache.getPath(pathfinder, source, target));
+        assertEquals(2, pathfinder.calls.get());
+        assertEquals(1, cache.size());
+    }
+    
+    @Test
+    public void coalescesConcurrentRequests() throws Exception {
+        GridModel grid = new GridModel(20, 20);
+        cache = new PathCache(grid, 8);
+        StubPathfinder pathfinder = createStub(grid);
+        pathfinder.block = true;
+        Point source = new Point(0, 0);
+        Point target = new Point(1, 1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        
+        try {
+            Future<List<Point>> first = executor.submit(
+                    () -> cache.getPath(pathfinder, source, target));
+            assertTrue(pathfinder.entered.await(10, TimeUnit.SECONDS));
+            Future<List<Point>> second = executor.submit(
+                    () -> cache.getPath(pathfinder, source, target));
+            
+            while (cache.getMissCount() < 2) {
+                Thread.yield();
+            }
+            
+            pathfinder.release.countDown();
+            
+            assertSame(first.get(10, TimeUnit.SECONDS),
+                       second.get(10, TimeUnit.SECONDS));
+            assertEquals(1, pathfinder.calls.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    @Test
+    public void dropsOnlyTheEntriesAWallEditMayAffect() {
+        GridModel grid = new GridModel(40, 20);
+        
+        for (int y = 0; y < 19; ++y) {
+            grid.setWall(10, y, true);
+        }
+        
+        grid.setWall(35, 15, true);
+        cache = new PathCache(grid, 8);
+        AbstractPathFinder pathfinder = createDijkstra(grid);
+        Point source = new Point(5, 0);
+        Point target = new Point(15, 0);
+        List<Point> detour = cache.getPath(pathfinder, source, target);
+        cache.getPath(pathfinder, new Point(0, 1), new Point(0, 5));
+        
+        // Too far away to give a shorter path.
+        grid.setWall(35, 15, false);
+        assertEquals(2, cache.size());
+        
+        // Opens a shortcut.
+        grid.setWall(10, 0, false);
+        assertEquals(1, cache.size());
+        List<Point> shortcut = cache.getPath(pathfinder, source, target);
+        assertTrue(getLength(shortcut) < getLength(detour));
+        
+        // Blocks the cached path.
+        grid.setWall(shortcut.get(3).x, shortcut.get(3).y, true);
+        assertEquals(1, cache.size());
+        
+        cache.getPath(pathfinder, new Point(0, 1), new Point(0, 5));
+        assertEquals(1, cache.getHitCount());
+    }
+    
+    @Test
+    public void evictsTheLeastRecentlyUsedEntry() {
+        GridModel grid = new GridModel(20, 20);
+        cache = new PathCache(grid, 2);
+        StubPathfinder pathfinder = createStub(grid);
+        Point a = new Point(0, 0);
+        Point b = new Point(1, 1);
+        Point c = new Point(2, 2);
+        
+        cache.getPath(pathfinder, a, b);
+        cache.getPath(pathfinder, b, c);
+        cache.getPath(pathfinder, a, b);
+        cache.getPath(pathfinder, c, b);
+        
+        assertEquals(2, cache.size());
+        cache.getPath(pathfinder, a, b);
+        assertEquals(2, cache.getHitCount());
+        cache.getPath(pathfinder, b, c);
+        assertEquals(2, cache.getHitCount());
+    }
+    
+    private static AbstractPathFinder createDijkstra(GridModel grid) {
+        AbstractPathFinder pathfinder = new DijkstraPathfinder();
+        pathfinder.setGridModel(grid);
+        return pathfinder;
+    }
+    
+    private static StubPathfinder createStub(GridModel grid) {
+        StubPathfinder pathfinder = new StubPathfinder();
+        pathfinder.setGridModel(grid);
+        return pathfinder;
+    }
+    
+    private static Point last(List<Point> path) {
+        return path.get(path.size() - 1);
+    }
+    
+    private static double getLength(List<Point> path) {
+        double length = 0.0;
+        
+        for (int i = 1; i < path.size(); ++i) {
+            length += path.get(i - 1).distance(path.get(i));
+        }
+        
+        return length;
+    }
+}
@@ -0,0 +1,273 @@
+package net.coderodde.funky.pathfinding;
+
+import java.awt.Point;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks the contract every pathfinder of the registry has to honor.
+ */
+@RunWith(Parameterized.class)
+public class PathfinderBehaviorTest {
+    
+    private static final int WIDTH = 48;
+    private static final int HEIGHT = 32;
+    private static final int MAP_COUNT = 12;
+    private static final double WALL_DENSITY = 0.25;
+    private static final double EPSILON = 1e-9;
+    
+    @Parameters(name = "{0}")
+    public static Collection<Object[]> getNames() {
+        List<Object[]> names = new ArrayList<>();
+        
+        for (String name : PathfinderRegistry.getNames()) {
+            names.add(new Object[]{ name });
+        }
+        
+        return names;
+    }
+    
+    private final String name;
+    private final List<PathfinderRegistry> registries = new ArrayList<>();
+    
+    public PathfinderBehaviorTest(String name) {
+        this.name = name;
+    }
+    
+    @After
+    public void disposeRegistries() {
+        for (PathfinderRegistry registry : registries) {
+            registry.dispose();
+        }
+    }
+    
+    @Test
+    public void findsPathsAsShortAsDijkstra() {
+        Random random = new Random(13L);
+        SearchContext context = new SearchContext();
+        int pathCount = 0;
+        
+        for (int map = 0; map < MAP_COUNT; ++map) {
+            GridModel grid = createRandomGrid(random);
+            Point source = new Point(1, 1);
+            Point target = new Point(WIDTH - 2, HEIGHT - 2);
+            grid.setWall(source.x, source.y, false);
+            grid.setWall(target.x, target.y, false);
+            AbstractPathFinder dijkstra =
+                    createPathfinder(grid, PathfinderRegistry.DIJKSTRA_NAME);
+            List<Point> expected;
+            
+            try {
+                expected = dijkstra.search(source, target);
+            } catch (TargetNotReachableException ex) {
+                continue;
+            }
+            
+            context.reset();
+            List<Point> path = createPathfinder(grid, name)
+                    .search(source, target, context);
+            
+            assertNotNull(path);
+            assertValidPath(grid, source, target, path);
+            pathCount++;
+            
+            if (name.equals(PathfinderRegistry.BIDDFS_NAME)) {
+                assertEquals(getFewestMoves(grid, source, target),
+                             path.size() - 1);
+            } else if (name.equals(PathfinderRegistry.HPASTAR_NAME)) {
+                assertTrue(getLength(path) >= getLength(expected) - EPSILON);
+            } else {
+                assertEquals(getLength(expected), getLength(path), EPSILON);
+                assertEquals(getLength(path), context.getPathLength(), EPSILON);
+            }
+        }
+        
+        assertTrue(pathCount > 0);
+    }
+    
+    @Test
+    public void returnsTheSourceWhenItIsTheTarget() {
+        GridModel grid = new GridModel(WIDTH, HEIGHT);
+        Point point = new Point(WIDTH / 2, HEIGHT / 2);
+        SearchContext context = new SearchContext();
+        
+        assertEquals(Arrays.asList(point),
+                     createPathfinder(grid, name)
+                             .search(point, point, context));
+        assertEquals(0.0, context.getPathLength(), EPSILON);
+    }
+    
+    @Test
+    public void returnsAnIsolatedSourceWhenItIsTheTarget() {
+        GridModel grid = new GridModel(WIDTH, HEIGHT);
+        Point point = new Point(WIDTH / 2, HEIGHT / 2);
+        
+        for (int dx = -1; dx <= 1; ++dx) {
+            for (int dy = -1; dy <= 1; ++dy) {
+                if (dx != 0 || dy != 0) {
+                    grid.setWall(point.x + dx, point.y + dy, true);
+                }
+            }
+        }
+        
+        assertEquals(Arrays.asList(point),
+                     createPathfinder(grid, name).search(point, point));
+    }
+    
+    @Test(expected = TargetNotReachableException.class)
+    public void throwsOnUnreachableTarget() {
+        GridModel grid = new GridModel(WIDTH, HEIGHT);
+        Point target = new Point(WIDTH - 5, HEIGHT - 5);
+        
+        for (int dx = -1; dx <= 1; ++dx) {
+            for (int dy = -1; dy <= 1; ++dy) {
+                if (dx != 0 || dy != 0) {
+                    grid.setWall(target.x + dx, target.y + dy, true);
+                }
+            }
+        }
+        
+        createPathfinder(grid, name).search(new Point(2, 2), target);
+    }
+    
+    @Test
+    public void rejectsWallEndpoints() {
+        GridModel grid = new GridModel(WIDTH, HEIGHT);
+        Point wall = new Point(WIDTH / 2, HEIGHT / 2);
+        Point free = new Point(2, 2);
+        grid.setWall(wall.x, wall.y, true);
+        AbstractPathFinder pathfinder = createPathfinder(grid, name);
+        
+        try {
+            pathfinder.search(wall, free);
+            fail("A wall source was accepted.");
+        } catch (TargetNotReachableException ex) {
+            assertEquals("The source point is a wall.", ex.getMessage());
+        }
+        
+        try {
+            pathfinder.search(free, wall);
+            fail("A wall target was accepted.");
+        } catch (TargetNotReachableException ex) {
+            assertEquals("The target point is a wall.", ex.getMessage());
+        }
+    }
+    
+    @Test
+    public void stopsWhenAskedToExit() throws Exception {
+        GridModel grid = new GridModel(WIDTH, HEIGHT);
+        AbstractPathFinder pathfinder = createPathfinder(grid, name);
+        SearchContext context = new SearchContext();
+        context.togglePause();
+        
+        try (SearchScheduler scheduler = new SearchScheduler()) {
+            SearchScheduler.SearchFuture future =
+                    scheduler.submit(pathfinder,
+                                     new Point(0, 0),
+                                     new Point(WIDTH - 1, HEIGHT - 1),
+                                     context);
+            future.halt();
+            assertNull(future.get(10, TimeUnit.SECONDS));
+        }
+    }
+    
+    @Test
+    public void stopsWhenInterrupted() {
+        GridModel grid = new GridModel(WIDTH, HEIGHT);
+        AbstractPathFinder pathfinder = createPathfinder(grid, name);
+        Thread.currentThread().interrupt();
+        
+        try {
+            assertNull(pathfinder.search(new Point(0, 0),
+                                         new Point(WIDTH - 1, HEIGHT - 1)));
+        } finally {
+            Thread.interrupted();
+        }
+    }
+    
+    private AbstractPathFinder createPathfinder(GridModel grid, String name) {
+        PathfinderRegistry registry = new PathfinderRegistry(grid);
+        registries.add(registry);
+        return registry.create(name);
+    }
+    
+    private static GridModel createRandomGrid(Random random) {
+        GridModel grid = new GridModel(WIDTH, HEIGHT);
+        
+        for (int y = 0; y < HEIGHT; ++y) {
+            for (int x = 0; x < WIDTH; ++x) {
+                if (random.nextDouble() < WALL_DENSITY) {
+                    grid.setWall(x, y, true);
+                }
+            }
+        }
+        
+        return grid;
+    }
+    
+    private static void assertValidPath(GridModel grid,
+                                        Point source,
+                                        Point target,
+                                        List<Point> path) {
+        assertEquals(source, path.get(0));
+        assertEquals(target, path.get(path.size() - 1));
+        
+        for (int i = 1; i < path.size(); ++i) {
+            assertTrue(grid.expand(path.get(i - 1)).contains(path.get(i)));
+        }
+    }
+    
+    private static double getLength(List<Point> path) {
+        double length = 0.0;
+        
+        for (int i = 1; i < path.size(); ++i) {
+            length += path.get(i - 1).distance(path.get(i));
+        }
+        
+        return length;
+    }
+    
+    private static int getFewestMoves(GridModel grid,
+                                      Point source,
+                                      Point target) {
+        Map<Point, Integer> moves = new HashMap<>();
+        Deque<Point> queue = new ArrayDeque<>();
+        moves.put(source, 0);
+        queue.add(source);
+        
+        while (!queue.isEmpty()) {
+            Point current = queue.remove();
+            
+            if (current.equals(target)) {
+                return moves.get(current);
+            }
+            
+            for (Point neighbor : grid.expand(current)) {
+                if (!moves.containsKey(neighbor)) {
+                    moves.put(neighbor, moves.get(current) + 1);
+                    queue.add(neighbor);
+                }
+            }
+        }
+        
+        throw new AssertionError("The target is not reachable.");
+    }
+}
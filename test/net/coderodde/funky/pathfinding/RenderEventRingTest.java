@@ -0,0 +1,149 @@
+package net.coderodde.funky.pathfinding;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RenderEventRingTest {
+    
+    @Test
+    public void roundsTheCapacityUpToAPowerOfTwo() {
+        assertEquals(8, new RenderEventRing(5).getCapacity());
+        assertEquals(8, new RenderEventRing(8).getCapacity());
+        assertEquals(1, new RenderEventRing(1).getCapacity());
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsAnEmptyGrid() {
+        new RenderEventRing(0);
+    }
+    
+    @Test
+    public void wrapsAroundInPublicationOrder() {
+        RenderEventRing ring = new RenderEventRing(5);
+        int[] buffer = new int[8];
+        
+        for (int round = 0; round < 20; ++round) {
+            for (int i = 0; i < 5; ++i) {
+                int cellIndex = (round + i) % 5;
+                assertTrue(ring.publish(cellIndex, i % 4));
+            }
+            
+            assertEquals(5, ring.size());
+            assertEquals(5, ring.drain(buffer));
+            
+            for (int i = 0; i < 5; ++i) {
+                assertEquals((round + i) % 5,
+                             RenderEventRing.getCellIndex(buffer[i]));
+                assertEquals(i % 4, RenderEventRing.getKind(buffer[i]));
+            }
+        }
+        
+        assertEquals(0, ring.size());
+        assertEquals(0, ring.getCoalescedCount());
+    }
+    
+    @Test
+    public void keepsTheLastKindOfACell() {
+        RenderEventRing ring = new RenderEventRing(16);
+        int[] buffer = new int[16];
+        
+        assertTrue(ring.publish(3, RenderEventRing.PATH));
+        assertTrue(ring.publish(4, RenderEventRing.PATH));
+        assertFalse(ring.publish(3, RenderEventRing.CLOSED));
+        
+        assertEquals(2, ring.drain(buffer));
+        assertEquals(3, RenderEventRing.getCellIndex(buffer[0]));
+        assertEquals(RenderEventRing.CLOSED,
+                     RenderEventRing.getKind(buffer[0]));
+        assertEquals(RenderEventRing.PATH,
+                     RenderEventRing.getKind(buffer[1]));
+        assertEquals(1, ring.getCoalescedCount());
+        
+        assertTrue(ring.publish(3, RenderEventRing.FRONTIER));
+        assertEquals(1, ring.drain(buffer));
+    }
+    
+    @Test
+    public void drainsAtMostOneBufferPerCall() {
+        RenderEventRing ring = new RenderEventRing(10);
+        int[] buffer = new int[4];
+        
+        for (int i = 0; i < 10; ++i) {
+            ring.publish(i, RenderEventRing.CLOSED);
+        }
+        
+        assertEquals(4, ring.drain(buffer));
+        assertEquals(4, ring.drain(buffer));
+        assertEquals(2, ring.drain(buffer));
+        assertEquals(9, RenderEventRing.getCellIndex(buffer[1]));
+        assertEquals(0, ring.drain(buffer));
+    }
+    
+    @Test
+    public void clearDiscardsThePendingEvents() {
+        RenderEventRing ring = new RenderEventRing(10);
+        
+        for (int i = 0; i < 10; ++i) {
+            ring.publish(i, RenderEventRing.FRONTIER);
+        }
+        
+        ring.clear();
+        assertEquals(0, ring.size());
+        
+        for (int i = 0; i < 10; ++i) {
+            assertTrue(ring.publish(i, RenderEventRing.PATH));
+        }
+        
+        assertEquals(10, ring.drain(new int[16]));
+    }
+    
+    @Test
+    public void theRendererEndsWithTheLastKindOfEveryCell() throws Exception {
+        int cellCount = 1000;
+        RenderEventRing ring = new RenderEventRing(cellCount);
+        int[] expected = new int[cellCount];
+        int[] rendered = new int[cellCount];
+        int[] buffer = new int[64];
+        Thread producer = new Thread(() -> {
+            Random random = new Random(7L);
+            
+            for (int i = 0; i < 1_000_000; ++i) {
+                int cellIndex = random.nextInt(cellCount);
+                int kind = random.nextInt(4);
+                expected[cellIndex] = kind;
+                ring.publish(cellIndex, kind);
+            }
+        });
+        
+        Arrays.fill(rendered, -1);
+        producer.start();
+        
+        while (producer.isAlive()) {
+            render(ring, buffer, rendered);
+        }
+        
+        producer.join();
+        
+        while (ring.size() > 0) {
+            render(ring, buffer, rendered);
+        }
+        
+        assertArrayEquals(expected, rendered);
+    }
+    
+    private static void render(RenderEventRing ring,
+                               int[] buffer,
+                               int[] rendered) {
+        int count = ring.drain(buffer);
+        
+        for (int i = 0; i < count; ++i) {
+            rendered[RenderEventRing.getCellIndex(buffer[i])] =
+                    RenderEventRing.getKind(buffer[i]);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package net.coderodde.funky.pathfinding;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SearchSchedulerTest {
+    
+    private static final long TIMEOUT_SECONDS = 10;
+    
+    private final SearchScheduler scheduler = new SearchScheduler();
+    
+    @After
+    public void closeScheduler() {
+        scheduler.close();
+    }
+    
+    @Test
+    public void runsASearch() throws Exception {
+        SearchScheduler.SearchFuture future =
+                scheduler.submit(createPathfinder(),
+                                 new Point(0, 0),
+                                 new Point(29, 0));
+        CountDownLatch stopped = new CountDownLatch(1);
+        future.whenStopped(stopped::countDown);
+        
+        assertEquals(30, future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS).size());
+        assertTrue(stopped.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(29.0, future.getSearchContext().getPathLength(), 0.0);
+    }
+    
+    @Test
+    public void resumesAPausedSearch() throws Exception {
+        SearchContext context = new SearchContext();
+        context.togglePause();
+        SearchScheduler.SearchFuture future =
+                scheduler.submit(createPathfinder(),
+                                 new Point(0, 0),
+                                 new Point(29, 29),
+                                 context);
+        assertTrue(future.isPaused());
+        assertFalse(future.isDone());
+        
+        future.togglePause();
+        assertEquals(30, future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS).size());
+    }
+    
+    @Test
+    public void haltWakesAPausedSearch() throws Exception {
+        SearchContext context = new SearchContext();
+        context.togglePause();
+        SearchScheduler.SearchFuture future =
+                scheduler.submit(createPathfinder(),
+                                 new Point(0, 0),
+                                 new Point(29, 29),
+                                 context);
+        CountDownLatch stopped = new CountDownLatch(1);
+        future.whenStopped(stopped::countDown);
+        
+        future.halt();
+        assertNull(future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertTrue(stopped.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertFalse(future.isCancelled());
+    }
+    
+    @Test
+    public void reportsTheStopOfACancelledRunningSearch() throws Exception {
+        SearchContext context = new SearchContext();
+        context.togglePause();
+        SearchScheduler.SearchFuture future =
+                scheduler.submit(createPathfinder(),
+                                 new Point(0, 0),
+                                 new Point(29, 29),
+                                 context);
+        CountDownLatch stopped = new CountDownLatch(1);
+        future.whenStopped(stopped::countDown);
+        
+        assertTrue(future.cancel(true));
+        assertTrue(future.isCancelled());
+        assertTrue(stopped.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    }
+    
+    @Test
+    public void reportsTheStopOfASearchCancelledBeforeItStarted() {
+        List<Runnable> tasks = new ArrayList<>();
+        SearchScheduler queued = new SearchScheduler(tasks::add);
+        SearchScheduler.SearchFuture future =
+                queued.submit(createPathfinder(),
+                              new Point(0, 0),
+                              new Point(29, 29));
+        AtomicInteger stops = new AtomicInteger();
+        future.whenStopped(stops::incrementAndGet);
+        
+        assertTrue(future.cancel(false));
+        assertEquals(1, stops.get());
+        
+        // The executor gets round to the task only now.
+        tasks.get(0).run();
+        assertEquals(1, stops.get());
+        assertEquals(0, future.getSearchContext().getNumberOfClosedNodes());
+        
+        future.whenStopped(stops::incrementAndGet);
+        assertEquals(2, stops.get());
+    }
+    
+    private static AbstractPathFinder createPathfinder() {
+        AbstractPathFinder pathfinder = new DijkstraPathfinder();
+        pathfinder.setGridModel(new GridModel(30, 30));
+        return pathfinder;
+    }
+}